@@ -102,6 +102,59 @@ public abstract class AbstractByteReader implements ByteReader {
         return this.endianness.readLong(this);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readInts(int[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            array[i] = readInt();
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readLongs(long[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            array[i] = readLong();
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readDoubles(double[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            array[i] = Double.longBitsToDouble(readLong());
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader transferTo(ByteWriter writer) throws IOException {
+
+        while (isReadable()) {
+
+            writer.writeByte(readByte());
+        }
+
+        return this;
+    }
+
     protected Endianness getEndianness() {
         return this.endianness;
     }
@@ -15,10 +15,12 @@
  */
 package io.horizondb.io;
 
+import io.horizondb.io.buffers.Buffers;
 import io.horizondb.io.encoding.Endianness;
 import io.horizondb.io.serialization.Serializable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -120,6 +122,45 @@ public abstract class AbstractByteWriter implements ByteWriter {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteWriter writeInts(int[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            writeInt(array[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteWriter writeLongs(long[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            writeLong(array[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteWriter writeDoubles(double[] array, int offset, int length) throws IOException {
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            writeLong(Double.doubleToRawLongBits(array[i]));
+        }
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -146,13 +187,45 @@ public abstract class AbstractByteWriter implements ByteWriter {
      * {@inheritDoc}
      */
     @Override
-    public ByteWriter transfer(ByteReader reader) throws IOException {
+    public ByteWriter writeBytes(ByteBuffer buffer) throws IOException {
+
+        if (buffer.hasArray()) {
+
+            writeBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return this;
+        }
+
+        Buffers.copy(buffer, this);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteWriter writeZeroBytes(int length) throws IOException {
+
+        ByteBuffer zeros = Buffers.zeroPage();
 
-        while (reader.isReadable()) {
+        for (int remaining = length; remaining > 0; remaining -= zeros.capacity()) {
 
-            writeByte(reader.readByte());
+            zeros.clear();
+            zeros.limit(Math.min(remaining, zeros.capacity()));
+            writeBytes(zeros);
         }
 
         return this;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteWriter transfer(ByteReader reader) throws IOException {
+
+        reader.transferTo(this);
+        return this;
+    }
 }
@@ -15,6 +15,10 @@
  */
 package io.horizondb.io;
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 import org.apache.commons.lang.Validate;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -22,6 +26,13 @@ import org.apache.commons.lang.builder.HashCodeBuilder;
 /**
  * A set of bits of fixed size.
  * 
+ * <p>
+ * The bits are stored in an array of <code>long</code>s, so the capacity is not limited to the size of a
+ * <code>long</code>. Multi-bit values can be written and read with {@link #writeBits(long, int)} and
+ * {@link #readBits(int)}, and the bits can be transferred to and from buffers, which makes the <code>BitSet</code>
+ * usable as a bit stream.
+ * </p>
+ * 
  * @author Benjamin
  * 
  */
@@ -32,25 +43,20 @@ public final class BitSet {
      */
     private final int capacity;
 
-    /**
-     * The maximum value than the writing bit mask can have.
-     */
-    private final long limit;
-
     /**
      * The bits container.
      */
-    private long bits;
+    private final long[] words;
 
     /**
-     * The reading bit mask.
+     * The index of the next bit to read.
      */
-    private int readingMask;
+    private int readerIndex;
 
     /**
-     * The writing bit mask.
+     * The index of the next bit to write.
      */
-    private int writingMask;
+    private int writerIndex;
 
     /**
      * Creates a new <code>BitSet</code> instance with a capacity of 62 bits.
@@ -67,15 +73,21 @@ public final class BitSet {
      */
     public BitSet(int capacity) {
 
-        Validate.isTrue(capacity > 0 && capacity <= 62, "The capacity must be greater than zero "
-                + "and less or equals to 62");
+        Validate.isTrue(capacity > 0, "The capacity must be greater than zero");
 
-        this.readingMask = 1;
-        this.writingMask = 1;
-        this.limit = computeLimit(capacity);
+        this.words = new long[(capacity + 63) >>> 6];
         this.capacity = capacity;
     }
 
+    /**
+     * Returns the number of bits within this <code>BitSet</code>.
+     * 
+     * @return the number of bits within this <code>BitSet</code>.
+     */
+    public int capacity() {
+        return this.capacity;
+    }
+
     /**
      * Writes the specified bit to this <code>BitSet</code>.
      * <p>
@@ -91,11 +103,49 @@ public final class BitSet {
             throw new IndexOutOfBoundsException("Index: " + writerIndex() + ", Size: " + this.capacity);
         }
 
-        int mask = this.writingMask;
+        doSetBit(this.writerIndex++, bit);
+
+        return this;
+    }
+
+    /**
+     * Writes the specified number of lower bits of the specified value to this <code>BitSet</code>, starting with
+     * the least significant one.
+     * <p>
+     * Unlike {@link #writeBit(boolean)}, this method truncates the content of the <code>BitSet</code> at the writer
+     * index: the bits above the written ones, within the <code>long</code>s written to, are cleared.
+     * </p>
+     * 
+     * @param value the value to write
+     * @param numberOfBits the number of bits to write, between 0 and 64
+     * @return this <code>BitSet</code>.
+     */
+    public BitSet writeBits(long value, int numberOfBits) {
+
+        Validate.isTrue(numberOfBits >= 0 && numberOfBits <= 64, "The number of bits must be between 0 and 64");
+
+        if (this.writerIndex + numberOfBits > this.capacity) {
+
+            throw new IndexOutOfBoundsException("Index: " + (this.writerIndex + numberOfBits) + ", Size: "
+                    + this.capacity);
+        }
+
+        if (numberOfBits == 0) {
+            return this;
+        }
 
-        doSetBit(mask, bit);
+        long bits = numberOfBits == 64 ? value : value & ((1L << numberOfBits) - 1);
 
-        this.writingMask <<= 1;
+        int index = this.writerIndex >>> 6;
+        int shift = this.writerIndex & 63;
+
+        this.words[index] = (this.words[index] & ((1L << shift) - 1)) | (bits << shift);
+
+        if (shift + numberOfBits > 64) {
+            this.words[index + 1] = bits >>> (64 - shift);
+        }
+
+        this.writerIndex += numberOfBits;
 
         return this;
     }
@@ -162,10 +212,42 @@ public final class BitSet {
      */
     public boolean readBit() {
 
-        boolean b = doGetBit(this.readingMask);
-        this.readingMask <<= 1;
+        return getBit(this.readerIndex++);
+    }
+
+    /**
+     * Returns the value made of the specified number of next bits, the first bit read being the least significant
+     * one.
+     * 
+     * @param numberOfBits the number of bits to read, between 0 and 64
+     * @return the value made of the specified number of next bits.
+     */
+    public long readBits(int numberOfBits) {
+
+        Validate.isTrue(numberOfBits >= 0 && numberOfBits <= 64, "The number of bits must be between 0 and 64");
+
+        if (this.readerIndex + numberOfBits > this.capacity) {
+
+            throw new IndexOutOfBoundsException("Index: " + (this.readerIndex + numberOfBits) + ", Size: "
+                    + this.capacity);
+        }
 
-        return b;
+        if (numberOfBits == 0) {
+            return 0;
+        }
+
+        int index = this.readerIndex >>> 6;
+        int shift = this.readerIndex & 63;
+
+        long bits = this.words[index] >>> shift;
+
+        if (shift + numberOfBits > 64) {
+            bits |= this.words[index + 1] << (64 - shift);
+        }
+
+        this.readerIndex += numberOfBits;
+
+        return numberOfBits == 64 ? bits : bits & ((1L << numberOfBits) - 1);
     }
 
     /**
@@ -176,33 +258,41 @@ public final class BitSet {
      */
     public boolean getBit(int index) {
 
-        int mask = 1 << index;
-
-        return doGetBit(mask);
+        return (this.words[index >>> 6] & (1L << index)) != 0;
     }
 
     public int writerIndex() {
 
-        return Long.numberOfTrailingZeros(this.writingMask);
+        return this.writerIndex;
     }
 
     public BitSet writerIndex(int index) {
 
-        this.writingMask = 1 << index;
+        this.writerIndex = index;
         return this;
     }
 
     public int readerIndex() {
 
-        return Long.numberOfTrailingZeros(this.readingMask);
+        return this.readerIndex;
     }
 
     public BitSet readerIndex(int index) {
 
-        this.readingMask = 1 << index;
+        this.readerIndex = index;
         return this;
     }
 
+    /**
+     * Returns the number of bits that can be read.
+     * 
+     * @return the number of bits that can be read.
+     */
+    public int readableBits() {
+
+        return this.writerIndex - this.readerIndex;
+    }
+
     /**
      * Returns <code>true</code> if this <code>BitSet</code> is readable, <code>false</code> otherwise.
      * 
@@ -210,7 +300,7 @@ public final class BitSet {
      */
     public boolean isReadable() {
 
-        return this.readingMask < this.writingMask;
+        return this.readerIndex < this.writerIndex;
     }
 
     /**
@@ -220,7 +310,7 @@ public final class BitSet {
      */
     public boolean isWriteable() {
 
-        return this.writingMask < this.limit;
+        return this.writerIndex < this.capacity;
     }
 
     /**
@@ -228,19 +318,19 @@ public final class BitSet {
      */
     public BitSet reset() {
 
-        this.readingMask = 1;
-        this.writingMask = 1;
+        this.readerIndex = 0;
+        this.writerIndex = 0;
         return this;
     }
 
     /**
-     * Returns the long value corresponding to this <code>BitSet</code>.
+     * Returns the long value corresponding to the first 64 bits of this <code>BitSet</code>.
      * 
-     * @return the long value corresponding to this <code>BitSet</code>.
+     * @return the long value corresponding to the first 64 bits of this <code>BitSet</code>.
      */
     public long toLong() {
 
-        return this.bits;
+        return this.words[0];
     }
 
     /**
@@ -250,7 +340,7 @@ public final class BitSet {
      */
     public byte toByte() {
 
-        return (byte) this.bits;
+        return (byte) this.words[0];
     }
 
     /**
@@ -263,7 +353,79 @@ public final class BitSet {
 
         reset();
 
-        this.bits = l;
+        Arrays.fill(this.words, 0);
+        this.words[0] = l;
+
+        return this;
+    }
+
+    /**
+     * Writes the bits written to this <code>BitSet</code> to the specified buffer. The bits are written as
+     * <code>(writerIndex + 7) / 8</code> bytes, the first bit being the least significant bit of the first byte.
+     * 
+     * @param buffer the buffer to write to
+     * @return this <code>BitSet</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public BitSet writeTo(Buffer buffer) throws IOException {
+
+        int numberOfBytes = (this.writerIndex + 7) >>> 3;
+        int numberOfWords = numberOfBytes >>> 3;
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+        for (int i = 0; i < numberOfWords; i++) {
+            buffer.writeLong(bigEndian ? Long.reverseBytes(this.words[i]) : this.words[i]);
+        }
+
+        for (int i = numberOfWords << 3; i < numberOfBytes; i++) {
+            buffer.writeByte((int) (this.words[i >>> 3] >>> ((i & 7) << 3)));
+        }
+
+        return this;
+    }
+
+    /**
+     * Replaces the content of this <code>BitSet</code> by the specified number of bits read from the specified
+     * buffer, in the format used by {@link #writeTo(Buffer)}. The reader index is reset to zero and the writer index
+     * is set to the number of bits read.
+     * 
+     * @param buffer the buffer to read from
+     * @param numberOfBits the number of bits to read
+     * @return this <code>BitSet</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public BitSet readFrom(ReadableBuffer buffer, int numberOfBits) throws IOException {
+
+        if (numberOfBits > this.capacity) {
+
+            throw new IndexOutOfBoundsException("Index: " + numberOfBits + ", Size: " + this.capacity);
+        }
+
+        int numberOfBytes = (numberOfBits + 7) >>> 3;
+        int numberOfWords = numberOfBytes >>> 3;
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+        for (int i = 0; i < numberOfWords; i++) {
+
+            long word = buffer.readLong();
+            this.words[i] = bigEndian ? Long.reverseBytes(word) : word;
+        }
+
+        if (numberOfWords < this.words.length) {
+
+            long word = 0;
+
+            for (int i = numberOfWords << 3; i < numberOfBytes; i++) {
+                word |= (buffer.readByte() & 0xFFL) << ((i & 7) << 3);
+            }
+
+            this.words[numberOfWords] = word;
+        }
+
+        this.readerIndex = 0;
+        this.writerIndex = numberOfBits;
 
         return this;
     }
@@ -282,9 +444,9 @@ public final class BitSet {
 
         BitSet rhs = (BitSet) object;
 
-        return new EqualsBuilder().append(this.readingMask, rhs.readingMask)
-                                  .append(this.writingMask, rhs.writingMask)
-                                  .append(this.bits, rhs.bits)
+        return new EqualsBuilder().append(this.readerIndex, rhs.readerIndex)
+                                  .append(this.writerIndex, rhs.writerIndex)
+                                  .append(this.words, rhs.words)
                                   .isEquals();
     }
 
@@ -293,9 +455,9 @@ public final class BitSet {
      */
     @Override
     public int hashCode() {
-        return new HashCodeBuilder(205262257, -1771534377).append(this.readingMask)
-                                                          .append(this.writingMask)
-                                                          .append(this.bits)
+        return new HashCodeBuilder(205262257, -1771534377).append(this.readerIndex)
+                                                          .append(this.writerIndex)
+                                                          .append(this.words)
                                                           .toHashCode();
     }
 
@@ -320,48 +482,32 @@ public final class BitSet {
     }
 
     /**
-     * Returns the bit corresponding to the specified mask.
+     * Sets the bit at the specified position.
      * 
-     * @param mask the mask used to retrieve the bit.
-     * @return the bit corresponding to the specified mask.
-     */
-    private boolean doGetBit(int mask) {
-        return ((this.bits & mask) != 0);
-    }
-
-    /**
-     * Sets the bit corresponding to the specified mask.
-     * 
-     * @param mask the mask used to set the bit
+     * @param index the bit position
      * @param bit the new bit value
      */
-    private void doSetBit(int mask, boolean bit) {
+    private void doSetBit(int index, boolean bit) {
         if (bit) {
 
-            this.bits |= mask;
+            this.words[index >>> 6] |= 1L << index;
 
-        } else if ((this.bits & mask) != 0) {
+        } else {
 
-            this.bits ^= mask;
+            this.words[index >>> 6] &= ~(1L << index);
         }
     }
 
-    /**
-     * Computes the maximum value that the mask can have.
-     * 
-     * @param numberOfBits the number of bits.
-     * @return the maximum value that the mask can have.
-     */
-    private static long computeLimit(int numberOfBits) {
-        return 1L << (numberOfBits);
-    }
-
     /**
      * A copy of this <code>BitSet</code>.
      * 
      * @return a copy of this <code>BitSet</code>.
      */
     public BitSet duplicate() {
-        return new BitSet(this.capacity).fill(this.bits);
+
+        BitSet duplicate = new BitSet(this.capacity);
+        System.arraycopy(this.words, 0, duplicate.words, 0, this.words.length);
+
+        return duplicate;
     }
 }
@@ -16,6 +16,7 @@ package io.horizondb.io;
 import io.horizondb.io.serialization.Serializable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -84,6 +85,24 @@ public interface Buffer extends ReadableBuffer, WritableBuffer, SliceableBuffer
     @Override
     long readLong();
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer readInts(int[] array, int offset, int length);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer readLongs(long[] array, int offset, int length);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer readDoubles(double[] array, int offset, int length);
+
     /**
      * {@inheritDoc}
      */
@@ -114,12 +133,36 @@ public interface Buffer extends ReadableBuffer, WritableBuffer, SliceableBuffer
     @Override
     Buffer writeBytes(byte[] bytes, int offset, int length);
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer writeBytes(ByteBuffer buffer);
+
     /**
      * {@inheritDoc}
      */
     @Override
     Buffer writeZeroBytes(int length);
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer writeInts(int[] array, int offset, int length);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer writeLongs(long[] array, int offset, int length);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer writeDoubles(double[] array, int offset, int length);
+
     /**
      * {@inheritDoc}
      */
@@ -240,4 +283,28 @@ public interface Buffer extends ReadableBuffer, WritableBuffer, SliceableBuffer
      */
     @Override
     Buffer slice(int index, int length);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer retain();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer duplicate();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer retainedDuplicate();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Buffer retainedSlice(int index, int length);
 }
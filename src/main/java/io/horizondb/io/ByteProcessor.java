@@ -0,0 +1,32 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io;
+
+/**
+ * Visitor called for each byte of a buffer by {@link ReadableBuffer#forEachByte(ByteProcessor)}.
+ *
+ * @author Benjamin
+ *
+ */
+public interface ByteProcessor {
+
+    /**
+     * Processes the specified byte.
+     *
+     * @param value the byte to process.
+     * @return <code>true</code> if the processing must continue with the next byte, <code>false</code> if it must
+     * stop.
+     */
+    boolean process(byte value);
+}
@@ -118,6 +118,39 @@ public interface ByteReader {
      */
     long readLong() throws IOException;
 
+    /**
+     * Reads the specified number of 32-bit integers into the specified array.
+     * 
+     * @param array the array into which the integers must be read.
+     * @param offset the index of the first integer within the array.
+     * @param length the number of integers to read.
+     * @return this <code>ByteReader</code>
+     * @throws IOException if a problem occurs while reading.
+     */
+    ByteReader readInts(int[] array, int offset, int length) throws IOException;
+
+    /**
+     * Reads the specified number of 64-bit long integers into the specified array.
+     * 
+     * @param array the array into which the long integers must be read.
+     * @param offset the index of the first long integer within the array.
+     * @param length the number of long integers to read.
+     * @return this <code>ByteReader</code>
+     * @throws IOException if a problem occurs while reading.
+     */
+    ByteReader readLongs(long[] array, int offset, int length) throws IOException;
+
+    /**
+     * Reads the specified number of 64-bit doubles into the specified array.
+     * 
+     * @param array the array into which the doubles must be read.
+     * @param offset the index of the first double within the array.
+     * @param length the number of doubles to read.
+     * @return this <code>ByteReader</code>
+     * @throws IOException if a problem occurs while reading.
+     */
+    ByteReader readDoubles(double[] array, int offset, int length) throws IOException;
+
     /**
      * Returns a slice from this <code>ByteReader</code> containing only the specified amount of bytes.
      * 
@@ -131,6 +164,16 @@ public interface ByteReader {
      */
     ReadableBuffer slice(int length) throws IOException;
 
+    /**
+     * Transfers all the remaining bytes of this <code>ByteReader</code> to the specified writer, in chunks as large
+     * as possible.
+     * 
+     * @param writer the <code>ByteWriter</code> to which the bytes must be written.
+     * @return this <code>ByteReader</code>
+     * @throws IOException if an I/O problem occurs while reading or writing the data.
+     */
+    ByteReader transferTo(ByteWriter writer) throws IOException;
+
     /**
      * Returns <code>true</code> if there are more available bytes to read.
      * 
@@ -18,6 +18,7 @@ package io.horizondb.io;
 import io.horizondb.io.serialization.Serializable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
@@ -126,6 +127,39 @@ public interface ByteWriter {
      */
     ByteWriter writeLong(long l) throws IOException;
 
+    /**
+     * Writes the specified 32-bit integers.
+     * 
+     * @param array the array containing the integers.
+     * @param offset the index of the first integer within the array.
+     * @param length the number of integers to write.
+     * @return this <code>ByteWriter</code>
+     * @throws IOException if a problem occurs while writing.
+     */
+    ByteWriter writeInts(int[] array, int offset, int length) throws IOException;
+
+    /**
+     * Writes the specified 64-bit long integers.
+     * 
+     * @param array the array containing the long integers.
+     * @param offset the index of the first long integer within the array.
+     * @param length the number of long integers to write.
+     * @return this <code>ByteWriter</code>
+     * @throws IOException if a problem occurs while writing.
+     */
+    ByteWriter writeLongs(long[] array, int offset, int length) throws IOException;
+
+    /**
+     * Writes the specified 64-bit doubles.
+     * 
+     * @param array the array containing the doubles.
+     * @param offset the index of the first double within the array.
+     * @param length the number of doubles to write.
+     * @return this <code>ByteWriter</code>
+     * @throws IOException if a problem occurs while writing.
+     */
+    ByteWriter writeDoubles(double[] array, int offset, int length) throws IOException;
+
     /**
      * Writes the specified <code>Serializable</code>.
      * 
@@ -135,9 +169,23 @@ public interface ByteWriter {
      */
     ByteWriter writeObject(Serializable serializable) throws IOException;
 
+    /**
+     * Writes the remaining bytes of the specified <code>ByteBuffer</code>. The position of the
+     * <code>ByteBuffer</code> is moved to its limit.
+     * 
+     * @param buffer the <code>ByteBuffer</code> containing the bytes to write.
+     * @return this <code>ByteWriter</code>
+     * @throws IOException if an I/O error occurs.
+     */
+    ByteWriter writeBytes(ByteBuffer buffer) throws IOException;
+
     /**
      * Transfers the bytes from the specified byte reader into this writer.
      * 
+     * <p>
+     * The bytes are moved in chunks as large as possible through {@link ByteReader#transferTo(ByteWriter)}.
+     * </p>
+     * 
      * @param reader the <code>ByteReader</code>.
      * @return this <code>ByteWriter</code>
      * @throws IOException if an I/O error occurs.
@@ -16,15 +16,21 @@
 package io.horizondb.io;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
 /**
  * Readable buffer.
  * 
+ * <p>
+ * A buffer and all the buffers sharing its content through {@link #duplicate()} or the slice methods share the same
+ * reference count. The memory of the buffer can be reused or freed once that count reaches zero.
+ * </p>
+ * 
  * @author Benjamin
  * 
  */
-public interface ReadableBuffer extends ByteReader {
+public interface ReadableBuffer extends ByteReader, ReferenceCounted {
 
     /**
      * {@inheritDoc}
@@ -122,6 +128,79 @@ public interface ReadableBuffer extends ByteReader {
      */
     long getUnsignedInt(int index);
 
+    /**
+     * Returns the index of the first occurrence of the specified byte between the specified positions. The reader
+     * index of this buffer is not modified.
+     *
+     * @param value the byte to search for.
+     * @param fromIndex the position where the search must start (inclusive).
+     * @param toIndex the position where the search must stop (exclusive).
+     * @return the index of the first occurrence of the specified byte, or <code>-1</code> if the byte could not be
+     * found.
+     */
+    int indexOf(byte value, int fromIndex, int toIndex);
+
+    /**
+     * Returns the number of readable bytes preceding the first occurrence of the specified byte.
+     *
+     * @param value the byte to search for.
+     * @return the number of bytes between the reader index and the first occurrence of the specified byte, or
+     * <code>-1</code> if the readable bytes do not contain the specified byte.
+     */
+    int bytesBefore(byte value);
+
+    /**
+     * Returns the number of bytes preceding the first occurrence of the specified byte within the specified amount
+     * of readable bytes.
+     *
+     * @param value the byte to search for.
+     * @param length the number of readable bytes to search.
+     * @return the number of bytes between the reader index and the first occurrence of the specified byte, or
+     * <code>-1</code> if the specified amount of bytes does not contain the specified byte.
+     */
+    int bytesBefore(byte value, int length);
+
+    /**
+     * Calls the specified processor for each readable byte until the processor returns <code>false</code>. The
+     * reader index of this buffer is not modified.
+     *
+     * @param processor the processor.
+     * @return the index of the byte for which the processor returned <code>false</code>, or <code>-1</code> if the
+     * processor returned <code>true</code> for all the readable bytes.
+     */
+    int forEachByte(ByteProcessor processor);
+
+    /**
+     * Calls the specified processor for each byte of the specified region until the processor returns
+     * <code>false</code>.
+     *
+     * @param index the position of the first byte to process.
+     * @param length the number of bytes to process.
+     * @param processor the processor.
+     * @return the index of the byte for which the processor returned <code>false</code>, or <code>-1</code> if the
+     * processor returned <code>true</code> for all the bytes of the region.
+     */
+    int forEachByte(int index, int length, ByteProcessor processor);
+
+    /**
+     * Returns the readable bytes of this buffer as a <code>ByteBuffer</code> with the byte order of this buffer. The
+     * <code>ByteBuffer</code> shares the memory of this buffer whenever it is possible. Otherwise, it contains a
+     * copy of the readable bytes. The position and the limit of the <code>ByteBuffer</code> are independent from the
+     * indices of this buffer.
+     * 
+     * @return the readable bytes of this buffer as a <code>ByteBuffer</code>.
+     */
+    ByteBuffer nioBuffer();
+
+    /**
+     * Returns the readable bytes of this buffer as an array of <code>ByteBuffer</code>s sharing the memory of this
+     * buffer. This allows the readable bytes of a composite buffer to be used without copying them, for example
+     * through a gathering write.
+     * 
+     * @return the readable bytes of this buffer as an array of <code>ByteBuffer</code>s.
+     */
+    ByteBuffer[] nioBuffers();
+
     /**
      * Creates a copy of this buffer with its own independent indices.
      * 
@@ -139,6 +218,33 @@ public interface ReadableBuffer extends ByteReader {
      */
     ReadableBuffer slice(int index, int length) throws IOException;
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    ReadableBuffer retain();
+
+    /**
+     * Creates a copy of this buffer with its own independent indices and increments the reference count.
+     * 
+     * @return a copy of this buffer with its own independent indices.
+     */
+    ReadableBuffer retainedDuplicate();
+
+    /**
+     * Returns a new slice of the buffer starting at the specified position and increments the reference count.
+     * 
+     * <p>
+     * Unlike the slices returned by {@link #slice(int, int)} the returned slice is never recycled.
+     * </p>
+     * 
+     * @param index the slice starting index
+     * @param length the slice length
+     * @return a new slice of the buffer starting at the specified position
+     * @throws IOException if an I/O problem occurs
+     */
+    ReadableBuffer retainedSlice(int index, int length) throws IOException;
+
     /**
      * Checks if the specified buffer and this one can be merged.
      *
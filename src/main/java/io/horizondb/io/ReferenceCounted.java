@@ -0,0 +1,53 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io;
+
+/**
+ * An object holding a resource that must be explicitly released.
+ * 
+ * <p>
+ * A newly created object has a reference count of one. Each call to {@link #retain()} increments the count and each
+ * call to {@link #release()} decrements it. The resource is freed when the count reaches zero and the object must not
+ * be used after that.
+ * </p>
+ * 
+ * @author Benjamin
+ * 
+ */
+public interface ReferenceCounted {
+
+    /**
+     * Returns the reference count of this object.
+     * 
+     * @return the reference count of this object.
+     */
+    int refCnt();
+
+    /**
+     * Increments the reference count of this object.
+     * 
+     * @return this object.
+     * @throws IllegalStateException if this object has already been released.
+     */
+    ReferenceCounted retain();
+
+    /**
+     * Decrements the reference count of this object and frees the resource if the count reaches zero.
+     * 
+     * @return <code>true</code> if the count has reached zero and the resource has been freed, <code>false</code>
+     * otherwise.
+     * @throws IllegalStateException if this object has already been released.
+     */
+    boolean release();
+}
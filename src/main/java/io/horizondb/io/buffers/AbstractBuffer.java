@@ -16,6 +16,7 @@
 package io.horizondb.io.buffers;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteProcessor;
 import io.horizondb.io.ByteReader;
 import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
@@ -23,9 +24,9 @@ import io.horizondb.io.encoding.Endianness;
 import io.horizondb.io.serialization.Serializable;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
-import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
@@ -103,7 +104,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public Buffer setShort(int index, short s) {
 
-        this.endianness.setShort(this, index, s);
+        checkIndex(index, Endianness.SHORT_LENGTH);
+        doSetShort(this.offset + index, s);
         return this;
     }
 
@@ -125,8 +127,7 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     @Override
     public Buffer setUnsignedShort(int index, int s) {
-        this.endianness.setUnsignedShort(this, index, s);
-        return this;
+        return setShort(index, (short) s);
     }
 
     /**
@@ -148,7 +149,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public Buffer setInt(int index, int i) {
 
-        this.endianness.setInt(this, index, i);
+        checkIndex(index, Endianness.INT_LENGTH);
+        doSetInt(this.offset + index, i);
         return this;
     }
 
@@ -159,7 +161,7 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     public ByteWriter writeUnsignedInt(long l) throws IOException {
 
         checkWriteable(Endianness.INT_LENGTH);
-        this.endianness.setUnsignedInt(this, this.writerIndex, l);
+        setUnsignedInt(this.writerIndex, l);
         this.writerIndex += Endianness.INT_LENGTH;
 
         return this;
@@ -170,8 +172,7 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     @Override
     public Buffer setUnsignedInt(int index, long l) {
-        this.endianness.setUnsignedInt(this, index, l);
-        return this;
+        return setInt(index, (int) l);
     }
 
     /**
@@ -192,7 +193,135 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     @Override
     public Buffer setLong(int index, long l) {
-        this.endianness.setLong(this, index, l);
+
+        checkIndex(index, Endianness.LONG_LENGTH);
+        doSetLong(this.offset + index, l);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer readInts(int[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.INT_LENGTH);
+
+        checkReadable(numberOfBytes);
+        nioView(this.offset + this.readerIndex, numberOfBytes).asIntBuffer().get(array, offset, length);
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer readLongs(long[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+        nioView(this.offset + this.readerIndex, numberOfBytes).asLongBuffer().get(array, offset, length);
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer readDoubles(double[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+        nioView(this.offset + this.readerIndex, numberOfBytes).asDoubleBuffer().get(array, offset, length);
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer writeInts(int[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.INT_LENGTH);
+        int index = this.offset + this.writerIndex;
+
+        checkWriteable(numberOfBytes);
+
+        if (isNioBufferWritable()) {
+
+            nioView(index, numberOfBytes).asIntBuffer().put(array, offset, length);
+
+        } else {
+
+            for (int i = offset, m = offset + length; i < m; i++, index += Endianness.INT_LENGTH) {
+                doSetInt(index, array[i]);
+            }
+        }
+
+        this.writerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer writeLongs(long[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.LONG_LENGTH);
+        int index = this.offset + this.writerIndex;
+
+        checkWriteable(numberOfBytes);
+
+        if (isNioBufferWritable()) {
+
+            nioView(index, numberOfBytes).asLongBuffer().put(array, offset, length);
+
+        } else {
+
+            for (int i = offset, m = offset + length; i < m; i++, index += Endianness.LONG_LENGTH) {
+                doSetLong(index, array[i]);
+            }
+        }
+
+        this.writerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer writeDoubles(double[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, Endianness.LONG_LENGTH);
+        int index = this.offset + this.writerIndex;
+
+        checkWriteable(numberOfBytes);
+
+        if (isNioBufferWritable()) {
+
+            nioView(index, numberOfBytes).asDoubleBuffer().put(array, offset, length);
+
+        } else {
+
+            for (int i = offset, m = offset + length; i < m; i++, index += Endianness.LONG_LENGTH) {
+                doSetLong(index, Double.doubleToRawLongBits(array[i]));
+            }
+        }
+
+        this.writerIndex += numberOfBytes;
+
         return this;
     }
 
@@ -218,14 +347,44 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public Buffer transfer(ByteReader reader) throws IOException {
 
-        while (reader.isReadable()) {
+        reader.transferTo(this);
+        return this;
+    }
 
-            this.writeByte(reader.readByte());
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer transferTo(ByteWriter writer) throws IOException {
+
+        ensureAccessible();
+
+        int length = readableBytes();
+
+        doTransferTo(this.offset + this.readerIndex, length, writer);
+        this.readerIndex += length;
 
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer nioBuffer() {
+
+        return nioView(this.offset + this.readerIndex, readableBytes());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer[] nioBuffers() {
+
+        return new ByteBuffer[] { nioBuffer() };
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -295,6 +454,48 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
         return this.slice;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer retain() {
+
+        super.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer retainedDuplicate() {
+
+        Buffer duplicate = duplicate();
+        retain();
+        return duplicate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer retainedSlice(int index, int len) {
+
+        if (index < 0 || len < 0 || (index + len) > this.writerIndex) {
+
+            @SuppressWarnings("boxing")
+            String msg = String.format("Index: %d Length: %d  WriterIndex: %d", index, len, this.writerIndex);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        Buffer slice = duplicate();
+        slice.subRegion(this.offset + index, len);
+        retain();
+
+        return slice;
+    }
+
     /**
      * Creates a new buffer that shares this buffer's content.
      * 
@@ -313,15 +514,68 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public byte getByte(int index) {
 
-        if (index < 0 || index >= capacity()) {
+        checkIndex(index, 1);
+        return doGetByte(this.offset + index);
+    }
 
-            @SuppressWarnings("boxing")
-            String msg = String.format("Index: %d Capacity: %d", index, capacity());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShort(int index) {
 
-            throw new IndexOutOfBoundsException(msg);
+        checkIndex(index, Endianness.SHORT_LENGTH);
+        return doGetShort(this.offset + index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt(int index) {
+
+        checkIndex(index, Endianness.INT_LENGTH);
+        return doGetInt(this.offset + index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong(int index) {
+
+        checkIndex(index, Endianness.LONG_LENGTH);
+        return doGetLong(this.offset + index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(byte value, int fromIndex, int toIndex) {
+
+        if (fromIndex >= toIndex) {
+            return -1;
         }
 
-        return doGetByte(this.offset + index);
+        checkIndex(fromIndex, toIndex - fromIndex);
+
+        int index = doIndexOf(this.offset + fromIndex, this.offset + toIndex, value);
+
+        return index < 0 ? -1 : index - this.offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int forEachByte(int index, int len, ByteProcessor processor) {
+
+        checkIndex(index, len);
+
+        int i = doForEachByte(this.offset + index, this.offset + index + len, processor);
+
+        return i < 0 ? -1 : i - this.offset;
     }
 
     /**
@@ -330,6 +584,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public ReadableBuffer getBytes(int index, byte[] array, int off, int len) {
 
+        ensureAccessible();
+
         if (index < 0 || len < 0 || (index + len) > capacity()) {
 
             @SuppressWarnings("boxing")
@@ -479,7 +735,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public final Buffer setByte(int index, int b) {
 
-        doSetByte(index, b);
+        checkIndex(index, 1);
+        doSetByte(this.offset + index, b);
         return this;
     }
 
@@ -496,6 +753,21 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final Buffer writeBytes(ByteBuffer buffer) {
+
+        int len = buffer.remaining();
+
+        checkWriteable(len);
+        doSetBytes(this.offset + this.writerIndex, buffer);
+        this.writerIndex += len;
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -503,10 +775,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     public final Buffer writeZeroBytes(int numberOfZero) {
 
         checkWriteable(numberOfZero);
-
-        for (int i = 0; i < numberOfZero; i++) {
-            doSetByte(this.offset + this.writerIndex++, 0);
-        }
+        doSetZeroBytes(this.offset + this.writerIndex, numberOfZero);
+        this.writerIndex += numberOfZero;
 
         return this;
     }
@@ -555,7 +825,8 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public String toString() {
 
-        byte[] readableBytes = new byte[readableBytes()];
+        // The memory of a released buffer may have been freed, so its bytes must not be read.
+        byte[] readableBytes = new byte[refCnt() == 0 ? 0 : readableBytes()];
         doGetBytes(this.readerIndex + this.offset, readableBytes, 0, readableBytes.length);
 
         return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("offset", this.offset)
@@ -582,6 +853,123 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     protected abstract void doGetBytes(int index, byte[] bytes, int off, int len);
 
+    /**
+     * Returns the 16-bit short integer at the specified index position. The default implementation assembles it
+     * from the individual bytes, the sub-classes should override it when they can read the short in one access.
+     * 
+     * @param index the short index.
+     * @return the short integer at the specified index position.
+     */
+    protected short doGetShort(int index) {
+        return (short) doGetBytesAsLong(index, Endianness.SHORT_LENGTH);
+    }
+
+    /**
+     * Returns the 32-bit integer at the specified index position. The default implementation assembles it from the
+     * individual bytes, the sub-classes should override it when they can read the integer in one access.
+     * 
+     * @param index the integer index.
+     * @return the integer at the specified index position.
+     */
+    protected int doGetInt(int index) {
+        return (int) doGetBytesAsLong(index, Endianness.INT_LENGTH);
+    }
+
+    /**
+     * Returns the 64-bit long integer at the specified index position. The default implementation assembles it from
+     * the individual bytes, the sub-classes should override it when they can read the long in one access.
+     * 
+     * @param index the long index.
+     * @return the long integer at the specified index position.
+     */
+    protected long doGetLong(int index) {
+        return doGetBytesAsLong(index, Endianness.LONG_LENGTH);
+    }
+
+    /**
+     * Returns the position of the first occurrence of the specified byte between the specified positions. The
+     * default implementation compares the bytes one by one.
+     * 
+     * @param index the position where the search must start (inclusive).
+     * @param end the position where the search must stop (exclusive).
+     * @param value the byte to search for.
+     * @return the position of the first occurrence of the byte or <code>-1</code> if it could not be found.
+     */
+    protected int doIndexOf(int index, int end, byte value) {
+
+        for (int i = index; i < end; i++) {
+
+            if (doGetByte(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Searches the specified byte eight bytes at a time. Each long read is XORed with the searched byte repeated
+     * eight times, which turns the matching bytes into zero bytes. The zero bytes are then flagged without any
+     * branch per byte, so only one comparison is needed for every eight bytes. The sub-classes that can read a long
+     * in one access should implement {@link #doIndexOf(int, int, byte)} with this method.
+     * 
+     * @param index the position where the search must start (inclusive).
+     * @param end the position where the search must stop (exclusive).
+     * @param value the byte to search for.
+     * @return the position of the first occurrence of the byte or <code>-1</code> if it could not be found.
+     */
+    protected final int doIndexOfByWords(int index, int end, byte value) {
+
+        long pattern = (value & 0xFFL) * 0x0101010101010101L;
+        boolean littleEndian = order() == ByteOrder.LITTLE_ENDIAN;
+
+        int i = index;
+
+        for (int m = end - Endianness.LONG_LENGTH; i <= m; i += Endianness.LONG_LENGTH) {
+
+            long word = doGetLong(i) ^ pattern;
+
+            // The high bit of each byte is set if and only if the byte is zero.
+            long zeros = ~(((word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL) | word | 0x7F7F7F7F7F7F7F7FL);
+
+            if (zeros != 0) {
+
+                int bits = littleEndian ? Long.numberOfTrailingZeros(zeros) : Long.numberOfLeadingZeros(zeros);
+                return i + (bits >>> 3);
+            }
+        }
+
+        for (; i < end; i++) {
+
+            if (doGetByte(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Calls the specified processor for each byte between the specified positions until the processor returns
+     * <code>false</code>.
+     * 
+     * @param index the position of the first byte to process (inclusive).
+     * @param end the position of the last byte to process (exclusive).
+     * @param processor the processor.
+     * @return the position of the byte for which the processor returned <code>false</code> or <code>-1</code>.
+     */
+    protected int doForEachByte(int index, int end, ByteProcessor processor) {
+
+        for (int i = index; i < end; i++) {
+
+            if (!processor.process(doGetByte(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Puts the specified byte at the specified position.
      * 
@@ -590,6 +978,39 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     protected abstract void doSetByte(int index, int b);
 
+    /**
+     * Puts the specified 16-bit short integer at the specified position. The default implementation writes the
+     * individual bytes, the sub-classes should override it when they can write the short in one access.
+     * 
+     * @param index the position at which the short must be written.
+     * @param s the short to store.
+     */
+    protected void doSetShort(int index, short s) {
+        doSetBytesFromLong(index, s, Endianness.SHORT_LENGTH);
+    }
+
+    /**
+     * Puts the specified 32-bit integer at the specified position. The default implementation writes the individual
+     * bytes, the sub-classes should override it when they can write the integer in one access.
+     * 
+     * @param index the position at which the integer must be written.
+     * @param i the integer to store.
+     */
+    protected void doSetInt(int index, int i) {
+        doSetBytesFromLong(index, i, Endianness.INT_LENGTH);
+    }
+
+    /**
+     * Puts the specified 64-bit long integer at the specified position. The default implementation writes the
+     * individual bytes, the sub-classes should override it when they can write the long in one access.
+     * 
+     * @param index the position at which the long must be written.
+     * @param l the long to store.
+     */
+    protected void doSetLong(int index, long l) {
+        doSetBytesFromLong(index, l, Endianness.LONG_LENGTH);
+    }
+
     /**
      * Puts the specified bytes at the specified position.
      * 
@@ -600,6 +1021,100 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      */
     protected abstract void doSetBytes(int index, byte[] bytes, int off, int len);
 
+    /**
+     * Puts the remaining bytes of the specified <code>ByteBuffer</code> at the specified position. The default
+     * implementation copies the backing array of the <code>ByteBuffer</code> if it has one, and the bytes one by one
+     * otherwise.
+     * 
+     * @param index the position at which the bytes must be inserted.
+     * @param buffer the <code>ByteBuffer</code> containing the bytes to write.
+     */
+    protected void doSetBytes(int index, ByteBuffer buffer) {
+
+        int len = buffer.remaining();
+
+        if (buffer.hasArray()) {
+
+            doSetBytes(index, buffer.array(), buffer.arrayOffset() + buffer.position(), len);
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        for (int i = 0; i < len; i++) {
+            doSetByte(index + i, buffer.get());
+        }
+    }
+
+    /**
+     * Puts the specified number of zeros at the specified position. The default implementation writes the zeros
+     * one page at a time.
+     * 
+     * @param index the position of the first zero.
+     * @param len the number of zeros to write.
+     */
+    protected void doSetZeroBytes(int index, int len) {
+
+        ByteBuffer zeros = Buffers.zeroPage();
+
+        for (int i = 0; i < len; i += zeros.limit()) {
+
+            zeros.clear();
+            zeros.limit(Math.min(len - i, Buffers.ZERO_PAGE_SIZE));
+            doSetBytes(index + i, zeros);
+        }
+    }
+
+    /**
+     * Writes the specified number of bytes starting at the specified position to the specified writer. The default
+     * implementation copies the bytes through an intermediate array.
+     * 
+     * @param index the position of the first byte to transfer.
+     * @param len the number of bytes to transfer.
+     * @param writer the writer to which the bytes must be written.
+     * @throws IOException if an I/O problem occurs while writing the bytes.
+     */
+    protected void doTransferTo(int index, int len, ByteWriter writer) throws IOException {
+
+        byte[] bytes = new byte[len];
+        doGetBytes(index, bytes, 0, len);
+        writer.writeBytes(bytes, 0, len);
+    }
+
+    /**
+     * Returns a <code>ByteBuffer</code> sharing the specified bytes of this buffer. The position of the returned
+     * <code>ByteBuffer</code> is zero and its limit is the specified length.
+     * 
+     * @param index the position of the first byte.
+     * @param len the number of bytes.
+     * @return a <code>ByteBuffer</code> sharing the specified bytes of this buffer.
+     */
+    protected abstract ByteBuffer doNioBuffer(int index, int len);
+
+    /**
+     * Returns <code>true</code> if the <code>ByteBuffer</code>s returned by {@link #doNioBuffer(int, int)} always
+     * share the memory of this buffer and can therefore be used to write to it. The default implementation returns
+     * <code>true</code>.
+     * 
+     * @return <code>true</code> if the <code>ByteBuffer</code>s returned by {@link #doNioBuffer(int, int)} can be
+     * used to write to this buffer.
+     */
+    protected boolean isNioBufferWritable() {
+        return true;
+    }
+
+    /**
+     * Returns a <code>ByteBuffer</code> sharing the specified bytes of this buffer and using its byte order.
+     * 
+     * @param index the position of the first byte.
+     * @param len the number of bytes.
+     * @return a <code>ByteBuffer</code> sharing the specified bytes of this buffer.
+     */
+    private ByteBuffer nioView(int index, int len) {
+
+        ensureAccessible();
+        return doNioBuffer(index, len).order(order());
+    }
+
     /**
      * Checks that the specified sub-region is valid.
      * 
@@ -617,14 +1132,90 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
         return this.offset;
     }
 
+    /**
+     * Checks that the specified amount of bytes can be accessed at the specified index.
+     * 
+     * @param index the index of the first byte.
+     * @param numberOfBytes the number of bytes to access.
+     * @throws IndexOutOfBoundsException if the bytes are not within the buffer.
+     * @throws IllegalStateException if the buffer has been released.
+     */
+    private void checkIndex(int index, int numberOfBytes) {
+
+        ensureAccessible();
+
+        if (index < 0 || index > this.length - numberOfBytes) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Capacity: %d", index, numberOfBytes, this.length);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    /**
+     * Assembles the specified number of bytes starting at the specified position into a long, using the order of
+     * this buffer.
+     * 
+     * @param index the position of the first byte.
+     * @param numberOfBytes the number of bytes to read.
+     * @return the bytes as a long.
+     */
+    private long doGetBytesAsLong(int index, int numberOfBytes) {
+
+        long value = 0;
+
+        if (order() == ByteOrder.BIG_ENDIAN) {
+
+            for (int i = 0; i < numberOfBytes; i++) {
+                value = (value << 8) | (doGetByte(index + i) & 0xFF);
+            }
+
+        } else {
+
+            for (int i = numberOfBytes - 1; i >= 0; i--) {
+                value = (value << 8) | (doGetByte(index + i) & 0xFF);
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes the specified number of low-order bytes of the specified value starting at the specified position,
+     * using the order of this buffer.
+     * 
+     * @param index the position of the first byte.
+     * @param value the value to write.
+     * @param numberOfBytes the number of bytes to write.
+     */
+    private void doSetBytesFromLong(int index, long value, int numberOfBytes) {
+
+        if (order() == ByteOrder.BIG_ENDIAN) {
+
+            for (int i = numberOfBytes - 1; i >= 0; i--) {
+                doSetByte(index + numberOfBytes - 1 - i, (int) (value >>> (i << 3)));
+            }
+
+        } else {
+
+            for (int i = 0; i < numberOfBytes; i++) {
+                doSetByte(index + i, (int) (value >>> (i << 3)));
+            }
+        }
+    }
+
     /**
      * Checks that the specified amount of bytes can be read.
      * 
      * @param numberOfBytes the number of bytes to read.
      * @throws IllegalArgumentException if the specified number of bytes cannot be read.
+     * @throws IllegalStateException if the buffer has been released.
      */
     private void checkReadable(int numberOfBytes) {
 
+        ensureAccessible();
+
         int readableBytes = readableBytes();
 
         if (numberOfBytes > readableBytes) {
@@ -643,9 +1234,12 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
      * 
      * @param numberOfBytes the number of bytes to write.
      * @throws IllegalArgumentException if the specified number of bytes cannot be written.
+     * @throws IllegalStateException if the buffer has been released.
      */
     private void checkWriteable(int numberOfBytes) {
 
+        ensureAccessible();
+
         int writeableBytes = writeableBytes();
 
         if (numberOfBytes > writeableBytes) {
@@ -671,24 +1265,7 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
         if (!(object instanceof Buffer)) {
             return false;
         }
-        Buffer rhs = (Buffer) object;
-
-        if (rhs.readableBytes() != this.readableBytes()) {
-            return false;
-        }
-
-        int i = readerIndex();
-        int j = rhs.readerIndex();
-        int m = readableBytes();
-
-        while (i < m) {
-
-            if (getByte(i++) != rhs.getByte(j++)) {
-                return false;
-            }
-        }
-
-        return true;
+        return ReadableBuffers.equals(this, (Buffer) object);
     }
 
     /**
@@ -697,14 +1274,7 @@ abstract class AbstractBuffer extends AbstractReadableBuffer implements Buffer {
     @Override
     public int hashCode() {
 
-        HashCodeBuilder builder = new HashCodeBuilder(-1263385815, 438112389);
-
-        for (int i = readerIndex(), m = readableBytes(); i < m; i++) {
-
-            builder.append(getByte(i));
-        }
-
-        return builder.toHashCode();
+        return ReadableBuffers.hashCode(this);
     }
 
     /**
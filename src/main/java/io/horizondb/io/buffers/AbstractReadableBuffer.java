@@ -15,6 +15,8 @@
  */
 package io.horizondb.io.buffers;
 
+import io.horizondb.io.ByteProcessor;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.encoding.Endianness;
 
@@ -42,6 +44,11 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
      */
     protected int readerIndex;
 
+    /**
+     * The reference count shared with the buffers sharing the content of this one.
+     */
+    ReferenceCount referenceCount = new ReferenceCount();
+
     /**
      * {@inheritDoc}
      */
@@ -79,7 +86,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
 
         checkReadable(SHORT_LENGTH);
 
-        short s = getShort(this.readerIndex);
+        short s = getShort(readerIndex());
         this.readerIndex += SHORT_LENGTH;
 
         return s;
@@ -89,7 +96,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
      * {@inheritDoc}
      */
     @Override
-    public final short getShort(int index) {
+    public short getShort(int index) {
 
         return this.endianness.getShort(this, index);
     }
@@ -102,7 +109,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
 
         checkReadable(SHORT_LENGTH);
 
-        int s = getUnsignedShort(this.readerIndex);
+        int s = getUnsignedShort(readerIndex());
         this.readerIndex += SHORT_LENGTH;
 
         return s;
@@ -114,7 +121,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
     @Override
     public final int getUnsignedShort(int index) {
 
-        return this.endianness.getUnsignedShort(this, index);
+        return getShort(index) & 0xFFFF;
     }
 
     /**
@@ -125,7 +132,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
 
         checkReadable(INT_LENGTH);
 
-        int i = getInt(this.readerIndex);
+        int i = getInt(readerIndex());
         this.readerIndex += INT_LENGTH;
 
         return i;
@@ -135,7 +142,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
      * {@inheritDoc}
      */
     @Override
-    public final int getInt(int index) {
+    public int getInt(int index) {
 
         return this.endianness.getInt(this, index);
     }
@@ -147,7 +154,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
     public final long readUnsignedInt() {
         checkReadable(INT_LENGTH);
 
-        long i = getUnsignedInt(this.readerIndex);
+        long i = getUnsignedInt(readerIndex());
         this.readerIndex += INT_LENGTH;
 
         return i;
@@ -159,7 +166,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
     @Override
     public final long getUnsignedInt(int index) {
 
-        return this.endianness.getUnsignedInt(this, index);
+        return getInt(index) & 0xFFFFFFFFL;
     }
 
     /**
@@ -169,7 +176,7 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
     public final long readLong() {
         checkReadable(LONG_LENGTH);
 
-        long l = this.endianness.getLong(this, this.readerIndex);
+        long l = getLong(readerIndex());
         this.readerIndex += LONG_LENGTH;
 
         return l;
@@ -179,11 +186,138 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
      * {@inheritDoc}
      */
     @Override
-    public final long getLong(int index) {
+    public long getLong(int index) {
 
         return this.endianness.getLong(this, index);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer readInts(int[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        checkReadable(numberOfBytes);
+
+        int index = readerIndex();
+
+        for (int i = offset, m = offset + length; i < m; i++, index += INT_LENGTH) {
+            array[i] = getInt(index);
+        }
+
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer readLongs(long[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+
+        int index = readerIndex();
+
+        for (int i = offset, m = offset + length; i < m; i++, index += LONG_LENGTH) {
+            array[i] = getLong(index);
+        }
+
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer readDoubles(double[] array, int offset, int length) {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+
+        int index = readerIndex();
+
+        for (int i = offset, m = offset + length; i < m; i++, index += LONG_LENGTH) {
+            array[i] = Double.longBitsToDouble(getLong(index));
+        }
+
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(byte value, int fromIndex, int toIndex) {
+
+        for (int i = fromIndex; i < toIndex; i++) {
+
+            if (getByte(i) == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int bytesBefore(byte value) {
+
+        return bytesBefore(value, readableBytes());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int bytesBefore(byte value, int length) {
+
+        checkReadable(length);
+
+        int readerIndex = readerIndex();
+        int index = indexOf(value, readerIndex, readerIndex + length);
+
+        return index < 0 ? -1 : index - readerIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final int forEachByte(ByteProcessor processor) {
+
+        return forEachByte(readerIndex(), readableBytes(), processor);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int forEachByte(int index, int length, ByteProcessor processor) {
+
+        for (int i = index, m = index + length; i < m; i++) {
+
+            if (!processor.process(getByte(i))) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -196,6 +330,67 @@ abstract class AbstractReadableBuffer implements ReadableBuffer {
         return slice;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer transferTo(ByteWriter writer) throws IOException {
+
+        Buffers.copy(this, writer, readableBytes());
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int refCnt() {
+        return this.referenceCount.get();
+    }
+
+    /**
+     * Checks that this buffer has not been released. The memory of a released buffer may already have been freed or
+     * reused, so it must not be accessed anymore.
+     * 
+     * @throws IllegalStateException if the buffer has been released.
+     */
+    protected final void ensureAccessible() {
+
+        if (refCnt() == 0) {
+            throw new IllegalStateException("the buffer has already been released");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer retain() {
+
+        this.referenceCount.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean release() {
+        return this.referenceCount.release();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReadableBuffer retainedDuplicate() {
+
+        ReadableBuffer duplicate = duplicate();
+        retain();
+        return duplicate;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,651 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+import io.horizondb.io.WritableBuffer;
+import io.horizondb.io.encoding.Endianness;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+import static io.horizondb.io.encoding.Endianness.SHORT_LENGTH;
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * Append-only <code>WritableBuffer</code> that grows by fixed-size chunks retrieved from a <code>BufferAllocator</code>.
+ *
+ * <p>
+ * The bytes already written are never copied when the chain grows, which allows data to be serialized without
+ * computing its size first. The content of the chain can be read through a {@link CompositeBuffer} or written to a
+ * channel through an array of <code>ByteBuffer</code>s.
+ * </p>
+ *
+ * <p>
+ * The chunks are given back to the allocator when the chain is released.
+ * </p>
+ */
+public final class BufferChain extends AbstractByteWriter implements WritableBuffer {
+
+    /**
+     * The default size of the chunks.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    /**
+     * The allocator providing the chunks.
+     */
+    private final BufferAllocator allocator;
+
+    /**
+     * The size of the chunks.
+     */
+    private final int chunkSize;
+
+    /**
+     * The chunks.
+     */
+    private final List<Buffer> chunks = new ArrayList<>();
+
+    /**
+     * The writer index.
+     */
+    private int writerIndex;
+
+    /**
+     * Creates a new <code>BufferChain</code> that uses chunks of the default size.
+     *
+     * @param allocator the allocator providing the chunks
+     */
+    public BufferChain(BufferAllocator allocator) {
+
+        this(allocator, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new <code>BufferChain</code>.
+     *
+     * @param allocator the allocator providing the chunks
+     * @param chunkSize the size of the chunks
+     */
+    public BufferChain(BufferAllocator allocator, int chunkSize) {
+
+        notNull(allocator, "the allocator parameter must not be null.");
+        isTrue(chunkSize > 0, "the chunk size must be strictly positive.");
+
+        this.allocator = allocator;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the number of chunks allocated by this chain.
+     *
+     * @return the number of chunks allocated by this chain.
+     */
+    public int numberOfChunks() {
+        return this.chunks.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int writerIndex() {
+        return this.writerIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writerIndex(int index) {
+
+        int capacity = this.chunks.size() * this.chunkSize;
+
+        if (index < 0 || index > capacity) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("writerIndex: %d (expected: 0 <= writerIndex <= allocated capacity(%d))",
+                                index,
+                                capacity);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        for (int i = 0, m = this.chunks.size(); i < m; i++) {
+
+            int chunkWriterIndex = Math.max(0, Math.min(index - (i * this.chunkSize), this.chunkSize));
+            this.chunks.get(i).writerIndex(chunkWriterIndex);
+        }
+
+        this.writerIndex = index;
+        return this;
+    }
+
+    /**
+     * Resets the writer index to zero. The chunks are kept and will be reused by the next writes.
+     */
+    public void clear() {
+
+        writerIndex(0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isWriteable() {
+        return writeableBytes() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int writeableBytes() {
+        return Integer.MAX_VALUE - this.writerIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeByte(int b) {
+
+        writableChunk().writeByte(b);
+        this.writerIndex++;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeBytes(byte[] bytes, int offset, int length) {
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            Buffer chunk = writableChunk();
+            int numberOfBytes = Math.min(remaining, chunk.writeableBytes());
+
+            chunk.writeBytes(bytes, off, numberOfBytes);
+            this.writerIndex += numberOfBytes;
+            off += numberOfBytes;
+            remaining -= numberOfBytes;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeBytes(ByteBuffer buffer) {
+
+        while (buffer.hasRemaining()) {
+
+            Buffer chunk = writableChunk();
+            int numberOfBytes = Math.min(buffer.remaining(), chunk.writeableBytes());
+
+            ByteBuffer src = buffer.duplicate();
+            src.limit(src.position() + numberOfBytes);
+
+            chunk.writeBytes(src);
+            buffer.position(buffer.position() + numberOfBytes);
+            this.writerIndex += numberOfBytes;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeZeroBytes(int length) {
+
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            Buffer chunk = writableChunk();
+            int numberOfBytes = Math.min(remaining, chunk.writeableBytes());
+
+            chunk.writeZeroBytes(numberOfBytes);
+            this.writerIndex += numberOfBytes;
+            remaining -= numberOfBytes;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeShort(short s) throws IOException {
+
+        Buffer chunk = writableChunk();
+
+        if (chunk.writeableBytes() < SHORT_LENGTH) {
+
+            super.writeShort(s);
+            return this;
+        }
+
+        chunk.order(order());
+        chunk.writeShort(s);
+        this.writerIndex += SHORT_LENGTH;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeUnsignedShort(int s) throws IOException {
+
+        return writeShort((short) s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeInt(int i) throws IOException {
+
+        Buffer chunk = writableChunk();
+
+        if (chunk.writeableBytes() < INT_LENGTH) {
+
+            super.writeInt(i);
+            return this;
+        }
+
+        chunk.order(order());
+        chunk.writeInt(i);
+        this.writerIndex += INT_LENGTH;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeUnsignedInt(long l) throws IOException {
+
+        return writeInt((int) l);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeLong(long l) throws IOException {
+
+        Buffer chunk = writableChunk();
+
+        if (chunk.writeableBytes() < LONG_LENGTH) {
+
+            super.writeLong(l);
+            return this;
+        }
+
+        chunk.order(order());
+        chunk.writeLong(l);
+        this.writerIndex += LONG_LENGTH;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeInts(int[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            Buffer chunk = writableChunk();
+            int count = Math.min(remaining, chunk.writeableBytes() / INT_LENGTH);
+
+            if (count == 0) {
+
+                writeInt(array[off]);
+                count = 1;
+
+            } else {
+
+                chunk.order(order());
+                chunk.writeInts(array, off, count);
+                this.writerIndex += count * INT_LENGTH;
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeLongs(long[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            Buffer chunk = writableChunk();
+            int count = Math.min(remaining, chunk.writeableBytes() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                writeLong(array[off]);
+                count = 1;
+
+            } else {
+
+                chunk.order(order());
+                chunk.writeLongs(array, off, count);
+                this.writerIndex += count * LONG_LENGTH;
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain writeDoubles(double[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            Buffer chunk = writableChunk();
+            int count = Math.min(remaining, chunk.writeableBytes() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                writeLong(Double.doubleToRawLongBits(array[off]));
+                count = 1;
+
+            } else {
+
+                chunk.order(order());
+                chunk.writeDoubles(array, off, count);
+                this.writerIndex += count * LONG_LENGTH;
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setByte(int index, int b) {
+
+        checkIndex(index, 1);
+        this.chunks.get(index / this.chunkSize).setByte(index % this.chunkSize, b);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setShort(int index, short s) {
+
+        checkIndex(index, SHORT_LENGTH);
+
+        Buffer chunk = chunk(index, SHORT_LENGTH);
+
+        if (chunk == null) {
+            Endianness.getEndianness(order()).setShort(this, index, s);
+        } else {
+            chunk.setShort(index % this.chunkSize, s);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setUnsignedShort(int index, int s) {
+
+        return setShort(index, (short) s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setInt(int index, int i) {
+
+        checkIndex(index, INT_LENGTH);
+
+        Buffer chunk = chunk(index, INT_LENGTH);
+
+        if (chunk == null) {
+            Endianness.getEndianness(order()).setInt(this, index, i);
+        } else {
+            chunk.setInt(index % this.chunkSize, i);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setUnsignedInt(int index, long l) {
+
+        return setInt(index, (int) l);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferChain setLong(int index, long l) {
+
+        checkIndex(index, LONG_LENGTH);
+
+        Buffer chunk = chunk(index, LONG_LENGTH);
+
+        if (chunk == null) {
+            Endianness.getEndianness(order()).setLong(this, index, l);
+        } else {
+            chunk.setLong(index % this.chunkSize, l);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns a new <code>CompositeBuffer</code> containing the bytes written to this chain. The composite retains the
+     * chunks, so it remains valid after the chain has been released.
+     *
+     * @return a new <code>CompositeBuffer</code> containing the bytes written to this chain.
+     * @throws IOException if an I/O problem occurs
+     */
+    public CompositeBuffer toCompositeBuffer() throws IOException {
+
+        CompositeBuffer composite = new CompositeBuffer();
+        composite.order(order());
+
+        for (int i = 0, m = numberOfReadableChunks(); i < m; i++) {
+
+            Buffer chunk = this.chunks.get(i);
+            composite.addBytes(chunk.slice(0, chunk.writerIndex()));
+        }
+
+        return composite;
+    }
+
+    /**
+     * Returns the bytes written to this chain as an array of <code>ByteBuffer</code>s that can be used for gathering
+     * writes. The <code>ByteBuffer</code>s share the memory of the chunks and must not be used once the chain has been
+     * released.
+     *
+     * @return the bytes written to this chain as an array of <code>ByteBuffer</code>s.
+     */
+    public ByteBuffer[] nioBuffers() {
+
+        ByteBuffer[] buffers = new ByteBuffer[numberOfReadableChunks()];
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = this.chunks.get(i).nioBuffer();
+        }
+
+        return buffers;
+    }
+
+    /**
+     * Gives back all the chunks to the allocator.
+     */
+    public void release() {
+
+        for (int i = 0, m = this.chunks.size(); i < m; i++) {
+            this.chunks.get(i).release();
+        }
+
+        this.chunks.clear();
+        this.writerIndex = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("order", order())
+                                                                          .append("chunkSize", this.chunkSize)
+                                                                          .append("writerIndex", this.writerIndex)
+                                                                          .append("chunks", this.chunks.size())
+                                                                          .toString();
+    }
+
+    /**
+     * Returns the chunk to which the next byte must be written, allocating a new one if needed.
+     *
+     * @return the chunk to which the next byte must be written.
+     */
+    private Buffer writableChunk() {
+
+        int index = this.writerIndex / this.chunkSize;
+
+        if (index == this.chunks.size()) {
+            this.chunks.add(this.allocator.allocate(this.chunkSize));
+        }
+
+        return this.chunks.get(index);
+    }
+
+    /**
+     * Returns the chunk containing all the specified bytes with the byte order of this chain, or <code>null</code>
+     * if the bytes span two chunks.
+     *
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return the chunk containing all the specified bytes or <code>null</code> if the bytes span two chunks.
+     */
+    private Buffer chunk(int index, int length) {
+
+        if ((index % this.chunkSize) + length > this.chunkSize) {
+            return null;
+        }
+
+        Buffer chunk = this.chunks.get(index / this.chunkSize);
+        chunk.order(order());
+
+        return chunk;
+    }
+
+    /**
+     * Returns the number of chunks containing written bytes.
+     *
+     * @return the number of chunks containing written bytes.
+     */
+    private int numberOfReadableChunks() {
+        return (this.writerIndex + this.chunkSize - 1) / this.chunkSize;
+    }
+
+    /**
+     * Checks that the specified bytes have already been written.
+     *
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @throws IndexOutOfBoundsException if the specified bytes have not been written yet.
+     */
+    private void checkIndex(int index, int length) {
+
+        if (index < 0 || (index + length) > this.writerIndex) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Expected: 0 <= index and index + length <= writerIndex(%d)",
+                                index,
+                                length,
+                                this.writerIndex);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+}
@@ -15,6 +15,8 @@ package io.horizondb.io.buffers;
 
 import io.horizondb.io.Buffer;
 import io.horizondb.io.BufferAllocator;
+import io.horizondb.io.ByteReader;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.serialization.Serializable;
 import io.netty.buffer.ByteBuf;
@@ -28,15 +30,129 @@ import java.nio.ByteBuffer;
 public final class Buffers {
 
     /**
-     * A buffer whose capacity is {@code 0}.
+     * A buffer whose capacity is {@code 0}. Releasing it has no effect.
      */
-    public static final Buffer EMPTY_BUFFER = new HeapBuffer(0);
+    public static final Buffer EMPTY_BUFFER = newEmptyBuffer();
 
     /**
      * The default <code>BufferAllocator</code> instance.
      */
     public static final BufferAllocator DEFAULT_ALLOCATOR = new DefaultBufferAllocator();
 
+    /**
+     * The size of the shared page of zeros.
+     */
+    public static final int ZERO_PAGE_SIZE = 4096;
+
+    /**
+     * The size of the chunks used to copy bytes that cannot be transferred in one go.
+     */
+    public static final int COPY_CHUNK_SIZE = 8192;
+
+    /**
+     * The shared page of zeros.
+     */
+    private static final ByteBuffer ZERO_PAGE = ByteBuffer.allocateDirect(ZERO_PAGE_SIZE).asReadOnlyBuffer();
+
+    /**
+     * Returns a read-only view of a shared page of {@link #ZERO_PAGE_SIZE} zeros. Each call returns a new view whose
+     * position and limit can be freely modified.
+     * 
+     * @return a read-only view of a shared page of zeros.
+     */
+    public static ByteBuffer zeroPage() {
+        return ZERO_PAGE.duplicate();
+    }
+
+    /**
+     * Puts the specified number of zeros into the specified <code>ByteBuffer</code> at its current position, one page
+     * at a time.
+     * 
+     * @param buffer the <code>ByteBuffer</code> to fill.
+     * @param length the number of zeros to put.
+     */
+    public static void putZeroBytes(ByteBuffer buffer, int length) {
+
+        ByteBuffer zeros = zeroPage();
+
+        for (int remaining = length; remaining > 0; remaining -= zeros.limit()) {
+
+            zeros.clear();
+            zeros.limit(Math.min(remaining, ZERO_PAGE_SIZE));
+            buffer.put(zeros);
+        }
+    }
+
+    /**
+     * Copies the specified number of bytes from the specified reader to the specified writer, through an
+     * intermediate array of at most {@link #COPY_CHUNK_SIZE} bytes.
+     * 
+     * @param reader the reader to read the bytes from.
+     * @param writer the writer to write the bytes to.
+     * @param length the number of bytes to copy.
+     * @throws IOException if an I/O problem occurs
+     */
+    public static void copy(ByteReader reader, ByteWriter writer, long length) throws IOException {
+
+        byte[] chunk = new byte[(int) Math.min(length, COPY_CHUNK_SIZE)];
+
+        for (long remaining = length; remaining > 0;) {
+
+            int chunkLength = (int) Math.min(remaining, chunk.length);
+
+            reader.readBytes(chunk, 0, chunkLength);
+            writer.writeBytes(chunk, 0, chunkLength);
+
+            remaining -= chunkLength;
+        }
+    }
+
+    /**
+     * Copies the remaining bytes of the specified <code>ByteBuffer</code> to the specified writer, through an
+     * intermediate array of at most {@link #COPY_CHUNK_SIZE} bytes.
+     * 
+     * @param buffer the <code>ByteBuffer</code> to read the bytes from.
+     * @param writer the writer to write the bytes to.
+     * @throws IOException if an I/O problem occurs
+     */
+    public static void copy(ByteBuffer buffer, ByteWriter writer) throws IOException {
+
+        byte[] chunk = new byte[Math.min(buffer.remaining(), COPY_CHUNK_SIZE)];
+
+        while (buffer.hasRemaining()) {
+
+            int chunkLength = Math.min(buffer.remaining(), chunk.length);
+
+            buffer.get(chunk, 0, chunkLength);
+            writer.writeBytes(chunk, 0, chunkLength);
+        }
+    }
+
+    /**
+     * Checks that the specified region is within an array of the specified length and returns the number of bytes
+     * used to store the elements of the region.
+     *
+     * @param arrayLength the length of the array.
+     * @param offset the index of the first element of the region.
+     * @param length the number of elements of the region.
+     * @param elementLength the number of bytes used to store each element.
+     * @return the number of bytes used to store the elements of the region.
+     * @throws IndexOutOfBoundsException if the region is not within the array or if its number of bytes exceeds
+     * <code>Integer.MAX_VALUE</code>.
+     */
+    public static int checkArrayRegion(int arrayLength, int offset, int length, int elementLength) {
+
+        if (offset < 0 || length < 0 || offset > arrayLength - length || length > Integer.MAX_VALUE / elementLength) {
+
+            @SuppressWarnings("boxing")
+            String msg = String.format("Offset: %d Length: %d Array length: %d", offset, length, arrayLength);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        return length * elementLength;
+    }
+
     /**
      * Allocates a new buffer with the specified capacity.
      * 
@@ -75,7 +191,8 @@ public final class Buffers {
     }
 
     /**
-     * Allocates a new direct buffer.
+     * Allocates a new direct buffer. If the direct memory budget is exhausted and the {@link DirectMemory} policy
+     * allows it, a heap buffer is returned instead.
      * 
      * @param capacity the buffer capacity.
      * @return a new buffer with the specified capacity.
@@ -86,7 +203,28 @@ public final class Buffers {
             return EMPTY_BUFFER;
         }
 
-        return new DirectBuffer(capacity);
+        ByteBuffer memory = DirectMemory.allocate(DirectMemory.Category.BUFFER, capacity);
+
+        if (!memory.isDirect()) {
+
+            Buffer buffer = wrap(memory.array());
+            buffer.clear();
+            return buffer;
+        }
+
+        return new DirectBuffer(memory, DirectMemory.Category.BUFFER);
+    }
+
+    /**
+     * Allocates a new off-heap buffer addressed with <code>long</code> indices. The memory is freed as soon as the
+     * buffer is released.
+     * 
+     * @param capacity the buffer capacity.
+     * @return a new large buffer with the specified capacity.
+     */
+    public static LargeBuffer allocateLarge(long capacity) {
+
+        return new LargeBuffer(capacity);
     }
 
     /**
@@ -166,6 +304,18 @@ public final class Buffers {
         return DEFAULT_ALLOCATOR;
     }
 
+    /**
+     * Creates a buffer whose capacity is {@code 0} and that cannot be released.
+     * 
+     * @return a buffer whose capacity is {@code 0} and that cannot be released.
+     */
+    private static Buffer newEmptyBuffer() {
+
+        HeapBuffer buffer = new HeapBuffer(0);
+        buffer.referenceCount = ReferenceCount.UNRELEASABLE;
+        return buffer;
+    }
+
     /**
      * Must not be instantiated.
      */
@@ -13,25 +13,74 @@
  */
 package io.horizondb.io.buffers;
 
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+import io.horizondb.io.ByteProcessor;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+import static io.horizondb.io.encoding.Endianness.SHORT_LENGTH;
 import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
 /**
  * A composite <code>ReadableBuffer</code>.
+ * 
+ * <p>
+ * The composite retains the buffers that are added to it and releases them once its own reference count, shared
+ * with its duplicates and slices, reaches zero. The duplicates and slices share the buffers of the composite and must
+ * not be used once the composite has been modified, unless they have been created by {@link #retainedDuplicate()}
+ * or {@link #retainedSlice(int, int)}: those hold their own reference to each of their buffers, which they release
+ * once all the references taken through them have been released. A duplicate or a slice that is itself modified
+ * takes its own reference to each of its buffers first.
+ * </p>
+ * 
+ * <p>
+ * The composite keeps the offset at which each of its buffers starts, which allows it to locate the buffer containing
+ * a given index with a binary search instead of walking through all the buffers.
+ * </p>
+ * 
+ * <p>
+ * A composite built from many small reads ends up with many small buffers. The composite can copy the runs of
+ * adjacent small buffers into a single buffer allocated from its allocator. This consolidation is done on demand by
+ * {@link #consolidate()} or automatically each time the number of buffers exceeds a configurable threshold. The
+ * buffers bigger than the small component size are never copied.
+ * </p>
  */
 public final class CompositeBuffer extends AbstractReadableBuffer {
 
+    /**
+     * The default maximum number of readable bytes of the buffers that can be copied by the consolidation.
+     */
+    public static final int DEFAULT_SMALL_COMPONENT_SIZE = 512;
+
     /**
      * The buffers composing this composite.
      */
-    private final List<ReadableBuffer> buffers;
+    private List<ReadableBuffer> buffers;
+
+    /**
+     * <code>true</code> if this composite holds its own reference to each of its buffers, <code>false</code> if it
+     * shares the buffers of another composite.
+     */
+    private boolean ownsBuffers;
+
+    /**
+     * The offset at which each buffer starts, followed by the total number of bytes of the buffers.
+     */
+    private int[] offsets;
 
     /**
      * The offset of the region being visible.
@@ -61,11 +110,69 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
     private CompositeBuffer slice;
 
     /**
-     * Creates a new <code>CompositeBuffer</code> instance.
+     * The allocator used to allocate the buffers into which the small buffers are consolidated.
+     */
+    private final BufferAllocator allocator;
+
+    /**
+     * The number of buffers above which the composite is consolidated automatically.
+     */
+    private final int maxNumberOfComponents;
+
+    /**
+     * The maximum number of readable bytes of the buffers that can be copied by the consolidation.
+     */
+    private final int smallComponentSize;
+
+    /**
+     * The number of buffers above which the next automatic consolidation is triggered.
+     */
+    private int consolidationThreshold;
+
+    /**
+     * The number of consolidations performed.
+     */
+    private int numberOfConsolidations;
+
+    /**
+     * The number of buffers that have been copied by the consolidations.
+     */
+    private int numberOfConsolidatedComponents;
+
+    /**
+     * The number of bytes copied by the consolidations.
+     */
+    private long numberOfConsolidatedBytes;
+
+    /**
+     * Creates a new <code>CompositeBuffer</code> instance that is never consolidated automatically.
      */
     public CompositeBuffer() {
 
-        this(new ArrayList<ReadableBuffer>());
+        this(Buffers.getDefaultAllocator(), Integer.MAX_VALUE, DEFAULT_SMALL_COMPONENT_SIZE);
+    }
+
+    /**
+     * Creates a new <code>CompositeBuffer</code> instance that is consolidated automatically once it contains more
+     * than the specified number of buffers.
+     * 
+     * @param allocator the allocator used to allocate the buffers into which the small buffers are consolidated
+     * @param maxNumberOfComponents the number of buffers above which the composite is consolidated
+     * @param smallComponentSize the maximum number of readable bytes of the buffers that can be consolidated
+     */
+    public CompositeBuffer(BufferAllocator allocator, int maxNumberOfComponents, int smallComponentSize) {
+
+        this(new ArrayList<ReadableBuffer>(), new int[8], allocator, maxNumberOfComponents, smallComponentSize);
+
+        notNull(allocator, "the allocator parameter must not be null");
+        isTrue(maxNumberOfComponents > 1, "the maximum number of components must be greater than one");
+        isTrue(smallComponentSize > 0, "the small component size must be greater than zero");
+
+        CompositeReferenceCount referenceCount = new CompositeReferenceCount();
+        referenceCount.addOwner(this.buffers);
+
+        this.referenceCount = referenceCount;
+        this.ownsBuffers = true;
     }
 
     /**
@@ -82,17 +189,81 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
     @Override
     public CompositeBuffer duplicate() {
 
-        CompositeBuffer duplicate = new CompositeBuffer(new ArrayList<>(this.buffers));
+        CompositeBuffer duplicate = new CompositeBuffer(new ArrayList<>(this.buffers),
+                                                        Arrays.copyOf(this.offsets, this.offsets.length),
+                                                        this.allocator,
+                                                        Integer.MAX_VALUE,
+                                                        this.smallComponentSize);
         duplicate.offset = this.offset;
         duplicate.bufferIndex = this.bufferIndex;
         duplicate.bufferOffset = this.bufferOffset;
         duplicate.current = this.current;
         duplicate.readerIndex = this.readerIndex;
         duplicate.capacity = this.capacity;
+        duplicate.referenceCount = this.referenceCount;
 
         return duplicate;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompositeBuffer retain() {
+
+        super.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompositeBuffer retainedDuplicate() {
+
+        return duplicate().toRetainedView();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompositeBuffer retainedSlice(int index, int length) {
+
+        if (index < 0 || length < 0 || (index + length) > this.capacity) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Expected: 0 <= index, 0 <= length "
+                                + "and index + length < capacity(%d)",
+                                index,
+                                length,
+                                this.capacity);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        List<ReadableBuffer> buffers = new ArrayList<>();
+        int position = index + this.offset;
+        int offset = 0;
+
+        if (length > 0) {
+
+            int first = componentIndex(position);
+            int last = componentIndex(position + length - 1);
+
+            buffers.addAll(this.buffers.subList(first, last + 1));
+            offset = position - this.offsets[first];
+        }
+
+        CompositeBuffer slice = newView(buffers,
+                                        offset,
+                                        length,
+                                        order(),
+                                        (CompositeReferenceCount) this.referenceCount);
+
+        return slice.toRetainedView();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -107,11 +278,8 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             throw new IndexOutOfBoundsException(msg);
         }
 
-        this.current = this.buffers.get(0);
-        this.bufferIndex = 0;
-        this.bufferOffset = 0;
-
         this.readerIndex = readerIndex + this.offset;
+        moveTo(this.readerIndex);
 
         return this;
     }
@@ -122,9 +290,9 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
     @Override
     public byte getByte(int index) {
 
-        int idx = index + this.offset;
+        ensureAccessible();
 
-        if (index < 0 || index > this.capacity) {
+        if (index < 0 || index >= this.capacity) {
 
             @SuppressWarnings("boxing")
             String msg = format("Index: %d Expected: 0 <= index < capacity(%d)", index, this.capacity);
@@ -132,21 +300,67 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             throw new IndexOutOfBoundsException(msg);
         }
 
-        int off = 0;
+        int idx = index + this.offset;
+        int i = componentIndex(idx);
 
-        for (int i = 0, m = this.buffers.size(); i < m; i++) {
+        return this.buffers.get(i).getByte(idx - this.offsets[i]);
+    }
 
-            ReadableBuffer buffer = this.buffers.get(i);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShort(int index) {
 
-            if (idx < off + buffer.readableBytes()) {
+        int idx = checkIndex(index, SHORT_LENGTH);
+        int i = componentIndex(idx);
 
-                return buffer.getByte(idx - off);
-            }
+        if (idx + SHORT_LENGTH > this.offsets[i + 1]) {
+            return super.getShort(index);
+        }
+
+        ReadableBuffer buffer = this.buffers.get(i);
+        short s = buffer.getShort(idx - this.offsets[i]);
+
+        return buffer.order() == order() ? s : Short.reverseBytes(s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt(int index) {
+
+        int idx = checkIndex(index, INT_LENGTH);
+        int i = componentIndex(idx);
+
+        if (idx + INT_LENGTH > this.offsets[i + 1]) {
+            return super.getInt(index);
+        }
 
-            off += buffer.readableBytes();
+        ReadableBuffer buffer = this.buffers.get(i);
+        int value = buffer.getInt(idx - this.offsets[i]);
+
+        return buffer.order() == order() ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong(int index) {
+
+        int idx = checkIndex(index, LONG_LENGTH);
+        int i = componentIndex(idx);
+
+        if (idx + LONG_LENGTH > this.offsets[i + 1]) {
+            return super.getLong(index);
         }
 
-        throw new IllegalStateException();
+        ReadableBuffer buffer = this.buffers.get(i);
+        long l = buffer.getLong(idx - this.offsets[i]);
+
+        return buffer.order() == order() ? l : Long.reverseBytes(l);
     }
 
     /**
@@ -164,6 +378,8 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
     @Override
     public CompositeBuffer getBytes(int index, byte[] array, int offset, int length) {
 
+        ensureAccessible();
+
         if (index < 0 || (index + length) > this.capacity) {
 
             @SuppressWarnings("boxing")
@@ -176,36 +392,83 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
         }
 
         int position = index + this.offset;
-        int bufferOffset = 0;
         int off = offset;
         int remaining = length;
 
-        for (int i = 0, m = this.buffers.size(); i < m; i++) {
+        for (int i = componentIndex(position); remaining > 0; i++) {
 
-            ReadableBuffer buffer = this.buffers.get(i);
+            int bufferOffset = this.offsets[i];
+            int len = Math.min(this.offsets[i + 1] - position, remaining);
 
-            if (position < bufferOffset + buffer.readableBytes()) {
+            if (len > 0) {
 
-                int len = Math.min(buffer.readableBytes() - (position - bufferOffset), remaining);
-
-                buffer.getBytes(position - bufferOffset, array, off, len);
+                this.buffers.get(i).getBytes(position - bufferOffset, array, off, len);
 
                 remaining -= len;
-
-                if (remaining == 0) {
-                    break;
-                }
-
                 position += len;
                 off += len;
             }
-
-            bufferOffset += buffer.readableBytes();
         }
 
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(byte value, int fromIndex, int toIndex) {
+
+        if (fromIndex >= toIndex) {
+            return -1;
+        }
+
+        int position = checkIndex(fromIndex, toIndex - fromIndex);
+        int end = toIndex + this.offset;
+
+        for (int i = componentIndex(position); position < end; i++) {
+
+            int bufferOffset = this.offsets[i];
+            int bufferEnd = Math.min(this.offsets[i + 1], end);
+
+            int index = this.buffers.get(i).indexOf(value, position - bufferOffset, bufferEnd - bufferOffset);
+
+            if (index >= 0) {
+                return index + bufferOffset - this.offset;
+            }
+
+            position = bufferEnd;
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int forEachByte(int index, int length, ByteProcessor processor) {
+
+        int position = checkIndex(index, length);
+        int end = position + length;
+
+        for (int i = componentIndex(position); position < end; i++) {
+
+            int bufferOffset = this.offsets[i];
+            int bufferEnd = Math.min(this.offsets[i + 1], end);
+
+            int stop = this.buffers.get(i).forEachByte(position - bufferOffset, bufferEnd - position, processor);
+
+            if (stop >= 0) {
+                return stop + bufferOffset - this.offset;
+            }
+
+            position = bufferEnd;
+        }
+
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -281,10 +544,16 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
 
         checkReadable(len);
         
-        if (this.slice == null) {
-            this.slice = new CompositeBuffer(this.buffers);
+        if (this.slice == null || this.slice.buffers != this.buffers) {
+            this.slice = new CompositeBuffer(this.buffers,
+                                             this.offsets,
+                                             this.allocator,
+                                             Integer.MAX_VALUE,
+                                             this.smallComponentSize);
+            this.slice.referenceCount = this.referenceCount;
         }
 
+        this.slice.offsets = this.offsets;
         this.slice.readerIndex = this.readerIndex;
         this.slice.offset = this.readerIndex;
         this.slice.capacity = len;
@@ -297,6 +566,102 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
         return this.slice;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompositeBuffer transferTo(ByteWriter writer) throws IOException {
+
+        ensureAccessible();
+
+        int remaining = readableBytes();
+
+        while (remaining > 0) {
+
+            while (currentReadableBytes() <= 0) {
+                nextBuffer();
+            }
+
+            int numberOfBytesToCopy = Math.min(remaining, currentReadableBytes());
+
+            this.current.slice(currentIndex(), numberOfBytesToCopy).transferTo(writer);
+            this.readerIndex += numberOfBytesToCopy;
+            remaining -= numberOfBytesToCopy;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * <p>
+     * The readable bytes are copied if they span several buffers.
+     * </p>
+     */
+    @Override
+    public ByteBuffer nioBuffer() {
+
+        ByteBuffer[] buffers = nioBuffers();
+
+        if (buffers.length == 1) {
+            return buffers[0];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(readableBytes()).order(order());
+
+        for (int i = 0; i < buffers.length; i++) {
+            buffer.put(buffers[i]);
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer[] nioBuffers() {
+
+        ensureAccessible();
+
+        List<ByteBuffer> nioBuffers = new ArrayList<>();
+
+        int position = this.readerIndex;
+        int remaining = readableBytes();
+
+        for (int i = componentIndex(position); remaining > 0; i++) {
+
+            int length = Math.min(this.offsets[i + 1] - position, remaining);
+
+            if (length > 0) {
+
+                ReadableBuffer buffer = this.buffers.get(i).duplicate();
+                buffer.readerIndex(position - this.offsets[i]);
+
+                ByteBuffer[] componentBuffers = buffer.nioBuffers();
+
+                for (int j = 0, left = length; left > 0; j++) {
+
+                    ByteBuffer nioBuffer = componentBuffers[j].order(order());
+
+                    if (nioBuffer.remaining() > left) {
+                        nioBuffer.limit(nioBuffer.position() + left);
+                    }
+
+                    nioBuffers.add(nioBuffer);
+                    left -= nioBuffer.remaining();
+                }
+
+                remaining -= length;
+                position += length;
+            }
+        }
+
+        return nioBuffers.toArray(new ByteBuffer[nioBuffers.size()]);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -326,11 +691,14 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             throw new IndexOutOfBoundsException(msg);
         }
 
-        int bufferOffset = 0;
+        ensureOwnership();
+
+        int first = componentIndex(offset);
+        int bufferOffset = this.offsets[first];
         int remaining = length;
 
         int numberOfBuffers = this.buffers.size();
-        for (int i = 0; i < numberOfBuffers;) {
+        for (int i = first; i < numberOfBuffers;) {
 
             if (remaining == 0) {
                 break;
@@ -344,7 +712,9 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
                 int toRemove = Math.min(readableBytes - index, remaining);
                 this.buffers.remove(i);
                 if (index == 0) {
-                    if (toRemove != readableBytes) {
+                    if (toRemove == readableBytes) {
+                        buffer.release();
+                    } else {
                         ReadableBuffer newBuffer = buffer.slice(toRemove, readableBytes - toRemove).duplicate();
                         this.buffers.add(i, newBuffer);
                         i++;
@@ -357,6 +727,7 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
                     if (l != 0) {
                         newBuffer = buffer.slice(off, l).duplicate();
                         this.buffers.add(++i, newBuffer);
+                        buffer.retain();
                     }
                     i++;
                 }
@@ -378,9 +749,8 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             }
         }
         this.capacity -= length;
-        this.current = this.buffers.get(0);
-        this.bufferIndex = 0;
-        this.bufferOffset = 0;
+        updateOffsets(first);
+        moveTo(this.readerIndex);
         return this;
     }
 
@@ -393,16 +763,20 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
      */
     public CompositeBuffer addBytes(ReadableBuffer buffer) throws IOException {
 
-        ReadableBuffer duplicate = buffer.slice(buffer.readableBytes()).duplicate();
+        ensureOwnership();
 
-        if (this.buffers.isEmpty()) {
+        ReadableBuffer duplicate = buffer.slice(buffer.readableBytes()).duplicate().retain();
+
+        int index = this.buffers.size();
+
+        if (index == 0) {
 
             this.current = duplicate;
             this.buffers.add(duplicate);
 
         } else {
             
-            int lastIndex = this.buffers.size() - 1;
+            int lastIndex = index - 1;
             ReadableBuffer last = this.buffers.get(lastIndex);
             if (duplicate.canBeMergedWith(last)) {
                 duplicate.mergeWith(last);
@@ -411,12 +785,16 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
                     this.current = duplicate;
                 }
                 this.capacity -= last.readableBytes();
+                last.release();
+                index = lastIndex;
             } else {
                 this.buffers.add(duplicate);
             }
         }
 
         this.capacity += duplicate.readableBytes();
+        updateOffsets(index);
+        consolidateIfNeeded();
         return this;
     }
 
@@ -441,11 +819,14 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             return addBytes(buffer);
         }
 
-        ReadableBuffer duplicate = buffer.duplicate();
+        ensureOwnership();
 
-        int bufferOffset = 0;
+        ReadableBuffer duplicate = buffer.duplicate().retain();
 
-        for (int i = 0, m = this.buffers.size(); i < m; i++) {
+        int first = componentIndex(position);
+        int bufferOffset = this.offsets[first];
+
+        for (int i = first, m = this.buffers.size(); i < m; i++) {
 
             if (bufferOffset == position) {
                 this.buffers.add(i, duplicate);
@@ -463,6 +844,7 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
                 this.buffers.add(++i, duplicate);
                 newBuffer = oldBuffer.slice(length, readableBytes - length).duplicate();
                 this.buffers.add(++i, newBuffer);
+                oldBuffer.retain();
                 break;
             }
 
@@ -473,13 +855,101 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             this.readerIndex += duplicate.readableBytes();
         }
 
-        this.current = this.buffers.get(0);
-        this.bufferIndex = 0;
-        this.bufferOffset = 0;
         this.capacity += duplicate.readableBytes();
+        updateOffsets(first);
+        moveTo(this.readerIndex);
+        consolidateIfNeeded();
+        return this;
+    }
+
+    /**
+     * Copies each run of adjacent small buffers into a single buffer allocated from the allocator of this composite.
+     * The content and the indices of this composite are not modified, but the consolidated buffers are released, so
+     * the duplicates and slices created before the consolidation, except the retained ones, must not be used anymore.
+     * For that reason, the duplicates and slices are never consolidated automatically, and neither is a composite
+     * whose reference count is shared.
+     * 
+     * @return this <code>CompositeBuffer</code>
+     * @throws IOException if an I/O problem occurs
+     */
+    public CompositeBuffer consolidate() throws IOException {
+
+        ensureOwnership();
+
+        int first = -1;
+
+        for (int i = 0; i < this.buffers.size(); i++) {
+
+            int end = i;
+            int length = 0;
+
+            for (int m = this.buffers.size(); end < m; end++) {
+
+                int readableBytes = this.buffers.get(end).readableBytes();
+
+                if (readableBytes > this.smallComponentSize) {
+                    break;
+                }
+
+                length += readableBytes;
+            }
+
+            if (end - i > 1) {
+
+                consolidate(i, end, length);
+
+                if (first < 0) {
+                    first = i;
+                }
+            }
+        }
+
+        if (first >= 0) {
+
+            this.numberOfConsolidations++;
+            updateOffsets(first);
+            moveTo(this.readerIndex);
+        }
+
         return this;
     }
 
+    /**
+     * Returns the number of buffers composing this composite.
+     * 
+     * @return the number of buffers composing this composite.
+     */
+    public int numberOfComponents() {
+        return this.buffers.size();
+    }
+
+    /**
+     * Returns the number of consolidations that modified this composite.
+     * 
+     * @return the number of consolidations that modified this composite.
+     */
+    public int numberOfConsolidations() {
+        return this.numberOfConsolidations;
+    }
+
+    /**
+     * Returns the number of buffers that have been replaced by the consolidations.
+     * 
+     * @return the number of buffers that have been replaced by the consolidations.
+     */
+    public int numberOfConsolidatedComponents() {
+        return this.numberOfConsolidatedComponents;
+    }
+
+    /**
+     * Returns the number of bytes copied by the consolidations.
+     * 
+     * @return the number of bytes copied by the consolidations.
+     */
+    public long numberOfConsolidatedBytes() {
+        return this.numberOfConsolidatedBytes;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -521,17 +991,248 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
 
     /**
      * Creates a new <code>CompositeBuffer</code> instance which contains the specified buffers.
+     * 
+     * @param buffers the buffers
+     * @param offsets the offset at which each buffer starts
+     * @param allocator the allocator used to allocate the buffers into which the small buffers are consolidated
+     * @param maxNumberOfComponents the number of buffers above which the composite is consolidated
+     * @param smallComponentSize the maximum number of readable bytes of the buffers that can be consolidated
      */
-    private CompositeBuffer(List<ReadableBuffer> buffers) {
+    private CompositeBuffer(List<ReadableBuffer> buffers,
+                            int[] offsets,
+                            BufferAllocator allocator,
+                            int maxNumberOfComponents,
+                            int smallComponentSize) {
         this.buffers = buffers;
+        this.offsets = offsets;
+        this.capacity = offsets[buffers.size()];
+        this.allocator = allocator;
+        this.maxNumberOfComponents = maxNumberOfComponents;
+        this.smallComponentSize = smallComponentSize;
+        this.consolidationThreshold = maxNumberOfComponents;
+    }
+
+    /**
+     * Creates a composite giving access to a region of the specified buffers and sharing the specified reference
+     * count. The buffers are neither retained nor released by the composite, unless it is modified.
+     *
+     * @param buffers the buffers
+     * @param offset the offset of the region within the buffers
+     * @param length the length of the region
+     * @param order the byte order of the composite
+     * @param referenceCount the reference count to share
+     * @return a composite giving access to the specified region
+     */
+    static CompositeBuffer newView(List<ReadableBuffer> buffers,
+                                   int offset,
+                                   int length,
+                                   ByteOrder order,
+                                   CompositeReferenceCount referenceCount) {
+
+        int[] offsets = new int[buffers.size() + 1];
+
+        for (int i = 0, m = buffers.size(); i < m; i++) {
+            offsets[i + 1] = offsets[i] + buffers.get(i).readableBytes();
+        }
 
-        if (!this.buffers.isEmpty()) {
+        CompositeBuffer view = new CompositeBuffer(buffers,
+                                                   offsets,
+                                                   Buffers.getDefaultAllocator(),
+                                                   Integer.MAX_VALUE,
+                                                   DEFAULT_SMALL_COMPONENT_SIZE);
+        view.order(order);
+        view.offset = offset;
+        view.capacity = length;
+        view.readerIndex = offset;
+        view.referenceCount = referenceCount;
+        view.moveTo(offset);
+
+        return view;
+    }
+
+    /**
+     * Turns this duplicate or slice, which must not have been modified yet, into a retained one: the shared
+     * reference count is incremented and the view takes its own reference to each of its buffers.
+     *
+     * @return this <code>CompositeBuffer</code>
+     */
+    CompositeBuffer toRetainedView() {
+
+        this.referenceCount.retain();
+        this.referenceCount = new RetainedViewReferenceCount(this.referenceCount);
+        takeOwnership();
+
+        return this;
+    }
+
+    /**
+     * Retains the buffers of this composite and registers them with its reference count, so that they are released
+     * once that count reaches zero.
+     */
+    private void takeOwnership() {
+
+        for (int i = 0, m = this.buffers.size(); i < m; i++) {
+            this.buffers.get(i).retain();
+        }
+
+        ((CompositeReferenceCount) this.referenceCount).addOwner(this.buffers);
+        this.ownsBuffers = true;
+    }
+
+    /**
+     * Gives this composite its own copy of the buffers and its own reference to each of them, if it shares them
+     * with another composite. Must be called before modifying the buffers.
+     */
+    private void ensureOwnership() {
+
+        if (!this.ownsBuffers) {
+
+            this.buffers = new ArrayList<>(this.buffers);
+            this.offsets = Arrays.copyOf(this.offsets, this.offsets.length);
+            takeOwnership();
+        }
+    }
 
-            for (int i = 0, m = buffers.size(); i < m; i++) {
-                this.capacity += buffers.get(i).readableBytes();
+    /**
+     * Consolidates this composite if it contains more buffers than the consolidation threshold and if its reference
+     * count is not shared, as the holders of the other references may be reading the buffers through duplicates or
+     * slices. If the consolidation does not bring the number of buffers well below the threshold, because most of
+     * them are too big to be copied, the threshold is raised so that the cost of the consolidations stays
+     * proportional to the number of buffers added.
+     * 
+     * @throws IOException if an I/O problem occurs
+     */
+    private void consolidateIfNeeded() throws IOException {
+
+        if (this.buffers.size() > this.consolidationThreshold && refCnt() == 1) {
+
+            consolidate();
+            this.consolidationThreshold = Math.max(this.maxNumberOfComponents, this.buffers.size() << 1);
+        }
+    }
+
+    /**
+     * Replaces the specified buffers by a single buffer containing a copy of their bytes.
+     * 
+     * @param from the index of the first buffer to replace (inclusive)
+     * @param to the index of the last buffer to replace (exclusive)
+     * @param length the total number of readable bytes of the buffers to replace
+     * @throws IOException if an I/O problem occurs
+     */
+    private void consolidate(int from, int to, int length) throws IOException {
+
+        Buffer consolidated = this.allocator.allocate(length);
+
+        for (int i = from; i < to; i++) {
+
+            ReadableBuffer buffer = this.buffers.get(i);
+            consolidated.transfer(buffer.duplicate());
+            buffer.release();
+        }
+
+        this.buffers.subList(from + 1, to).clear();
+        this.buffers.set(from, consolidated);
+
+        this.numberOfConsolidatedComponents += to - from;
+        this.numberOfConsolidatedBytes += length;
+    }
+
+    /**
+     * Returns the index of the buffer containing the specified byte.
+     * 
+     * @param index the index of the byte within the underlying buffers
+     * @return the index of the buffer containing the specified byte.
+     */
+    private int componentIndex(int index) {
+
+        int high = this.buffers.size() - 1;
+
+        if (this.bufferIndex <= high 
+                && index >= this.offsets[this.bufferIndex] 
+                && index < this.offsets[this.bufferIndex + 1]) {
+            return this.bufferIndex;
+        }
+
+        int low = 0;
+
+        while (low < high) {
+
+            int middle = (low + high + 1) >>> 1;
+
+            if (this.offsets[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
             }
         }
 
+        return low;
+    }
+
+    /**
+     * Recomputes the offsets of the buffers starting from the specified one.
+     * 
+     * @param from the index of the first buffer whose offset must be recomputed
+     */
+    private void updateOffsets(int from) {
+
+        int numberOfBuffers = this.buffers.size();
+
+        if (this.offsets.length <= numberOfBuffers) {
+            this.offsets = Arrays.copyOf(this.offsets, Math.max(numberOfBuffers + 1, this.offsets.length << 1));
+        }
+
+        for (int i = from; i < numberOfBuffers; i++) {
+            this.offsets[i + 1] = this.offsets[i] + this.buffers.get(i).readableBytes();
+        }
+    }
+
+    /**
+     * Makes the buffer containing the specified byte the current one.
+     * 
+     * @param index the index of the byte within the underlying buffers
+     */
+    private void moveTo(int index) {
+
+        if (this.buffers.isEmpty()) {
+
+            this.current = null;
+            this.bufferIndex = 0;
+            this.bufferOffset = 0;
+            return;
+        }
+
+        this.bufferIndex = componentIndex(index);
+        this.bufferOffset = this.offsets[this.bufferIndex];
+        this.current = this.buffers.get(this.bufferIndex);
+    }
+
+    /**
+     * Checks that the specified amount of bytes can be accessed from the specified index and returns the index
+     * within the underlying buffers.
+     * 
+     * @param index the index of the first byte
+     * @param length the amount of bytes
+     * @return the index of the first byte within the underlying buffers
+     * @throws IndexOutOfBoundsException if the bytes are not within this buffer.
+     * @throws IllegalStateException if the buffer has been released.
+     */
+    private int checkIndex(int index, int length) {
+
+        ensureAccessible();
+
+        if (index < 0 || (index + length) > this.capacity) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Expected: 0 <= index and index + length <= capacity(%d)",
+                                index,
+                                length,
+                                this.capacity);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        return index + this.offset;
     }
 
     /**
@@ -548,9 +1249,12 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
      * 
      * @param numberOfBytes the number of bytes to read.
      * @throws IndexOutOfBoundsException if the specified amount of bytes cannot be read.
+     * @throws IllegalStateException if the buffer has been released.
      */
     private void checkReadable(int numberOfBytes) {
 
+        ensureAccessible();
+
         if (readableBytes() < numberOfBytes) {
 
             @SuppressWarnings("boxing")
@@ -559,4 +1263,92 @@ public final class CompositeBuffer extends AbstractReadableBuffer {
             throw new IndexOutOfBoundsException(msg);
         }
     }
+
+    /**
+     * Reference count shared by composites, which releases the buffers owned by each of them once it reaches zero.
+     */
+    static class CompositeReferenceCount extends ReferenceCount {
+
+        /**
+         * The lists of buffers owned by the composites sharing this count.
+         */
+        private final List<List<ReadableBuffer>> owners = new ArrayList<>();
+
+        /**
+         * Registers the specified list of buffers, which must be released once the count reaches zero.
+         *
+         * @param buffers the buffers owned by a composite sharing this count
+         */
+        synchronized void addOwner(List<ReadableBuffer> buffers) {
+            this.owners.add(buffers);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected synchronized void deallocate() {
+
+            for (int i = 0, m = this.owners.size(); i < m; i++) {
+
+                List<ReadableBuffer> buffers = this.owners.get(i);
+
+                for (int j = 0, n = buffers.size(); j < n; j++) {
+                    buffers.get(j).release();
+                }
+            }
+
+            this.owners.clear();
+        }
+    }
+
+    /**
+     * Reference count of the retained duplicates and slices. The count seen by the users is the one of the buffer
+     * from which the view has been created, but the view also counts the references taken through it, so that it
+     * can release its own references to its buffers once all of them have been released.
+     */
+    private static final class RetainedViewReferenceCount extends CompositeReferenceCount {
+
+        /**
+         * The reference count of the buffer from which the view has been created.
+         */
+        private final ReferenceCount parent;
+
+        /**
+         * Creates a new <code>RetainedViewReferenceCount</code> for a view of a buffer with the specified count.
+         *
+         * @param parent the reference count of the buffer from which the view has been created
+         */
+        public RetainedViewReferenceCount(ReferenceCount parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int get() {
+            return this.parent.get();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void retain() {
+
+            this.parent.retain();
+            super.retain();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean release() {
+
+            super.release();
+            return this.parent.release();
+        }
+    }
 }
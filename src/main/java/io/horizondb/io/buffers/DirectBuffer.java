@@ -15,9 +15,13 @@
  */
 package io.horizondb.io.buffers;
 
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import static org.apache.commons.lang.Validate.isTrue;
 import static org.apache.commons.lang.Validate.notNull;
@@ -25,6 +29,12 @@ import static org.apache.commons.lang.Validate.notNull;
 /**
  * <code>SliceableBuffer</code> backed by a direct buffer.
  * 
+ * <p>
+ * The content is always accessed through a view private to each <code>DirectBuffer</code> instance, so the
+ * position and limit of the underlying <code>ByteBuffer</code> are never modified and duplicates of the same buffer
+ * can be read concurrently from different threads.
+ * </p>
+ * 
  * @author Benjamin
  * 
  */
@@ -35,6 +45,23 @@ final class DirectBuffer extends AbstractBuffer {
      */
     private final ByteBuffer buffer;
 
+    /**
+     * The view of the direct NIO buffer used by this instance to access the content. Its order is kept in sync with
+     * the order of this buffer so that the primitives are never swapped twice.
+     */
+    private final ByteBuffer view;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer order(ByteOrder order) {
+
+        super.order(order);
+        this.view.order(order);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -69,6 +96,7 @@ final class DirectBuffer extends AbstractBuffer {
         duplicate.subRegion(getOffset(), capacity());
         duplicate.writerIndex(writerIndex());
         duplicate.readerIndex(readerIndex());
+        duplicate.referenceCount = this.referenceCount;
 
         return duplicate;
     }
@@ -119,7 +147,61 @@ final class DirectBuffer extends AbstractBuffer {
      */
     @Override
     protected byte doGetByte(int index) {
-        return this.buffer.get(index);
+        return this.view.get(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected short doGetShort(int index) {
+
+        return this.view.getShort(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doGetInt(int index) {
+
+        return this.view.getInt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long doGetLong(int index) {
+
+        return this.view.getLong(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetShort(int index, short s) {
+
+        this.view.putShort(index, s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetInt(int index, int i) {
+
+        this.view.putInt(index, i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetLong(int index, long l) {
+
+        this.view.putLong(index, l);
     }
 
     /**
@@ -128,8 +210,17 @@ final class DirectBuffer extends AbstractBuffer {
     @Override
     protected void doGetBytes(int index, byte[] bytes, int off, int len) {
 
-        this.buffer.position(index);
-        this.buffer.get(bytes, off, len);
+        this.view.position(index);
+        this.view.get(bytes, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doIndexOf(int index, int end, byte value) {
+
+        return doIndexOfByWords(index, end, value);
     }
 
     /**
@@ -137,7 +228,7 @@ final class DirectBuffer extends AbstractBuffer {
      */
     @Override
     protected void doSetByte(int index, int b) {
-        this.buffer.put(index, (byte) b);
+        this.view.put(index, (byte) b);
     }
 
     /**
@@ -145,8 +236,52 @@ final class DirectBuffer extends AbstractBuffer {
      */
     @Override
     protected void doSetBytes(int index, byte[] bytes, int off, int len) {
-        this.buffer.position(index);
-        this.buffer.put(bytes, off, len);
+        this.view.position(index);
+        this.view.put(bytes, off, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetBytes(int index, ByteBuffer buffer) {
+        this.view.position(index);
+        this.view.put(buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTransferTo(int index, int len, ByteWriter writer) throws IOException {
+
+        ByteBuffer source = this.view.duplicate();
+        source.limit(index + len);
+        source.position(index);
+
+        writer.writeBytes(source);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuffer doNioBuffer(int index, int len) {
+
+        ByteBuffer buffer = this.view.duplicate();
+        buffer.limit(index + len);
+        buffer.position(index);
+
+        return buffer.slice();
+    }
+
+    /**
+     * Returns the underlying <code>ByteBuffer</code>.
+     * 
+     * @return the underlying <code>ByteBuffer</code>.
+     */
+    ByteBuffer getByteBuffer() {
+        return this.buffer;
     }
 
     /**
@@ -163,6 +298,10 @@ final class DirectBuffer extends AbstractBuffer {
     /**
      * Creates a new <code>DirectBuffer</code> that wrap the specified <code>ByteBuffer</code>.
      * 
+     * <p>
+     * The memory of the specified <code>ByteBuffer</code> is not freed when the buffer is released.
+     * </p>
+     * 
      * @param buffer the <code>ByteBuffer</code>.
      */
     DirectBuffer(ByteBuffer buffer) {
@@ -171,22 +310,62 @@ final class DirectBuffer extends AbstractBuffer {
         isTrue(buffer.isDirect(), "the buffer must be direct");
 
         this.buffer = buffer;
+        this.view = newView(buffer).order(order());
 
         subRegion(0, buffer.capacity());
         writerIndex(buffer.capacity());
     }
 
     /**
-     * Creates a new <code>DirectBuffer</code> with the specified capacity.
+     * Creates a new <code>DirectBuffer</code> with the specified capacity. The memory is freed as soon as the buffer
+     * is released.
      * 
      * @param capacity the buffer capacity.
      */
     DirectBuffer(int capacity) {
 
-        isTrue(capacity >= 0, "the capacity must be positive");
+        this(DirectMemory.allocateDirect(DirectMemory.Category.BUFFER, capacity), DirectMemory.Category.BUFFER);
+    }
 
-        this.buffer = ByteBuffer.allocateDirect(capacity);
-        subRegion(0, capacity);
+    /**
+     * Creates a new empty <code>DirectBuffer</code> taking ownership of the specified <code>ByteBuffer</code>
+     * allocated through {@link DirectMemory}. The memory is freed as soon as the buffer is released.
+     * 
+     * @param directBuffer the <code>ByteBuffer</code>.
+     * @param category the category under which the memory has been allocated.
+     */
+    DirectBuffer(final ByteBuffer directBuffer, final DirectMemory.Category category) {
+
+        notNull(directBuffer, "the buffer parameter must not be null");
+        isTrue(directBuffer.isDirect(), "the buffer must be direct");
+
+        this.buffer = directBuffer;
+        this.view = newView(directBuffer).order(order());
+        this.referenceCount = new ReferenceCount() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void deallocate() {
+                DirectMemory.free(category, directBuffer);
+            }
+        };
+
+        subRegion(0, directBuffer.capacity());
         writerIndex(0);
     }
+
+    /**
+     * Creates a view of the specified buffer covering its whole capacity.
+     * 
+     * @param buffer the buffer
+     * @return a view of the specified buffer covering its whole capacity.
+     */
+    private static ByteBuffer newView(ByteBuffer buffer) {
+
+        ByteBuffer view = buffer.duplicate();
+        view.clear();
+        return view;
+    }
 }
@@ -0,0 +1,803 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * Accountant of the off-heap memory held by the library.
+ *
+ * <p>
+ * All the direct allocations of the library go through this class, which keeps track of the number of live bytes per
+ * {@link Category} and enforces a configurable budget. When an allocation would exceed the budget, the configured
+ * {@link Policy} decides whether the allocation fails, falls back to the heap or waits for some memory to be freed.
+ * The memory mapped regions are tracked but are not part of the budget as they are not limited by the JVM direct
+ * memory setting.
+ * </p>
+ *
+ * <p>
+ * The memory allocated by this class is normally given back through {@link #free(Category, ByteBuffer)}. The buffers
+ * that become unreachable without having been freed, like the direct buffers left to the garbage collector by their
+ * users, are detected through weak references and removed from the accounting once the garbage collector has
+ * cleared them. Before failing or blocking, an allocation exceeding the budget requests a garbage collection in
+ * order to reclaim those buffers.
+ * </p>
+ *
+ * <p>
+ * The direct buffers are freed through <code>sun.misc.Unsafe.invokeCleaner</code> on JDK 9 and later, and through
+ * the cleaner of the buffer on older JDKs. If neither is available, {@link #isExplicitFreeSupported()} returns
+ * <code>false</code> and the buffers passed to {@link #free(Category, ByteBuffer)} are left to the garbage
+ * collector: their memory stays accounted until they have been reclaimed.
+ * </p>
+ *
+ * <p>
+ * By default the budget is unlimited.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class DirectMemory {
+
+    /**
+     * The users of off-heap memory.
+     */
+    public enum Category {
+
+        /**
+         * The buffers of the file inputs.
+         */
+        FILE_INPUT,
+
+        /**
+         * The buffers of the file outputs.
+         */
+        FILE_OUTPUT,
+
+        /**
+         * The buffers allocated by the users of the library.
+         */
+        BUFFER,
+
+        /**
+         * The memory mapped regions.
+         */
+        MAPPED
+    }
+
+    /**
+     * What to do when an allocation would exceed the budget.
+     */
+    public enum Policy {
+
+        /**
+         * The allocation fails with an <code>OutOfMemoryError</code>.
+         */
+        FAIL,
+
+        /**
+         * The memory is allocated on the heap instead, if the caller can use heap memory.
+         */
+        FALLBACK_TO_HEAP,
+
+        /**
+         * The allocation waits until enough memory has been freed.
+         */
+        BLOCK
+    }
+
+    /**
+     * The number of live bytes per category.
+     */
+    private static final AtomicLongArray USED_MEMORY = new AtomicLongArray(Category.values().length);
+
+    /**
+     * The number of live bytes counted against the budget.
+     */
+    private static final AtomicLong BUDGETED_MEMORY = new AtomicLong();
+
+    /**
+     * The number of allocations that have been served from the heap because the budget was exhausted.
+     */
+    private static final AtomicLong HEAP_FALLBACKS = new AtomicLong();
+
+    /**
+     * The monitor used by the allocations waiting for memory to be freed.
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * The time waited by a blocked allocation before checking again for the buffers reclaimed by the garbage
+     * collector.
+     */
+    private static final long GC_POLLING_INTERVAL_IN_MILLIS = 100;
+
+    /**
+     * The maximum number of times an allocation exceeding the budget checks for the buffers reclaimed by the garbage
+     * collector before failing.
+     */
+    private static final int MAX_GC_POLLS = 9;
+
+    /**
+     * The direct buffers allocated by this class that have not been freed yet, by identity hash code.
+     */
+    private static final Map<Integer, Allocation> ALLOCATIONS = new HashMap<>();
+
+    /**
+     * The queue to which the allocations are enqueued once their buffer has been reclaimed by the garbage collector.
+     */
+    private static final ReferenceQueue<ByteBuffer> RECLAIMED = new ReferenceQueue<>();
+
+    /**
+     * The <code>sun.misc.Unsafe</code> instance used to free the direct buffers on JDK 9 and later, or
+     * <code>null</code> if it is not available.
+     */
+    private static final Object UNSAFE;
+
+    /**
+     * The <code>sun.misc.Unsafe.invokeCleaner</code> method, or <code>null</code> if it is not available.
+     */
+    private static final Method INVOKE_CLEANER;
+
+    /**
+     * The <code>sun.nio.ch.DirectBuffer.cleaner</code> method used to free the direct buffers on older JDKs, or
+     * <code>null</code> if it is not available.
+     */
+    private static final Method CLEANER;
+
+    /**
+     * The <code>sun.misc.Cleaner.clean</code> method, or <code>null</code> if it is not available.
+     */
+    private static final Method CLEAN;
+
+    static {
+
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+
+        try {
+
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+
+        } catch (ReflectiveOperationException | RuntimeException e) {
+
+            invokeCleaner = null;
+
+            try {
+
+                cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+
+                cleaner = null;
+                clean = null;
+            }
+        }
+
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        CLEANER = cleaner;
+        CLEAN = clean;
+    }
+
+    /**
+     * <code>false</code> if the direct buffers cannot be freed explicitly on this platform, in which case all the
+     * buffers are left to the garbage collector.
+     */
+    private static volatile boolean explicitFreeSupported = clean(ByteBuffer.allocateDirect(1));
+
+    /**
+     * The maximum number of bytes that can be allocated off-heap.
+     */
+    private static volatile long maxMemory = Long.MAX_VALUE;
+
+    /**
+     * The policy applied when the budget is exhausted.
+     */
+    private static volatile Policy policy = Policy.FAIL;
+
+    /**
+     * The number of allocations waiting for memory to be freed.
+     */
+    private static volatile int waiters;
+
+    /**
+     * Returns the maximum number of bytes that can be allocated off-heap.
+     *
+     * @return the maximum number of bytes that can be allocated off-heap.
+     */
+    public static long maxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Sets the maximum number of bytes that can be allocated off-heap.
+     *
+     * @param max the maximum number of bytes that can be allocated off-heap
+     */
+    public static void setMaxMemory(long max) {
+
+        isTrue(max >= 0, "the maximum amount of memory must be positive.");
+
+        maxMemory = max;
+        signal();
+    }
+
+    /**
+     * Returns the policy applied when the budget is exhausted.
+     *
+     * @return the policy applied when the budget is exhausted.
+     */
+    public static Policy policy() {
+        return policy;
+    }
+
+    /**
+     * Sets the policy applied when the budget is exhausted.
+     *
+     * @param newPolicy the policy applied when the budget is exhausted
+     */
+    public static void setPolicy(Policy newPolicy) {
+
+        notNull(newPolicy, "the policy parameter must not be null.");
+        policy = newPolicy;
+    }
+
+    /**
+     * Returns the number of live off-heap bytes of the specified category.
+     *
+     * @param category the category
+     * @return the number of live off-heap bytes of the specified category.
+     */
+    public static long usedMemory(Category category) {
+
+        expungeReclaimedAllocations();
+        return USED_MEMORY.get(category.ordinal());
+    }
+
+    /**
+     * Returns the number of live off-heap bytes counted against the budget, which excludes the memory mapped
+     * regions.
+     *
+     * @return the number of live off-heap bytes counted against the budget.
+     */
+    public static long usedMemory() {
+
+        expungeReclaimedAllocations();
+        return BUDGETED_MEMORY.get();
+    }
+
+    /**
+     * Checks if the direct buffers are freed as soon as {@link #free(Category, ByteBuffer)} is called. If not, their
+     * memory is only given back, and removed from the accounting, once the garbage collector has reclaimed them.
+     *
+     * @return <code>true</code> if the direct buffers can be freed explicitly, <code>false</code> otherwise.
+     */
+    public static boolean isExplicitFreeSupported() {
+        return explicitFreeSupported;
+    }
+
+    /**
+     * Returns the number of allocations that have been served from the heap because the budget was exhausted.
+     *
+     * @return the number of allocations that have been served from the heap.
+     */
+    public static long numberOfHeapFallbacks() {
+        return HEAP_FALLBACKS.get();
+    }
+
+    /**
+     * Allocates a buffer of the specified capacity for the specified category. The buffer is direct unless the
+     * budget is exhausted and the policy is {@link Policy#FALLBACK_TO_HEAP}.
+     *
+     * @param category the category of the allocation
+     * @param capacity the buffer capacity
+     * @return a direct buffer, or a heap buffer if the allocation has fallen back to the heap.
+     * @throws OutOfMemoryError if the memory cannot be allocated
+     */
+    public static ByteBuffer allocate(Category category, int capacity) {
+
+        return allocate(category, capacity, true);
+    }
+
+    /**
+     * Allocates a direct buffer of the specified capacity for the specified category. The policy
+     * {@link Policy#FALLBACK_TO_HEAP} is handled like {@link Policy#FAIL}.
+     *
+     * @param category the category of the allocation
+     * @param capacity the buffer capacity
+     * @return a direct buffer.
+     * @throws OutOfMemoryError if the memory cannot be allocated
+     */
+    public static ByteBuffer allocateDirect(Category category, int capacity) {
+
+        return allocate(category, capacity, false);
+    }
+
+    /**
+     * Frees the memory of the specified buffer if it is a direct buffer allocated by this class, or a mapping
+     * registered through {@link #registerMapping(MappedByteBuffer)}, that has not been freed yet. Heap buffers are
+     * left to the garbage collector, and so are the direct buffers if the platform does not allow to free them
+     * explicitly: their memory is then removed from the accounting once they have been reclaimed.
+     *
+     * @param category the category under which the buffer has been allocated
+     * @param buffer the buffer to free
+     */
+    public static void free(Category category, ByteBuffer buffer) {
+
+        if (!buffer.isDirect() || !explicitFreeSupported) {
+            return;
+        }
+
+        synchronized (ALLOCATIONS) {
+
+            Allocation allocation = findAllocation(buffer);
+
+            if (allocation == null) {
+                return;
+            }
+
+            if (!clean(buffer)) {
+
+                // The cleaner of the buffer is not accessible on this platform. The memory is left to the garbage
+                // collector.
+                explicitFreeSupported = false;
+                return;
+            }
+
+            removeAllocation(allocation);
+        }
+
+        unregister(category, buffer.capacity());
+    }
+
+    /**
+     * Releases immediately the native memory of the specified direct or memory mapped buffer, without updating the
+     * accounting. The buffer must not be a slice or a duplicate, and must not be used afterward.
+     *
+     * @param buffer the buffer to release
+     * @return <code>true</code> if the memory has been released, <code>false</code> if the platform does not allow
+     * it or if the buffer is not a direct buffer owning its memory.
+     */
+    public static boolean clean(ByteBuffer buffer) {
+
+        if (!buffer.isDirect()) {
+            return false;
+        }
+
+        try {
+
+            if (INVOKE_CLEANER != null) {
+
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+                return true;
+            }
+
+            if (CLEANER != null) {
+
+                Object cleaner = CLEANER.invoke(buffer);
+
+                if (cleaner != null) {
+
+                    CLEAN.invoke(cleaner);
+                    return true;
+                }
+            }
+
+        } catch (ReflectiveOperationException | RuntimeException e) {
+
+            // The buffer is a slice or a duplicate, or the cleaner is not accessible.
+        }
+
+        return false;
+    }
+
+    /**
+     * Records the specified memory mapped region. The region is removed from the accounting once it has been unmapped
+     * through {@link #free(Category, ByteBuffer)} or once the buffer has been reclaimed by the garbage collector.
+     *
+     * @param buffer the buffer representing the memory mapping
+     */
+    public static void registerMapping(MappedByteBuffer buffer) {
+
+        register(Category.MAPPED, buffer.capacity());
+        addAllocation(new Allocation(buffer, Category.MAPPED));
+    }
+
+    /**
+     * Records the specified amount of off-heap memory allocated outside of this class. The budget is not enforced.
+     *
+     * @param category the category of the memory
+     * @param size the number of bytes
+     */
+    public static void register(Category category, long size) {
+
+        USED_MEMORY.addAndGet(category.ordinal(), size);
+
+        if (category != Category.MAPPED) {
+            BUDGETED_MEMORY.addAndGet(size);
+        }
+    }
+
+    /**
+     * Records that the specified amount of off-heap memory has been freed.
+     *
+     * @param category the category of the memory
+     * @param size the number of bytes
+     */
+    public static void unregister(Category category, long size) {
+
+        USED_MEMORY.addAndGet(category.ordinal(), -size);
+
+        if (category != Category.MAPPED) {
+            BUDGETED_MEMORY.addAndGet(-size);
+            signal();
+        }
+    }
+
+    /**
+     * Allocates a buffer of the specified capacity for the specified category.
+     *
+     * @param category the category of the allocation
+     * @param capacity the buffer capacity
+     * @param heapAllowed <code>true</code> if the caller can use a heap buffer
+     * @return the allocated buffer.
+     * @throws OutOfMemoryError if the memory cannot be allocated
+     */
+    private static ByteBuffer allocate(Category category, int capacity, boolean heapAllowed) {
+
+        isTrue(category != Category.MAPPED, "the memory mapped regions cannot be allocated.");
+        isTrue(capacity >= 0, "the capacity must be positive");
+
+        Policy currentPolicy = policy;
+
+        expungeReclaimedAllocations();
+
+        if (!reserve(capacity)) {
+
+            if (currentPolicy == Policy.FALLBACK_TO_HEAP && heapAllowed) {
+                return allocateOnHeap(capacity);
+            }
+
+            if (capacity > maxMemory) {
+                throw budgetExceeded(category, capacity);
+            }
+
+            if (!reserveAfterGC(capacity)) {
+
+                if (currentPolicy != Policy.BLOCK) {
+                    throw budgetExceeded(category, capacity);
+                }
+
+                awaitReservation(category, capacity);
+            }
+        }
+
+        try {
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+            USED_MEMORY.addAndGet(category.ordinal(), capacity);
+            addAllocation(new Allocation(buffer, category));
+
+            return buffer;
+
+        } catch (OutOfMemoryError e) {
+
+            BUDGETED_MEMORY.addAndGet(-capacity);
+            signal();
+
+            if (currentPolicy == Policy.FALLBACK_TO_HEAP && heapAllowed) {
+                return allocateOnHeap(capacity);
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * Allocates a heap buffer in place of a direct one.
+     *
+     * @param capacity the buffer capacity
+     * @return a heap buffer.
+     */
+    private static ByteBuffer allocateOnHeap(int capacity) {
+
+        HEAP_FALLBACKS.incrementAndGet();
+        return ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Tries to reserve the specified number of bytes within the budget.
+     *
+     * @param size the number of bytes
+     * @return <code>true</code> if the bytes have been reserved, <code>false</code> otherwise.
+     */
+    private static boolean reserve(int size) {
+
+        for (;;) {
+
+            long used = BUDGETED_MEMORY.get();
+
+            if (used + size > maxMemory) {
+                return false;
+            }
+
+            if (BUDGETED_MEMORY.compareAndSet(used, used + size)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Requests a garbage collection and tries to reserve the specified number of bytes as the buffers that have
+     * been left to the garbage collector get reclaimed.
+     *
+     * @param size the number of bytes
+     * @return <code>true</code> if the bytes have been reserved, <code>false</code> otherwise.
+     */
+    private static boolean reserveAfterGC(int size) {
+
+        System.gc();
+
+        long sleepTime = 1;
+
+        for (int i = 0; i < MAX_GC_POLLS; i++) {
+
+            expungeReclaimedAllocations();
+
+            if (reserve(size)) {
+                return true;
+            }
+
+            try {
+
+                Thread.sleep(sleepTime);
+                sleepTime <<= 1;
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        expungeReclaimedAllocations();
+        return reserve(size);
+    }
+
+    /**
+     * Waits until the specified number of bytes can be reserved within the budget.
+     *
+     * @param category the category of the allocation
+     * @param size the number of bytes
+     * @throws OutOfMemoryError if the thread is interrupted while waiting
+     */
+    private static void awaitReservation(Category category, int size) {
+
+        synchronized (LOCK) {
+
+            waiters++;
+
+            try {
+
+                while (!reserve(size)) {
+
+                    LOCK.wait(GC_POLLING_INTERVAL_IN_MILLIS);
+                    expungeReclaimedAllocations();
+                }
+
+            } catch (InterruptedException e) {
+
+                Thread.currentThread().interrupt();
+                throw budgetExceeded(category, size);
+
+            } finally {
+
+                waiters--;
+            }
+        }
+    }
+
+    /**
+     * Removes from the accounting the buffers that have been reclaimed by the garbage collector without having been
+     * freed.
+     *
+     * @return <code>true</code> if some memory has been removed from the accounting, <code>false</code> otherwise.
+     */
+    private static boolean expungeReclaimedAllocations() {
+
+        boolean expunged = false;
+
+        for (Allocation allocation = (Allocation) RECLAIMED.poll(); allocation != null;
+                allocation = (Allocation) RECLAIMED.poll()) {
+
+            boolean removed;
+
+            synchronized (ALLOCATIONS) {
+                removed = removeAllocation(allocation);
+            }
+
+            if (removed) {
+
+                unregister(allocation.category, allocation.capacity);
+                expunged = true;
+            }
+        }
+
+        return expunged;
+    }
+
+    /**
+     * Records the specified allocation.
+     *
+     * @param allocation the allocation
+     */
+    private static void addAllocation(Allocation allocation) {
+
+        synchronized (ALLOCATIONS) {
+
+            allocation.next = ALLOCATIONS.put(Integer.valueOf(allocation.hash), allocation);
+        }
+    }
+
+    /**
+     * Returns the allocation of the specified buffer. Must be called while holding the lock on
+     * {@link #ALLOCATIONS}.
+     *
+     * @param buffer the buffer
+     * @return the allocation of the specified buffer, or <code>null</code> if the buffer has not been allocated by
+     * this class or has already been freed.
+     */
+    private static Allocation findAllocation(ByteBuffer buffer) {
+
+        Allocation allocation = ALLOCATIONS.get(Integer.valueOf(System.identityHashCode(buffer)));
+
+        while (allocation != null && allocation.get() != buffer) {
+            allocation = allocation.next;
+        }
+
+        return allocation;
+    }
+
+    /**
+     * Removes the specified allocation. Must be called while holding the lock on {@link #ALLOCATIONS}.
+     *
+     * @param allocation the allocation to remove
+     * @return <code>true</code> if the allocation has been removed, <code>false</code> if it had already been.
+     */
+    private static boolean removeAllocation(Allocation allocation) {
+
+        Integer key = Integer.valueOf(allocation.hash);
+        Allocation first = ALLOCATIONS.get(key);
+
+        if (first == allocation) {
+
+            if (allocation.next == null) {
+                ALLOCATIONS.remove(key);
+            } else {
+                ALLOCATIONS.put(key, allocation.next);
+            }
+
+            allocation.clear();
+            return true;
+        }
+
+        for (Allocation previous = first; previous != null; previous = previous.next) {
+
+            if (previous.next == allocation) {
+
+                previous.next = allocation.next;
+                allocation.clear();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Wakes up the allocations waiting for memory to be freed, if any.
+     */
+    private static void signal() {
+
+        if (waiters > 0) {
+
+            synchronized (LOCK) {
+                LOCK.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Creates the error thrown when an allocation would exceed the budget.
+     *
+     * @param category the category of the allocation
+     * @param size the number of bytes requested
+     * @return the error thrown when an allocation would exceed the budget.
+     */
+    @SuppressWarnings("boxing")
+    private static OutOfMemoryError budgetExceeded(Category category, int size) {
+
+        return new OutOfMemoryError(format("Direct memory budget exceeded: cannot allocate %d bytes for %s "
+                + "(used: %d, max: %d)", size, category, usedMemory(), maxMemory));
+    }
+
+    /**
+     * Must not be instantiated.
+     */
+    private DirectMemory() {
+    }
+
+    /**
+     * A direct buffer allocated by this class that has not been freed yet.
+     */
+    private static final class Allocation extends WeakReference<ByteBuffer> {
+
+        /**
+         * The identity hash code of the buffer.
+         */
+        private final int hash;
+
+        /**
+         * The category of the allocation.
+         */
+        private final Category category;
+
+        /**
+         * The buffer capacity.
+         */
+        private final int capacity;
+
+        /**
+         * The next allocation whose buffer has the same identity hash code.
+         */
+        private Allocation next;
+
+        /**
+         * Creates a new <code>Allocation</code> for the specified buffer.
+         *
+         * @param buffer the direct buffer
+         * @param category the category of the allocation
+         */
+        public Allocation(ByteBuffer buffer, Category category) {
+
+            super(buffer, RECLAIMED);
+
+            this.hash = System.identityHashCode(buffer);
+            this.category = category;
+            this.capacity = buffer.capacity();
+        }
+    }
+}
@@ -13,8 +13,16 @@
  */
 package io.horizondb.io.buffers;
 
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteProcessor;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
@@ -31,6 +39,12 @@ public final class HeapBuffer extends AbstractBuffer {
      */
     private final byte[] array;
 
+    /**
+     * The <code>ByteBuffer</code> view of the array used to read and write the primitive types in one access. Its
+     * order is kept in sync with the order of this buffer so that the primitives are never swapped twice.
+     */
+    private final ByteBuffer view;
+
     /**
      * {@inheritDoc}
      */
@@ -41,10 +55,22 @@ public final class HeapBuffer extends AbstractBuffer {
         duplicate.subRegion(getOffset(), capacity());
         duplicate.writerIndex(writerIndex());
         duplicate.readerIndex(readerIndex());
+        duplicate.referenceCount = this.referenceCount;
 
         return duplicate;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer order(ByteOrder order) {
+
+        super.order(order);
+        this.view.order(order);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -127,6 +153,60 @@ public final class HeapBuffer extends AbstractBuffer {
         throw new IllegalArgumentException("The provided buffer cannot be merge with this one");
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected short doGetShort(int index) {
+
+        return this.view.getShort(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doGetInt(int index) {
+
+        return this.view.getInt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected long doGetLong(int index) {
+
+        return this.view.getLong(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetShort(int index, short s) {
+
+        this.view.putShort(index, s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetInt(int index, int i) {
+
+        this.view.putInt(index, i);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetLong(int index, long l) {
+
+        this.view.putLong(index, l);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -135,6 +215,31 @@ public final class HeapBuffer extends AbstractBuffer {
         System.arraycopy(this.array, index, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doIndexOf(int index, int end, byte value) {
+
+        return doIndexOfByWords(index, end, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doForEachByte(int index, int end, ByteProcessor processor) {
+
+        for (int i = index; i < end; i++) {
+
+            if (!processor.process(this.array[i])) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -152,6 +257,42 @@ public final class HeapBuffer extends AbstractBuffer {
         System.arraycopy(bytes, off, this.array, index, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetBytes(int index, ByteBuffer buffer) {
+
+        buffer.get(this.array, index, buffer.remaining());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetZeroBytes(int index, int len) {
+
+        Arrays.fill(this.array, index, index + len, (byte) 0);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTransferTo(int index, int len, ByteWriter writer) throws IOException {
+
+        writer.writeBytes(this.array, index, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuffer doNioBuffer(int index, int len) {
+
+        return ByteBuffer.wrap(this.array, index, len).slice();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -173,6 +314,7 @@ public final class HeapBuffer extends AbstractBuffer {
         notNull(array, "the array parameter must not be null.");
 
         this.array = array;
+        this.view = ByteBuffer.wrap(array).order(order());
         subRegion(0, array.length);
         writerIndex(array.length);
     }
@@ -187,6 +329,7 @@ public final class HeapBuffer extends AbstractBuffer {
         isTrue(capacity >= 0, "the capacity must be positive");
 
         this.array = new byte[capacity];
+        this.view = ByteBuffer.wrap(this.array).order(order());
         subRegion(0, capacity);
         writerIndex(0);
     }
@@ -0,0 +1,599 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.ReadableBuffer;
+import io.horizondb.io.ReferenceCounted;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+import static io.horizondb.io.encoding.Endianness.SHORT_LENGTH;
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+
+/**
+ * Off-heap memory region addressed with <code>long</code> indices, whose capacity is not limited to 2 GB.
+ *
+ * <p>
+ * The memory is split into direct chunks of a power of two size, allocated through {@link DirectMemory}, which are
+ * freed explicitly as soon as the reference count reaches zero instead of waiting for the garbage collector. If the
+ * platform does not allow it (see {@link DirectMemory#isExplicitFreeSupported()}), the chunks are left to the
+ * garbage collector and stay accounted until they have been reclaimed. Any access to the buffer or to its windows
+ * after the release throws an <code>IllegalStateException</code>.
+ * </p>
+ *
+ * <p>
+ * The content can be accessed through absolute <code>long</code> indices or through <code>ReadableBuffer</code>
+ * windows returned by {@link #window(long, int)}. The windows share the memory and the reference count of this
+ * buffer.
+ * </p>
+ */
+public final class LargeBuffer implements ReferenceCounted {
+
+    /**
+     * The default size of the chunks: 1 GB.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+
+    /**
+     * The direct chunks, in big endian order.
+     */
+    private final ByteBuffer[] chunks;
+
+    /**
+     * The number of bits used to address a byte within a chunk.
+     */
+    private final int chunkShift;
+
+    /**
+     * The mask used to compute the index of a byte within a chunk.
+     */
+    private final long chunkMask;
+
+    /**
+     * The buffer capacity.
+     */
+    private final long capacity;
+
+    /**
+     * The reference count shared by this buffer and its windows.
+     */
+    private final CompositeBuffer.CompositeReferenceCount referenceCount;
+
+    /**
+     * The byte order used to read and write the data.
+     */
+    private ByteOrder order = ByteOrder.nativeOrder();
+
+    /**
+     * Creates a new <code>LargeBuffer</code> with the specified capacity.
+     *
+     * @param capacity the buffer capacity
+     */
+    LargeBuffer(long capacity) {
+
+        this(capacity, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new <code>LargeBuffer</code> with the specified capacity.
+     *
+     * @param capacity the buffer capacity
+     * @param chunkSize the size of the chunks, must be a power of two
+     */
+    LargeBuffer(long capacity, int chunkSize) {
+
+        isTrue(capacity >= 0, "the capacity must be positive");
+        isTrue(chunkSize > 0 && Integer.bitCount(chunkSize) == 1, "the chunk size must be a power of two");
+
+        this.capacity = capacity;
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+
+        final ByteBuffer[] chunks = new ByteBuffer[(int) ((capacity + chunkSize - 1) >>> this.chunkShift)];
+
+        try {
+
+            for (int i = 0; i < chunks.length; i++) {
+
+                int size = (int) Math.min(chunkSize, capacity - ((long) i << this.chunkShift));
+                chunks[i] = DirectMemory.allocateDirect(DirectMemory.Category.BUFFER, size);
+            }
+
+        } catch (OutOfMemoryError e) {
+
+            free(chunks);
+            throw e;
+        }
+
+        this.chunks = chunks;
+        this.referenceCount = new CompositeBuffer.CompositeReferenceCount() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void deallocate() {
+
+                super.deallocate();
+                free(chunks);
+            }
+        };
+    }
+
+    /**
+     * Returns the capacity of this buffer.
+     *
+     * @return the capacity of this buffer.
+     */
+    public long capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the byte order used to read and write the data.
+     *
+     * @return the byte order used to read and write the data.
+     */
+    public ByteOrder order() {
+        return this.order;
+    }
+
+    /**
+     * Specifies the byte order used to read and write the data.
+     *
+     * @param order the byte order used to read and write the data
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer order(ByteOrder order) {
+
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Returns the byte at the specified index.
+     *
+     * @param index the byte index
+     * @return the byte at the specified index.
+     */
+    public byte getByte(long index) {
+
+        checkIndex(index, 1);
+        return chunk(index).get(offset(index));
+    }
+
+    /**
+     * Returns the 16-bit short integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @return the 16-bit short integer at the specified index.
+     */
+    public short getShort(long index) {
+
+        short s = (short) get(index, SHORT_LENGTH);
+        return this.order == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s);
+    }
+
+    /**
+     * Returns the 32-bit integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @return the 32-bit integer at the specified index.
+     */
+    public int getInt(long index) {
+
+        int i = (int) get(index, INT_LENGTH);
+        return this.order == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i);
+    }
+
+    /**
+     * Returns the 64-bit long integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @return the 64-bit long integer at the specified index.
+     */
+    public long getLong(long index) {
+
+        long l = get(index, LONG_LENGTH);
+        return this.order == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
+    /**
+     * Transfers the bytes starting at the specified index into the specified array.
+     *
+     * @param index the index of the first byte
+     * @param array the array into which the bytes must be copied
+     * @param offset the position of the first byte within the array
+     * @param length the number of bytes to copy
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer getBytes(long index, byte[] array, int offset, int length) {
+
+        checkIndex(index, length);
+
+        long position = index;
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            ByteBuffer chunk = chunk(position).duplicate();
+            int chunkOffset = offset(position);
+            int chunkLength = Math.min(remaining, chunk.capacity() - chunkOffset);
+
+            chunk.position(chunkOffset);
+            chunk.get(array, off, chunkLength);
+
+            position += chunkLength;
+            off += chunkLength;
+            remaining -= chunkLength;
+        }
+
+        return this;
+    }
+
+    /**
+     * Sets the byte at the specified index.
+     *
+     * @param index the byte index
+     * @param b the byte value
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setByte(long index, int b) {
+
+        checkIndex(index, 1);
+        chunk(index).put(offset(index), (byte) b);
+
+        return this;
+    }
+
+    /**
+     * Sets the 16-bit short integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @param s the short integer value
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setShort(long index, short s) {
+
+        set(index, this.order == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s), SHORT_LENGTH);
+        return this;
+    }
+
+    /**
+     * Sets the 32-bit integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @param i the integer value
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setInt(long index, int i) {
+
+        set(index, this.order == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i), INT_LENGTH);
+        return this;
+    }
+
+    /**
+     * Sets the 64-bit long integer at the specified index.
+     *
+     * @param index the index of the first byte
+     * @param l the long integer value
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setLong(long index, long l) {
+
+        set(index, this.order == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l), LONG_LENGTH);
+        return this;
+    }
+
+    /**
+     * Transfers the specified bytes of the specified array into this buffer.
+     *
+     * @param index the index of the first byte within this buffer
+     * @param array the array containing the bytes
+     * @param offset the position of the first byte within the array
+     * @param length the number of bytes to copy
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setBytes(long index, byte[] array, int offset, int length) {
+
+        checkIndex(index, length);
+
+        long position = index;
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            ByteBuffer chunk = chunk(position).duplicate();
+            int chunkOffset = offset(position);
+            int chunkLength = Math.min(remaining, chunk.capacity() - chunkOffset);
+
+            chunk.position(chunkOffset);
+            chunk.put(array, off, chunkLength);
+
+            position += chunkLength;
+            off += chunkLength;
+            remaining -= chunkLength;
+        }
+
+        return this;
+    }
+
+    /**
+     * Transfers the readable bytes of the specified buffer into this buffer. The reader index of the specified
+     * buffer is not modified.
+     *
+     * @param index the index of the first byte within this buffer
+     * @param buffer the buffer containing the bytes
+     * @return this <code>LargeBuffer</code>
+     */
+    public LargeBuffer setBytes(long index, ReadableBuffer buffer) {
+
+        int length = buffer.readableBytes();
+
+        checkIndex(index, length);
+
+        long position = index;
+
+        for (ByteBuffer source : buffer.nioBuffers()) {
+
+            ByteBuffer src = source.duplicate();
+
+            while (src.hasRemaining()) {
+
+                ByteBuffer chunk = chunk(position).duplicate();
+                int chunkOffset = offset(position);
+                int chunkLength = Math.min(src.remaining(), chunk.capacity() - chunkOffset);
+
+                ByteBuffer part = src.duplicate();
+                part.limit(part.position() + chunkLength);
+
+                chunk.position(chunkOffset);
+                chunk.put(part);
+
+                src.position(src.position() + chunkLength);
+                position += chunkLength;
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns a <code>ReadableBuffer</code> giving access to the specified bytes of this buffer. The window shares
+     * the memory and the reference count of this buffer, but its reader index is independent.
+     *
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return a window over the specified bytes.
+     */
+    public ReadableBuffer window(long index, int length) {
+
+        checkIndex(index, length);
+
+        if (length == 0) {
+            return Buffers.EMPTY_BUFFER;
+        }
+
+        int first = chunkIndex(index);
+        int last = chunkIndex(index + length - 1);
+        int offset = offset(index);
+
+        if (first == last) {
+
+            ByteBuffer chunk = this.chunks[first].duplicate();
+            chunk.position(offset).limit(offset + length);
+
+            DirectBuffer window = new DirectBuffer(chunk.slice());
+            window.referenceCount = this.referenceCount;
+
+            return window.order(this.order);
+        }
+
+        List<ReadableBuffer> buffers = new ArrayList<>(last - first + 1);
+
+        for (int i = first; i <= last; i++) {
+            buffers.add(new DirectBuffer(this.chunks[i]));
+        }
+
+        return CompositeBuffer.newView(buffers, offset, length, this.order, this.referenceCount);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int refCnt() {
+        return this.referenceCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LargeBuffer retain() {
+
+        this.referenceCount.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean release() {
+        return this.referenceCount.release();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("capacity", this.capacity)
+                                                                          .append("numberOfChunks", this.chunks.length)
+                                                                          .append("order", this.order)
+                                                                          .toString();
+    }
+
+    /**
+     * Reads the specified number of bytes as an unsigned value, most significant byte first.
+     *
+     * @param index the index of the first byte
+     * @param numberOfBytes the number of bytes to read
+     * @return the value read
+     */
+    private long get(long index, int numberOfBytes) {
+
+        checkIndex(index, numberOfBytes);
+
+        ByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+
+        if (offset + numberOfBytes <= chunk.capacity()) {
+
+            switch (numberOfBytes) {
+                case SHORT_LENGTH:
+                    return chunk.getShort(offset);
+                case INT_LENGTH:
+                    return chunk.getInt(offset);
+                default:
+                    return chunk.getLong(offset);
+            }
+        }
+
+        long value = 0;
+
+        for (int i = 0; i < numberOfBytes; i++) {
+            value = (value << 8) | (chunk(index + i).get(offset(index + i)) & 0xFF);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes the specified number of low-order bytes of the specified value, most significant byte first.
+     *
+     * @param index the index of the first byte
+     * @param value the value to write
+     * @param numberOfBytes the number of bytes to write
+     */
+    private void set(long index, long value, int numberOfBytes) {
+
+        checkIndex(index, numberOfBytes);
+
+        ByteBuffer chunk = chunk(index);
+        int offset = offset(index);
+
+        if (offset + numberOfBytes <= chunk.capacity()) {
+
+            switch (numberOfBytes) {
+                case SHORT_LENGTH:
+                    chunk.putShort(offset, (short) value);
+                    break;
+                case INT_LENGTH:
+                    chunk.putInt(offset, (int) value);
+                    break;
+                default:
+                    chunk.putLong(offset, value);
+            }
+
+            return;
+        }
+
+        for (int i = 0; i < numberOfBytes; i++) {
+
+            int shift = (numberOfBytes - 1 - i) << 3;
+            chunk(index + i).put(offset(index + i), (byte) (value >>> shift));
+        }
+    }
+
+    /**
+     * Returns the index of the chunk containing the byte at the specified index.
+     *
+     * @param index the byte index
+     * @return the index of the chunk containing the byte.
+     */
+    private int chunkIndex(long index) {
+        return (int) (index >>> this.chunkShift);
+    }
+
+    /**
+     * Returns the chunk containing the byte at the specified index.
+     *
+     * @param index the byte index
+     * @return the chunk containing the byte.
+     */
+    private ByteBuffer chunk(long index) {
+        return this.chunks[chunkIndex(index)];
+    }
+
+    /**
+     * Returns the position within its chunk of the byte at the specified index.
+     *
+     * @param index the byte index
+     * @return the position within its chunk of the byte.
+     */
+    private int offset(long index) {
+        return (int) (index & this.chunkMask);
+    }
+
+    /**
+     * Checks that the specified amount of bytes can be accessed from the specified index.
+     *
+     * @param index the index of the first byte
+     * @param numberOfBytes the number of bytes
+     * @throws IndexOutOfBoundsException if the bytes are not within this buffer.
+     * @throws IllegalStateException if the buffer has been released and its chunks freed.
+     */
+    private void checkIndex(long index, int numberOfBytes) {
+
+        if (refCnt() == 0) {
+            throw new IllegalStateException("the buffer has already been released");
+        }
+
+        if (index < 0 || numberOfBytes < 0 || index > this.capacity - numberOfBytes) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Capacity: %d", index, numberOfBytes, this.capacity);
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    /**
+     * Frees the memory of the specified chunks.
+     *
+     * @param chunks the chunks to free
+     */
+    private static void free(ByteBuffer[] chunks) {
+
+        for (ByteBuffer chunk : chunks) {
+
+            if (chunk != null) {
+                DirectMemory.free(DirectMemory.Category.BUFFER, chunk);
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * <code>BufferAllocator</code> reporting the buffers that become unreachable without having been released.
+ *
+ * <p>
+ * Only a fraction of the allocations is tracked. For those, the allocation site is recorded and a phantom reference
+ * is registered on the reference count shared by the buffer, its duplicates and its slices. If the reference count
+ * is garbage collected before reaching zero, the leak is logged together with the allocation site. The allocations
+ * that are not sampled only pay for a random number, so the detector can be left on in production with a low
+ * sampling rate.
+ * </p>
+ *
+ * <p>
+ * The leaks are detected each time a sampled allocation is made or when {@link #detectLeaks()} is called.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class LeakDetectingBufferAllocator implements BufferAllocator {
+
+    /**
+     * The logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(LeakDetectingBufferAllocator.class);
+
+    /**
+     * The decorated allocator.
+     */
+    private final BufferAllocator allocator;
+
+    /**
+     * The fraction of the allocations that are tracked.
+     */
+    private final double samplingRate;
+
+    /**
+     * The queue into which the garbage collector enqueues the trackers of the unreachable buffers.
+     */
+    private final ReferenceQueue<ReferenceCount> queue = new ReferenceQueue<>();
+
+    /**
+     * The trackers of the buffers that have not been released yet, which must be kept reachable.
+     */
+    private final Set<Tracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+
+    /**
+     * The number of allocations that have been tracked.
+     */
+    private final AtomicLong numberOfTrackedAllocations = new AtomicLong();
+
+    /**
+     * The number of leaks that have been detected.
+     */
+    private final AtomicLong numberOfLeaks = new AtomicLong();
+
+    /**
+     * Creates a new <code>LeakDetectingBufferAllocator</code>.
+     *
+     * @param allocator the decorated allocator
+     * @param samplingRate the fraction of the allocations that must be tracked, between 0 and 1
+     */
+    public LeakDetectingBufferAllocator(BufferAllocator allocator, double samplingRate) {
+
+        notNull(allocator, "the allocator parameter must not be null.");
+        isTrue(samplingRate >= 0 && samplingRate <= 1, "the sampling rate must be between 0 and 1.");
+
+        this.allocator = allocator;
+        this.samplingRate = samplingRate;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer allocate(int size) {
+
+        Buffer buffer = this.allocator.allocate(size);
+
+        if (ThreadLocalRandom.current().nextDouble() < this.samplingRate) {
+
+            detectLeaks();
+            track(buffer);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void release() {
+
+        detectLeaks();
+        this.allocator.release();
+    }
+
+    /**
+     * Reports the tracked buffers that have become unreachable without having been released.
+     *
+     * @return the number of leaks detected by this call.
+     */
+    public int detectLeaks() {
+
+        int leaks = 0;
+
+        for (Tracker tracker = (Tracker) this.queue.poll(); tracker != null; tracker = (Tracker) this.queue.poll()) {
+
+            if (this.trackers.remove(tracker)) {
+
+                leaks++;
+                this.numberOfLeaks.incrementAndGet();
+
+                LOG.error("LEAK: a buffer of " + tracker.size + " bytes has been garbage collected without having "
+                        + "been released", tracker.allocationSite);
+            }
+        }
+
+        return leaks;
+    }
+
+    /**
+     * Returns the number of allocations that have been tracked.
+     *
+     * @return the number of allocations that have been tracked.
+     */
+    public long numberOfTrackedAllocations() {
+        return this.numberOfTrackedAllocations.get();
+    }
+
+    /**
+     * Returns the number of leaks that have been detected.
+     *
+     * @return the number of leaks that have been detected.
+     */
+    public long numberOfLeaks() {
+        return this.numberOfLeaks.get();
+    }
+
+    /**
+     * Starts tracking the specified buffer, if its memory must be explicitly released.
+     *
+     * @param buffer the buffer to track
+     */
+    private void track(Buffer buffer) {
+
+        // The ByteBufs are tracked by the Netty leak detector
+        if (!(buffer instanceof AbstractReadableBuffer) || buffer instanceof NettyBuffer) {
+            return;
+        }
+
+        AbstractReadableBuffer tracked = (AbstractReadableBuffer) buffer;
+        final ReferenceCount delegate = tracked.referenceCount;
+
+        if (delegate == ReferenceCount.UNRELEASABLE) {
+            return;
+        }
+
+        final Tracker[] holder = new Tracker[1];
+
+        ReferenceCount referenceCount = new ReferenceCount() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void deallocate() {
+
+                holder[0].close();
+                delegate.deallocate();
+            }
+        };
+
+        holder[0] = new Tracker(referenceCount, buffer.capacity());
+        tracked.referenceCount = referenceCount;
+
+        this.trackers.add(holder[0]);
+        this.numberOfTrackedAllocations.incrementAndGet();
+    }
+
+    /**
+     * Phantom reference to the reference count of a tracked buffer.
+     */
+    private final class Tracker extends PhantomReference<ReferenceCount> {
+
+        /**
+         * The stack trace of the allocation.
+         */
+        private final Throwable allocationSite;
+
+        /**
+         * The buffer size.
+         */
+        private final int size;
+
+        /**
+         * Creates a new <code>Tracker</code> for the specified reference count.
+         *
+         * @param referenceCount the reference count of the tracked buffer
+         * @param size the buffer size
+         */
+        Tracker(ReferenceCount referenceCount, int size) {
+
+            super(referenceCount, LeakDetectingBufferAllocator.this.queue);
+
+            this.allocationSite = new Throwable("Allocation site");
+            this.size = size;
+        }
+
+        /**
+         * Stops tracking the buffer as it has been released.
+         */
+        void close() {
+
+            LeakDetectingBufferAllocator.this.trackers.remove(this);
+            clear();
+        }
+    }
+}
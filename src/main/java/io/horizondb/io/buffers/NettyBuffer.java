@@ -14,12 +14,20 @@
 package io.horizondb.io.buffers;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteWriter;
 import io.netty.buffer.ByteBuf;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import static org.apache.commons.lang.Validate.notNull;
 
 /**
  * Adapts the <code>ByteBuff</code> to the <code>Buffer</code> interface.
+ * 
+ * <p>
+ * The reference count is the one of the adapted <code>ByteBuf</code>.
+ * </p>
  */
 final class NettyBuffer extends AbstractBuffer {
 
@@ -28,6 +36,12 @@ final class NettyBuffer extends AbstractBuffer {
      */
     private final ByteBuf buffer;
 
+    /**
+     * <code>true</code> if the direct memory of the adapted buffer has been registered with {@link DirectMemory} and
+     * must be unregistered once the buffer has been released.
+     */
+    private final boolean accounted;
+
     /**
      * {@inheritDoc}
      */
@@ -44,6 +58,14 @@ final class NettyBuffer extends AbstractBuffer {
         return this.buffer.array();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int arrayOffset() {
+        return this.buffer.arrayOffset() + super.arrayOffset();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -52,13 +74,46 @@ final class NettyBuffer extends AbstractBuffer {
         return this.buffer.isDirect();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int refCnt() {
+        return this.buffer.refCnt();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer retain() {
+
+        this.buffer.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean release() {
+
+        boolean released = this.buffer.release();
+
+        if (released && this.accounted) {
+            DirectMemory.unregister(DirectMemory.Category.BUFFER, this.buffer.capacity());
+        }
+
+        return released;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public Buffer duplicate() {
 
-        NettyBuffer duplicate = new NettyBuffer(this.buffer);
+        NettyBuffer duplicate = new NettyBuffer(this.buffer, this.accounted);
         duplicate.subRegion(getOffset(), capacity());
         duplicate.writerIndex(writerIndex());
         duplicate.readerIndex(readerIndex());
@@ -82,6 +137,14 @@ final class NettyBuffer extends AbstractBuffer {
         this.buffer.getBytes(index, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int doIndexOf(int index, int end, byte value) {
+        return this.buffer.indexOf(index, end, value);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -98,6 +161,46 @@ final class NettyBuffer extends AbstractBuffer {
         this.buffer.setBytes(index, bytes, off, len);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetBytes(int index, ByteBuffer bytes) {
+        this.buffer.setBytes(index, bytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doSetZeroBytes(int index, int len) {
+        this.buffer.setZero(index, len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doTransferTo(int index, int len, ByteWriter writer) throws IOException {
+        writer.writeBytes(this.buffer.nioBuffer(index, len));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ByteBuffer doNioBuffer(int index, int len) {
+        return this.buffer.nioBuffer(index, len).slice();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isNioBufferWritable() {
+        return this.buffer.nioBufferCount() == 1;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -115,9 +218,23 @@ final class NettyBuffer extends AbstractBuffer {
      */
     NettyBuffer(ByteBuf buffer) {
 
+        this(buffer, false);
+    }
+
+    /**
+     * Creates a new <code>NettyBuffer</code> that wraps the specified <code>ByteBuf</code>.
+     * 
+     * @param buffer the <code>ByteBuf</code>
+     * @param accounted <code>true</code> if the capacity of the <code>ByteBuf</code> has been registered with
+     * {@link DirectMemory} under the {@link DirectMemory.Category#BUFFER} category and must be unregistered once the
+     * <code>ByteBuf</code> has been released.
+     */
+    NettyBuffer(ByteBuf buffer, boolean accounted) {
+
         notNull(buffer, "the buffer parameter must not be null.");
 
         this.buffer = buffer;
+        this.accounted = accounted;
 
         subRegion(0, buffer.capacity());
         writerIndex(buffer.writerIndex());
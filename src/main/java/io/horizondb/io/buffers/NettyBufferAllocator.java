@@ -0,0 +1,107 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * <code>BufferAllocator</code> drawing its memory from a Netty <code>ByteBufAllocator</code>, by default the shared
+ * <code>PooledByteBufAllocator</code>, so that the storage and the network layers use the same memory pool.
+ *
+ * <p>
+ * The buffers returned are adapted <code>ByteBuf</code>s. Their reference count is the one of the
+ * <code>ByteBuf</code>, whose memory is given back to the Netty pool once it reaches zero.
+ * </p>
+ *
+ * <p>
+ * The capacity of the direct buffers is registered with {@link DirectMemory} under the
+ * {@link DirectMemory.Category#BUFFER} category while they are in use, so that they show up in its counters. The
+ * memory is drawn from the Netty arenas, which are sized by Netty, so the <code>DirectMemory</code> budget is not
+ * enforced for these buffers.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class NettyBufferAllocator implements BufferAllocator {
+
+    /**
+     * The Netty allocator.
+     */
+    private final ByteBufAllocator allocator;
+
+    /**
+     * <code>true</code> if this allocator returns direct buffers.
+     */
+    private final boolean direct;
+
+    /**
+     * Creates a new <code>NettyBufferAllocator</code> using the shared <code>PooledByteBufAllocator</code>.
+     *
+     * @param direct <code>true</code> if the allocator must return direct buffers, <code>false</code> otherwise.
+     */
+    public NettyBufferAllocator(boolean direct) {
+
+        this(PooledByteBufAllocator.DEFAULT, direct);
+    }
+
+    /**
+     * Creates a new <code>NettyBufferAllocator</code> using the specified Netty allocator.
+     *
+     * @param allocator the Netty allocator
+     * @param direct <code>true</code> if the allocator must return direct buffers, <code>false</code> otherwise.
+     */
+    public NettyBufferAllocator(ByteBufAllocator allocator, boolean direct) {
+
+        notNull(allocator, "the allocator parameter must not be null.");
+
+        this.allocator = allocator;
+        this.direct = direct;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer allocate(int size) {
+
+        ByteBuf buffer = this.direct ? this.allocator.directBuffer(size, size) : this.allocator.heapBuffer(size, size);
+
+        if (buffer.isDirect()) {
+
+            DirectMemory.register(DirectMemory.Category.BUFFER, buffer.capacity());
+            return new NettyBuffer(buffer, true);
+        }
+
+        return new NettyBuffer(buffer);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The Netty allocator is shared, so its memory is not freed.
+     * </p>
+     */
+    @Override
+    public void release() {
+
+    }
+}
@@ -0,0 +1,726 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang.Validate.isTrue;
+
+/**
+ * <code>BufferAllocator</code> that recycles the memory of the buffers that are released.
+ *
+ * <p>
+ * The requested sizes are rounded up to the next power of two, and each of those size classes is served first by a
+ * small cache private to the calling thread and then by an arena shared by all the threads. Each thread cache holds
+ * at most <code>threadCacheSize</code> chunks per size class and <code>maxThreadCacheCapacity</code> bytes in
+ * total. The arena holds at most <code>maxArenaCapacity</code> bytes and the chunks that have not been needed since
+ * the previous call to {@link #trim()} are freed by it, in the arena as well as in the thread caches. The chunks
+ * cached by the threads that have terminated are given back to the arena by {@link #trim()} or when a new thread
+ * starts using the allocator. Requests bigger than <code>maxPooledSize</code> are not pooled.
+ * </p>
+ *
+ * <p>
+ * The thread caches do not reference the allocator, so an allocator that is no longer used can be garbage collected
+ * even if pooled threads have used it. {@link #release()} frees the chunks of all the thread caches and detaches
+ * them from the threads.
+ * </p>
+ *
+ * <p>
+ * The memory of a buffer is recycled when its reference count, shared with its duplicates and slices, reaches zero.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class PooledBufferAllocator implements BufferAllocator {
+
+    /**
+     * The default maximum size of the buffers that are pooled.
+     */
+    public static final int DEFAULT_MAX_POOLED_SIZE = 1 << 20;
+
+    /**
+     * The default number of chunks per size class that each thread can keep for itself.
+     */
+    public static final int DEFAULT_THREAD_CACHE_SIZE = 16;
+
+    /**
+     * The default maximum number of bytes that each thread can keep for itself.
+     */
+    public static final long DEFAULT_MAX_THREAD_CACHE_CAPACITY = 4L << 20;
+
+    /**
+     * The default maximum number of bytes that can be kept by the shared arena.
+     */
+    public static final long DEFAULT_MAX_ARENA_CAPACITY = 64L << 20;
+
+    /**
+     * The logarithm in base 2 of the smallest size class.
+     */
+    private static final int MIN_SIZE_CLASS_SHIFT = 6;
+
+    /**
+     * The smallest size class.
+     */
+    private static final int MIN_SIZE_CLASS = 1 << MIN_SIZE_CLASS_SHIFT;
+
+    /**
+     * <code>true</code> if this allocator returns direct buffers.
+     */
+    private final boolean direct;
+
+    /**
+     * The maximum size of the buffers that are pooled.
+     */
+    private final int maxPooledSize;
+
+    /**
+     * The number of chunks per size class that each thread can keep for itself.
+     */
+    private final int threadCacheSize;
+
+    /**
+     * The maximum number of bytes that each thread can keep for itself.
+     */
+    private final long maxThreadCacheCapacity;
+
+    /**
+     * The maximum number of bytes that can be kept by the shared arena.
+     */
+    private final long maxArenaCapacity;
+
+    /**
+     * The shared arena, one entry per size class.
+     */
+    private final Arena[] arenas;
+
+    /**
+     * The number of bytes currently held by the shared arena.
+     */
+    private final AtomicLong arenaCapacity = new AtomicLong();
+
+    /**
+     * The caches of all the threads that have used this allocator, including the threads that have terminated
+     * since.
+     */
+    private final List<ThreadCache> allThreadCaches = new CopyOnWriteArrayList<>();
+
+    /**
+     * The caches of the threads using this allocator. A new <code>ThreadLocal</code> is used after each release, so
+     * that the entries of the freed caches can be expunged from the threads.
+     */
+    private volatile ThreadLocal<ThreadCache> threadCaches = newThreadCaches();
+
+    /**
+     * Creates a new <code>PooledBufferAllocator</code> using the default settings.
+     *
+     * @param direct <code>true</code> if the allocator must return direct buffers, <code>false</code> otherwise.
+     */
+    public PooledBufferAllocator(boolean direct) {
+
+        this(direct, DEFAULT_MAX_POOLED_SIZE, DEFAULT_THREAD_CACHE_SIZE, DEFAULT_MAX_ARENA_CAPACITY);
+    }
+
+    /**
+     * Creates a new <code>PooledBufferAllocator</code> whose thread caches hold at most
+     * {@link #DEFAULT_MAX_THREAD_CACHE_CAPACITY} bytes.
+     *
+     * @param direct <code>true</code> if the allocator must return direct buffers, <code>false</code> otherwise.
+     * @param maxPooledSize the maximum size of the buffers that are pooled, must be a power of two.
+     * @param threadCacheSize the number of chunks per size class that each thread can keep for itself.
+     * @param maxArenaCapacity the maximum number of bytes that can be kept by the shared arena.
+     */
+    public PooledBufferAllocator(boolean direct, int maxPooledSize, int threadCacheSize, long maxArenaCapacity) {
+
+        this(direct, maxPooledSize, threadCacheSize, DEFAULT_MAX_THREAD_CACHE_CAPACITY, maxArenaCapacity);
+    }
+
+    /**
+     * Creates a new <code>PooledBufferAllocator</code>.
+     *
+     * @param direct <code>true</code> if the allocator must return direct buffers, <code>false</code> otherwise.
+     * @param maxPooledSize the maximum size of the buffers that are pooled, must be a power of two.
+     * @param threadCacheSize the number of chunks per size class that each thread can keep for itself.
+     * @param maxThreadCacheCapacity the maximum number of bytes that each thread can keep for itself.
+     * @param maxArenaCapacity the maximum number of bytes that can be kept by the shared arena.
+     */
+    public PooledBufferAllocator(boolean direct,
+                                 int maxPooledSize,
+                                 int threadCacheSize,
+                                 long maxThreadCacheCapacity,
+                                 long maxArenaCapacity) {
+
+        isTrue(maxPooledSize >= MIN_SIZE_CLASS && Integer.bitCount(maxPooledSize) == 1,
+               "the maximum pooled size must be a power of two greater or equals to " + MIN_SIZE_CLASS);
+        isTrue(threadCacheSize >= 0, "the thread cache size must be positive");
+        isTrue(maxThreadCacheCapacity >= 0, "the maximum thread cache capacity must be positive");
+        isTrue(maxArenaCapacity >= 0, "the maximum arena capacity must be positive");
+
+        this.direct = direct;
+        this.maxPooledSize = maxPooledSize;
+        this.threadCacheSize = threadCacheSize;
+        this.maxThreadCacheCapacity = maxThreadCacheCapacity;
+        this.maxArenaCapacity = maxArenaCapacity;
+        this.arenas = new Arena[sizeClassIndex(maxPooledSize) + 1];
+
+        for (int i = 0; i < this.arenas.length; i++) {
+            this.arenas[i] = new Arena();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Buffer allocate(int size) {
+
+        isTrue(size >= 0, "the size must be positive");
+
+        if (size > this.maxPooledSize) {
+            return newBuffer(newMemory(size), size, -1);
+        }
+
+        int index = sizeClassIndex(size);
+
+        Object memory = this.threadCaches.get().poll(index);
+
+        if (memory == null) {
+            memory = pollArena(index);
+        }
+
+        if (memory == null) {
+            memory = newMemory(sizeClassCapacity(index));
+        }
+
+        return newBuffer(memory, size, index);
+    }
+
+    /**
+     * Frees the chunks of the shared arena and of the thread caches that have not been needed since the previous
+     * call to this method. The chunks cached by the threads that have terminated are given back to the arena.
+     */
+    public void trim() {
+
+        drainTerminatedThreadCaches();
+
+        for (ThreadCache cache : this.allThreadCaches) {
+            cache.trim();
+        }
+
+        for (int i = 0; i < this.arenas.length; i++) {
+
+            Arena arena = this.arenas[i];
+
+            synchronized (arena) {
+
+                for (int j = 0; j < arena.lowWatermark; j++) {
+                    free(arena.chunks.poll());
+                }
+
+                this.arenaCapacity.addAndGet(-((long) arena.lowWatermark * sizeClassCapacity(i)));
+                arena.lowWatermark = arena.chunks.size();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently held by the shared arena.
+     *
+     * @return the number of bytes currently held by the shared arena.
+     */
+    public long getArenaCapacity() {
+        return this.arenaCapacity.get();
+    }
+
+    /**
+     * Returns the number of bytes currently held by the thread caches, including the caches of the threads that
+     * have terminated and have not been drained yet.
+     *
+     * @return the number of bytes currently held by the thread caches.
+     */
+    public long getThreadCacheCapacity() {
+
+        long capacity = 0;
+
+        for (ThreadCache cache : this.allThreadCaches) {
+            capacity += cache.capacity();
+        }
+
+        return capacity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void release() {
+
+        this.threadCaches.remove();
+        this.threadCaches = newThreadCaches();
+
+        for (ThreadCache cache : this.allThreadCaches) {
+            cache.free();
+        }
+
+        this.allThreadCaches.clear();
+
+        for (int i = 0; i < this.arenas.length; i++) {
+
+            Arena arena = this.arenas[i];
+
+            synchronized (arena) {
+
+                this.arenaCapacity.addAndGet(-((long) arena.chunks.size() * sizeClassCapacity(i)));
+
+                for (Object memory : arena.chunks) {
+                    free(memory);
+                }
+
+                arena.chunks.clear();
+                arena.lowWatermark = 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back the specified chunk to the pool once the last buffer using it has been released.
+     *
+     * @param index the size class index
+     * @param memory the chunk
+     */
+    private void recycle(int index, Object memory) {
+
+        if (!this.threadCaches.get().offer(index, memory)) {
+            offerArena(index, memory);
+        }
+    }
+
+    /**
+     * Gives the chunks cached by the threads that have terminated back to the shared arena and forgets their caches.
+     */
+    private void drainTerminatedThreadCaches() {
+
+        for (ThreadCache cache : this.allThreadCaches) {
+
+            if (!cache.isOwnerAlive() && this.allThreadCaches.remove(cache)) {
+                cache.drain(this);
+            }
+        }
+    }
+
+    /**
+     * Creates the <code>ThreadLocal</code> holding the caches of the threads using this allocator.
+     *
+     * @return the <code>ThreadLocal</code> holding the caches of the threads using this allocator.
+     */
+    private ThreadLocal<ThreadCache> newThreadCaches() {
+
+        return new ThreadLocal<ThreadCache>() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected ThreadCache initialValue() {
+
+                drainTerminatedThreadCaches();
+
+                PooledBufferAllocator allocator = PooledBufferAllocator.this;
+
+                ThreadCache cache = new ThreadCache(Thread.currentThread(),
+                                                    allocator.arenas.length,
+                                                    allocator.threadCacheSize,
+                                                    allocator.maxThreadCacheCapacity);
+                allocator.allThreadCaches.add(cache);
+                return cache;
+            }
+        };
+    }
+
+    /**
+     * Retrieves a chunk of the specified size class from the shared arena.
+     *
+     * @param index the size class index
+     * @return a chunk of the specified size class or <code>null</code> if the arena has none.
+     */
+    private Object pollArena(int index) {
+
+        Arena arena = this.arenas[index];
+
+        synchronized (arena) {
+
+            Object memory = arena.chunks.poll();
+
+            if (memory != null) {
+
+                this.arenaCapacity.addAndGet(-sizeClassCapacity(index));
+                arena.lowWatermark = Math.min(arena.lowWatermark, arena.chunks.size());
+            }
+
+            return memory;
+        }
+    }
+
+    /**
+     * Gives the specified chunk to the shared arena, if the arena has not reached its maximum capacity.
+     *
+     * @param index the size class index
+     * @param memory the chunk
+     */
+    private void offerArena(int index, Object memory) {
+
+        int capacity = sizeClassCapacity(index);
+
+        if (this.arenaCapacity.addAndGet(capacity) > this.maxArenaCapacity) {
+
+            this.arenaCapacity.addAndGet(-capacity);
+            free(memory);
+            return;
+        }
+
+        Arena arena = this.arenas[index];
+
+        synchronized (arena) {
+            arena.chunks.offer(memory);
+        }
+    }
+
+    /**
+     * Allocates a new chunk of memory.
+     *
+     * @param capacity the chunk capacity
+     * @return a new chunk of memory.
+     */
+    private Object newMemory(int capacity) {
+
+        if (this.direct) {
+            return DirectMemory.allocateDirect(DirectMemory.Category.BUFFER, capacity);
+        }
+
+        return new byte[capacity];
+    }
+
+    /**
+     * Creates a new empty buffer of the specified size over the specified chunk of memory. The chunk is given back
+     * to the pool, or freed if it is not pooled, when the buffer is released.
+     *
+     * @param memory the chunk of memory
+     * @param size the buffer size
+     * @param index the size class index or <code>-1</code> if the chunk is not pooled
+     * @return a new empty buffer of the specified size.
+     */
+    private Buffer newBuffer(final Object memory, int size, final int index) {
+
+        AbstractBuffer buffer;
+
+        if (memory instanceof ByteBuffer) {
+            buffer = new DirectBuffer((ByteBuffer) memory);
+        } else {
+            buffer = new HeapBuffer((byte[]) memory);
+        }
+
+        buffer.referenceCount = new ReferenceCount() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void deallocate() {
+
+                if (index < 0) {
+                    free(memory);
+                } else {
+                    recycle(index, memory);
+                }
+            }
+        };
+
+        buffer.subRegion(0, size);
+        buffer.writerIndex(0);
+
+        return buffer;
+    }
+
+    /**
+     * Frees the specified chunk of memory if it is off-heap. Heap chunks are left to the garbage collector.
+     *
+     * @param memory the chunk of memory
+     */
+    private static void free(Object memory) {
+
+        if (memory instanceof ByteBuffer) {
+            DirectMemory.free(DirectMemory.Category.BUFFER, (ByteBuffer) memory);
+        }
+    }
+
+    /**
+     * Returns the index of the size class that must be used to serve the specified size.
+     *
+     * @param size the requested size
+     * @return the index of the size class that must be used to serve the specified size.
+     */
+    private static int sizeClassIndex(int size) {
+
+        if (size <= MIN_SIZE_CLASS) {
+            return 0;
+        }
+
+        return (Integer.SIZE - Integer.numberOfLeadingZeros(size - 1)) - MIN_SIZE_CLASS_SHIFT;
+    }
+
+    /**
+     * Returns the capacity of the chunks of the specified size class.
+     *
+     * @param index the size class index
+     * @return the capacity of the chunks of the specified size class.
+     */
+    private static int sizeClassCapacity(int index) {
+        return 1 << (index + MIN_SIZE_CLASS_SHIFT);
+    }
+
+    /**
+     * The chunks of a size class held by the shared arena.
+     */
+    private static final class Arena {
+
+        /**
+         * The available chunks.
+         */
+        private final ArrayDeque<Object> chunks = new ArrayDeque<>();
+
+        /**
+         * The smallest number of available chunks since the last trim.
+         */
+        private int lowWatermark;
+    }
+
+    /**
+     * The chunks kept by a thread for itself. The cache is only used by its owner, but it is also trimmed, freed
+     * or drained by the other threads, hence the synchronization. The cache does not reference its allocator, as it
+     * is kept reachable by the threads.
+     */
+    private static final class ThreadCache {
+
+        /**
+         * The thread owning this cache.
+         */
+        private final WeakReference<Thread> owner;
+
+        /**
+         * The available chunks per size class.
+         */
+        private final ArrayDeque<?>[] chunks;
+
+        /**
+         * The smallest number of available chunks per size class since the last trim.
+         */
+        private final int[] lowWatermarks;
+
+        /**
+         * The number of chunks per size class that this cache can keep.
+         */
+        private final int maxChunks;
+
+        /**
+         * The maximum number of bytes that this cache can keep.
+         */
+        private final long maxCapacity;
+
+        /**
+         * The number of bytes held by this cache.
+         */
+        private long capacity;
+
+        /**
+         * <code>true</code> if this cache has been freed and must not keep any chunk anymore.
+         */
+        private boolean freed;
+
+        /**
+         * Creates a new <code>ThreadCache</code> for the specified thread.
+         *
+         * @param owner the thread owning the cache
+         * @param numberOfSizeClasses the number of size classes
+         * @param maxChunks the number of chunks per size class that the cache can keep
+         * @param maxCapacity the maximum number of bytes that the cache can keep
+         */
+        public ThreadCache(Thread owner, int numberOfSizeClasses, int maxChunks, long maxCapacity) {
+
+            this.owner = new WeakReference<>(owner);
+            this.chunks = new ArrayDeque<?>[numberOfSizeClasses];
+            this.lowWatermarks = new int[numberOfSizeClasses];
+            this.maxChunks = maxChunks;
+            this.maxCapacity = maxCapacity;
+        }
+
+        /**
+         * Checks if the thread owning this cache is still alive.
+         *
+         * @return <code>true</code> if the thread owning this cache is still alive, <code>false</code> otherwise.
+         */
+        public boolean isOwnerAlive() {
+
+            Thread thread = this.owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        /**
+         * Retrieves a chunk of the specified size class.
+         *
+         * @param index the size class index
+         * @return a chunk of the specified size class or <code>null</code> if the cache has none.
+         */
+        public synchronized Object poll(int index) {
+
+            ArrayDeque<Object> deque = chunks(index);
+            Object memory = deque.poll();
+
+            if (memory != null) {
+
+                this.capacity -= sizeClassCapacity(index);
+                this.lowWatermarks[index] = Math.min(this.lowWatermarks[index], deque.size());
+            }
+
+            return memory;
+        }
+
+        /**
+         * Keeps the specified chunk if neither the cache of its size class nor this cache are full.
+         *
+         * @param index the size class index
+         * @param memory the chunk
+         * @return <code>true</code> if the chunk has been kept, <code>false</code> otherwise.
+         */
+        public synchronized boolean offer(int index, Object memory) {
+
+            ArrayDeque<Object> deque = chunks(index);
+            int chunkCapacity = sizeClassCapacity(index);
+
+            if (this.freed || deque.size() >= this.maxChunks || this.capacity + chunkCapacity > this.maxCapacity) {
+                return false;
+            }
+
+            deque.offer(memory);
+            this.capacity += chunkCapacity;
+            return true;
+        }
+
+        /**
+         * Returns the number of bytes held by this cache.
+         *
+         * @return the number of bytes held by this cache.
+         */
+        public synchronized long capacity() {
+            return this.capacity;
+        }
+
+        /**
+         * Frees the chunks that have not been needed since the previous call to this method.
+         */
+        public synchronized void trim() {
+
+            for (int i = 0; i < this.chunks.length; i++) {
+
+                ArrayDeque<?> deque = this.chunks[i];
+
+                if (deque != null) {
+
+                    for (int j = 0; j < this.lowWatermarks[i]; j++) {
+                        PooledBufferAllocator.free(deque.poll());
+                    }
+
+                    this.capacity -= (long) this.lowWatermarks[i] * sizeClassCapacity(i);
+                    this.lowWatermarks[i] = deque.size();
+                }
+            }
+        }
+
+        /**
+         * Gives all the chunks back to the shared arena of the specified allocator.
+         *
+         * @param allocator the allocator owning this cache
+         */
+        public synchronized void drain(PooledBufferAllocator allocator) {
+
+            for (int i = 0; i < this.chunks.length; i++) {
+
+                ArrayDeque<?> deque = this.chunks[i];
+
+                if (deque != null) {
+
+                    for (Object memory : deque) {
+                        allocator.offerArena(i, memory);
+                    }
+
+                    deque.clear();
+                    this.lowWatermarks[i] = 0;
+                }
+            }
+
+            this.capacity = 0;
+        }
+
+        /**
+         * Frees all the chunks. The chunks offered afterward are refused.
+         */
+        public synchronized void free() {
+
+            this.freed = true;
+
+            for (int i = 0; i < this.chunks.length; i++) {
+
+                ArrayDeque<?> deque = this.chunks[i];
+
+                if (deque != null) {
+
+                    for (Object memory : deque) {
+                        PooledBufferAllocator.free(memory);
+                    }
+
+                    deque.clear();
+                    this.lowWatermarks[i] = 0;
+                }
+            }
+
+            this.capacity = 0;
+        }
+
+        /**
+         * Returns the chunks of the specified size class.
+         *
+         * @param index the size class index
+         * @return the chunks of the specified size class.
+         */
+        @SuppressWarnings("unchecked")
+        private ArrayDeque<Object> chunks(int index) {
+
+            ArrayDeque<Object> deque = (ArrayDeque<Object>) this.chunks[index];
+
+            if (deque == null) {
+                deque = new ArrayDeque<>();
+                this.chunks[index] = deque;
+            }
+
+            return deque;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.ReadableBuffer;
+
+import java.nio.ByteOrder;
+import java.util.Comparator;
+
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+
+/**
+ * Comparison, equality and hashing of the readable bytes of <code>ReadableBuffer</code>s.
+ *
+ * <p>
+ * The methods read the bytes eight at a time through {@link ReadableBuffer#getLong(int)}, whatever the type of the
+ * buffers, and never allocate. They do not modify the reader index of the buffers.
+ * </p>
+ */
+public final class ReadableBuffers {
+
+    /**
+     * Compares the readable bytes of the buffers with {@link #compare(ReadableBuffer, ReadableBuffer)}.
+     */
+    private static final Comparator<ReadableBuffer> COMPARATOR = new Comparator<ReadableBuffer>() {
+
+        @Override
+        public int compare(ReadableBuffer left, ReadableBuffer right) {
+            return ReadableBuffers.compare(left, right);
+        }
+    };
+
+    /**
+     * The xxHash64 primes.
+     */
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * The number of bytes consumed by each iteration of the main xxHash64 loop.
+     */
+    private static final int STRIPE_LENGTH = 32;
+
+    /**
+     * Returns a comparator ordering the buffers like {@link #compare(ReadableBuffer, ReadableBuffer)}.
+     *
+     * @return a comparator ordering the buffers by their readable bytes.
+     */
+    public static Comparator<ReadableBuffer> comparator() {
+        return COMPARATOR;
+    }
+
+    /**
+     * Compares lexicographically the readable bytes of the specified buffers, the bytes being compared as unsigned
+     * values. If one buffer is a prefix of the other, the shortest one is the smallest.
+     *
+     * @param left the first buffer
+     * @param right the second buffer
+     * @return a negative integer, zero, or a positive integer as the first buffer is less than, equal to, or greater
+     * than the second one.
+     */
+    public static int compare(ReadableBuffer left, ReadableBuffer right) {
+
+        int leftIndex = left.readerIndex();
+        int rightIndex = right.readerIndex();
+        int leftLength = left.readableBytes();
+        int rightLength = right.readableBytes();
+        int length = Math.min(leftLength, rightLength);
+
+        int i = 0;
+
+        for (int m = length - LONG_LENGTH; i <= m; i += LONG_LENGTH) {
+
+            long l = getLongBigEndian(left, leftIndex + i);
+            long r = getLongBigEndian(right, rightIndex + i);
+
+            if (l != r) {
+                // Adding MIN_VALUE turns the signed comparison into an unsigned one.
+                return (l + Long.MIN_VALUE) < (r + Long.MIN_VALUE) ? -1 : 1;
+            }
+        }
+
+        for (; i < length; i++) {
+
+            int l = left.getByte(leftIndex + i) & 0xFF;
+            int r = right.getByte(rightIndex + i) & 0xFF;
+
+            if (l != r) {
+                return l - r;
+            }
+        }
+
+        return leftLength - rightLength;
+    }
+
+    /**
+     * Checks if the specified buffers have the same readable bytes.
+     *
+     * @param left the first buffer
+     * @param right the second buffer
+     * @return <code>true</code> if the readable bytes of the buffers are equal, <code>false</code> otherwise.
+     */
+    public static boolean equals(ReadableBuffer left, ReadableBuffer right) {
+
+        int length = left.readableBytes();
+
+        if (length != right.readableBytes()) {
+            return false;
+        }
+
+        int leftIndex = left.readerIndex();
+        int rightIndex = right.readerIndex();
+
+        int i = 0;
+
+        for (int m = length - LONG_LENGTH; i <= m; i += LONG_LENGTH) {
+
+            if (getLongBigEndian(left, leftIndex + i) != getLongBigEndian(right, rightIndex + i)) {
+                return false;
+            }
+        }
+
+        for (; i < length; i++) {
+
+            if (left.getByte(leftIndex + i) != right.getByte(rightIndex + i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a hash code for the readable bytes of the specified buffer, derived from its 64-bit hash.
+     *
+     * @param buffer the buffer
+     * @return a hash code for the readable bytes of the specified buffer.
+     */
+    public static int hashCode(ReadableBuffer buffer) {
+
+        long hash = hash64(buffer);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Returns the xxHash64 hash of the readable bytes of the specified buffer using a seed of zero.
+     *
+     * @param buffer the buffer
+     * @return the xxHash64 hash of the readable bytes of the specified buffer.
+     */
+    public static long hash64(ReadableBuffer buffer) {
+        return hash64(buffer, 0);
+    }
+
+    /**
+     * Returns the xxHash64 hash of the readable bytes of the specified buffer.
+     *
+     * @param buffer the buffer
+     * @param seed the hash seed
+     * @return the xxHash64 hash of the readable bytes of the specified buffer.
+     */
+    public static long hash64(ReadableBuffer buffer, long seed) {
+
+        int index = buffer.readerIndex();
+        int length = buffer.readableBytes();
+        int end = index + length;
+
+        long hash;
+
+        if (length >= STRIPE_LENGTH) {
+
+            long v1 = seed + PRIME64_1 + PRIME64_2;
+            long v2 = seed + PRIME64_2;
+            long v3 = seed;
+            long v4 = seed - PRIME64_1;
+
+            for (int m = end - STRIPE_LENGTH; index <= m; index += STRIPE_LENGTH) {
+
+                v1 = round(v1, getLongLittleEndian(buffer, index));
+                v2 = round(v2, getLongLittleEndian(buffer, index + 8));
+                v3 = round(v3, getLongLittleEndian(buffer, index + 16));
+                v4 = round(v4, getLongLittleEndian(buffer, index + 24));
+            }
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+                    + Long.rotateLeft(v4, 18);
+
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+
+        } else {
+
+            hash = seed + PRIME64_5;
+        }
+
+        hash += length;
+
+        for (int m = end - LONG_LENGTH; index <= m; index += LONG_LENGTH) {
+
+            hash ^= round(0, getLongLittleEndian(buffer, index));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+        }
+
+        if (index <= end - INT_LENGTH) {
+
+            hash ^= (getIntLittleEndian(buffer, index) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            index += INT_LENGTH;
+        }
+
+        for (; index < end; index++) {
+
+            hash ^= (buffer.getByte(index) & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return hash;
+    }
+
+    /**
+     * Mixes the specified eight bytes into the specified accumulator.
+     *
+     * @param accumulator the accumulator
+     * @param input the eight bytes read as a little endian long
+     * @return the new accumulator value
+     */
+    private static long round(long accumulator, long input) {
+
+        long acc = accumulator + input * PRIME64_2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME64_1;
+    }
+
+    /**
+     * Merges the specified accumulator into the hash.
+     *
+     * @param hash the hash
+     * @param accumulator the accumulator to merge
+     * @return the new hash value
+     */
+    private static long mergeRound(long hash, long accumulator) {
+
+        long h = hash ^ round(0, accumulator);
+        return h * PRIME64_1 + PRIME64_4;
+    }
+
+    /**
+     * Reads the eight bytes at the specified position as a big endian long, whatever the order of the buffer.
+     *
+     * @param buffer the buffer
+     * @param index the position of the first byte
+     * @return the big endian long
+     */
+    private static long getLongBigEndian(ReadableBuffer buffer, int index) {
+
+        long l = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
+    /**
+     * Reads the eight bytes at the specified position as a little endian long, whatever the order of the buffer.
+     *
+     * @param buffer the buffer
+     * @param index the position of the first byte
+     * @return the little endian long
+     */
+    private static long getLongLittleEndian(ReadableBuffer buffer, int index) {
+
+        long l = buffer.getLong(index);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? l : Long.reverseBytes(l);
+    }
+
+    /**
+     * Reads the four bytes at the specified position as a little endian integer, whatever the order of the buffer.
+     *
+     * @param buffer the buffer
+     * @param index the position of the first byte
+     * @return the little endian integer
+     */
+    private static int getIntLittleEndian(ReadableBuffer buffer, int index) {
+
+        int i = buffer.getInt(index);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? i : Integer.reverseBytes(i);
+    }
+
+    /**
+     * Must not be instantiated.
+     */
+    private ReadableBuffers() {
+    }
+}
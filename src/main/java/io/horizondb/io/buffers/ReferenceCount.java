@@ -0,0 +1,139 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Reference count shared by a buffer and all the buffers sharing its content.
+ * 
+ * <p>
+ * The subclasses override {@link #deallocate()} to free the memory once the count reaches zero.
+ * </p>
+ * 
+ * @author Benjamin
+ * 
+ */
+class ReferenceCount {
+
+    /**
+     * The updater used to modify the count atomically.
+     */
+    private static final AtomicIntegerFieldUpdater<ReferenceCount> UPDATER = AtomicIntegerFieldUpdater.newUpdater(ReferenceCount.class,
+                                                                                                                 "count");
+
+    /**
+     * A reference count that never reaches zero, used for the buffers shared by the whole application.
+     */
+    static final ReferenceCount UNRELEASABLE = new ReferenceCount() {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int get() {
+            return 1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void retain() {
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean release() {
+            return false;
+        }
+    };
+
+    /**
+     * The count.
+     */
+    private volatile int count = 1;
+
+    /**
+     * Returns the current count.
+     * 
+     * @return the current count.
+     */
+    public int get() {
+        return this.count;
+    }
+
+    /**
+     * Increments the count.
+     * 
+     * @throws IllegalStateException if the count has already reached zero.
+     */
+    public void retain() {
+
+        for (;;) {
+
+            int current = this.count;
+
+            if (current == 0) {
+                throw new IllegalStateException("the buffer has already been released");
+            }
+
+            if (current == Integer.MAX_VALUE) {
+                throw new IllegalStateException("the reference count cannot be incremented anymore");
+            }
+
+            if (UPDATER.compareAndSet(this, current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Decrements the count and calls {@link #deallocate()} if it reaches zero.
+     * 
+     * @return <code>true</code> if the count has reached zero, <code>false</code> otherwise.
+     * @throws IllegalStateException if the count has already reached zero.
+     */
+    public boolean release() {
+
+        for (;;) {
+
+            int current = this.count;
+
+            if (current == 0) {
+                throw new IllegalStateException("the buffer has already been released");
+            }
+
+            if (UPDATER.compareAndSet(this, current, current - 1)) {
+
+                if (current == 1) {
+                    deallocate();
+                    return true;
+                }
+
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Frees the memory once the count has reached zero. This implementation does nothing and leaves the memory to
+     * the garbage collector.
+     */
+    protected void deallocate() {
+
+    }
+}
@@ -0,0 +1,773 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteReader;
+import io.horizondb.io.ByteWriter;
+import io.horizondb.io.ReadableBuffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+import static io.horizondb.io.encoding.Endianness.SHORT_LENGTH;
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * A fixed capacity circular buffer used to stream bytes from a single producer thread to a single consumer thread
+ * without locks and without allocation.
+ *
+ * <p>
+ * The producer writes through the <code>ByteWriter</code> returned by {@link #producer()} and the consumer reads
+ * through the <code>ByteReader</code> returned by {@link #consumer()}. The wrap-around is handled transparently. Each
+ * side owns its own position and publishes it to the other side with an ordered write. The bytes written by the
+ * producer become visible to the consumer when {@link Producer#flush()} is called, which allows records to be
+ * published atomically.
+ * </p>
+ *
+ * <p>
+ * When the buffer is full the producer publishes its bytes and spins until the consumer frees some space. When the
+ * buffer is empty the consumer spins until the producer publishes some bytes or closes the buffer.
+ * </p>
+ *
+ * <p>
+ * The <code>RingBuffer</code> does not take ownership of the underlying buffer which must be released by the caller
+ * once both sides are done with it.
+ * </p>
+ */
+public final class RingBuffer {
+
+    /**
+     * The underlying buffer.
+     */
+    private final Buffer buffer;
+
+    /**
+     * The mask used to convert a position into an index within the underlying buffer.
+     */
+    private final int mask;
+
+    /**
+     * The position following the last byte published by the producer.
+     */
+    private final AtomicLong producerIndex = new PaddedAtomicLong();
+
+    /**
+     * The position following the last byte read by the consumer.
+     */
+    private final AtomicLong consumerIndex = new PaddedAtomicLong();
+
+    /**
+     * <code>true</code> if the producer has closed this buffer.
+     */
+    private volatile boolean closed;
+
+    /**
+     * The producer side.
+     */
+    private final Producer producer;
+
+    /**
+     * The consumer side.
+     */
+    private final Consumer consumer;
+
+    /**
+     * Creates a new <code>RingBuffer</code> using the whole capacity of the specified buffer.
+     *
+     * @param buffer the underlying heap or direct buffer, its capacity must be a power of two greater or equals to 8
+     */
+    public RingBuffer(Buffer buffer) {
+
+        notNull(buffer, "the buffer parameter must not be null.");
+
+        int capacity = buffer.capacity();
+
+        isTrue(capacity >= LONG_LENGTH && Integer.bitCount(capacity) == 1,
+               "the buffer capacity must be a power of two greater or equals to 8.");
+
+        this.buffer = buffer;
+        this.mask = capacity - 1;
+        this.producer = new Producer(buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+        this.consumer = new Consumer(buffer.duplicate().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * Returns the number of bytes that this buffer can hold.
+     *
+     * @return the number of bytes that this buffer can hold.
+     */
+    public int capacity() {
+        return this.buffer.capacity();
+    }
+
+    /**
+     * Returns the producer side of this buffer. It must only be used by a single thread.
+     *
+     * @return the producer side of this buffer.
+     */
+    public Producer producer() {
+        return this.producer;
+    }
+
+    /**
+     * Returns the consumer side of this buffer. It must only be used by a single thread.
+     *
+     * @return the consumer side of this buffer.
+     */
+    public Consumer consumer() {
+        return this.consumer;
+    }
+
+    /**
+     * Returns <code>true</code> if the producer has closed this buffer.
+     *
+     * @return <code>true</code> if the producer has closed this buffer.
+     */
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Returns the index within the underlying buffer of the byte at the specified position.
+     *
+     * @param position the position of the byte
+     * @return the index within the underlying buffer of the byte at the specified position.
+     */
+    private int index(long position) {
+        return (int) position & this.mask;
+    }
+
+    /**
+     * The producer side of a <code>RingBuffer</code>.
+     */
+    public final class Producer extends AbstractByteWriter {
+
+        /**
+         * The view used to write into the underlying buffer.
+         */
+        private final Buffer view;
+
+        /**
+         * The position following the last byte written.
+         */
+        private long position;
+
+        /**
+         * The position up to which bytes can be written without checking the consumer index.
+         */
+        private long limit;
+
+        /**
+         * Creates a new <code>Producer</code>.
+         *
+         * @param view the view used to write into the underlying buffer
+         */
+        Producer(Buffer view) {
+
+            this.view = view;
+            this.limit = view.capacity();
+        }
+
+        /**
+         * Returns the number of bytes that can be written without waiting for the consumer.
+         *
+         * @return the number of bytes that can be written without waiting for the consumer.
+         */
+        public int writeableBytes() {
+
+            this.limit = RingBuffer.this.consumerIndex.get() + capacity();
+            return (int) (this.limit - this.position);
+        }
+
+        /**
+         * Makes the bytes written so far visible to the consumer.
+         *
+         * @return this <code>Producer</code>
+         */
+        public Producer flush() {
+
+            RingBuffer.this.producerIndex.lazySet(this.position);
+            return this;
+        }
+
+        /**
+         * Publishes the bytes written so far and signals the consumer that no more bytes will be written.
+         */
+        public void close() {
+
+            flush();
+            RingBuffer.this.closed = true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeByte(int b) throws IOException {
+
+            await(1);
+            this.view.setByte(index(this.position), b);
+            this.position++;
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeBytes(byte[] bytes, int offset, int length) throws IOException {
+
+            int off = offset;
+            int remaining = length;
+
+            while (remaining > 0) {
+
+                int index = index(this.position);
+                int chunk = Math.min(Math.min(remaining, await(1)), capacity() - index);
+
+                this.view.writerIndex(index).writeBytes(bytes, off, chunk);
+
+                this.position += chunk;
+                off += chunk;
+                remaining -= chunk;
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeZeroBytes(int length) throws IOException {
+
+            int remaining = length;
+
+            while (remaining > 0) {
+
+                int index = index(this.position);
+                int chunk = Math.min(Math.min(remaining, await(1)), capacity() - index);
+
+                this.view.writerIndex(index).writeZeroBytes(chunk);
+
+                this.position += chunk;
+                remaining -= chunk;
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeShort(short s) throws IOException {
+
+            write(order() == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s), SHORT_LENGTH);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeUnsignedShort(int s) throws IOException {
+
+            return writeShort((short) s);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeInt(int i) throws IOException {
+
+            write(order() == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i), INT_LENGTH);
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeUnsignedInt(long l) throws IOException {
+
+            return writeInt((int) l);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Producer writeLong(long l) throws IOException {
+
+            write(order() == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l), LONG_LENGTH);
+            return this;
+        }
+
+        /**
+         * Writes the specified number of low-order bytes of the specified value, most significant byte first.
+         *
+         * @param value the value to write
+         * @param numberOfBytes the number of bytes to write
+         * @throws IOException if the buffer has been closed
+         */
+        private void write(long value, int numberOfBytes) throws IOException {
+
+            await(numberOfBytes);
+
+            int index = index(this.position);
+
+            if (numberOfBytes == LONG_LENGTH && index + LONG_LENGTH <= capacity()) {
+
+                this.view.setLong(index, value);
+
+            } else {
+
+                for (int i = 0; i < numberOfBytes; i++) {
+
+                    int shift = (numberOfBytes - 1 - i) << 3;
+                    this.view.setByte(index(this.position + i), (int) (value >>> shift));
+                }
+            }
+
+            this.position += numberOfBytes;
+        }
+
+        /**
+         * Waits until at least the specified number of bytes can be written. The bytes already written are
+         * published before waiting so that the consumer can make progress.
+         *
+         * @param numberOfBytes the number of bytes that must be writeable
+         * @return the number of bytes that can be written
+         * @throws IOException if the buffer has been closed
+         */
+        private int await(int numberOfBytes) throws IOException {
+
+            if (RingBuffer.this.closed) {
+                throw new IOException("the ring buffer has been closed");
+            }
+
+            if (this.limit - this.position >= numberOfBytes) {
+                return (int) (this.limit - this.position);
+            }
+
+            if (writeableBytes() < numberOfBytes) {
+
+                flush();
+
+                while (writeableBytes() < numberOfBytes) {
+                    Thread.yield();
+                }
+            }
+
+            return (int) (this.limit - this.position);
+        }
+    }
+
+    /**
+     * The consumer side of a <code>RingBuffer</code>.
+     */
+    public final class Consumer implements ByteReader {
+
+        /**
+         * The view used to read from the underlying buffer.
+         */
+        private final Buffer view;
+
+        /**
+         * The byte order used to read the data.
+         */
+        private ByteOrder order = ByteOrder.nativeOrder();
+
+        /**
+         * The position of the next byte to read.
+         */
+        private long position;
+
+        /**
+         * The position up to which bytes can be read without checking the producer index.
+         */
+        private long limit;
+
+        /**
+         * Creates a new <code>Consumer</code>.
+         *
+         * @param view the view used to read from the underlying buffer
+         */
+        Consumer(Buffer view) {
+
+            this.view = view;
+            this.view.readerIndex(0);
+            this.view.writerIndex(view.capacity());
+        }
+
+        /**
+         * Returns the number of bytes that can be read without waiting for the producer.
+         *
+         * @return the number of bytes that can be read without waiting for the producer.
+         */
+        public int readableBytes() {
+
+            this.limit = RingBuffer.this.producerIndex.get();
+            return (int) (this.limit - this.position);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteOrder order() {
+            return this.order;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer order(ByteOrder order) {
+
+            this.order = order;
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer skipBytes(int numberOfBytes) throws IOException {
+
+            int remaining = numberOfBytes;
+
+            while (remaining > 0) {
+
+                int chunk = Math.min(remaining, await(1));
+
+                this.position += chunk;
+                remaining -= chunk;
+                publish();
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public byte readByte() throws IOException {
+
+            await(1);
+
+            byte b = this.view.getByte(index(this.position));
+            this.position++;
+            publish();
+
+            return b;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer readBytes(byte[] bytes) throws IOException {
+
+            return readBytes(bytes, 0, bytes.length);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer readBytes(byte[] bytes, int offset, int length) throws IOException {
+
+            int off = offset;
+            int remaining = length;
+
+            while (remaining > 0) {
+
+                int index = index(this.position);
+                int chunk = Math.min(Math.min(remaining, await(1)), capacity() - index);
+
+                this.view.getBytes(index, bytes, off, chunk);
+
+                this.position += chunk;
+                off += chunk;
+                remaining -= chunk;
+                publish();
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public short readShort() throws IOException {
+
+            short s = (short) read(SHORT_LENGTH);
+            return this.order == ByteOrder.BIG_ENDIAN ? s : Short.reverseBytes(s);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int readUnsignedShort() throws IOException {
+            return readShort() & 0xFFFF;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int readInt() throws IOException {
+
+            int i = (int) read(INT_LENGTH);
+            return this.order == ByteOrder.BIG_ENDIAN ? i : Integer.reverseBytes(i);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long readUnsignedInt() throws IOException {
+            return readInt() & 0xFFFFFFFFL;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long readLong() throws IOException {
+
+            long l = read(LONG_LENGTH);
+            return this.order == ByteOrder.BIG_ENDIAN ? l : Long.reverseBytes(l);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer readInts(int[] array, int offset, int length) throws IOException {
+
+            for (int i = offset, m = offset + length; i < m; i++) {
+                array[i] = readInt();
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer readLongs(long[] array, int offset, int length) throws IOException {
+
+            for (int i = offset, m = offset + length; i < m; i++) {
+                array[i] = readLong();
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Consumer readDoubles(double[] array, int offset, int length) throws IOException {
+
+            for (int i = offset, m = offset + length; i < m; i++) {
+                array[i] = Double.longBitsToDouble(readLong());
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>
+         * As the space of the ring is reused by the producer, the bytes are copied into a new heap buffer.
+         * </p>
+         */
+        @Override
+        public ReadableBuffer slice(int length) throws IOException {
+
+            byte[] bytes = new byte[length];
+            readBytes(bytes);
+
+            return Buffers.wrap(bytes).order(this.order);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>
+         * The bytes are transferred until the producer closes the buffer.
+         * </p>
+         */
+        @Override
+        public Consumer transferTo(ByteWriter writer) throws IOException {
+
+            while (isReadable()) {
+
+                int index = index(this.position);
+                int chunk = Math.min(readableBytes(), capacity() - index);
+
+                writer.transfer(this.view.readerIndex(index).slice(chunk));
+
+                this.position += chunk;
+                publish();
+            }
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>
+         * If no bytes are available, waits until the producer publishes some bytes or closes the buffer.
+         * </p>
+         */
+        @Override
+        public boolean isReadable() {
+
+            while (this.position == this.limit) {
+
+                boolean closed = RingBuffer.this.closed;
+
+                if (readableBytes() > 0) {
+                    return true;
+                }
+
+                if (closed) {
+                    return false;
+                }
+
+                Thread.yield();
+            }
+
+            return true;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean readBoolean() throws IOException {
+            return readByte() == 1;
+        }
+
+        /**
+         * Reads the specified number of bytes as an unsigned value, most significant byte first.
+         *
+         * @param numberOfBytes the number of bytes to read
+         * @return the value read
+         * @throws IOException if the buffer has been closed before enough bytes were published
+         */
+        private long read(int numberOfBytes) throws IOException {
+
+            await(numberOfBytes);
+
+            int index = index(this.position);
+            long value;
+
+            if (numberOfBytes == LONG_LENGTH && index + LONG_LENGTH <= capacity()) {
+
+                value = this.view.getLong(index);
+
+            } else {
+
+                value = 0;
+
+                for (int i = 0; i < numberOfBytes; i++) {
+                    value = (value << 8) | (this.view.getByte(index(this.position + i)) & 0xFF);
+                }
+            }
+
+            this.position += numberOfBytes;
+            publish();
+
+            return value;
+        }
+
+        /**
+         * Makes the space of the bytes read so far available to the producer.
+         */
+        private void publish() {
+            RingBuffer.this.consumerIndex.lazySet(this.position);
+        }
+
+        /**
+         * Waits until at least the specified number of bytes can be read.
+         *
+         * @param numberOfBytes the number of bytes that must be readable
+         * @return the number of bytes that can be read
+         * @throws EOFException if the buffer has been closed before enough bytes were published
+         */
+        private int await(int numberOfBytes) throws EOFException {
+
+            while (this.limit - this.position < numberOfBytes) {
+
+                boolean closed = RingBuffer.this.closed;
+
+                if (readableBytes() >= numberOfBytes) {
+                    break;
+                }
+
+                if (closed) {
+
+                    @SuppressWarnings("boxing")
+                    String msg = format("bytes to read: %d readable bytes: %d", numberOfBytes, readableBytes());
+
+                    throw new EOFException(msg);
+                }
+
+                Thread.yield();
+            }
+
+            return (int) (this.limit - this.position);
+        }
+    }
+
+    /**
+     * <code>AtomicLong</code> padded so that the producer and consumer indices, which are written by different
+     * threads, never share a cache line.
+     */
+    @SuppressWarnings("unused")
+    private static final class PaddedAtomicLong extends AtomicLong {
+
+        /**
+         * The serial version UID
+         */
+        private static final long serialVersionUID = -4261871387434957418L;
+
+        /**
+         * The padding filling the two cache lines following the value.
+         */
+        private long p1, p2, p3, p4, p5, p6, p7, p8, p9, p10, p11, p12, p13, p14, p15;
+    }
+}
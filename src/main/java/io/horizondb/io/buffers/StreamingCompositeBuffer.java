@@ -0,0 +1,760 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.ByteProcessor;
+import io.horizondb.io.ByteWriter;
+import io.horizondb.io.ReadableBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.apache.commons.lang.builder.ToStringStyle;
+
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+import static io.horizondb.io.encoding.Endianness.SHORT_LENGTH;
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+
+/**
+ * A composite <code>ReadableBuffer</code> accumulating the bytes of a stream being decoded.
+ *
+ * <p>
+ * The buffers are kept in a ring, with the position within the stream of their first byte. Adding bytes at the end
+ * and discarding the bytes already read with {@link #discardReadBytes()} are both done in constant amortized time,
+ * whatever the number of buffers and the amount of data that went through the composite. The position of the next
+ * byte to read is preserved by the discard, only the indices are shifted.
+ * </p>
+ *
+ * <p>
+ * The composite retains the buffers that are added to it and releases them once they have been discarded or once its
+ * reference count reaches zero. The duplicates and the slices are <code>CompositeBuffer</code>s sharing the
+ * reference count of this composite. They must not be used once their bytes have been discarded, except the slices
+ * returned by {@link #retainedSlice(int, int)}, which hold their own reference to each of their buffers.
+ * </p>
+ */
+public final class StreamingCompositeBuffer extends AbstractReadableBuffer {
+
+    /**
+     * The default number of buffers that the ring can hold before having to grow.
+     */
+    private static final int DEFAULT_INITIAL_NUMBER_OF_COMPONENTS = 16;
+
+    /**
+     * The ring of buffers.
+     */
+    private ReadableBuffer[] components;
+
+    /**
+     * The position within the stream of the first byte of each buffer of the ring.
+     */
+    private long[] starts;
+
+    /**
+     * The slot of the first buffer within the ring.
+     */
+    private int head;
+
+    /**
+     * The number of buffers within the ring.
+     */
+    private int size;
+
+    /**
+     * The position within the stream of the byte at index zero.
+     */
+    private long start;
+
+    /**
+     * The position within the stream following the last byte added.
+     */
+    private long end;
+
+    /**
+     * The number of the last buffer accessed, counted from the head of the ring.
+     */
+    private int current;
+
+    /**
+     * Creates a new <code>StreamingCompositeBuffer</code> instance.
+     */
+    public StreamingCompositeBuffer() {
+
+        this(DEFAULT_INITIAL_NUMBER_OF_COMPONENTS);
+    }
+
+    /**
+     * Creates a new <code>StreamingCompositeBuffer</code> instance.
+     *
+     * @param initialNumberOfComponents the number of buffers that the ring can hold before having to grow
+     */
+    public StreamingCompositeBuffer(int initialNumberOfComponents) {
+
+        isTrue(initialNumberOfComponents > 0, "the initial number of components must be greater than zero");
+
+        int capacity = Integer.highestOneBit(initialNumberOfComponents);
+
+        if (capacity < initialNumberOfComponents) {
+            capacity <<= 1;
+        }
+
+        this.components = new ReadableBuffer[capacity];
+        this.starts = new long[capacity];
+
+        this.referenceCount = new CompositeBuffer.CompositeReferenceCount() {
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected void deallocate() {
+
+                super.deallocate();
+
+                StreamingCompositeBuffer composite = StreamingCompositeBuffer.this;
+
+                while (composite.size > 0) {
+                    composite.removeFirst();
+                }
+            }
+        };
+    }
+
+    /**
+     * Adds the readable bytes of the specified buffer at the end of this composite. The reader index of the
+     * specified buffer is moved after its last readable byte.
+     *
+     * @param buffer the buffer containing the bytes to add
+     * @return this <code>StreamingCompositeBuffer</code>
+     * @throws IOException if an I/O problem occurs
+     */
+    public StreamingCompositeBuffer addBytes(ReadableBuffer buffer) throws IOException {
+
+        ensureAccessible();
+
+        int length = buffer.readableBytes();
+
+        if (length == 0) {
+            return this;
+        }
+
+        if (this.size == this.components.length) {
+            grow();
+        }
+
+        int slot = slot(this.size);
+
+        this.components[slot] = buffer.slice(length).duplicate().retain();
+        this.starts[slot] = this.end;
+        this.size++;
+        this.end += length;
+
+        return this;
+    }
+
+    /**
+     * Discards the bytes that have already been read. The reader index is reset to zero, but still refers to the
+     * same byte. The buffers whose bytes have all been discarded are released.
+     *
+     * @return this <code>StreamingCompositeBuffer</code>
+     */
+    public StreamingCompositeBuffer discardReadBytes() {
+
+        this.start += this.readerIndex;
+        this.readerIndex = 0;
+
+        while (this.size > 0 && componentEnd(0) <= this.start) {
+
+            removeFirst();
+            this.current = Math.max(0, this.current - 1);
+        }
+
+        return this;
+    }
+
+    /**
+     * Returns the number of buffers composing this composite.
+     *
+     * @return the number of buffers composing this composite.
+     */
+    public int numberOfComponents() {
+        return this.size;
+    }
+
+    /**
+     * Returns the total number of bytes discarded since the creation of this composite.
+     *
+     * @return the total number of bytes discarded since the creation of this composite.
+     */
+    public long numberOfDiscardedBytes() {
+        return this.start;
+    }
+
+    /**
+     * Returns the number of bytes accessible through this composite.
+     *
+     * @return the number of bytes accessible through this composite.
+     */
+    public int capacity() {
+        return (int) (this.end - this.start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer order(ByteOrder order) {
+
+        super.order(order);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readerIndex() {
+        return this.readerIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer readerIndex(int readerIndex) {
+
+        if (readerIndex < 0 || readerIndex > capacity()) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("readerIndex: %d Expected: 0 <= readerIndex <= capacity(%d)", readerIndex, capacity());
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        this.readerIndex = readerIndex;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int readableBytes() {
+        return capacity() - this.readerIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReadable() {
+        return readableBytes() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte getByte(int index) {
+
+        long position = checkIndex(index, 1);
+        int slot = slot(componentIndex(position));
+
+        return this.components[slot].getByte((int) (position - this.starts[slot]));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public short getShort(int index) {
+
+        long position = checkIndex(index, SHORT_LENGTH);
+        int i = componentIndex(position);
+
+        if (position + SHORT_LENGTH > componentEnd(i)) {
+            return super.getShort(index);
+        }
+
+        int slot = slot(i);
+        ReadableBuffer buffer = this.components[slot];
+        short s = buffer.getShort((int) (position - this.starts[slot]));
+
+        return buffer.order() == order() ? s : Short.reverseBytes(s);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt(int index) {
+
+        long position = checkIndex(index, INT_LENGTH);
+        int i = componentIndex(position);
+
+        if (position + INT_LENGTH > componentEnd(i)) {
+            return super.getInt(index);
+        }
+
+        int slot = slot(i);
+        ReadableBuffer buffer = this.components[slot];
+        int value = buffer.getInt((int) (position - this.starts[slot]));
+
+        return buffer.order() == order() ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong(int index) {
+
+        long position = checkIndex(index, LONG_LENGTH);
+        int i = componentIndex(position);
+
+        if (position + LONG_LENGTH > componentEnd(i)) {
+            return super.getLong(index);
+        }
+
+        int slot = slot(i);
+        ReadableBuffer buffer = this.components[slot];
+        long l = buffer.getLong((int) (position - this.starts[slot]));
+
+        return buffer.order() == order() ? l : Long.reverseBytes(l);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer getBytes(int index, byte[] array) {
+
+        return getBytes(index, array, 0, array.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer getBytes(int index, byte[] array, int offset, int length) {
+
+        long position = checkIndex(index, length);
+        int off = offset;
+        int remaining = length;
+
+        for (int i = componentIndex(position); remaining > 0; i++) {
+
+            int slot = slot(i);
+            int len = (int) Math.min(componentEnd(i) - position, remaining);
+
+            this.components[slot].getBytes((int) (position - this.starts[slot]), array, off, len);
+
+            remaining -= len;
+            position += len;
+            off += len;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte readByte() {
+
+        checkReadable(1);
+
+        byte b = getByte(this.readerIndex);
+        this.readerIndex++;
+
+        return b;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer readBytes(byte[] bytes) {
+
+        return readBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer readBytes(byte[] bytes, int offset, int length) {
+
+        checkReadable(length);
+        getBytes(this.readerIndex, bytes, offset, length);
+        this.readerIndex += length;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer skipBytes(int numberOfBytes) {
+
+        checkReadable(numberOfBytes);
+        this.readerIndex += numberOfBytes;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf(byte value, int fromIndex, int toIndex) {
+
+        if (fromIndex >= toIndex) {
+            return -1;
+        }
+
+        long position = checkIndex(fromIndex, toIndex - fromIndex);
+        long end = this.start + toIndex;
+
+        for (int i = componentIndex(position); position < end; i++) {
+
+            int slot = slot(i);
+            long bufferStart = this.starts[slot];
+            long bufferEnd = Math.min(componentEnd(i), end);
+
+            int index = this.components[slot].indexOf(value,
+                                                      (int) (position - bufferStart),
+                                                      (int) (bufferEnd - bufferStart));
+
+            if (index >= 0) {
+                return (int) (bufferStart + index - this.start);
+            }
+
+            position = bufferEnd;
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int forEachByte(int index, int length, ByteProcessor processor) {
+
+        long position = checkIndex(index, length);
+        long end = position + length;
+
+        for (int i = componentIndex(position); position < end; i++) {
+
+            int slot = slot(i);
+            long bufferStart = this.starts[slot];
+            long bufferEnd = Math.min(componentEnd(i), end);
+
+            int stop = this.components[slot].forEachByte((int) (position - bufferStart),
+                                                         (int) (bufferEnd - position),
+                                                         processor);
+
+            if (stop >= 0) {
+                return (int) (bufferStart + stop - this.start);
+            }
+
+            position = bufferEnd;
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer transferTo(ByteWriter writer) throws IOException {
+
+        int length = readableBytes();
+
+        view(this.readerIndex, length).transferTo(writer);
+        this.readerIndex += length;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer nioBuffer() {
+
+        return view(this.readerIndex, readableBytes()).nioBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteBuffer[] nioBuffers() {
+
+        return view(this.readerIndex, readableBytes()).nioBuffers();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The duplicate is a <code>CompositeBuffer</code> that cannot be used once its bytes have been discarded.
+     * </p>
+     */
+    @Override
+    public CompositeBuffer duplicate() {
+
+        CompositeBuffer duplicate = view(0, capacity());
+        duplicate.readerIndex(this.readerIndex);
+
+        return duplicate;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The slice is a <code>CompositeBuffer</code> that cannot be used once its bytes have been discarded.
+     * </p>
+     */
+    @Override
+    public CompositeBuffer slice(int length) {
+
+        checkReadable(length);
+
+        CompositeBuffer slice = view(this.readerIndex, length);
+        this.readerIndex += length;
+
+        return slice;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>
+     * The slice is a <code>CompositeBuffer</code> holding its own reference to each of its buffers, so it can still
+     * be used once its bytes have been discarded.
+     * </p>
+     */
+    @Override
+    public CompositeBuffer retainedSlice(int index, int length) {
+
+        checkIndex(index, length);
+
+        return view(index, length).toRetainedView();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamingCompositeBuffer retain() {
+
+        super.retain();
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE).append("endianness", this.endianness)
+                                                                          .append("start", this.start)
+                                                                          .append("end", this.end)
+                                                                          .append("readerIndex", this.readerIndex)
+                                                                          .append("numberOfComponents", this.size)
+                                                                          .toString();
+    }
+
+    /**
+     * Returns a <code>CompositeBuffer</code> giving access to the specified bytes and sharing the reference count
+     * of this composite.
+     *
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return a <code>CompositeBuffer</code> giving access to the specified bytes.
+     */
+    private CompositeBuffer view(int index, int length) {
+
+        ensureAccessible();
+
+        long position = this.start + index;
+        List<ReadableBuffer> buffers = new ArrayList<>();
+
+        int first = this.size == 0 ? 0 : componentIndex(position);
+
+        for (int i = first; i < this.size && this.starts[slot(i)] < position + length; i++) {
+            buffers.add(this.components[slot(i)]);
+        }
+
+        int offset = buffers.isEmpty() ? 0 : (int) (position - this.starts[slot(first)]);
+
+        return CompositeBuffer.newView(buffers,
+                                       offset,
+                                       length,
+                                       order(),
+                                       (CompositeBuffer.CompositeReferenceCount) this.referenceCount);
+    }
+
+    /**
+     * Returns the number of the buffer containing the byte at the specified position within the stream.
+     *
+     * @param position the position of the byte within the stream
+     * @return the number of the buffer, counted from the head of the ring.
+     */
+    private int componentIndex(long position) {
+
+        if (this.current < this.size
+                && position >= this.starts[slot(this.current)]
+                && position < componentEnd(this.current)) {
+            return this.current;
+        }
+
+        int low = 0;
+        int high = this.size - 1;
+
+        while (low < high) {
+
+            int middle = (low + high + 1) >>> 1;
+
+            if (this.starts[slot(middle)] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        this.current = low;
+
+        return low;
+    }
+
+    /**
+     * Returns the position within the stream following the last byte of the specified buffer.
+     *
+     * @param i the number of the buffer, counted from the head of the ring
+     * @return the position within the stream following the last byte of the specified buffer.
+     */
+    private long componentEnd(int i) {
+
+        return i + 1 < this.size ? this.starts[slot(i + 1)] : this.end;
+    }
+
+    /**
+     * Returns the slot within the ring of the specified buffer.
+     *
+     * @param i the number of the buffer, counted from the head of the ring
+     * @return the slot within the ring of the specified buffer.
+     */
+    private int slot(int i) {
+        return (this.head + i) & (this.components.length - 1);
+    }
+
+    /**
+     * Removes the first buffer of the ring and releases the reference held by the ring. The retained slices hold
+     * their own reference to the buffer.
+     */
+    private void removeFirst() {
+
+        ReadableBuffer buffer = this.components[this.head];
+
+        this.components[this.head] = null;
+        this.head = slot(1);
+        this.size--;
+
+        buffer.release();
+    }
+
+    /**
+     * Doubles the number of buffers that the ring can hold.
+     */
+    private void grow() {
+
+        int capacity = this.components.length;
+
+        ReadableBuffer[] components = new ReadableBuffer[capacity << 1];
+        long[] starts = new long[capacity << 1];
+
+        for (int i = 0; i < this.size; i++) {
+
+            int slot = slot(i);
+            components[i] = this.components[slot];
+            starts[i] = this.starts[slot];
+        }
+
+        this.components = components;
+        this.starts = starts;
+        this.head = 0;
+    }
+
+    /**
+     * Checks that the specified amount of bytes can be accessed from the specified index and returns the position
+     * of the first byte within the stream.
+     *
+     * @param index the index of the first byte
+     * @param length the amount of bytes
+     * @return the position of the first byte within the stream
+     * @throws IndexOutOfBoundsException if the bytes are not within this buffer.
+     * @throws IllegalStateException if the buffer has been released.
+     */
+    private long checkIndex(int index, int length) {
+
+        ensureAccessible();
+
+        if (index < 0 || length < 0 || (index + length) > capacity()) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("Index: %d Length: %d Expected: 0 <= index and index + length <= capacity(%d)",
+                                index,
+                                length,
+                                capacity());
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+
+        return this.start + index;
+    }
+
+    /**
+     * Checks that the specified amount of bytes can be read.
+     *
+     * @param numberOfBytes the number of bytes to read.
+     * @throws IndexOutOfBoundsException if the specified amount of bytes cannot be read.
+     * @throws IllegalStateException if the buffer has been released.
+     */
+    private void checkReadable(int numberOfBytes) {
+
+        ensureAccessible();
+
+        if (readableBytes() < numberOfBytes) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("bytes to read: %d readable bytes: %d", numberOfBytes, readableBytes());
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+}
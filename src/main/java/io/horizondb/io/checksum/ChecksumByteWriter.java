@@ -19,6 +19,7 @@ import io.horizondb.io.AbstractByteWriter;
 import io.horizondb.io.ByteWriter;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import static org.apache.commons.lang.Validate.notNull;
 
@@ -91,12 +92,22 @@ public final class ChecksumByteWriter extends AbstractByteWriter {
      * {@inheritDoc}
      */
     @Override
-    public ChecksumByteWriter writeZeroBytes(int length) throws IOException {
+    public ChecksumByteWriter writeBytes(ByteBuffer buffer) throws IOException {
+
+        this.checksum.update(buffer);
+        this.writer.writeBytes(buffer);
+
+        return this;
+    }
 
-        for (int i = 0; i < length; i++) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChecksumByteWriter writeZeroBytes(int length) throws IOException {
 
-            writeByte((byte) 0);
-        }
+        this.checksum.updateZeros(length);
+        this.writer.writeZeroBytes(length);
 
         return this;
     }
@@ -18,6 +18,8 @@ package io.horizondb.io.checksum;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
 
+import java.nio.ByteBuffer;
+
 /**
  * CRC32 calculator. This code is based on the one specified in the RFC1952.
  * 
@@ -69,6 +71,12 @@ public final class Crc32 {
             0x30B5FFE9, 0xBDBDF21C, 0xCABAC28A, 0x53B39330, 0x24B4A3A6, 0xBAD03605, 0xCDD70693, 0x54DE5729, 0x23D967BF,
             0xB3667A2E, 0xC4614AB8, 0x5D681B02, 0x2A6F2B94, 0xB40BBE37, 0xC30C8EA1, 0x5A05DF1B, 0x2D02EF8D };
 
+    /**
+     * The operators applying 2^n zero bytes to the CRC register. The register update for a zero byte is linear, so
+     * it can be represented as a 32x32 matrix over GF(2), each operator being the square of the previous one.
+     */
+    private static final int[][] ZERO_OPERATORS = computeZeroOperators();
+
     public void update(byte[] bytes) {
 
         update(Buffers.wrap(bytes));
@@ -91,6 +99,24 @@ public final class Crc32 {
         this.crc = ~c;
     }
 
+    /**
+     * Updates the CRC-32 checksum with the remaining bytes of the specified <code>ByteBuffer</code>, without
+     * modifying its position.
+     * 
+     * @param buffer the <code>ByteBuffer</code> to update the checksum with
+     */
+    public void update(ByteBuffer buffer) {
+
+        int c = ~this.crc;
+
+        for (int i = buffer.position(), m = buffer.limit(); i < m; i++) {
+
+            c = CRC_TABLE[(c ^ buffer.get(i)) & 0xff] ^ (c >>> 8);
+        }
+
+        this.crc = ~c;
+    }
+
     /**
      * Updates the CRC-32 checksum with the specified byte.
      * 
@@ -102,6 +128,26 @@ public final class Crc32 {
         this.crc = ~c;
     }
 
+    /**
+     * Updates the CRC-32 checksum with the specified number of zero bytes. The computation uses the precomputed
+     * operators of {@link #ZERO_OPERATORS} and is done in O(log(length)).
+     * 
+     * @param length the number of zero bytes to update the checksum with
+     */
+    public void updateZeros(int length) {
+
+        int c = ~this.crc;
+
+        for (int i = 0, n = length; n != 0; i++, n >>>= 1) {
+
+            if ((n & 1) != 0) {
+                c = multiply(ZERO_OPERATORS[i], c);
+            }
+        }
+
+        this.crc = ~c;
+    }
+
     /**
      * Resets CRC-32 to initial value.
      */
@@ -117,4 +163,59 @@ public final class Crc32 {
     public long getValue() {
         return this.crc & 0xffffffffL;
     }
+
+    /**
+     * Multiplies the specified vector by the specified GF(2) matrix.
+     * 
+     * @param matrix the matrix, as the images of each of the 32 bits
+     * @param vector the vector
+     * @return the product of the matrix by the vector
+     */
+    private static int multiply(int[] matrix, int vector) {
+
+        int product = 0;
+
+        for (int i = 0, v = vector; v != 0; i++, v >>>= 1) {
+
+            if ((v & 1) != 0) {
+                product ^= matrix[i];
+            }
+        }
+
+        return product;
+    }
+
+    /**
+     * Computes the operators that apply 2^n zero bytes to the CRC register, for n from 0 to 30.
+     * 
+     * @return the operators that apply 2^n zero bytes to the CRC register.
+     */
+    private static int[][] computeZeroOperators() {
+
+        int[][] operators = new int[Integer.SIZE - 1][];
+
+        int[] operator = new int[Integer.SIZE];
+
+        for (int i = 0; i < Integer.SIZE; i++) {
+
+            int c = 1 << i;
+            operator[i] = CRC_TABLE[c & 0xff] ^ (c >>> 8);
+        }
+
+        operators[0] = operator;
+
+        for (int n = 1; n < operators.length; n++) {
+
+            int[] previous = operators[n - 1];
+            int[] square = new int[Integer.SIZE];
+
+            for (int i = 0; i < Integer.SIZE; i++) {
+                square[i] = multiply(previous, previous[i]);
+            }
+
+            operators[n] = square;
+        }
+
+        return operators;
+    }
 }
@@ -18,6 +18,7 @@ import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import net.jpountz.lz4.LZ4Factory;
 
@@ -38,6 +39,11 @@ final class LZ4Compressor implements Compressor {
      * The buffer used to compress the data.
      */
     private Buffer buffer = Buffers.EMPTY_BUFFER;
+
+    /**
+     * The array used to copy the input when its bytes are not stored in a single array.
+     */
+    private byte[] inputArray = new byte[0];
     
     /**
      * The compressor.
@@ -76,17 +82,24 @@ final class LZ4Compressor implements Compressor {
             return this.buffer;
         }
 
-        if (in instanceof Buffer && ((Buffer) in).hasArray()) {
+        ByteBuffer[] inputs = in.nioBuffers();
 
-            Buffer inputBuffer = (Buffer) in;
-            compress(inputBuffer.array(), inputBuffer.arrayOffset(), inputBuffer.readableBytes());
+        if (inputs.length == 1 && inputs[0].hasArray()) {
+
+            ByteBuffer input = inputs[0];
+            compress(input.array(), input.arrayOffset() + input.position(), input.remaining());
 
         } else {
 
-            byte[] inputArray = new byte[in.readableBytes()];
-            in.readBytes(inputArray);
+            int length = in.readableBytes();
+
+            if (this.inputArray.length < length) {
+                this.inputArray = new byte[this.maxInputSize];
+            }
+
+            in.readBytes(this.inputArray, 0, length);
 
-            compress(inputArray, 0, inputArray.length);
+            compress(this.inputArray, 0, length);
         }
 
         return this.buffer;
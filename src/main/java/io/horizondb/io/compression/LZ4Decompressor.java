@@ -18,6 +18,7 @@ import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.lz4.LZ4FastDecompressor;
@@ -34,6 +35,11 @@ final class LZ4Decompressor implements Decompressor {
      * The buffer used internally to uncompress data.
      */
     private Buffer buffer;
+
+    /**
+     * The array used to copy the input when its bytes are not stored in a single array.
+     */
+    private byte[] inputArray = new byte[0];
     
     /**
      * The maximum output size supported by the internal buffer.
@@ -76,17 +82,24 @@ final class LZ4Decompressor implements Decompressor {
             return this.buffer;
         }
         
-        if (in instanceof Buffer && ((Buffer) in).hasArray()) {
-            
-            Buffer inputBuffer = (Buffer) in;
-            decompress(inputBuffer.array(), inputBuffer.arrayOffset(), decompressedLength);
-            
+        ByteBuffer[] inputs = in.nioBuffers();
+
+        if (inputs.length == 1 && inputs[0].hasArray()) {
+
+            ByteBuffer input = inputs[0];
+            decompress(input.array(), input.arrayOffset() + input.position(), decompressedLength);
+
         } else {
-            
-            byte[] inputArray = new byte[in.readableBytes()];
-            in.readBytes(inputArray);
-            
-            decompress(inputArray, 0, decompressedLength);
+
+            int length = in.readableBytes();
+
+            if (this.inputArray.length < length) {
+                this.inputArray = new byte[length];
+            }
+
+            in.readBytes(this.inputArray, 0, length);
+
+            decompress(this.inputArray, 0, decompressedLength);
         }
         
         return this.buffer;
@@ -0,0 +1,543 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ReadableBuffer;
+
+import java.nio.ByteOrder;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang.Validate.isTrue;
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * Utility class to encode arrays of unsigned <code>int</code>s and <code>long</code>s in the Stream VByte layout.
+ *
+ * <p>
+ * Unlike the varint encoding, the lengths of the values are not interleaved with the data bytes. The encoded array
+ * starts with a block of control bytes followed by the data bytes, where each value is stored in little endian
+ * order using only as many bytes as it needs:
+ * <ul>
+ * <li>for the <code>int</code>s, each control byte holds the 2-bit lengths (minus one) of 4 values,</li>
+ * <li>for the <code>long</code>s, each control byte holds the 3-bit lengths (minus one) of 2 values, in its two
+ * nibbles.</li>
+ * </ul>
+ * The decoding reads each value with one wide read masked according to a table indexed by its length, so that it
+ * does not branch on the data.
+ * </p>
+ *
+ * <p>
+ * The number of values is not encoded and must be known by the reader. As with the unsigned varints, the negative
+ * values always take the maximum length, so the signed values should be zig-zag or delta encoded first.
+ * </p>
+ *
+ * @see <a href="https://arxiv.org/abs/1709.08990">Stream VByte: Faster Byte-Oriented Integer Compression</a>
+ *
+ * @author Benjamin
+ *
+ */
+public final class StreamVByte {
+
+    /**
+     * The masks to apply to an <code>int</code> read at the position of a value, indexed by the value length minus
+     * one.
+     */
+    private static final int[] INT_MASKS = { 0xFF, 0xFFFF, 0xFFFFFF, 0xFFFFFFFF };
+
+    /**
+     * The masks to apply to a <code>long</code> read at the position of a value, indexed by the value length minus
+     * one.
+     */
+    private static final long[] LONG_MASKS = { 0xFFL, 0xFFFFL, 0xFFFFFFL, 0xFFFFFFFFL, 0xFFFFFFFFFFL, 0xFFFFFFFFFFFFL,
+            0xFFFFFFFFFFFFFFL, 0xFFFFFFFFFFFFFFFFL };
+
+    /**
+     * The number of data bytes of a group of 4 <code>int</code>s, indexed by the group control byte.
+     */
+    private static final byte[] INT_GROUP_LENGTHS = new byte[256];
+
+    /**
+     * The number of data bytes of a group of 2 <code>long</code>s, indexed by the group control byte.
+     */
+    private static final byte[] LONG_GROUP_LENGTHS = new byte[256];
+
+    static {
+
+        for (int control = 0; control < 256; control++) {
+
+            INT_GROUP_LENGTHS[control] = (byte) ((control & 3) + ((control >>> 2) & 3) + ((control >>> 4) & 3)
+                    + (control >>> 6) + 4);
+
+            LONG_GROUP_LENGTHS[control] = (byte) ((control & 7) + ((control >>> 4) & 7) + 2);
+        }
+    }
+
+    /**
+     * Computes the number of bytes needed to encode the specified unsigned <code>int</code>s.
+     *
+     * @param array the array containing the values
+     * @param offset the offset of the first value
+     * @param length the number of values
+     * @return the number of bytes needed to encode the specified values.
+     */
+    public static int computeIntsSize(int[] array, int offset, int length) {
+
+        int size = numberOfIntControlBytes(length) + length;
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            size += intCode(array[i]);
+        }
+
+        return size;
+    }
+
+    /**
+     * Computes the number of bytes needed to encode the specified unsigned <code>long</code>s.
+     *
+     * @param array the array containing the values
+     * @param offset the offset of the first value
+     * @param length the number of values
+     * @return the number of bytes needed to encode the specified values.
+     */
+    public static int computeLongsSize(long[] array, int offset, int length) {
+
+        int size = numberOfLongControlBytes(length) + length;
+
+        for (int i = offset, m = offset + length; i < m; i++) {
+            size += longCode(array[i]);
+        }
+
+        return size;
+    }
+
+    /**
+     * Writes the specified unsigned <code>int</code>s to the specified buffer.
+     *
+     * @param buffer the buffer to write to
+     * @param array the array containing the values
+     * @param offset the offset of the first value
+     * @param length the number of values
+     * @throws IndexOutOfBoundsException if the buffer does not have enough writeable bytes
+     */
+    public static void writeInts(Buffer buffer, int[] array, int offset, int length) {
+
+        checkArguments(buffer, array.length, offset, length);
+        checkWriteable(buffer, computeIntsSize(array, offset, length));
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int capacity = buffer.capacity();
+
+        int controlIndex = buffer.writerIndex();
+        int index = controlIndex + numberOfIntControlBytes(length);
+
+        for (int i = offset, m = offset + length; i < m; i += 4) {
+
+            int control = 0;
+
+            for (int j = 0, n = Math.min(4, m - i); j < n; j++) {
+
+                int value = array[i + j];
+                int code = intCode(value);
+
+                if (index + Endianness.INT_LENGTH <= capacity) {
+                    buffer.setInt(index, bigEndian ? Integer.reverseBytes(value) : value);
+                } else {
+                    setBytes(buffer, index, value, code + 1);
+                }
+
+                index += code + 1;
+                control |= code << (j << 1);
+            }
+
+            buffer.setByte(controlIndex++, control);
+        }
+
+        buffer.writerIndex(index);
+    }
+
+    /**
+     * Writes the specified unsigned <code>long</code>s to the specified buffer.
+     *
+     * @param buffer the buffer to write to
+     * @param array the array containing the values
+     * @param offset the offset of the first value
+     * @param length the number of values
+     * @throws IndexOutOfBoundsException if the buffer does not have enough writeable bytes
+     */
+    public static void writeLongs(Buffer buffer, long[] array, int offset, int length) {
+
+        checkArguments(buffer, array.length, offset, length);
+        checkWriteable(buffer, computeLongsSize(array, offset, length));
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int capacity = buffer.capacity();
+
+        int controlIndex = buffer.writerIndex();
+        int index = controlIndex + numberOfLongControlBytes(length);
+
+        for (int i = offset, m = offset + length; i < m; i += 2) {
+
+            int control = 0;
+
+            for (int j = 0, n = Math.min(2, m - i); j < n; j++) {
+
+                long value = array[i + j];
+                int code = longCode(value);
+
+                if (index + Endianness.LONG_LENGTH <= capacity) {
+                    buffer.setLong(index, bigEndian ? Long.reverseBytes(value) : value);
+                } else {
+                    setBytes(buffer, index, value, code + 1);
+                }
+
+                index += code + 1;
+                control |= code << (j << 2);
+            }
+
+            buffer.setByte(controlIndex++, control);
+        }
+
+        buffer.writerIndex(index);
+    }
+
+    /**
+     * Reads the specified number of unsigned <code>int</code>s from the specified buffer.
+     *
+     * @param buffer the buffer to read from
+     * @param array the array into which the values must be read
+     * @param offset the offset at which the first value must be stored
+     * @param length the number of values to read
+     * @throws IndexOutOfBoundsException if the buffer does not contain the specified number of values
+     */
+    public static void readInts(ReadableBuffer buffer, int[] array, int offset, int length) {
+
+        checkArguments(buffer, array.length, offset, length);
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+        int controlIndex = buffer.readerIndex();
+        int limit = controlIndex + buffer.readableBytes();
+        int index = controlIndex + numberOfIntControlBytes(length);
+
+        checkReadable(buffer, index, limit);
+
+        int i = offset;
+        int m = offset + length;
+
+        // Full groups with enough bytes after them to read each value with a single int
+        for (int wide = offset + (length & ~3); i < wide && index + 16 <= limit; i += 4) {
+
+            int control = buffer.getByte(controlIndex++) & 0xFF;
+
+            array[i] = getInt(buffer, index, bigEndian) & INT_MASKS[control & 3];
+            index += (control & 3) + 1;
+
+            array[i + 1] = getInt(buffer, index, bigEndian) & INT_MASKS[(control >>> 2) & 3];
+            index += ((control >>> 2) & 3) + 1;
+
+            array[i + 2] = getInt(buffer, index, bigEndian) & INT_MASKS[(control >>> 4) & 3];
+            index += ((control >>> 4) & 3) + 1;
+
+            array[i + 3] = getInt(buffer, index, bigEndian) & INT_MASKS[control >>> 6];
+            index += (control >>> 6) + 1;
+        }
+
+        for (; i < m; i += 4) {
+
+            int control = buffer.getByte(controlIndex++) & 0xFF;
+
+            for (int j = 0, n = Math.min(4, m - i); j < n; j++, control >>>= 2) {
+
+                int numberOfBytes = (control & 3) + 1;
+                checkReadable(buffer, index + numberOfBytes, limit);
+
+                array[i + j] = (int) getBytes(buffer, index, numberOfBytes);
+                index += numberOfBytes;
+            }
+        }
+
+        buffer.readerIndex(index);
+    }
+
+    /**
+     * Reads the specified number of unsigned <code>long</code>s from the specified buffer.
+     *
+     * @param buffer the buffer to read from
+     * @param array the array into which the values must be read
+     * @param offset the offset at which the first value must be stored
+     * @param length the number of values to read
+     * @throws IndexOutOfBoundsException if the buffer does not contain the specified number of values
+     */
+    public static void readLongs(ReadableBuffer buffer, long[] array, int offset, int length) {
+
+        checkArguments(buffer, array.length, offset, length);
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+
+        int controlIndex = buffer.readerIndex();
+        int limit = controlIndex + buffer.readableBytes();
+        int index = controlIndex + numberOfLongControlBytes(length);
+
+        checkReadable(buffer, index, limit);
+
+        int i = offset;
+        int m = offset + length;
+
+        // Full groups with enough bytes after them to read each value with a single long
+        for (int wide = offset + (length & ~1); i < wide && index + 16 <= limit; i += 2) {
+
+            int control = buffer.getByte(controlIndex++) & 0xFF;
+
+            array[i] = getLong(buffer, index, bigEndian) & LONG_MASKS[control & 7];
+            index += (control & 7) + 1;
+
+            array[i + 1] = getLong(buffer, index, bigEndian) & LONG_MASKS[(control >>> 4) & 7];
+            index += ((control >>> 4) & 7) + 1;
+        }
+
+        for (; i < m; i += 2) {
+
+            int control = buffer.getByte(controlIndex++) & 0xFF;
+
+            for (int j = 0, n = Math.min(2, m - i); j < n; j++, control >>>= 4) {
+
+                int numberOfBytes = (control & 7) + 1;
+                checkReadable(buffer, index + numberOfBytes, limit);
+
+                array[i + j] = getBytes(buffer, index, numberOfBytes);
+                index += numberOfBytes;
+            }
+        }
+
+        buffer.readerIndex(index);
+    }
+
+    /**
+     * Skips the specified number of <code>int</code>s. Only the control bytes are read.
+     *
+     * @param buffer the buffer to read from
+     * @param length the number of values to skip
+     * @throws IndexOutOfBoundsException if the buffer does not contain the specified number of values
+     */
+    public static void skipInts(ReadableBuffer buffer, int length) {
+
+        int controlIndex = buffer.readerIndex();
+        int limit = controlIndex + buffer.readableBytes();
+        int numberOfControlBytes = numberOfIntControlBytes(length);
+
+        checkReadable(buffer, controlIndex + numberOfControlBytes, limit);
+
+        // The empty slots of the last group have a zero code, which the table counts as one byte each
+        int index = controlIndex + numberOfControlBytes - (numberOfControlBytes * 4 - length);
+
+        for (int i = 0; i < numberOfControlBytes; i++) {
+            index += INT_GROUP_LENGTHS[buffer.getByte(controlIndex + i) & 0xFF];
+        }
+
+        checkReadable(buffer, index, limit);
+        buffer.readerIndex(index);
+    }
+
+    /**
+     * Skips the specified number of <code>long</code>s. Only the control bytes are read.
+     *
+     * @param buffer the buffer to read from
+     * @param length the number of values to skip
+     * @throws IndexOutOfBoundsException if the buffer does not contain the specified number of values
+     */
+    public static void skipLongs(ReadableBuffer buffer, int length) {
+
+        int controlIndex = buffer.readerIndex();
+        int limit = controlIndex + buffer.readableBytes();
+        int numberOfControlBytes = numberOfLongControlBytes(length);
+
+        checkReadable(buffer, controlIndex + numberOfControlBytes, limit);
+
+        // The empty slot of the last group has a zero code, which the table counts as one byte
+        int index = controlIndex + numberOfControlBytes - (numberOfControlBytes * 2 - length);
+
+        for (int i = 0; i < numberOfControlBytes; i++) {
+            index += LONG_GROUP_LENGTHS[buffer.getByte(controlIndex + i) & 0xFF];
+        }
+
+        checkReadable(buffer, index, limit);
+        buffer.readerIndex(index);
+    }
+
+    /**
+     * Returns the number of control bytes needed for the specified number of <code>int</code>s.
+     *
+     * @param length the number of values
+     * @return the number of control bytes.
+     */
+    private static int numberOfIntControlBytes(int length) {
+        return (length + 3) >>> 2;
+    }
+
+    /**
+     * Returns the number of control bytes needed for the specified number of <code>long</code>s.
+     *
+     * @param length the number of values
+     * @return the number of control bytes.
+     */
+    private static int numberOfLongControlBytes(int length) {
+        return (length + 1) >>> 1;
+    }
+
+    /**
+     * Returns the number of bytes needed to store the specified unsigned <code>int</code> minus one.
+     *
+     * @param value the value
+     * @return the number of bytes needed to store the specified value minus one.
+     */
+    private static int intCode(int value) {
+        return (31 - Integer.numberOfLeadingZeros(value | 1)) >>> 3;
+    }
+
+    /**
+     * Returns the number of bytes needed to store the specified unsigned <code>long</code> minus one.
+     *
+     * @param value the value
+     * @return the number of bytes needed to store the specified value minus one.
+     */
+    private static int longCode(long value) {
+        return (63 - Long.numberOfLeadingZeros(value | 1)) >>> 3;
+    }
+
+    /**
+     * Returns the 4 bytes starting at the specified index in little endian order.
+     *
+     * @param buffer the buffer to read from
+     * @param index the index of the first byte
+     * @param bigEndian <code>true</code> if the buffer is big endian
+     * @return the 4 bytes starting at the specified index in little endian order.
+     */
+    private static int getInt(ReadableBuffer buffer, int index, boolean bigEndian) {
+
+        int i = buffer.getInt(index);
+        return bigEndian ? Integer.reverseBytes(i) : i;
+    }
+
+    /**
+     * Returns the 8 bytes starting at the specified index in little endian order.
+     *
+     * @param buffer the buffer to read from
+     * @param index the index of the first byte
+     * @param bigEndian <code>true</code> if the buffer is big endian
+     * @return the 8 bytes starting at the specified index in little endian order.
+     */
+    private static long getLong(ReadableBuffer buffer, int index, boolean bigEndian) {
+
+        long l = buffer.getLong(index);
+        return bigEndian ? Long.reverseBytes(l) : l;
+    }
+
+    /**
+     * Reads the specified number of bytes in little endian order, one byte at a time.
+     *
+     * @param buffer the buffer to read from
+     * @param index the index of the first byte
+     * @param numberOfBytes the number of bytes to read
+     * @return the value read.
+     */
+    private static long getBytes(ReadableBuffer buffer, int index, int numberOfBytes) {
+
+        long value = 0;
+
+        for (int i = 0; i < numberOfBytes; i++) {
+            value |= (buffer.getByte(index + i) & 0xFFL) << (i << 3);
+        }
+
+        return value;
+    }
+
+    /**
+     * Writes the specified number of bytes of the specified value in little endian order, one byte at a time.
+     *
+     * @param buffer the buffer to write to
+     * @param index the index of the first byte
+     * @param value the value to write
+     * @param numberOfBytes the number of bytes to write
+     */
+    private static void setBytes(Buffer buffer, int index, long value, int numberOfBytes) {
+
+        for (int i = 0; i < numberOfBytes; i++) {
+            buffer.setByte(index + i, (int) (value >>> (i << 3)));
+        }
+    }
+
+    /**
+     * Checks the arguments of the read and write methods.
+     *
+     * @param buffer the buffer
+     * @param arrayLength the length of the array
+     * @param offset the offset of the first value
+     * @param length the number of values
+     */
+    private static void checkArguments(ReadableBuffer buffer, int arrayLength, int offset, int length) {
+
+        notNull(buffer, "the buffer parameter must not be null.");
+        isTrue(offset >= 0 && length >= 0 && offset + length <= arrayLength,
+               "the offset and length parameters must be within the array bounds.");
+    }
+
+    /**
+     * Checks that the specified buffer has the specified number of writeable bytes.
+     *
+     * @param buffer the buffer
+     * @param numberOfBytes the number of bytes to write
+     * @throws IndexOutOfBoundsException if the buffer does not have enough writeable bytes
+     */
+    private static void checkWriteable(Buffer buffer, int numberOfBytes) {
+
+        if (numberOfBytes > buffer.writeableBytes()) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("the number of bytes to write (%d) exceed the number of writeable bytes (%d)",
+                                numberOfBytes,
+                                buffer.writeableBytes());
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    /**
+     * Checks that the bytes up to the specified index are readable.
+     *
+     * @param buffer the buffer
+     * @param index the index following the last byte to read
+     * @param limit the index following the last readable byte
+     * @throws IndexOutOfBoundsException if the bytes are not readable
+     */
+    private static void checkReadable(ReadableBuffer buffer, int index, int limit) {
+
+        if (index > limit) {
+
+            @SuppressWarnings("boxing")
+            String msg = format("the number of bytes to read (%d) exceed the number of readable bytes (%d)",
+                                index - buffer.readerIndex(),
+                                buffer.readableBytes());
+
+            throw new IndexOutOfBoundsException(msg);
+        }
+    }
+
+    /**
+     * This class must not be instantiated.
+     */
+    private StreamVByte() {
+
+    }
+}
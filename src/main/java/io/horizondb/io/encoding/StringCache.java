@@ -0,0 +1,199 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.ReadableBuffer;
+
+import java.util.Arrays;
+
+import static org.apache.commons.lang.Validate.isTrue;
+
+/**
+ * Bounded cache of the strings decoded by {@link VarInts#readString(io.horizondb.io.ByteReader, StringCache)}.
+ *
+ * <p>
+ * The cache maps the UTF-8 bytes of the recently read strings to a canonical <code>String</code> instance, so that
+ * reading a string which is already in the cache does not allocate. The cache is direct-mapped: each byte sequence
+ * has a single slot, determined by its hash, and replaces the string previously stored there. The strings longer
+ * than the maximum length are not cached.
+ * </p>
+ *
+ * <p>
+ * The cache can be shared between threads. The entries are immutable, so a thread might only miss an entry that
+ * has just been stored by another thread.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class StringCache {
+
+    /**
+     * The slots of the cache.
+     */
+    private final Entry[] entries;
+
+    /**
+     * The maximum number of bytes of the strings that are cached.
+     */
+    private final int maxLength;
+
+    /**
+     * Creates a new <code>StringCache</code>.
+     *
+     * @param numberOfEntries the number of entries, which must be a power of two
+     * @param maxLength the maximum number of bytes of the strings that must be cached
+     */
+    public StringCache(int numberOfEntries, int maxLength) {
+
+        isTrue(numberOfEntries > 0 && (numberOfEntries & (numberOfEntries - 1)) == 0,
+               "the number of entries must be a power of two.");
+        isTrue(maxLength >= 0, "the maximum length must be positive.");
+
+        this.entries = new Entry[numberOfEntries];
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the string corresponding to the specified UTF-8 bytes of the specified buffer.
+     *
+     * @param buffer the buffer containing the bytes
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return the string corresponding to the specified bytes.
+     */
+    String get(ReadableBuffer buffer, int index, int length) {
+
+        if (length > this.maxLength) {
+            return VarInts.decodeString(buffer, index, length);
+        }
+
+        int hash = 1;
+
+        for (int i = index, m = index + length; i < m; i++) {
+            hash = 31 * hash + buffer.getByte(i);
+        }
+
+        int slot = mix(hash) & (this.entries.length - 1);
+        Entry entry = this.entries[slot];
+
+        if (entry != null && entry.hash == hash && entry.matches(buffer, index, length)) {
+            return entry.value;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.getBytes(index, bytes);
+
+        String value = new String(bytes, VarInts.UTF_8);
+        this.entries[slot] = new Entry(hash, bytes, value);
+
+        return value;
+    }
+
+    /**
+     * Returns the string corresponding to the specified UTF-8 bytes.
+     *
+     * @param bytes the bytes, which must not be modified afterward
+     * @return the string corresponding to the specified bytes.
+     */
+    String get(byte[] bytes) {
+
+        if (bytes.length > this.maxLength) {
+            return new String(bytes, VarInts.UTF_8);
+        }
+
+        int hash = Arrays.hashCode(bytes);
+        int slot = mix(hash) & (this.entries.length - 1);
+        Entry entry = this.entries[slot];
+
+        if (entry != null && entry.hash == hash && Arrays.equals(entry.bytes, bytes)) {
+            return entry.value;
+        }
+
+        String value = new String(bytes, VarInts.UTF_8);
+        this.entries[slot] = new Entry(hash, bytes, value);
+
+        return value;
+    }
+
+    /**
+     * Spreads the high bits of the specified hash to the low ones used to select a slot.
+     *
+     * @param hash the hash
+     * @return the mixed hash.
+     */
+    private static int mix(int hash) {
+
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * A cached string with its UTF-8 bytes.
+     */
+    private static final class Entry {
+
+        /**
+         * The hash of the bytes.
+         */
+        private final int hash;
+
+        /**
+         * The UTF-8 bytes.
+         */
+        private final byte[] bytes;
+
+        /**
+         * The canonical string.
+         */
+        private final String value;
+
+        /**
+         * Creates a new <code>Entry</code>.
+         *
+         * @param hash the hash of the bytes
+         * @param bytes the UTF-8 bytes
+         * @param value the canonical string
+         */
+        Entry(int hash, byte[] bytes, String value) {
+
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        /**
+         * Checks if the bytes of this entry are the specified bytes of the specified buffer.
+         *
+         * @param buffer the buffer containing the bytes
+         * @param index the index of the first byte
+         * @param length the number of bytes
+         * @return <code>true</code> if the bytes are the same, <code>false</code> otherwise.
+         */
+        boolean matches(ReadableBuffer buffer, int index, int length) {
+
+            if (this.bytes.length != length) {
+                return false;
+            }
+
+            for (int i = 0; i < length; i++) {
+
+                if (this.bytes[i] != buffer.getByte(index + i)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
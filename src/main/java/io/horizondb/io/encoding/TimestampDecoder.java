@@ -0,0 +1,163 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.BitSet;
+import io.horizondb.io.ReadableBuffer;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Decoder of the timestamps encoded by a {@link TimestampEncoder}.
+ *
+ * <p>
+ * The timestamps are decoded one at a time, as they are requested. The decoder can be reused for several blocks
+ * and only allocates when a block is larger than all the previous ones.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class TimestampDecoder {
+
+    /**
+     * The encoded bits.
+     */
+    private BitSet bits;
+
+    /**
+     * The number of timestamps of the current block that have not been decoded yet.
+     */
+    private int remaining;
+
+    /**
+     * <code>true</code> if the next timestamp is the first of the block.
+     */
+    private boolean first;
+
+    /**
+     * The last timestamp decoded.
+     */
+    private long previousTimestamp;
+
+    /**
+     * The delta between the last two timestamps decoded.
+     */
+    private long previousDelta;
+
+    /**
+     * Loads the next block of timestamps from the specified buffer.
+     *
+     * @param buffer the buffer to read from
+     * @return this <code>TimestampDecoder</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public TimestampDecoder readFrom(ReadableBuffer buffer) throws IOException {
+
+        int numberOfTimestamps = VarInts.readUnsignedInt(buffer);
+        int numberOfBits = VarInts.readUnsignedInt(buffer);
+
+        if (this.bits == null || this.bits.capacity() < numberOfBits) {
+            this.bits = new BitSet(Math.max(numberOfBits, 64));
+        }
+
+        this.bits.readFrom(buffer, numberOfBits);
+
+        this.remaining = numberOfTimestamps;
+        this.first = true;
+        this.previousTimestamp = 0;
+        this.previousDelta = 0;
+
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if the current block contains more timestamps.
+     *
+     * @return <code>true</code> if the current block contains more timestamps, <code>false</code> otherwise.
+     */
+    public boolean hasNext() {
+        return this.remaining > 0;
+    }
+
+    /**
+     * Decodes the next timestamp of the current block.
+     *
+     * @return the next timestamp.
+     * @throws NoSuchElementException if all the timestamps of the block have been decoded
+     */
+    public long next() {
+
+        if (this.remaining == 0) {
+            throw new NoSuchElementException("All the timestamps of the block have been decoded.");
+        }
+
+        this.remaining--;
+
+        if (this.first) {
+
+            this.first = false;
+            this.previousTimestamp = this.bits.readBits(64);
+
+            return this.previousTimestamp;
+        }
+
+        BitSet bitSet = this.bits;
+
+        int prefix = 0;
+
+        while (prefix < 5 && bitSet.readBit()) {
+            prefix++;
+        }
+
+        long deltaOfDelta;
+
+        switch (prefix) {
+            case 0:
+                deltaOfDelta = 0;
+                break;
+            case 1:
+                deltaOfDelta = bitSet.readBits(7);
+                break;
+            case 2:
+                deltaOfDelta = bitSet.readBits(9);
+                break;
+            case 3:
+                deltaOfDelta = bitSet.readBits(12);
+                break;
+            case 4:
+                deltaOfDelta = bitSet.readBits(32);
+                break;
+            default:
+                deltaOfDelta = bitSet.readBits(64);
+        }
+
+        this.previousDelta += decodeZigZag64(deltaOfDelta);
+        this.previousTimestamp += this.previousDelta;
+
+        return this.previousTimestamp;
+    }
+
+    /**
+     * Decodes a zig-zag encoded value.
+     *
+     * @param n the zig-zag encoded value
+     * @return the signed value.
+     */
+    private static long decodeZigZag64(long n) {
+
+        return (n >>> 1) ^ -(n & 1);
+    }
+}
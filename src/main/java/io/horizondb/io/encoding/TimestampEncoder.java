@@ -0,0 +1,228 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.BitSet;
+import io.horizondb.io.Buffer;
+
+import java.io.IOException;
+
+/**
+ * Encoder compressing a sequence of timestamps with the delta-of-delta encoding of Facebook's Gorilla.
+ *
+ * <p>
+ * The first timestamp is stored on 64 bits. Each following timestamp is stored as the difference between its delta
+ * to the previous timestamp and the previous delta, zig-zag encoded into the smallest of the following buckets:
+ * <ul>
+ * <li><code>0</code>: the delta is unchanged,</li>
+ * <li><code>10</code> followed by 7 bits,</li>
+ * <li><code>110</code> followed by 9 bits,</li>
+ * <li><code>1110</code> followed by 12 bits,</li>
+ * <li><code>11110</code> followed by 32 bits,</li>
+ * <li><code>11111</code> followed by 64 bits.</li>
+ * </ul>
+ * A regular series therefore takes one bit per timestamp after the first two.
+ * </p>
+ *
+ * <p>
+ * The encoded block, as written by {@link #writeTo(Buffer)}, is made of the number of timestamps and the number of
+ * bits as varints followed by the bits. It can be read back with a {@link TimestampDecoder}.
+ * </p>
+ *
+ * @see <a href="http://www.vldb.org/pvldb/vol8/p1816-teller.pdf">Gorilla: A Fast, Scalable, In-Memory Time Series
+ * Database</a>
+ *
+ * @author Benjamin
+ *
+ */
+public final class TimestampEncoder {
+
+    /**
+     * The maximum number of bits needed to encode a timestamp.
+     */
+    private static final int MAX_BITS_PER_TIMESTAMP = 69;
+
+    /**
+     * The default initial capacity in bits.
+     */
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The encoded bits.
+     */
+    private BitSet bits;
+
+    /**
+     * The number of timestamps encoded.
+     */
+    private int numberOfTimestamps;
+
+    /**
+     * The last timestamp encoded.
+     */
+    private long previousTimestamp;
+
+    /**
+     * The delta between the last two timestamps encoded.
+     */
+    private long previousDelta;
+
+    /**
+     * Creates a new <code>TimestampEncoder</code>.
+     */
+    public TimestampEncoder() {
+
+        this.bits = new BitSet(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Encodes the specified timestamp.
+     *
+     * @param timestamp the timestamp to encode
+     * @return this <code>TimestampEncoder</code>.
+     */
+    public TimestampEncoder encode(long timestamp) {
+
+        ensureWriteable(MAX_BITS_PER_TIMESTAMP);
+
+        if (this.numberOfTimestamps == 0) {
+
+            this.bits.writeBits(timestamp, 64);
+
+        } else {
+
+            long delta = timestamp - this.previousTimestamp;
+            long deltaOfDelta = encodeZigZag64(delta - this.previousDelta);
+
+            if (deltaOfDelta == 0) {
+
+                this.bits.writeZero();
+
+            } else if ((deltaOfDelta >>> 7) == 0) {
+
+                this.bits.writeBits((deltaOfDelta << 2) | 0x1, 2 + 7);
+
+            } else if ((deltaOfDelta >>> 9) == 0) {
+
+                this.bits.writeBits((deltaOfDelta << 3) | 0x3, 3 + 9);
+
+            } else if ((deltaOfDelta >>> 12) == 0) {
+
+                this.bits.writeBits((deltaOfDelta << 4) | 0x7, 4 + 12);
+
+            } else if ((deltaOfDelta >>> 32) == 0) {
+
+                this.bits.writeBits((deltaOfDelta << 5) | 0xF, 5 + 32);
+
+            } else {
+
+                this.bits.writeBits(0x1F, 5);
+                this.bits.writeBits(deltaOfDelta, 64);
+            }
+
+            this.previousDelta = delta;
+        }
+
+        this.previousTimestamp = timestamp;
+        this.numberOfTimestamps++;
+
+        return this;
+    }
+
+    /**
+     * Returns the number of timestamps encoded.
+     *
+     * @return the number of timestamps encoded.
+     */
+    public int numberOfTimestamps() {
+        return this.numberOfTimestamps;
+    }
+
+    /**
+     * Returns the number of bits used to encode the timestamps.
+     *
+     * @return the number of bits used to encode the timestamps.
+     */
+    public int numberOfBits() {
+        return this.bits.writerIndex();
+    }
+
+    /**
+     * Writes the encoded timestamps to the specified buffer.
+     *
+     * @param buffer the buffer to write to
+     * @throws IOException if an I/O problem occurs
+     */
+    public void writeTo(Buffer buffer) throws IOException {
+
+        VarInts.writeUnsignedInt(buffer, this.numberOfTimestamps);
+        VarInts.writeUnsignedInt(buffer, this.bits.writerIndex());
+
+        this.bits.writeTo(buffer);
+    }
+
+    /**
+     * Discards the encoded timestamps so that a new block can be encoded.
+     *
+     * @return this <code>TimestampEncoder</code>.
+     */
+    public TimestampEncoder reset() {
+
+        this.bits.reset();
+        this.numberOfTimestamps = 0;
+        this.previousTimestamp = 0;
+        this.previousDelta = 0;
+
+        return this;
+    }
+
+    /**
+     * Grows the bit set if it cannot accept the specified number of bits.
+     *
+     * @param numberOfBits the number of bits to write
+     */
+    private void ensureWriteable(int numberOfBits) {
+
+        BitSet current = this.bits;
+        int writerIndex = current.writerIndex();
+
+        if (writerIndex + numberOfBits <= current.capacity()) {
+            return;
+        }
+
+        BitSet bigger = new BitSet(Math.max(current.capacity() << 1, writerIndex + numberOfBits));
+
+        current.readerIndex(0);
+
+        while (current.readableBits() >= 64) {
+            bigger.writeBits(current.readBits(64), 64);
+        }
+
+        bigger.writeBits(current.readBits(current.readableBits()), writerIndex & 63);
+
+        this.bits = bigger;
+    }
+
+    /**
+     * Zig-zag encodes the specified value.
+     *
+     * @param n a signed 64-bit integer
+     * @return the zig-zag encoded value.
+     */
+    private static long encodeZigZag64(long n) {
+
+        // Note: the right-shift must be arithmetic
+        return (n << 1) ^ (n >> 63);
+    }
+}
@@ -15,11 +15,17 @@
  */
 package io.horizondb.io.encoding;
 
+import io.horizondb.io.Buffer;
 import io.horizondb.io.ByteReader;
 import io.horizondb.io.ByteWriter;
+import io.horizondb.io.ReadableBuffer;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
 
 /**
  * Utility class for working with the varint encoding used by Google Protocol Buffers.
@@ -31,6 +37,16 @@ import java.io.UnsupportedEncodingException;
  */
 public final class VarInts {
 
+    /**
+     * The charset used to encode the strings.
+     */
+    static final Charset UTF_8 = StandardCharsets.UTF_8;
+
+    /**
+     * The mask of the continuation bits of the 8 bytes of a <code>long</code>.
+     */
+    private static final long CONTINUATION_BITS = 0x8080808080808080L;
+
     /**
      * Read an <code>int</code> from the specified <code>ByteReader</code>.
      * 
@@ -75,15 +91,9 @@ public final class VarInts {
      */
     public static int computeStringSize(String s) {
 
-        try {
-
-            byte[] bytes = s.getBytes("UTF-8");
-
-            return computeUnsignedIntSize(bytes.length) + bytes.length;
+        int length = computeUTF8Length(s);
 
-        } catch (UnsupportedEncodingException e) {
-            throw new IllegalStateException(e);
-        }
+        return computeUnsignedIntSize(length) + length;
     }
 
     /**
@@ -191,11 +201,60 @@ public final class VarInts {
      */
     public static void writeString(ByteWriter writer, String s) throws IOException {
 
-        byte[] bytes = s.getBytes("UTF-8");
-        writeUnsignedInt(writer, bytes.length);
+        int length = computeUTF8Length(s);
+        writeUnsignedInt(writer, length);
+
+        if (writer instanceof Buffer) {
+
+            Buffer buffer = (Buffer) writer;
+
+            if (buffer.writeableBytes() >= length) {
+
+                int writerIndex = buffer.writerIndex();
+
+                if (buffer.hasArray()) {
+                    encodeUTF8(s, buffer.array(), buffer.arrayOffset() + writerIndex);
+                } else {
+                    encodeUTF8(s, buffer, writerIndex);
+                }
+
+                buffer.writerIndex(writerIndex + length);
+                return;
+            }
+        }
+
+        for (int i = 0, m = s.length(); i < m; i++) {
+
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+
+                writer.writeByte(c);
+
+            } else if (c < 0x800) {
 
-        for (byte b : bytes) {
-            writer.writeByte(b);
+                writer.writeByte(0xC0 | (c >> 6));
+                writer.writeByte(0x80 | (c & 0x3F));
+
+            } else if (isSurrogatePair(s, i)) {
+
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+
+                writer.writeByte(0xF0 | (codePoint >> 18));
+                writer.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writer.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writer.writeByte(0x80 | (codePoint & 0x3F));
+
+            } else if (Character.isSurrogate(c)) {
+
+                writer.writeByte('?');
+
+            } else {
+
+                writer.writeByte(0xE0 | (c >> 12));
+                writer.writeByte(0x80 | ((c >> 6) & 0x3F));
+                writer.writeByte(0x80 | (c & 0x3F));
+            }
         }
     }
 
@@ -278,11 +337,72 @@ public final class VarInts {
      */
     public static String readString(ByteReader reader) throws IOException {
 
-        byte[] bytes = new byte[readUnsignedInt(reader)];
+        return readString(reader, null);
+    }
+
+    /**
+     * Read a <code>String</code> from the specified <code>ByteReader</code>, returning the canonical instance from
+     * the specified cache if the string has been recently read.
+     * 
+     * @param reader the <code>ByteReader</code> to read from.
+     * @param cache the cache of the decoded strings or <code>null</code> if the strings must not be cached.
+     * @return the <code>String</code> value corresponding to the next bytes.
+     * @throws IOException if a problem occurs while reading form the input.
+     */
+    public static String readString(ByteReader reader, StringCache cache) throws IOException {
+
+        int length = readUnsignedInt(reader);
+
+        if (reader instanceof ReadableBuffer) {
+
+            ReadableBuffer buffer = (ReadableBuffer) reader;
+
+            if (buffer.readableBytes() >= length) {
+
+                int index = buffer.readerIndex();
+                String s = cache == null ? decodeString(buffer, index, length) : cache.get(buffer, index, length);
+                buffer.readerIndex(index + length);
+
+                return s;
+            }
+        }
+
+        byte[] bytes = new byte[length];
 
         reader.readBytes(bytes);
 
-        return new String(bytes, "UTF-8");
+        return cache == null ? new String(bytes, UTF_8) : cache.get(bytes);
+    }
+
+    /**
+     * Decodes the specified UTF-8 bytes of the specified buffer. The ASCII strings are decoded directly from the
+     * buffer.
+     * 
+     * @param buffer the buffer containing the bytes
+     * @param index the index of the first byte
+     * @param length the number of bytes
+     * @return the decoded <code>String</code>.
+     */
+    static String decodeString(ReadableBuffer buffer, int index, int length) {
+
+        char[] chars = new char[length];
+
+        for (int i = 0; i < length; i++) {
+
+            byte b = buffer.getByte(index + i);
+
+            if (b < 0) {
+
+                byte[] bytes = new byte[length];
+                buffer.getBytes(index, bytes);
+
+                return new String(bytes, UTF_8);
+            }
+
+            chars[i] = (char) b;
+        }
+
+        return new String(chars);
     }
 
     /**
@@ -294,6 +414,15 @@ public final class VarInts {
      */
     public static int readUnsignedInt(ByteReader reader) throws IOException {
 
+        if (reader instanceof ReadableBuffer) {
+
+            ReadableBuffer buffer = (ReadableBuffer) reader;
+
+            if (buffer.readableBytes() >= LONG_LENGTH) {
+                return readUnsignedInt(buffer);
+            }
+        }
+
         int shift = 0;
         int result = 0;
 
@@ -320,6 +449,15 @@ public final class VarInts {
      */
     public static long readUnsignedLong(ByteReader reader) throws IOException {
 
+        if (reader instanceof ReadableBuffer) {
+
+            ReadableBuffer buffer = (ReadableBuffer) reader;
+
+            if (buffer.readableBytes() >= LONG_LENGTH) {
+                return readUnsignedLong(buffer);
+            }
+        }
+
         int shift = 0;
         long result = 0;
 
@@ -499,6 +637,251 @@ public final class VarInts {
         return (b & 0x80) == 0;
     }
 
+    /**
+     * Computes the number of bytes of the UTF-8 encoding of the specified <code>String</code>. The unpaired
+     * surrogates are encoded as <code>'?'</code>, like <code>String.getBytes</code> does.
+     * 
+     * @param s the <code>String</code>
+     * @return the number of bytes of the UTF-8 encoding of the specified <code>String</code>.
+     */
+    private static int computeUTF8Length(String s) {
+
+        int length = s.length();
+
+        for (int i = 0, m = s.length(); i < m; i++) {
+
+            char c = s.charAt(i);
+
+            if (c >= 0x80) {
+
+                if (c < 0x800) {
+
+                    length++;
+
+                } else if (isSurrogatePair(s, i)) {
+
+                    length += 2;
+                    i++;
+
+                } else if (!Character.isSurrogate(c)) {
+
+                    length += 2;
+                }
+            }
+        }
+
+        return length;
+    }
+
+    /**
+     * Encodes the specified <code>String</code> in UTF-8 into the specified array.
+     * 
+     * @param s the <code>String</code> to encode
+     * @param array the array to write to
+     * @param offset the offset of the first byte
+     */
+    private static void encodeUTF8(String s, byte[] array, int offset) {
+
+        int index = offset;
+
+        for (int i = 0, m = s.length(); i < m; i++) {
+
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+
+                array[index++] = (byte) c;
+
+            } else if (c < 0x800) {
+
+                array[index++] = (byte) (0xC0 | (c >> 6));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+
+            } else if (isSurrogatePair(s, i)) {
+
+                int codePoint = Character.toCodePoint(c, s.charAt(++i));
+
+                array[index++] = (byte) (0xF0 | (codePoint >> 18));
+                array[index++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                array[index++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                array[index++] = (byte) (0x80 | (codePoint & 0x3F));
+
+            } else if (Character.isSurrogate(c)) {
+
+                array[index++] = '?';
+
+            } else {
+
+                array[index++] = (byte) (0xE0 | (c >> 12));
+                array[index++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                array[index++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Encodes the specified <code>String</code> in UTF-8 into the specified buffer, without moving its writer index.
+     * 
+     * @param s the <code>String</code> to encode
+     * @param buffer the buffer to write to
+     * @param index the index of the first byte
+     */
+    private static void encodeUTF8(String s, Buffer buffer, int index) {
+
+        int i = index;
+
+        for (int j = 0, m = s.length(); j < m; j++) {
+
+            char c = s.charAt(j);
+
+            if (c < 0x80) {
+
+                buffer.setByte(i++, c);
+
+            } else if (c < 0x800) {
+
+                buffer.setByte(i++, 0xC0 | (c >> 6));
+                buffer.setByte(i++, 0x80 | (c & 0x3F));
+
+            } else if (isSurrogatePair(s, j)) {
+
+                int codePoint = Character.toCodePoint(c, s.charAt(++j));
+
+                buffer.setByte(i++, 0xF0 | (codePoint >> 18));
+                buffer.setByte(i++, 0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.setByte(i++, 0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.setByte(i++, 0x80 | (codePoint & 0x3F));
+
+            } else if (Character.isSurrogate(c)) {
+
+                buffer.setByte(i++, '?');
+
+            } else {
+
+                buffer.setByte(i++, 0xE0 | (c >> 12));
+                buffer.setByte(i++, 0x80 | ((c >> 6) & 0x3F));
+                buffer.setByte(i++, 0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Checks if the character at the specified index is a high surrogate followed by a low surrogate.
+     * 
+     * @param s the <code>String</code>
+     * @param index the index of the character
+     * @return <code>true</code> if the character starts a surrogate pair, <code>false</code> otherwise.
+     */
+    private static boolean isSurrogatePair(String s, int index) {
+
+        return Character.isHighSurrogate(s.charAt(index)) && index + 1 < s.length()
+                && Character.isLowSurrogate(s.charAt(index + 1));
+    }
+
+    /**
+     * Reads an unsigned <code>int</code> from the specified buffer which must have at least 8 readable bytes. The
+     * next 8 bytes are loaded with a single read and the terminating byte is found from the continuation bits.
+     * 
+     * @param buffer the buffer to read from.
+     * @return the unsigned int corresponding to the next bytes.
+     */
+    private static int readUnsignedInt(ReadableBuffer buffer) {
+
+        int index = buffer.readerIndex();
+        long word = getLittleEndianLong(buffer, index);
+        long stops = ~word & CONTINUATION_BITS;
+
+        int length = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+
+        if (length > 5) {
+            throw new IllegalStateException("Malformed varint32");
+        }
+
+        buffer.readerIndex(index + length);
+
+        return (int) compact(word & (stops ^ (stops - 1)));
+    }
+
+    /**
+     * Reads an unsigned <code>long</code> from the specified buffer which must have at least 8 readable bytes. The
+     * next 8 bytes are loaded with a single read and the terminating byte is found from the continuation bits. The
+     * values longer than 8 bytes are completed byte per byte.
+     * 
+     * @param buffer the buffer to read from.
+     * @return the unsigned long corresponding to the next bytes.
+     * @throws IOException if a problem occurs while reading form the buffer.
+     */
+    private static long readUnsignedLong(ReadableBuffer buffer) throws IOException {
+
+        int index = buffer.readerIndex();
+        long word = getLittleEndianLong(buffer, index);
+        long stops = ~word & CONTINUATION_BITS;
+
+        if (stops != 0) {
+
+            int length = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+            buffer.readerIndex(index + length);
+
+            return compact(word & (stops ^ (stops - 1)));
+        }
+
+        buffer.readerIndex(index + LONG_LENGTH);
+
+        long result = compact(word);
+
+        byte b = buffer.readByte();
+        result |= (long) getLower7Bits(b) << 56;
+
+        if (isLastByte(b)) {
+            return result;
+        }
+
+        b = buffer.readByte();
+        result |= (long) getLower7Bits(b) << 63;
+
+        if (isLastByte(b)) {
+            return result;
+        }
+
+        throw new IllegalStateException("Malformed varint64");
+    }
+
+    /**
+     * Returns the 8 bytes starting at the specified index as a little endian <code>long</code>, so that the first
+     * byte is the least significant one.
+     * 
+     * @param buffer the buffer to read from
+     * @param index the index of the first byte
+     * @return the 8 bytes starting at the specified index.
+     */
+    private static long getLittleEndianLong(ReadableBuffer buffer, int index) {
+
+        long word = buffer.getLong(index);
+
+        if (buffer.order() == ByteOrder.BIG_ENDIAN) {
+            return Long.reverseBytes(word);
+        }
+
+        return word;
+    }
+
+    /**
+     * Packs the lower 7 bits of each of the 8 bytes of the specified little endian <code>long</code> into the lower
+     * 56 bits of the result.
+     * 
+     * @param word the bytes of a varint, with the bytes after the terminating one cleared
+     * @return the value of the varint.
+     */
+    private static long compact(long word) {
+
+        long value = word & 0x7F7F7F7F7F7F7F7FL;
+
+        value = ((value & 0x7F007F007F007F00L) >>> 1) | (value & 0x007F007F007F007FL);
+        value = ((value & 0x3FFF00003FFF0000L) >>> 2) | (value & 0x00003FFF00003FFFL);
+
+        return ((value & 0x0FFFFFFF00000000L) >>> 4) | (value & 0x000000000FFFFFFFL);
+    }
+
     /**
      * This class must not be instantiated.
      */
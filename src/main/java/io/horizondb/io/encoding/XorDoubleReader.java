@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.BitSet;
+import io.horizondb.io.ByteReader;
+
+import java.io.IOException;
+
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * Reader of the <code>double</code>s written by a {@link XorDoubleWriter}, on top of a <code>ByteReader</code>.
+ *
+ * <p>
+ * The bytes are pulled from the underlying reader only when their bits are needed, so once the last value of a
+ * block has been read the underlying reader is positioned right after the block. The number of values of a block
+ * is not encoded and must be known by the caller, who must call {@link #endBlock()} after the last one.
+ * </p>
+ *
+ * @author Benjamin
+ *
+ */
+public final class XorDoubleReader {
+
+    /**
+     * The underlying reader.
+     */
+    private final ByteReader reader;
+
+    /**
+     * The bits read from the underlying reader that have not been decoded yet.
+     */
+    private final BitSet bits = new BitSet(128);
+
+    /**
+     * <code>true</code> if the next value is the first of a block.
+     */
+    private boolean first = true;
+
+    /**
+     * The bits of the previous value.
+     */
+    private long previousValue;
+
+    /**
+     * The number of leading zeros of the current window.
+     */
+    private int leadingZeros;
+
+    /**
+     * The number of trailing zeros of the current window.
+     */
+    private int trailingZeros;
+
+    /**
+     * Creates a new <code>XorDoubleReader</code> reading from the specified <code>ByteReader</code>.
+     *
+     * @param reader the underlying reader
+     */
+    public XorDoubleReader(ByteReader reader) {
+
+        notNull(reader, "the reader parameter must not be null.");
+
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next <code>double</code>.
+     *
+     * @return the next <code>double</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public double readDouble() throws IOException {
+
+        if (this.first) {
+
+            this.first = false;
+            this.previousValue = readBits(64);
+
+        } else if (readBits(1) != 0) {
+
+            if (readBits(1) != 0) {
+
+                long header = readBits(5 + 6);
+
+                this.leadingZeros = (int) (header & 31);
+
+                int meaningfulBits = (int) (header >>> 5);
+
+                if (meaningfulBits == 0) {
+                    meaningfulBits = 64;
+                }
+
+                this.trailingZeros = 64 - this.leadingZeros - meaningfulBits;
+            }
+
+            long xor = readBits(64 - this.leadingZeros - this.trailingZeros) << this.trailingZeros;
+            this.previousValue ^= xor;
+        }
+
+        return Double.longBitsToDouble(this.previousValue);
+    }
+
+    /**
+     * Discards the padding bits of the current block. The next value is read as the first of a new block.
+     *
+     * @return this <code>XorDoubleReader</code>.
+     */
+    public XorDoubleReader endBlock() {
+
+        this.bits.reset();
+        this.first = true;
+
+        return this;
+    }
+
+    /**
+     * Reads the specified number of bits, pulling bytes from the underlying reader as needed.
+     *
+     * @param numberOfBits the number of bits to read, between 0 and 64
+     * @return the bits read.
+     * @throws IOException if an I/O problem occurs
+     */
+    private long readBits(int numberOfBits) throws IOException {
+
+        BitSet bitSet = this.bits;
+        int remaining = bitSet.readableBits();
+
+        if (remaining < numberOfBits) {
+
+            long remainingBits = bitSet.readBits(remaining);
+            bitSet.reset().writeBits(remainingBits, remaining);
+
+            while (bitSet.readableBits() < numberOfBits) {
+                bitSet.writeBits(this.reader.readByte(), 8);
+            }
+        }
+
+        return bitSet.readBits(numberOfBits);
+    }
+}
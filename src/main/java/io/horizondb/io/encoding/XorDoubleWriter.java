@@ -0,0 +1,196 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.BitSet;
+import io.horizondb.io.ByteWriter;
+
+import java.io.IOException;
+
+import static org.apache.commons.lang.Validate.notNull;
+
+/**
+ * Writer compressing a stream of <code>double</code>s with the XOR encoding of Facebook's Gorilla, on top of a
+ * <code>ByteWriter</code>.
+ *
+ * <p>
+ * The first value of a block is stored on 64 bits. Each following value is XORed with the previous one:
+ * <ul>
+ * <li>if the result is zero, a single <code>0</code> bit is written,</li>
+ * <li>if its meaningful bits fit within the window of leading and trailing zeros of the previous stored value,
+ * <code>10</code> is written followed by the bits of the window,</li>
+ * <li>otherwise <code>11</code> is written followed by the number of leading zeros on 5 bits, the number of
+ * meaningful bits on 6 bits and the meaningful bits, which become the new window.</li>
+ * </ul>
+ * Slowly changing values share most of their sign, exponent and mantissa bits, so they take only a few bits each.
+ * </p>
+ *
+ * <p>
+ * The bits are written to the underlying <code>ByteWriter</code> as soon as a full byte is available. The block must
+ * be ended with {@link #flush()}, which writes the last bits padded with zeros. Values are read back with a
+ * {@link XorDoubleReader}.
+ * </p>
+ *
+ * @see <a href="http://www.vldb.org/pvldb/vol8/p1816-teller.pdf">Gorilla: A Fast, Scalable, In-Memory Time Series
+ * Database</a>
+ *
+ * @author Benjamin
+ *
+ */
+public final class XorDoubleWriter {
+
+    /**
+     * The maximum number of leading zeros that can be encoded on 5 bits.
+     */
+    private static final int MAX_LEADING_ZEROS = 31;
+
+    /**
+     * The underlying writer.
+     */
+    private final ByteWriter writer;
+
+    /**
+     * The bits that have not been written to the underlying writer yet.
+     */
+    private final BitSet bits = new BitSet(128);
+
+    /**
+     * <code>true</code> if the next value is the first of a block.
+     */
+    private boolean first = true;
+
+    /**
+     * The bits of the previous value.
+     */
+    private long previousValue;
+
+    /**
+     * The number of leading zeros of the current window.
+     */
+    private int leadingZeros;
+
+    /**
+     * The number of trailing zeros of the current window.
+     */
+    private int trailingZeros;
+
+    /**
+     * Creates a new <code>XorDoubleWriter</code> writing to the specified <code>ByteWriter</code>.
+     *
+     * @param writer the underlying writer
+     */
+    public XorDoubleWriter(ByteWriter writer) {
+
+        notNull(writer, "the writer parameter must not be null.");
+
+        this.writer = writer;
+    }
+
+    /**
+     * Writes the specified <code>double</code>.
+     *
+     * @param d the <code>double</code> to write
+     * @return this <code>XorDoubleWriter</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public XorDoubleWriter writeDouble(double d) throws IOException {
+
+        long value = Double.doubleToRawLongBits(d);
+
+        if (this.first) {
+
+            this.first = false;
+            this.bits.writeBits(value, 64);
+            this.leadingZeros = Integer.MAX_VALUE;
+
+        } else {
+
+            long xor = value ^ this.previousValue;
+
+            if (xor == 0) {
+
+                this.bits.writeZero();
+
+            } else {
+
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), MAX_LEADING_ZEROS);
+                int trailing = Long.numberOfTrailingZeros(xor);
+
+                if (leading >= this.leadingZeros && trailing >= this.trailingZeros) {
+
+                    this.bits.writeBits(0x1, 2);
+                    this.bits.writeBits(xor >>> this.trailingZeros, 64 - this.leadingZeros - this.trailingZeros);
+
+                } else {
+
+                    int meaningfulBits = 64 - leading - trailing;
+
+                    // 64 meaningful bits are written as 0
+                    this.bits.writeBits(0x3 | (leading << 2) | ((meaningfulBits & 63) << 7), 2 + 5 + 6);
+                    this.bits.writeBits(xor >>> trailing, meaningfulBits);
+
+                    this.leadingZeros = leading;
+                    this.trailingZeros = trailing;
+                }
+            }
+        }
+
+        this.previousValue = value;
+
+        writeFullBytes();
+
+        return this;
+    }
+
+    /**
+     * Writes the pending bits, padded with zeros to a byte boundary, and ends the block. The next value is the first
+     * of a new block.
+     *
+     * @return this <code>XorDoubleWriter</code>.
+     * @throws IOException if an I/O problem occurs
+     */
+    public XorDoubleWriter flush() throws IOException {
+
+        int remaining = this.bits.readableBits();
+
+        if (remaining > 0) {
+            this.writer.writeByte((int) this.bits.readBits(remaining));
+        }
+
+        this.bits.reset();
+        this.first = true;
+
+        return this;
+    }
+
+    /**
+     * Writes the full bytes of pending bits to the underlying writer and moves the remaining bits to the start of the
+     * bit set.
+     *
+     * @throws IOException if an I/O problem occurs
+     */
+    private void writeFullBytes() throws IOException {
+
+        BitSet bitSet = this.bits;
+
+        while (bitSet.readableBits() >= 8) {
+            this.writer.writeByte((int) bitSet.readBits(8));
+        }
+
+        int remaining = bitSet.readableBits();
+        long remainingBits = bitSet.readBits(remaining);
+
+        bitSet.reset().writeBits(remainingBits, remaining);
+    }
+}
@@ -18,6 +18,8 @@ package io.horizondb.io.files;
 import java.io.IOException;
 
 import io.horizondb.io.AbstractByteReader;
+import io.horizondb.io.ByteWriter;
+import io.horizondb.io.buffers.Buffers;
 
 /**
  * @author Benjamin
@@ -32,4 +34,15 @@ abstract class AbstractFileDataInput extends AbstractByteReader implements FileD
     public final long readableBytes() throws IOException {
         return size() - getPosition();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FileDataInput transferTo(ByteWriter writer) throws IOException {
+
+        Buffers.copy(this, writer, readableBytes());
+
+        return this;
+    }
 }
@@ -15,6 +15,7 @@
  */
 package io.horizondb.io.files;
 
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.CompositeBuffer;
 
@@ -192,6 +193,23 @@ public final class CompositeSeekableFileDataInput extends AbstractFileDataInput
         return buffer;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekableFileDataInput transferTo(ByteWriter writer) throws IOException {
+
+        while (isReadable()) {
+
+            SeekableFileDataInput current = getCurrent();
+
+            current.transferTo(writer);
+            next();
+        }
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,8 +16,10 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
+import io.horizondb.io.buffers.DirectMemory;
 
 import java.io.IOException;
 import java.nio.BufferUnderflowException;
@@ -27,6 +29,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
 import static io.horizondb.io.files.FileUtils.ONE_KB;
 import static org.apache.commons.lang.Validate.isTrue;
 import static org.apache.commons.lang.Validate.notNull;
@@ -64,6 +68,11 @@ public class DirectFileDataInput extends AbstractFileDataInput {
      */
     private Buffer slice;
 
+    /**
+     * <code>true</code> if the internal buffer has been exposed through a slice.
+     */
+    private boolean sliced;
+
     /**
      * Creates a new <code>DirectFileDataInput</code> to read data from the specified file.
      * 
@@ -87,8 +96,8 @@ public class DirectFileDataInput extends AbstractFileDataInput {
 
         this.channel = (FileChannel) Files.newByteChannel(path, StandardOpenOption.READ);
 
-        this.buffer = ByteBuffer.allocateDirect(bufferSize);
-        this.slice = Buffers.wrap(this.buffer);
+        this.buffer = DirectMemory.allocate(DirectMemory.Category.FILE_INPUT, bufferSize);
+        this.slice = this.buffer.isDirect() ? Buffers.wrap(this.buffer) : Buffers.wrap(this.buffer.array());
 
         fillBuffer();
     }
@@ -155,6 +164,122 @@ public class DirectFileDataInput extends AbstractFileDataInput {
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataInput readInts(int[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / INT_LENGTH);
+
+            if (count == 0) {
+
+                array[off] = readInt();
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asIntBuffer().get(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * INT_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataInput readLongs(long[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                array[off] = readLong();
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asLongBuffer().get(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * LONG_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataInput readDoubles(double[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                array[off] = Double.longBitsToDouble(readLong());
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asDoubleBuffer().get(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * LONG_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataInput transferTo(ByteWriter writer) throws IOException {
+
+        writer.writeBytes(this.buffer);
+
+        while (this.hasChannelRemainingBytes) {
+
+            readData();
+            writer.writeBytes(this.buffer);
+        }
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -170,12 +295,31 @@ public class DirectFileDataInput extends AbstractFileDataInput {
 
     /**
      * {@inheritDoc}
+     * 
+     * <p>
+     * The memory of the internal buffer is freed, unless some slices have been returned by this input, in which case
+     * it is left to the garbage collector so that the slices stay valid.
+     * </p>
      */
     @Override
     public final void close() throws IOException {
 
-        this.channel.close();
-        this.buffer = null;
+        try {
+
+            this.channel.close();
+
+        } finally {
+
+            if (this.buffer != null) {
+
+                if (!this.sliced) {
+                    DirectMemory.free(DirectMemory.Category.FILE_INPUT, this.buffer);
+                }
+
+                this.buffer = null;
+                this.slice = null;
+            }
+        }
     }
 
     /**
@@ -192,6 +336,7 @@ public class DirectFileDataInput extends AbstractFileDataInput {
         int position = this.buffer.position();
 
         this.slice.subRegion(position, length);
+        this.sliced = true;
 
         this.buffer.position(position + length);
 
@@ -16,6 +16,10 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.ByteReader;
+import io.horizondb.io.ReadableBuffer;
+import io.horizondb.io.buffers.Buffers;
+import io.horizondb.io.buffers.DirectMemory;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -24,11 +28,19 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
 import static io.horizondb.io.files.FileUtils.ONE_KB;
 
 /**
  * <code>FileDataOutput</code> that use a direct buffer to write to the underlying file.
  * 
+ * <p>
+ * The readable bytes of the buffers transfered to this output are written with a single gathering write. Only the
+ * small heap parts at the start of the buffer are copied into the direct buffer. The direct and the large parts go
+ * straight to the channel.
+ * </p>
+ * 
  * @author Benjamin
  * 
  */
@@ -39,6 +51,11 @@ public class DirectFileDataOutput extends AbstractByteWriter implements FileData
      */
     public static final int DEFAULT_BUFFER_SIZE = 8 * ONE_KB;
 
+    /**
+     * The maximum number of zero pages written to the channel by a single gathering write.
+     */
+    private static final int ZERO_PAGES_PER_WRITE = 16;
+
     /**
      * The byte buffer used to write to the file.
      */
@@ -82,7 +99,7 @@ public class DirectFileDataOutput extends AbstractByteWriter implements FileData
     protected DirectFileDataOutput(FileChannel channel, int bufferSize) {
 
         this.channel = channel;
-        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer = DirectMemory.allocate(DirectMemory.Category.FILE_OUTPUT, bufferSize);
     }
 
     /**
@@ -101,20 +118,242 @@ public class DirectFileDataOutput extends AbstractByteWriter implements FileData
      */
     @Override
     public final DirectFileDataOutput writeBytes(byte[] bytes, int offset, int length) throws IOException {
+
+        if (length > this.buffer.capacity()) {
+            return writeBytes(ByteBuffer.wrap(bytes, offset, length));
+        }
+
         flushIfNeeded(length);
         this.buffer.put(bytes, offset, length);
 
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput writeBytes(ByteBuffer bytes) throws IOException {
+
+        if (bytes.remaining() <= this.buffer.capacity()) {
+
+            flushIfNeeded(bytes.remaining());
+            this.buffer.put(bytes);
+
+            return this;
+        }
+
+        flush();
+
+        while (bytes.hasRemaining()) {
+            this.channel.write(bytes);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput writeBytes(ByteBuffer[] buffers) throws IOException {
+
+        int first = 0;
+
+        while (first < buffers.length && canBeCoalesced(buffers[first])) {
+
+            ByteBuffer bytes = buffers[first++];
+
+            flushIfNeeded(bytes.remaining());
+            this.buffer.put(bytes);
+        }
+
+        if (first == buffers.length) {
+            return this;
+        }
+
+        ByteBuffer[] sources = new ByteBuffer[buffers.length - first + 1];
+        sources[0] = this.buffer;
+        System.arraycopy(buffers, first, sources, 1, buffers.length - first);
+
+        this.buffer.flip();
+
+        long remaining = 0;
+
+        for (int i = 0; i < sources.length; i++) {
+            remaining += sources[i].remaining();
+        }
+
+        while (remaining > 0) {
+            remaining -= this.channel.write(sources);
+        }
+
+        this.buffer.clear();
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput transfer(ByteReader reader) throws IOException {
+
+        if (!(reader instanceof ReadableBuffer)) {
+
+            super.transfer(reader);
+            return this;
+        }
+
+        ReadableBuffer buffer = (ReadableBuffer) reader;
+
+        writeBytes(buffer.nioBuffers());
+        buffer.skipBytes(buffer.readableBytes());
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput writeInts(int[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / INT_LENGTH);
+
+            if (count == 0) {
+
+                writeInt(array[off]);
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asIntBuffer().put(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * INT_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput writeLongs(long[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                writeLong(array[off]);
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asLongBuffer().put(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * LONG_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final DirectFileDataOutput writeDoubles(double[] array, int offset, int length) throws IOException {
+
+        Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        int off = offset;
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int count = Math.min(remaining, this.buffer.remaining() / LONG_LENGTH);
+
+            if (count == 0) {
+
+                writeLong(Double.doubleToRawLongBits(array[off]));
+                count = 1;
+
+            } else {
+
+                this.buffer.order(order()).asDoubleBuffer().put(array, off, count);
+                this.buffer.position(this.buffer.position() + (count * LONG_LENGTH));
+            }
+
+            off += count;
+            remaining -= count;
+        }
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public final DirectFileDataOutput writeZeroBytes(int length) throws IOException {
 
-        for (int i = 0; i < length; i++) {
-            writeByte(0);
+        if (length <= this.buffer.capacity()) {
+
+            flushIfNeeded(length);
+            Buffers.putZeroBytes(this.buffer, length);
+
+            return this;
+        }
+
+        flush();
+
+        ByteBuffer[] pages = new ByteBuffer[ZERO_PAGES_PER_WRITE];
+
+        for (int i = 0; i < pages.length; i++) {
+            pages[i] = Buffers.zeroPage();
+        }
+
+        int remaining = length;
+
+        while (remaining > 0) {
+
+            int numberOfPages = 0;
+
+            while (numberOfPages < pages.length && remaining > 0) {
+
+                int pageLength = Math.min(remaining, Buffers.ZERO_PAGE_SIZE);
+
+                ByteBuffer page = pages[numberOfPages++];
+                page.clear();
+                page.limit(pageLength);
+
+                remaining -= pageLength;
+            }
+
+            while (pages[numberOfPages - 1].hasRemaining()) {
+                this.channel.write(pages, 0, numberOfPages);
+            }
         }
 
         return this;
@@ -149,7 +388,19 @@ public class DirectFileDataOutput extends AbstractByteWriter implements FileData
      */
     @Override
     public final void close() throws IOException {
-        this.channel.close();
+
+        try {
+
+            this.channel.close();
+
+        } finally {
+
+            if (this.buffer != null) {
+
+                DirectMemory.free(DirectMemory.Category.FILE_OUTPUT, this.buffer);
+                this.buffer = null;
+            }
+        }
     }
 
     /**
@@ -170,6 +421,18 @@ public class DirectFileDataOutput extends AbstractByteWriter implements FileData
         return this.buffer;
     }
 
+    /**
+     * Checks if the specified bytes must be copied into the internal buffer rather than written directly to the
+     * channel.
+     * 
+     * @param bytes the bytes to write
+     * @return <code>true</code> if the specified bytes are in a small heap buffer, <code>false</code> otherwise.
+     */
+    private boolean canBeCoalesced(ByteBuffer bytes) {
+
+        return !bytes.isDirect() && bytes.remaining() <= (this.buffer.capacity() >>> 1);
+    }
+
     /**
      * Flush the buffer if there are not enough space for the specified number of bytes.
      * 
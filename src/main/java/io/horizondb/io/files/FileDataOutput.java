@@ -20,6 +20,7 @@ import io.horizondb.io.ByteWriter;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Interface used to write Data to an underlying file.
@@ -36,4 +37,13 @@ public interface FileDataOutput extends ByteWriter, Closeable, Flushable {
      * @throws IOException if an I/O error occurs.
      */
     long getPosition() throws IOException;
+
+    /**
+     * Writes the remaining bytes of the specified <code>ByteBuffer</code>s, one after the other.
+     * 
+     * @param buffers the <code>ByteBuffer</code>s containing the bytes to write.
+     * @return this <code>FileDataOutput</code>.
+     * @throws IOException if an I/O error occurs.
+     */
+    FileDataOutput writeBytes(ByteBuffer[] buffers) throws IOException;
 }
\ No newline at end of file
@@ -15,7 +15,7 @@
  */
 package io.horizondb.io.files;
 
-import io.netty.util.internal.PlatformDependent;
+import io.horizondb.io.buffers.DirectMemory;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -168,7 +168,10 @@ public final class FileUtils {
      */
     public static MappedByteBuffer mmap(FileChannel channel, long position, long size) throws IOException {
 
-        return channel.map(MapMode.READ_WRITE, position, size);
+        MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, position, size);
+        DirectMemory.registerMapping(buffer);
+
+        return buffer;
     }
 
     /**
@@ -187,12 +190,15 @@ public final class FileUtils {
     }
 
     /**
-     * Unmap the specified memory mapping.
+     * Unmap the specified memory mapping. If the platform does not allow to unmap it explicitly (see
+     * {@link DirectMemory#isExplicitFreeSupported()}), the mapping is released, and removed from the accounting, once
+     * the buffer has been reclaimed by the garbage collector.
      * 
      * @param buffer the buffer representing the memory mapping.
      */
     public static void munmap(MappedByteBuffer buffer) {
-        PlatformDependent.freeDirectBuffer(buffer);
+
+        DirectMemory.free(DirectMemory.Category.MAPPED, buffer);
     }
 
     /**
@@ -16,12 +16,15 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
 
 import java.io.IOException;
 import java.nio.MappedByteBuffer;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
 import static org.apache.commons.lang.Validate.isTrue;
 
 /**
@@ -97,6 +100,62 @@ public class MemoryMappedFileDataInput extends AbstractFileDataInput implements
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final MemoryMappedFileDataInput readInts(int[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        checkReadable(numberOfBytes);
+        this.buffer.order(order()).asIntBuffer().get(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final MemoryMappedFileDataInput readLongs(long[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+        this.buffer.order(order()).asLongBuffer().get(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final MemoryMappedFileDataInput readDoubles(double[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkReadable(numberOfBytes);
+        this.buffer.order(order()).asDoubleBuffer().get(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final MemoryMappedFileDataInput transferTo(ByteWriter writer) throws IOException {
+
+        writer.writeBytes(this.buffer);
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -168,4 +227,18 @@ public class MemoryMappedFileDataInput extends AbstractFileDataInput implements
 
         return this.buffer;
     }
+
+    /**
+     * Checks that the specified number of bytes can be read from the current position.
+     * 
+     * @param numberOfBytes the number of bytes.
+     * @throws IndexOutOfBoundsException if the bytes are beyond the end of the mapped region.
+     */
+    private void checkReadable(int numberOfBytes) {
+
+        if (numberOfBytes > this.buffer.remaining()) {
+            throw new IndexOutOfBoundsException("Index: " + (this.buffer.position() + numberOfBytes) + ", Size: "
+                    + this.buffer.limit());
+        }
+    }
 }
@@ -16,10 +16,15 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.buffers.Buffers;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
+
 /**
  * <code>SeekableFileDataOutput</code> that use a memory mapped byte buffer to write to the underlying file.
  * 
@@ -67,12 +72,86 @@ public final class MemoryMappedFileDataOutput extends AbstractByteWriter impleme
      * {@inheritDoc}
      */
     @Override
-    public MemoryMappedFileDataOutput writeZeroBytes(int length) throws IOException {
+    public MemoryMappedFileDataOutput writeBytes(ByteBuffer bytes) throws IOException {
+
+        checkWriteable(bytes.remaining());
+        this.buffer.put(bytes);
+        return this;
+    }
 
-        for (int i = 0; i < length; i++) {
-            writeByte(0);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MemoryMappedFileDataOutput writeBytes(ByteBuffer[] buffers) throws IOException {
+
+        long numberOfBytes = 0;
+
+        for (int i = 0; i < buffers.length; i++) {
+            numberOfBytes += buffers[i].remaining();
         }
 
+        checkWriteable(numberOfBytes);
+
+        for (int i = 0; i < buffers.length; i++) {
+            this.buffer.put(buffers[i]);
+        }
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MemoryMappedFileDataOutput writeInts(int[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, INT_LENGTH);
+
+        checkWriteable(numberOfBytes);
+        this.buffer.order(order()).asIntBuffer().put(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MemoryMappedFileDataOutput writeLongs(long[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkWriteable(numberOfBytes);
+        this.buffer.order(order()).asLongBuffer().put(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MemoryMappedFileDataOutput writeDoubles(double[] array, int offset, int length) throws IOException {
+
+        int numberOfBytes = Buffers.checkArrayRegion(array.length, offset, length, LONG_LENGTH);
+
+        checkWriteable(numberOfBytes);
+        this.buffer.order(order()).asDoubleBuffer().put(array, offset, length);
+        this.buffer.position(this.buffer.position() + numberOfBytes);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public MemoryMappedFileDataOutput writeZeroBytes(int length) throws IOException {
+
+        Buffers.putZeroBytes(this.buffer, length);
         return this;
     }
 
@@ -110,4 +189,18 @@ public final class MemoryMappedFileDataOutput extends AbstractByteWriter impleme
         FileUtils.munmap(this.buffer);
         this.buffer = null;
     }
+
+    /**
+     * Checks that the specified number of bytes can be written at the current position.
+     * 
+     * @param numberOfBytes the number of bytes.
+     * @throws IndexOutOfBoundsException if the bytes are beyond the end of the mapped region.
+     */
+    private void checkWriteable(long numberOfBytes) {
+
+        if (numberOfBytes > this.buffer.remaining()) {
+            throw new IndexOutOfBoundsException("Index: " + (this.buffer.position() + numberOfBytes) + ", Size: "
+                    + this.buffer.limit());
+        }
+    }
 }
@@ -16,9 +16,11 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.ByteReader;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.Semaphore;
@@ -323,9 +325,14 @@ public final class RandomAccessDataFile implements Closeable {
         @Override
         public void close() throws IOException {
 
-            this.managedOutput.close();
+            try {
 
-            RandomAccessDataFile.this.available.release();
+                this.managedOutput.close();
+
+            } finally {
+
+                RandomAccessDataFile.this.available.release();
+            }
         }
 
         /**
@@ -339,6 +346,72 @@ public final class RandomAccessDataFile implements Closeable {
             return this;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeBytes(ByteBuffer bytes) throws IOException {
+
+            this.managedOutput.writeBytes(bytes);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeBytes(ByteBuffer[] buffers) throws IOException {
+
+            this.managedOutput.writeBytes(buffers);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput transfer(ByteReader reader) throws IOException {
+
+            this.managedOutput.transfer(reader);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeInts(int[] array, int offset, int length) throws IOException {
+
+            this.managedOutput.writeInts(array, offset, length);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeLongs(long[] array, int offset, int length) throws IOException {
+
+            this.managedOutput.writeLongs(array, offset, length);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeDoubles(double[] array, int offset, int length) throws IOException {
+
+            this.managedOutput.writeDoubles(array, offset, length);
+
+            return this;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -16,8 +16,10 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.AbstractByteWriter;
+import io.horizondb.io.ByteReader;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Path;
 
 /**
@@ -182,6 +184,78 @@ final class RecyclingFileAccessManager implements FileAccessManager {
             return this;
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeBytes(ByteBuffer bytes) throws IOException {
+
+            checkOpen();
+            this.managedOutput.writeBytes(bytes);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeBytes(ByteBuffer[] buffers) throws IOException {
+
+            checkOpen();
+            this.managedOutput.writeBytes(buffers);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput transfer(ByteReader reader) throws IOException {
+
+            checkOpen();
+            this.managedOutput.transfer(reader);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeInts(int[] array, int offset, int length) throws IOException {
+
+            checkOpen();
+            this.managedOutput.writeInts(array, offset, length);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeLongs(long[] array, int offset, int length) throws IOException {
+
+            checkOpen();
+            this.managedOutput.writeLongs(array, offset, length);
+
+            return this;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SeekableFileDataOutput writeDoubles(double[] array, int offset, int length) throws IOException {
+
+            checkOpen();
+            this.managedOutput.writeDoubles(array, offset, length);
+
+            return this;
+        }
+
         /**
          * {@inheritDoc}
          */
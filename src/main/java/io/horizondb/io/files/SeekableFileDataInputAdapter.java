@@ -15,6 +15,7 @@
  */
 package io.horizondb.io.files;
 
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 
 import java.io.IOException;
@@ -106,6 +107,36 @@ final class SeekableFileDataInputAdapter extends AbstractFileDataInput implement
         return this;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekableFileDataInput readInts(int[] array, int offset, int length) throws IOException {
+
+        this.buffer.readInts(array, offset, length);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekableFileDataInput readLongs(long[] array, int offset, int length) throws IOException {
+
+        this.buffer.readLongs(array, offset, length);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekableFileDataInput readDoubles(double[] array, int offset, int length) throws IOException {
+
+        this.buffer.readDoubles(array, offset, length);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -114,6 +145,16 @@ final class SeekableFileDataInputAdapter extends AbstractFileDataInput implement
         return this.buffer.slice(length);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SeekableFileDataInput transferTo(ByteWriter writer) throws IOException {
+
+        this.buffer.transferTo(writer);
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -16,6 +16,7 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.ByteReader;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
 
@@ -102,6 +103,48 @@ public final class SeekableFileDataInputs {
             throw new EOFException();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteReader readInts(int[] array, int offset, int length) throws IOException {
+
+            if (length == 0) {
+
+                return this;
+            }
+
+            throw new EOFException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteReader readLongs(long[] array, int offset, int length) throws IOException {
+
+            if (length == 0) {
+
+                return this;
+            }
+
+            throw new EOFException();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteReader readDoubles(double[] array, int offset, int length) throws IOException {
+
+            if (length == 0) {
+
+                return this;
+            }
+
+            throw new EOFException();
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -168,6 +211,14 @@ public final class SeekableFileDataInputs {
             return ByteOrder.nativeOrder();
         }
 
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public ByteReader transferTo(ByteWriter writer) {
+            return this;
+        }
+
         /**
          * {@inheritDoc}
          */
@@ -16,12 +16,16 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.ByteReader;
+import io.horizondb.io.ByteWriter;
 import io.horizondb.io.ReadableBuffer;
+import io.horizondb.io.buffers.Buffers;
 
 import java.io.EOFException;
 import java.io.IOException;
 import java.nio.ByteOrder;
 
+import static io.horizondb.io.encoding.Endianness.INT_LENGTH;
+import static io.horizondb.io.encoding.Endianness.LONG_LENGTH;
 import static org.apache.commons.lang.Validate.isTrue;
 import static org.apache.commons.lang.Validate.notNull;
 
@@ -221,6 +225,42 @@ public final class TruncatedSeekableFileDataInput implements SeekableFileDataInp
         return this.input.readLong();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readInts(int[] array, int offset, int length) throws IOException {
+
+        checkReadable(length * INT_LENGTH);
+        this.input.readInts(array, offset, length);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readLongs(long[] array, int offset, int length) throws IOException {
+
+        checkReadable(length * LONG_LENGTH);
+        this.input.readLongs(array, offset, length);
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader readDoubles(double[] array, int offset, int length) throws IOException {
+
+        checkReadable(length * LONG_LENGTH);
+        this.input.readDoubles(array, offset, length);
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -230,6 +270,17 @@ public final class TruncatedSeekableFileDataInput implements SeekableFileDataInp
         return this.input.slice(length);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ByteReader transferTo(ByteWriter writer) throws IOException {
+
+        Buffers.copy(this.input, writer, readableBytes());
+
+        return this;
+    }
+
     /**
      * {@inheritDoc}
      */
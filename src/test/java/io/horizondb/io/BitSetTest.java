@@ -16,6 +16,10 @@
 package io.horizondb.io;
 
 import io.horizondb.io.BitSet;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
 
 import org.junit.Test;
 
@@ -191,4 +195,87 @@ public class BitSetTest {
         assertEquals((byte) 3, new BitSet(3).writeOne().writeOne().writeZero().toByte());
         assertEquals((byte) 4, new BitSet(3).writeZero().writeZero().writeOne().toByte());
     }
+
+    @Test
+    public void testWriteAndReadBitsAcrossWords() {
+
+        BitSet bitSet = new BitSet(200);
+
+        bitSet.writeBits(5, 3).writeBits(-1L, 64).writeBits(0x1234, 16).writeOne().writeBits(Long.MIN_VALUE, 64);
+
+        assertEquals(148, bitSet.writerIndex());
+        assertEquals(148, bitSet.readableBits());
+
+        assertEquals(5, bitSet.readBits(3));
+        assertEquals(-1L, bitSet.readBits(64));
+        assertEquals(0x1234, bitSet.readBits(16));
+        assertTrue(bitSet.readBit());
+        assertEquals(Long.MIN_VALUE, bitSet.readBits(64));
+        assertFalse(bitSet.isReadable());
+        assertTrue(bitSet.getBit(147));
+    }
+
+    @Test
+    public void testWriteBitsAboveCapacity() {
+
+        BitSet bitSet = new BitSet(70).writeBits(0, 60);
+
+        try {
+
+            bitSet.writeBits(0, 11);
+            fail();
+
+        } catch (IndexOutOfBoundsException e) {
+
+            assertEquals(60, bitSet.writerIndex());
+        }
+    }
+
+    @Test
+    public void testReadBitsAboveCapacity() {
+
+        BitSet bitSet = new BitSet(70).writeBits(-1L, 64).writeBits(0, 6);
+        bitSet.readBits(60);
+
+        try {
+
+            bitSet.readBits(11);
+            fail();
+
+        } catch (IndexOutOfBoundsException e) {
+
+            assertEquals(60, bitSet.readerIndex());
+        }
+    }
+
+    @Test
+    public void testWriteBitsTruncatesTheWordsWrittenTo() {
+
+        BitSet bitSet = new BitSet(64).writeBits(-1L, 64);
+        bitSet.writerIndex(4).writeBits(0, 2);
+
+        assertEquals(0xFL, bitSet.readBits(64));
+    }
+
+    @Test
+    public void testWriteToAndReadFromBuffer() throws IOException {
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            BitSet bitSet = new BitSet(140).writeOne().writeBits(0xCAFEBABEDEADBEEFL, 64).writeBits(0x2A, 7);
+
+            Buffer buffer = Buffers.allocate(20).order(order);
+            bitSet.writeTo(buffer);
+
+            assertEquals(9, buffer.readableBytes());
+            assertEquals((byte) 0xDF, buffer.getByte(0));
+
+            BitSet read = new BitSet(72).readFrom(buffer, 72);
+
+            assertEquals(0, buffer.readableBytes());
+            assertTrue(read.readBit());
+            assertEquals(0xCAFEBABEDEADBEEFL, read.readBits(64));
+            assertEquals(0x2A, read.readBits(7));
+        }
+    }
 }
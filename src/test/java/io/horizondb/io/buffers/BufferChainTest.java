@@ -0,0 +1,205 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BufferChainTest {
+
+    @Test
+    public void testWriteAcrossChunks() throws IOException {
+
+        BufferChain chain = new BufferChain(Buffers.getDefaultAllocator(), 4);
+
+        chain.writeByte(1).writeBytes(new byte[] { 2, 3, 4, 5, 6 }).writeZeroBytes(3).writeByte(7);
+
+        assertEquals(10, chain.writerIndex());
+        assertEquals(3, chain.numberOfChunks());
+
+        CompositeBuffer composite = chain.toCompositeBuffer();
+
+        byte[] bytes = new byte[10];
+        composite.readBytes(bytes);
+
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5, 6, 0, 0, 0, 7 }, bytes);
+        assertFalse(composite.isReadable());
+    }
+
+    @Test
+    public void testWritePrimitivesAcrossChunks() throws IOException {
+
+        BufferChain chain = new BufferChain(Buffers.getDefaultAllocator(), 6);
+        chain.order(ByteOrder.BIG_ENDIAN);
+
+        chain.writeInt(1).writeLong(2).writeShort((short) 3).writeInt(-4);
+
+        assertEquals(18, chain.writerIndex());
+
+        CompositeBuffer composite = chain.toCompositeBuffer();
+
+        assertEquals(ByteOrder.BIG_ENDIAN, composite.order());
+        assertEquals(1, composite.readInt());
+        assertEquals(2, composite.readLong());
+        assertEquals(3, composite.readShort());
+        assertEquals(-4, composite.readInt());
+    }
+
+    @Test
+    public void testSet() throws IOException {
+
+        BufferChain chain = new BufferChain(Buffers.getDefaultAllocator(), 4);
+        chain.order(ByteOrder.LITTLE_ENDIAN);
+
+        chain.writeZeroBytes(12);
+        chain.setInt(2, 0x04030201).setByte(11, 9).setShort(8, (short) 0x0605);
+
+        CompositeBuffer composite = chain.toCompositeBuffer();
+
+        byte[] bytes = new byte[12];
+        composite.readBytes(bytes);
+
+        assertArrayEquals(new byte[] { 0, 0, 1, 2, 3, 4, 0, 0, 5, 6, 0, 9 }, bytes);
+
+        try {
+            chain.setInt(10, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testWriteByteBuffer() throws IOException {
+
+        BufferChain chain = new BufferChain(Buffers.getDefaultAllocator(), 3);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(8);
+        buffer.put(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }).flip();
+        buffer.position(1);
+
+        chain.writeBytes(buffer);
+
+        assertFalse(buffer.hasRemaining());
+        assertEquals(7, chain.writerIndex());
+
+        ByteBuffer[] buffers = chain.nioBuffers();
+
+        assertEquals(3, buffers.length);
+        assertEquals(3, buffers[0].remaining());
+        assertEquals(3, buffers[1].remaining());
+        assertEquals(1, buffers[2].remaining());
+        assertEquals(2, buffers[0].get(0));
+        assertEquals(8, buffers[2].get(0));
+    }
+
+    @Test
+    public void testNioBuffersOfDirectChunks() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true);
+        BufferChain chain = new BufferChain(allocator, 64);
+
+        chain.writeZeroBytes(60).writeLong(Long.MAX_VALUE);
+
+        ByteBuffer[] buffers = chain.nioBuffers();
+
+        assertEquals(2, buffers.length);
+        assertEquals(64, buffers[0].remaining());
+        assertEquals(4, buffers[1].remaining());
+        assertTrue(buffers[0].isDirect());
+
+        chain.release();
+        assertEquals(0, chain.numberOfChunks());
+    }
+
+    @Test
+    public void testClearReusesChunks() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        BufferChain chain = new BufferChain(allocator, 64);
+
+        chain.writeZeroBytes(100);
+        byte[] firstChunk = chain.nioBuffers()[0].array();
+
+        chain.clear();
+        assertEquals(0, chain.writerIndex());
+        assertEquals(0, chain.nioBuffers().length);
+
+        chain.writeByte(5);
+
+        assertEquals(2, chain.numberOfChunks());
+        assertSame(firstChunk, chain.nioBuffers()[0].array());
+        assertEquals(5, chain.nioBuffers()[0].get(0));
+    }
+
+    @Test
+    public void testCompositeOutlivesChain() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        BufferChain chain = new BufferChain(allocator, 64);
+
+        chain.writeBytes(new byte[] { 1, 2, 3 });
+        byte[] chunk = chain.nioBuffers()[0].array();
+
+        CompositeBuffer composite = chain.toCompositeBuffer();
+        chain.release();
+
+        Buffer other = allocator.allocate(64);
+        assertFalse(chunk == other.array());
+
+        assertEquals(3, composite.readableBytes());
+        assertEquals(2, composite.getByte(1));
+
+        composite.release();
+        assertSame(chunk, allocator.allocate(64).array());
+    }
+
+    @Test
+    public void testWritePrimitiveArraysAcrossChunks() throws IOException {
+
+        BufferChain chain = new BufferChain(Buffers.getDefaultAllocator(), 12);
+        chain.order(ByteOrder.LITTLE_ENDIAN);
+
+        long[] longs = new long[] { 1, 2, 3, 4 };
+        double[] doubles = new double[] { 0.5, 1.5 };
+
+        chain.writeByte(0).writeLongs(longs, 0, 4).writeDoubles(doubles, 0, 2).writeInts(new int[] { 7 }, 0, 1);
+
+        assertEquals(53, chain.writerIndex());
+
+        CompositeBuffer composite = chain.toCompositeBuffer();
+        composite.skipBytes(1);
+
+        long[] readLongs = new long[4];
+        double[] readDoubles = new double[2];
+
+        composite.readLongs(readLongs, 0, 4).readDoubles(readDoubles, 0, 2);
+
+        assertArrayEquals(longs, readLongs);
+        assertArrayEquals(doubles, readDoubles, 0.0);
+        assertEquals(7, composite.readInt());
+    }
+}
@@ -13,9 +13,15 @@
  */
 package io.horizondb.io.buffers;
 
+import io.horizondb.io.Buffer;
+import io.horizondb.io.BufferAllocator;
+import io.horizondb.io.ByteProcessor;
 import io.horizondb.io.ReadableBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import org.junit.Test;
 
@@ -896,4 +902,561 @@ public class CompositeBufferTest {
         assertEquals(5, buffer.readByte());
         assertEquals(6, buffer.readByte());
     }
+
+    @Test
+    public void testReferenceCount() throws IOException {
+
+        HeapBuffer first = new HeapBuffer(new byte[] { 1, 2, 3 });
+        HeapBuffer second = new HeapBuffer(new byte[] { 4, 5, 6 });
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(first).addBytes(second);
+
+        assertEquals(2, first.refCnt());
+        assertEquals(2, second.refCnt());
+
+        first.release();
+        second.release();
+
+        CompositeBuffer slice = buffer.retainedSlice(2, 2);
+
+        assertEquals(2, buffer.refCnt());
+        assertEquals(2, slice.refCnt());
+        assertEquals(2, slice.readableBytes());
+        assertEquals(3, slice.readByte());
+        assertEquals(4, slice.readByte());
+
+        assertFalse(buffer.release());
+        assertEquals(2, first.refCnt());
+        assertEquals(1, buffer.refCnt());
+
+        assertTrue(slice.release());
+        assertEquals(0, first.refCnt());
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    public void testRemoveBytesReleasesRemovedBuffers() throws IOException {
+
+        HeapBuffer first = new HeapBuffer(new byte[] { 1, 2, 3 });
+        HeapBuffer second = new HeapBuffer(new byte[] { 4, 5, 6 });
+        HeapBuffer third = new HeapBuffer(new byte[] { 7, 8, 9 });
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(first).addBytes(second).addBytes(third);
+
+        buffer.removeBytes(1, 6);
+
+        assertEquals(2, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertEquals(2, third.refCnt());
+
+        buffer.release();
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertEquals(1, third.refCnt());
+    }
+
+    @Test
+    public void testRetainedDuplicateIsNotAffectedByRemoveBytes() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        CompositeBuffer buffer = new CompositeBuffer();
+
+        for (int i = 1; i <= 2; i++) {
+
+            Buffer component = allocator.allocate(64);
+            component.writeBytes(filledArray(64, i));
+            buffer.addBytes(component);
+            component.release();
+        }
+
+        CompositeBuffer duplicate = buffer.retainedDuplicate();
+
+        assertEquals(2, duplicate.refCnt());
+
+        buffer.removeBytes(0, 64);
+
+        allocator.allocate(64).writeBytes(filledArray(64, 9));
+
+        assertEquals(1, duplicate.getByte(0));
+        assertEquals(2, duplicate.getByte(64));
+        assertEquals(2, buffer.getByte(0));
+
+        assertFalse(duplicate.release());
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testRetainedSliceIsNotAffectedByRemoveBytes() throws IOException {
+
+        HeapBuffer first = new HeapBuffer(new byte[] { 1, 2, 3 });
+        HeapBuffer second = new HeapBuffer(new byte[] { 4, 5, 6 });
+        HeapBuffer third = new HeapBuffer(new byte[] { 7, 8, 9 });
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(first).addBytes(second).addBytes(third);
+
+        CompositeBuffer slice = buffer.retainedSlice(2, 2);
+
+        assertEquals(3, first.refCnt());
+        assertEquals(3, second.refCnt());
+        assertEquals(2, third.refCnt());
+
+        buffer.removeBytes(0, 6);
+
+        assertEquals(2, first.refCnt());
+        assertEquals(2, second.refCnt());
+        assertEquals(3, slice.getByte(0));
+        assertEquals(4, slice.getByte(1));
+
+        assertFalse(buffer.release());
+        assertTrue(slice.release());
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertEquals(1, third.refCnt());
+    }
+
+    @Test
+    public void testBuffersAddedThroughADuplicateAreReleased() throws IOException {
+
+        HeapBuffer first = new HeapBuffer(new byte[] { 1, 2, 3 });
+        HeapBuffer second = new HeapBuffer(new byte[] { 4, 5, 6 });
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(first);
+
+        CompositeBuffer duplicate = buffer.duplicate();
+        duplicate.addBytes(second);
+        duplicate.removeBytes(0, 3);
+
+        assertEquals(3, buffer.readableBytes());
+        assertEquals(1, buffer.getByte(0));
+        assertEquals(3, duplicate.readableBytes());
+        assertEquals(4, duplicate.getByte(0));
+
+        assertEquals(2, first.refCnt());
+        assertEquals(2, second.refCnt());
+
+        buffer.release();
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+    }
+
+    @Test
+    public void testRetainedSliceWithNegativeLength() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(new HeapBuffer(new byte[] { 1, 2, 3 }));
+
+        try {
+            buffer.retainedSlice(2, -1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        assertEquals(1, buffer.refCnt());
+    }
+
+    @Test
+    public void testTransferTo() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(Buffers.wrap(new byte[] { 1, 2, 3 }))
+              .addBytes(new DirectBuffer(ByteBuffer.allocateDirect(2).put(new byte[] { 4, 5 })))
+              .addBytes(Buffers.wrap(new byte[] { 6, 7, 8 }));
+
+        buffer.readByte();
+
+        Buffer target = Buffers.allocate(10);
+        target.writeByte(0);
+        target.transfer(buffer);
+
+        assertFalse(buffer.isReadable());
+        assertEquals(8, target.readableBytes());
+
+        byte[] bytes = new byte[8];
+        target.readBytes(bytes);
+        assertArrayEquals(new byte[] { 0, 2, 3, 4, 5, 6, 7, 8 }, bytes);
+    }
+
+    @Test
+    public void testGetWithManyBuffers() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+
+        for (int i = 0; i < 100; i++) {
+            buffer.addBytes(new HeapBuffer(new byte[] { (byte) (3 * i), (byte) (3 * i + 1), (byte) (3 * i + 2) }));
+        }
+
+        assertEquals(300, buffer.readableBytes());
+
+        for (int i = 299; i >= 0; i -= 7) {
+            assertEquals((byte) i, buffer.getByte(i));
+        }
+
+        buffer.readerIndex(151);
+        assertEquals((byte) 151, buffer.readByte());
+        assertEquals((byte) 152, buffer.readByte());
+        assertEquals((byte) 153, buffer.readByte());
+
+        buffer.removeBytes(0, 30);
+        assertEquals(146, buffer.readableBytes());
+        assertEquals((byte) 30, buffer.getByte(0));
+        assertEquals((byte) 299, buffer.getByte(269));
+        assertEquals((byte) 154, buffer.readByte());
+
+        buffer.addBytes(135, new HeapBuffer(new byte[] { -1, -2 }));
+        assertEquals((byte) 164, buffer.getByte(134));
+        assertEquals((byte) -1, buffer.getByte(135));
+        assertEquals((byte) -2, buffer.getByte(136));
+        assertEquals((byte) 165, buffer.getByte(137));
+        assertEquals((byte) 155, buffer.readByte());
+    }
+
+    @Test
+    public void testGetPrimitives() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.addBytes(new HeapBuffer(new byte[] { 0, 0, 0, 1, 0, 0 }).order(ByteOrder.LITTLE_ENDIAN));
+        buffer.addBytes(new HeapBuffer(new byte[] { 0, 2, 0, 0, 0, 0, 0, 0, 0, 3 }));
+
+        assertEquals(1, buffer.getInt(0));
+        assertEquals(2, buffer.getInt(4));
+        assertEquals(2, buffer.getShort(6));
+        assertEquals(3, buffer.getLong(8));
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(1 << 24, buffer.getInt(0));
+        assertEquals(2 << 24, buffer.getInt(4));
+        assertEquals(3L << 56, buffer.getLong(8));
+
+        try {
+            buffer.getInt(13);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testReadPrimitivesFromSlice() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.addBytes(new HeapBuffer(new byte[] { 9, 0, 0, 0, 1, 0 }).order(ByteOrder.BIG_ENDIAN));
+        buffer.addBytes(new HeapBuffer(new byte[] { 0, 0, 2, 0, 3 }).order(ByteOrder.BIG_ENDIAN));
+
+        buffer.skipBytes(1);
+        ReadableBuffer slice = buffer.slice(10).order(ByteOrder.BIG_ENDIAN);
+
+        assertEquals(1, slice.readInt());
+        assertEquals(2, slice.readInt());
+        assertEquals(3, slice.readShort());
+        assertFalse(slice.isReadable());
+    }
+
+    @Test
+    public void testNioBuffers() throws IOException {
+
+        byte[] first = new byte[] { 1, 2, 3 };
+        byte[] second = new byte[] { 4, 5, 6, 7 };
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(new HeapBuffer(first));
+        buffer.addBytes(Buffers.allocateDirect(4).writeBytes(second));
+        buffer.addBytes(new HeapBuffer(new byte[] { 8, 9 }));
+
+        buffer.skipBytes(1);
+        ReadableBuffer slice = buffer.slice(5);
+
+        ByteBuffer[] nioBuffers = slice.nioBuffers();
+
+        assertEquals(2, nioBuffers.length);
+        assertEquals(2, nioBuffers[0].remaining());
+        assertEquals(2, nioBuffers[0].get(nioBuffers[0].position()));
+        assertEquals(3, nioBuffers[1].remaining());
+        assertTrue(nioBuffers[1].isDirect());
+
+        nioBuffers[0].put(nioBuffers[0].position(), (byte) -2);
+        assertEquals(-2, first[1]);
+
+        ByteBuffer nioBuffer = slice.nioBuffer();
+
+        assertEquals(5, nioBuffer.remaining());
+        assertEquals(-2, nioBuffer.get(0));
+        assertEquals(6, nioBuffer.get(4));
+        assertEquals(0, slice.readerIndex());
+    }
+
+    @Test
+    public void testReadLongsAcrossBuffers() throws IOException {
+
+        Buffer first = Buffers.allocate(12).order(ByteOrder.BIG_ENDIAN);
+        first.writeLong(1).writeInt(0);
+
+        Buffer second = Buffers.allocate(12).order(ByteOrder.BIG_ENDIAN);
+        second.writeInt(2).writeLong(3);
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.addBytes(first);
+        buffer.addBytes(second);
+
+        long[] longs = new long[3];
+        buffer.readLongs(longs, 0, 3);
+
+        assertArrayEquals(new long[] { 1, 2, 3 }, longs);
+        assertFalse(buffer.isReadable());
+
+        try {
+            buffer.readLongs(longs, 0, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testIndexOfAcrossBuffers() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(Buffers.wrap(new byte[] { 1, 2, 3 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 4, 5, 6, 7, 8, 9, 10, 11, 12, 13 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 14, 3 }));
+
+        assertEquals(2, buffer.indexOf((byte) 3, 0, 15));
+        assertEquals(14, buffer.indexOf((byte) 3, 3, 15));
+        assertEquals(-1, buffer.indexOf((byte) 3, 3, 14));
+        assertEquals(12, buffer.indexOf((byte) 13, 1, 15));
+
+        buffer.skipBytes(4);
+
+        assertEquals(8, buffer.bytesBefore((byte) 13));
+        assertEquals(-1, buffer.bytesBefore((byte) 1));
+
+        ReadableBuffer slice = buffer.slice(5);
+
+        assertEquals(4, slice.indexOf((byte) 9, 0, 5));
+        assertEquals(-1, slice.indexOf((byte) 10, 0, 5));
+
+        try {
+            buffer.indexOf((byte) 3, 0, 16);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testForEachByteAcrossBuffers() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+        buffer.addBytes(Buffers.wrap(new byte[] { 1, 2, 3 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 4, 5, 6 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 7, -1 }));
+        buffer.skipBytes(1);
+
+        final int[] sum = new int[1];
+
+        int index = buffer.forEachByte(new ByteProcessor() {
+
+            @Override
+            public boolean process(byte value) {
+
+                if (value < 0) {
+                    return false;
+                }
+
+                sum[0] += value;
+                return true;
+            }
+        });
+
+        assertEquals(7, index);
+        assertEquals(27, sum[0]);
+        assertEquals(1, buffer.readerIndex());
+    }
+
+    @Test
+    public void testAutomaticConsolidation() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        CompositeBuffer buffer = new CompositeBuffer(allocator, 4, 8);
+
+        byte[] expected = new byte[50];
+
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = (byte) i;
+        }
+
+        for (int i = 0; i < 4; i++) {
+            buffer.addBytes(Buffers.wrap(Arrays.copyOfRange(expected, i * 3, (i + 1) * 3)));
+        }
+
+        assertEquals(4, buffer.numberOfComponents());
+        assertEquals(0, buffer.numberOfConsolidations());
+        assertEquals(0, buffer.readByte());
+        assertEquals(1, buffer.readByte());
+
+        buffer.addBytes(Buffers.wrap(Arrays.copyOfRange(expected, 12, 15)));
+
+        assertEquals(1, buffer.numberOfComponents());
+        assertEquals(1, buffer.numberOfConsolidations());
+        assertEquals(5, buffer.numberOfConsolidatedComponents());
+        assertEquals(15, buffer.numberOfConsolidatedBytes());
+        assertEquals(2, buffer.readerIndex());
+        assertEquals(13, buffer.readableBytes());
+
+        // The big buffer is never copied
+        buffer.addBytes(Buffers.wrap(Arrays.copyOfRange(expected, 15, 35)));
+
+        for (int i = 35; i < 50; i += 5) {
+            buffer.addBytes(Buffers.wrap(Arrays.copyOfRange(expected, i, i + 5)));
+        }
+
+        assertEquals(3, buffer.numberOfComponents());
+        assertEquals(2, buffer.numberOfConsolidations());
+        assertEquals(8, buffer.numberOfConsolidatedComponents());
+        assertEquals(30, buffer.numberOfConsolidatedBytes());
+        assertEquals(2, buffer.readerIndex());
+
+        byte[] bytes = new byte[48];
+        buffer.readBytes(bytes);
+
+        assertArrayEquals(Arrays.copyOfRange(expected, 2, 50), bytes);
+        assertEquals(0x2E2F3031, buffer.order(ByteOrder.BIG_ENDIAN).getInt(46));
+
+        buffer.release();
+    }
+
+    @Test
+    public void testNoAutomaticConsolidationWhileTheReferenceCountIsShared() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        CompositeBuffer buffer = new CompositeBuffer(allocator, 4, 64);
+
+        for (int i = 1; i <= 4; i++) {
+            addPooledBytes(buffer, allocator, 16, i);
+        }
+
+        CompositeBuffer duplicate = buffer.duplicate().retain();
+
+        for (int i = 5; i <= 8; i++) {
+            addPooledBytes(buffer, allocator, 16, i);
+        }
+
+        assertEquals(8, buffer.numberOfComponents());
+        assertEquals(0, buffer.numberOfConsolidations());
+
+        allocator.allocate(16).writeBytes(filledArray(16, 9));
+
+        assertEquals(1, duplicate.getByte(0));
+        assertEquals(4, duplicate.getByte(48));
+
+        duplicate.release();
+        addPooledBytes(buffer, allocator, 16, 9);
+
+        assertEquals(1, buffer.numberOfConsolidations());
+        assertEquals(1, buffer.numberOfComponents());
+        assertEquals(8, buffer.getByte(127));
+
+        buffer.release();
+    }
+
+    @Test
+    public void testRetainedDuplicateIsNotAffectedByAutomaticConsolidation() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        CompositeBuffer buffer = new CompositeBuffer(allocator, 4, 64);
+
+        for (int i = 1; i <= 4; i++) {
+            addPooledBytes(buffer, allocator, 16, i);
+        }
+
+        CompositeBuffer duplicate = buffer.retainedDuplicate();
+
+        buffer.consolidate();
+
+        assertEquals(1, buffer.numberOfComponents());
+
+        for (int i = 0; i < 4; i++) {
+            allocator.allocate(16).writeBytes(filledArray(16, 9));
+        }
+
+        assertEquals(1, duplicate.getByte(0));
+        assertEquals(4, duplicate.getByte(48));
+        assertEquals(4, buffer.getByte(48));
+
+        duplicate.release();
+        buffer.release();
+    }
+
+    @Test
+    public void testConsolidate() throws IOException {
+
+        CompositeBuffer buffer = new CompositeBuffer();
+
+        for (int i = 0; i < 1000; i++) {
+            buffer.addBytes(Buffers.wrap(new byte[] { (byte) i }));
+        }
+
+        assertEquals(1000, buffer.numberOfComponents());
+        assertEquals(0, buffer.numberOfConsolidations());
+
+        buffer.skipBytes(500);
+        buffer.consolidate();
+
+        assertEquals(1, buffer.numberOfComponents());
+        assertEquals(1, buffer.numberOfConsolidations());
+        assertEquals(1000, buffer.numberOfConsolidatedComponents());
+        assertEquals(500, buffer.readerIndex());
+        assertEquals((byte) 500, buffer.readByte());
+        assertEquals(10, buffer.bytesBefore((byte) 0xFF));
+
+        buffer.consolidate();
+
+        assertEquals(1, buffer.numberOfConsolidations());
+    }
+
+    /**
+     * Returns an array of the specified length filled with the specified value.
+     *
+     * @param length the array length
+     * @param value the value
+     * @return an array of the specified length filled with the specified value.
+     */
+    private static byte[] filledArray(int length, int value) {
+
+        byte[] array = new byte[length];
+        Arrays.fill(array, (byte) value);
+        return array;
+    }
+
+    /**
+     * Adds to the specified composite a buffer allocated from the specified allocator and filled with the specified
+     * value, and releases the reference of the caller on that buffer.
+     *
+     * @param buffer the composite
+     * @param allocator the allocator
+     * @param length the number of bytes to add
+     * @param value the value of the bytes
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void addPooledBytes(CompositeBuffer buffer, BufferAllocator allocator, int length, int value)
+            throws IOException {
+
+        Buffer component = allocator.allocate(length);
+        component.writeBytes(filledArray(length, value));
+        buffer.addBytes(component);
+        component.release();
+    }
 }
@@ -16,12 +16,16 @@
 package io.horizondb.io.buffers;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteProcessor;
 import io.horizondb.io.ByteReader;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.DirectBuffer;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
@@ -399,4 +403,386 @@ public class DirectBufferTest {
             assertTrue(true);
         }
     }
+
+    @Test
+    public void testPrimitivesWithBigEndianOrder() {
+
+        Buffer buffer = new DirectBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.setShort(0, (short) 0x0102).setInt(2, 0x03040506).setLong(6, 0x0708090A0B0C0D0EL);
+
+        assertEquals(0x0102, buffer.getShort(0));
+        assertEquals(0x03040506, buffer.getInt(2));
+        assertEquals(0x0708090A0B0C0D0EL, buffer.getLong(6));
+        assertEquals(0x0A, buffer.getByte(9));
+        assertEquals(0x01, buffer.getByte(0));
+    }
+
+    @Test
+    public void testPrimitivesWithLittleEndianOrder() {
+
+        Buffer buffer = new DirectBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.setShort(0, (short) -2).setInt(2, 0x03040506).setLong(6, 0x8708090A0B0C0D0EL);
+
+        assertEquals(-2, buffer.getShort(0));
+        assertEquals(0xFFFE, buffer.getUnsignedShort(0));
+        assertEquals(0x03040506, buffer.getInt(2));
+        assertEquals(0x8708090A0B0C0D0EL, buffer.getLong(6));
+        assertEquals(0x0B, buffer.getByte(9));
+        assertEquals(0x06, buffer.getByte(2));
+    }
+
+    @Test
+    public void testPrimitivesAfterOrderChange() {
+
+        Buffer buffer = new DirectBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.setShort(0, (short) 0x0102).setInt(2, 0x03040506).setLong(6, 0x0708090A0B0C0D0EL);
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0x0201, buffer.getShort(0));
+        assertEquals(0x06050403, buffer.getInt(2));
+        assertEquals(0x0E0D0C0B0A090807L, buffer.getLong(6));
+
+        buffer.setLong(6, 0x0708090A0B0C0D0EL);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        assertEquals(0x0E0D0C0B0A090807L, buffer.getLong(6));
+        assertEquals(0x0E, buffer.getByte(6));
+    }
+
+    @Test
+    public void testPrimitivesOutOfBounds() {
+
+        Buffer buffer = new DirectBuffer(16).subRegion(2, 14);
+
+        try {
+            buffer.getLong(7);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.setInt(-1, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.setByte(14, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testBulkAccessDoesNotModifyTheUnderlyingBuffer() {
+
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(10).put(new byte[] { 2, -120, 0, 0, 0, 4, 5, 6, 7, 6 });
+        directBuffer.position(3).limit(4);
+
+        DirectBuffer buffer = new DirectBuffer(directBuffer);
+
+        byte[] actual = new byte[4];
+        buffer.getBytes(5, actual);
+        buffer.writerIndex(0).writeBytes(new byte[] { 1, 2 });
+
+        assertArrayEquals(new byte[] { 4, 5, 6, 7 }, actual);
+        assertEquals(1, buffer.getByte(0));
+        assertEquals(6, buffer.getByte(9));
+        assertEquals(3, directBuffer.position());
+        assertEquals(4, directBuffer.limit());
+    }
+
+    @Test
+    public void testConcurrentReadsOfDuplicates() throws InterruptedException {
+
+        final int size = 4096;
+        final DirectBuffer buffer = new DirectBuffer(size);
+
+        for (int i = 0; i < size; i++) {
+            buffer.writeByte(i);
+        }
+
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+
+            final int step = t + 1;
+
+            threads[t] = new Thread() {
+
+                @Override
+                public void run() {
+
+                    Buffer duplicate = buffer.duplicate();
+                    byte[] bytes = new byte[64];
+
+                    for (int n = 0; n < 2000; n++) {
+
+                        int index = (n * step * 64) % (size - 64);
+                        duplicate.getBytes(index, bytes);
+
+                        for (int i = 0; i < bytes.length; i++) {
+                            if (bytes[i] != (byte) (index + i)) {
+                                failed.set(true);
+                                return;
+                            }
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertFalse(failed.get());
+    }
+
+    @Test
+    public void testTransferBetweenHeapAndDirectBuffers() throws IOException {
+
+        Buffer heap = Buffers.wrap(new byte[] { 1, 2, 3, 4, 5, 6 });
+        heap.readerIndex(1);
+
+        DirectBuffer direct = new DirectBuffer(8);
+        direct.writeByte(9).transfer(heap);
+
+        assertFalse(heap.isReadable());
+        assertEquals(6, direct.readableBytes());
+
+        direct.readByte();
+
+        Buffer target = Buffers.allocate(10);
+        target.transfer(direct);
+
+        byte[] bytes = new byte[5];
+        target.readBytes(bytes);
+        assertArrayEquals(new byte[] { 2, 3, 4, 5, 6 }, bytes);
+        assertFalse(direct.isReadable());
+    }
+
+    @Test
+    public void testWriteZeroBytes() {
+
+        DirectBuffer buffer = new DirectBuffer(10000);
+
+        for (int i = 0; i < 10000; i++) {
+            buffer.writeByte(-1);
+        }
+
+        buffer.writerIndex(1).writeZeroBytes(9998);
+
+        assertEquals(9999, buffer.readableBytes());
+        assertEquals(-1, buffer.getByte(0));
+        assertEquals(0, buffer.getByte(1));
+        assertEquals(0, buffer.getByte(9998));
+        assertEquals(-1, buffer.getByte(9999));
+    }
+
+    @Test
+    public void testNioBuffer() {
+
+        ByteBuffer underlying = ByteBuffer.allocateDirect(8);
+        Buffer buffer = Buffers.wrap(underlying);
+        buffer.writerIndex(0);
+        buffer.writeBytes(new byte[] { 1, 2, 3, 4, 5 });
+        buffer.readByte();
+
+        ByteBuffer nioBuffer = buffer.nioBuffer();
+
+        assertTrue(nioBuffer.isDirect());
+        assertEquals(0, nioBuffer.position());
+        assertEquals(4, nioBuffer.remaining());
+        assertEquals(2, nioBuffer.get(0));
+
+        nioBuffer.put(0, (byte) 9);
+        assertEquals(9, underlying.get(1));
+        assertEquals(0, underlying.position());
+    }
+
+    @Test
+    public void testReadAndWritePrimitiveArrays() throws IOException {
+
+        long[] longs = new long[] { 1, -2, Long.MAX_VALUE };
+        double[] doubles = new double[] { 0.5, -1.25 };
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            Buffer buffer = Buffers.allocateDirect(45).order(order);
+            buffer.writeByte(7);
+            buffer.writeLongs(longs, 0, 3).writeDoubles(doubles, 0, 2);
+
+            assertEquals(Long.MAX_VALUE, buffer.getLong(17));
+            assertEquals(7, buffer.readByte());
+
+            long[] readLongs = new long[3];
+            double[] readDoubles = new double[2];
+
+            buffer.readLongs(readLongs, 0, 3).readDoubles(readDoubles, 0, 2);
+
+            assertArrayEquals(longs, readLongs);
+            assertArrayEquals(doubles, readDoubles, 0.0);
+        }
+    }
+
+    @Test
+    public void testIndexOf() {
+
+        byte[] bytes = new byte[29];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 37);
+        }
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            Buffer buffer = Buffers.allocateDirect(40).order(order);
+            buffer.writeBytes(bytes);
+
+            for (int from = 0; from < bytes.length; from++) {
+                for (int to = from; to <= bytes.length; to++) {
+                    for (int i = 0; i < bytes.length; i++) {
+                        assertEquals(indexOf(bytes, bytes[i], from, to), buffer.indexOf(bytes[i], from, to));
+                    }
+                }
+            }
+
+            assertEquals(-1, buffer.indexOf((byte) 1, 0, bytes.length));
+            assertEquals(29, buffer.indexOf((byte) 0, 1, 40));
+
+            try {
+                buffer.indexOf((byte) 0, 0, 41);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testBytesBeforeAndForEachByte() {
+
+        Buffer buffer = Buffers.allocateDirect(40);
+        buffer.writeBytes("key=value\r\nnext".getBytes(StandardCharsets.US_ASCII));
+        buffer.skipBytes(4);
+
+        assertEquals(5, buffer.bytesBefore((byte) '\r'));
+        assertEquals(-1, buffer.bytesBefore((byte) '\r', 5));
+        assertEquals(-1, buffer.bytesBefore((byte) '='));
+
+        final StringBuilder builder = new StringBuilder();
+
+        int index = buffer.forEachByte(new ByteProcessor() {
+
+            @Override
+            public boolean process(byte value) {
+
+                if (value == '\r') {
+                    return false;
+                }
+
+                builder.append((char) value);
+                return true;
+            }
+        });
+
+        assertEquals(9, index);
+        assertEquals("value", builder.toString());
+        assertEquals(4, buffer.readerIndex());
+
+        assertEquals(-1, buffer.forEachByte(11, 4, new ByteProcessor() {
+
+            @Override
+            public boolean process(byte value) {
+                return Character.isLetter(value);
+            }
+        }));
+
+        try {
+            buffer.bytesBefore((byte) 'n', 14);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified byte within the specified array region.
+     */
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void testAccessAfterRelease() throws IOException {
+
+        Buffer buffer = Buffers.allocateDirect(16);
+        buffer.writeLong(1).writeLong(2);
+
+        Buffer duplicate = buffer.duplicate();
+        Buffer slice = buffer.slice(0, 8);
+
+        assertTrue(buffer.release());
+
+        for (Buffer released : new Buffer[] { buffer, duplicate, slice }) {
+
+            try {
+                released.getLong(0);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            try {
+                released.readByte();
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            try {
+                released.getBytes(0, new byte[4]);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            try {
+                released.nioBuffer();
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            released.writerIndex(0);
+
+            try {
+                released.writeInt(3);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+        }
+
+        assertTrue(buffer.toString().contains("bytes={}"));
+    }
 }
@@ -0,0 +1,325 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ReadableBuffer;
+import io.horizondb.io.buffers.DirectMemory.Category;
+import io.horizondb.io.buffers.DirectMemory.Policy;
+import io.horizondb.io.files.DirectFileDataInput;
+import io.horizondb.io.files.FileUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DirectMemoryTest {
+
+    @Before
+    public void setUp() throws InterruptedException {
+
+        reclaimUnreachableBuffers();
+    }
+
+    @After
+    public void tearDown() {
+
+        DirectMemory.setMaxMemory(Long.MAX_VALUE);
+        DirectMemory.setPolicy(Policy.FAIL);
+    }
+
+    @Test
+    public void testAccounting() throws InterruptedException {
+
+        long used = DirectMemory.usedMemory(Category.BUFFER);
+        long total = DirectMemory.usedMemory();
+
+        Buffer buffer = Buffers.allocateDirect(100);
+
+        assertTrue(buffer.isDirect());
+        assertEquals(used + 100, DirectMemory.usedMemory(Category.BUFFER));
+        assertEquals(total + 100, DirectMemory.usedMemory());
+
+        buffer.release();
+        buffer = null;
+
+        assertUsedMemoryDropsTo(Category.BUFFER, used);
+        assertTrue(DirectMemory.usedMemory() <= total);
+    }
+
+    @Test
+    public void testFailPolicy() {
+
+        DirectMemory.setMaxMemory(DirectMemory.usedMemory() + 100);
+
+        Buffer buffer = Buffers.allocateDirect(60);
+
+        try {
+            Buffers.allocateDirect(60);
+            fail();
+
+        } catch (OutOfMemoryError e) {
+            assertTrue(true);
+        }
+
+        buffer.release();
+        buffer = null;
+
+        Buffers.allocateDirect(60).release();
+    }
+
+    @Test
+    public void testUnreachableBuffersAreUnregistered() throws InterruptedException {
+
+        long used = DirectMemory.usedMemory(Category.BUFFER);
+
+        Buffer buffer = Buffers.allocateDirect(100);
+
+        assertEquals(used + 100, DirectMemory.usedMemory(Category.BUFFER));
+
+        buffer = null;
+
+        assertUsedMemoryDropsTo(Category.BUFFER, used);
+    }
+
+    @Test
+    public void testFailPolicyReclaimsUnreachableBuffers() {
+
+        DirectMemory.setMaxMemory(DirectMemory.usedMemory() + 100);
+
+        Buffers.allocateDirect(60);
+
+        Buffer buffer = Buffers.allocateDirect(60);
+
+        assertTrue(buffer.isDirect());
+        buffer.release();
+    }
+
+    @Test
+    public void testFreeTwice() {
+
+        ByteBuffer buffer = DirectMemory.allocateDirect(Category.BUFFER, 100);
+
+        DirectMemory.free(Category.BUFFER, buffer);
+
+        long used = DirectMemory.usedMemory(Category.BUFFER);
+
+        DirectMemory.free(Category.BUFFER, buffer);
+
+        assertEquals(used, DirectMemory.usedMemory(Category.BUFFER));
+    }
+
+    @Test
+    public void testFallbackToHeapPolicy() {
+
+        DirectMemory.setMaxMemory(DirectMemory.usedMemory() + 100);
+        DirectMemory.setPolicy(Policy.FALLBACK_TO_HEAP);
+
+        long fallbacks = DirectMemory.numberOfHeapFallbacks();
+
+        Buffer direct = Buffers.allocateDirect(60);
+        Buffer heap = Buffers.allocateDirect(60);
+
+        assertTrue(direct.isDirect());
+        assertFalse(heap.isDirect());
+        assertEquals(60, heap.capacity());
+        assertEquals(0, heap.readableBytes());
+        assertEquals(fallbacks + 1, DirectMemory.numberOfHeapFallbacks());
+
+        try {
+            new LargeBuffer(60, 16);
+            fail();
+
+        } catch (OutOfMemoryError e) {
+            assertTrue(true);
+        }
+
+        direct.release();
+        heap.release();
+    }
+
+    @Test
+    public void testBlockPolicy() throws InterruptedException {
+
+        DirectMemory.setMaxMemory(DirectMemory.usedMemory() + 100);
+        DirectMemory.setPolicy(Policy.BLOCK);
+
+        Buffer buffer = Buffers.allocateDirect(60);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicReference<Buffer> allocated = new AtomicReference<>();
+
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                started.countDown();
+                allocated.set(Buffers.allocateDirect(60));
+            }
+        });
+
+        thread.start();
+        started.await();
+
+        thread.join(100);
+
+        assertNull(allocated.get());
+
+        buffer.release();
+        buffer = null;
+
+        for (int i = 0; i < 100 && thread.isAlive(); i++) {
+
+            System.gc();
+            thread.join(100);
+        }
+
+        assertTrue(allocated.get().isDirect());
+        allocated.get().release();
+    }
+
+    @Test
+    public void testFilesAccounting() throws IOException, InterruptedException {
+
+        Path path = Files.createTempFile("direct-memory", ".tmp");
+
+        try {
+
+            Files.write(path, new byte[64]);
+
+            long input = DirectMemory.usedMemory(Category.FILE_INPUT);
+
+            try (DirectFileDataInput in = new DirectFileDataInput(path, 32)) {
+
+                assertEquals(64, in.size());
+                assertEquals(input + 32, DirectMemory.usedMemory(Category.FILE_INPUT));
+            }
+
+            assertUsedMemoryDropsTo(Category.FILE_INPUT, input);
+
+            long mapped = DirectMemory.usedMemory(Category.MAPPED);
+            long total = DirectMemory.usedMemory();
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+                MappedByteBuffer buffer = FileUtils.mmap(channel, 0, 64);
+
+                assertEquals(mapped + 64, DirectMemory.usedMemory(Category.MAPPED));
+                assertEquals(total, DirectMemory.usedMemory());
+
+                FileUtils.munmap(buffer);
+                assertEquals(mapped, DirectMemory.usedMemory(Category.MAPPED));
+
+                FileUtils.munmap(buffer);
+                assertEquals(mapped, DirectMemory.usedMemory(Category.MAPPED));
+
+                FileUtils.mmap(channel, 0, 32);
+                assertEquals(mapped + 32, DirectMemory.usedMemory(Category.MAPPED));
+            }
+
+            assertUsedMemoryDropsTo(Category.MAPPED, mapped);
+
+        } finally {
+
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void testSliceIsStillValidAfterInputClose() throws IOException, InterruptedException {
+
+        Path path = Files.createTempFile("direct-memory", ".tmp");
+
+        try {
+
+            Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+
+            long input = DirectMemory.usedMemory(Category.FILE_INPUT);
+
+            ReadableBuffer slice;
+
+            try (DirectFileDataInput in = new DirectFileDataInput(path, 32)) {
+
+                in.skipBytes(2);
+                slice = in.slice(4);
+            }
+
+            assertEquals(3, slice.readByte());
+            assertEquals(4, slice.readByte());
+            assertEquals(5, slice.readByte());
+            assertEquals(6, slice.readByte());
+
+            slice = null;
+
+            assertUsedMemoryDropsTo(Category.FILE_INPUT, input);
+
+        } finally {
+
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Requests garbage collections until the buffers that are no longer reachable have been removed from the
+     * accounting, so that the tests do not depend on the buffers leaked by the previous ones.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static void reclaimUnreachableBuffers() throws InterruptedException {
+
+        long used;
+
+        do {
+
+            used = DirectMemory.usedMemory();
+            System.gc();
+            Thread.sleep(10);
+
+        } while (DirectMemory.usedMemory() < used);
+    }
+
+    /**
+     * Requests garbage collections until the memory used by the specified category drops to the specified value.
+     *
+     * @param category the category
+     * @param expected the expected maximum amount of memory used
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static void assertUsedMemoryDropsTo(Category category, long expected) throws InterruptedException {
+
+        for (int i = 0; i < 100 && DirectMemory.usedMemory(category) > expected; i++) {
+
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertTrue(DirectMemory.usedMemory(category) <= expected);
+    }
+}
@@ -16,10 +16,14 @@
 package io.horizondb.io.buffers;
 
 import io.horizondb.io.Buffer;
+import io.horizondb.io.ByteProcessor;
 import io.horizondb.io.ByteReader;
 import io.horizondb.io.ReadableBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 
 import org.junit.Test;
 
@@ -427,4 +431,343 @@ public class HeapBufferTest {
             assertTrue(true);
         }
     }
+
+    @Test
+    public void testReferenceCount() {
+
+        Buffer buffer = new HeapBuffer(new byte[] { 1, 2, 3, 4, 5 });
+
+        assertEquals(1, buffer.refCnt());
+
+        Buffer duplicate = buffer.retainedDuplicate();
+        Buffer slice = buffer.retainedSlice(1, 3);
+
+        assertEquals(3, buffer.refCnt());
+        assertEquals(3, duplicate.refCnt());
+        assertEquals(3, slice.refCnt());
+        assertEquals(3, slice.capacity());
+        assertEquals(2, slice.readByte());
+
+        assertFalse(slice.release());
+        assertFalse(duplicate.release());
+        assertTrue(buffer.release());
+        assertEquals(0, buffer.refCnt());
+
+        try {
+            buffer.retain();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.release();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testRetainedSliceWithInvalidIndex() {
+
+        Buffer buffer = new HeapBuffer(new byte[] { 1, 2, 3, 4, 5 });
+
+        try {
+            buffer.retainedSlice(3, 3);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(1, buffer.refCnt());
+        }
+    }
+
+    @Test
+    public void testEmptyBufferCannotBeReleased() {
+
+        assertFalse(Buffers.EMPTY_BUFFER.release());
+        assertEquals(1, Buffers.EMPTY_BUFFER.refCnt());
+    }
+
+    @Test
+    public void testPrimitivesWithBigEndianOrder() {
+
+        Buffer buffer = new HeapBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.setShort(0, (short) 0x0102).setInt(2, 0x03040506).setLong(6, 0x0708090A0B0C0D0EL);
+
+        assertEquals(0x0102, buffer.getShort(0));
+        assertEquals(0x03040506, buffer.getInt(2));
+        assertEquals(0x0708090A0B0C0D0EL, buffer.getLong(6));
+        assertEquals(0x0A, buffer.getByte(9));
+        assertEquals(0x01, buffer.getByte(0));
+    }
+
+    @Test
+    public void testPrimitivesWithLittleEndianOrder() {
+
+        Buffer buffer = new HeapBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.setShort(0, (short) -2).setInt(2, 0x03040506).setLong(6, 0x8708090A0B0C0D0EL);
+
+        assertEquals(-2, buffer.getShort(0));
+        assertEquals(0xFFFE, buffer.getUnsignedShort(0));
+        assertEquals(0x03040506, buffer.getInt(2));
+        assertEquals(0x8708090A0B0C0D0EL, buffer.getLong(6));
+        assertEquals(0x0B, buffer.getByte(9));
+        assertEquals(0x06, buffer.getByte(2));
+    }
+
+    @Test
+    public void testPrimitivesAfterOrderChange() {
+
+        Buffer buffer = new HeapBuffer(16).subRegion(2, 14);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        buffer.setShort(0, (short) 0x0102).setInt(2, 0x03040506).setLong(6, 0x0708090A0B0C0D0EL);
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0x0201, buffer.getShort(0));
+        assertEquals(0x06050403, buffer.getInt(2));
+        assertEquals(0x0E0D0C0B0A090807L, buffer.getLong(6));
+
+        buffer.setLong(6, 0x0708090A0B0C0D0EL);
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        assertEquals(0x0E0D0C0B0A090807L, buffer.getLong(6));
+        assertEquals(0x0E, buffer.getByte(6));
+    }
+
+    @Test
+    public void testPrimitivesOutOfBounds() {
+
+        Buffer buffer = new HeapBuffer(16).subRegion(2, 14);
+
+        try {
+            buffer.getLong(7);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.setInt(-1, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.setByte(14, 1);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testNioBuffer() {
+
+        byte[] array = new byte[] { 1, 2, 3, 4, 5, 6 };
+        Buffer buffer = new HeapBuffer(array).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.readerIndex(1);
+
+        Buffer slice = buffer.slice(4);
+        slice.readByte();
+
+        ByteBuffer nioBuffer = slice.nioBuffer();
+
+        assertEquals(0, nioBuffer.position());
+        assertEquals(3, nioBuffer.remaining());
+        assertEquals(ByteOrder.LITTLE_ENDIAN, nioBuffer.order());
+        assertEquals(3, nioBuffer.get(0));
+        assertEquals(1, slice.readerIndex());
+
+        nioBuffer.put(0, (byte) 9);
+        assertEquals(9, array[2]);
+
+        assertEquals(1, slice.nioBuffers().length);
+    }
+
+    @Test
+    public void testReadAndWritePrimitiveArrays() throws IOException {
+
+        long[] longs = new long[] { 1, -2, Long.MAX_VALUE };
+        int[] ints = new int[] { 0x01020304, -5 };
+        double[] doubles = new double[] { 0.5, -1.25 };
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            Buffer buffer = new HeapBuffer(new byte[50]).order(order);
+            buffer.writerIndex(1);
+
+            buffer.writeLongs(longs, 0, 3).writeInts(ints, 0, 2).writeDoubles(doubles, 1, 1);
+
+            assertEquals(41, buffer.writerIndex());
+            assertEquals(-2, buffer.getLong(9));
+            assertEquals(0x01020304, buffer.getInt(25));
+
+            buffer.skipBytes(1);
+
+            long[] readLongs = new long[3];
+            int[] readInts = new int[3];
+            double[] readDoubles = new double[1];
+
+            buffer.readLongs(readLongs, 0, 3).readInts(readInts, 1, 2).readDoubles(readDoubles, 0, 1);
+
+            assertArrayEquals(longs, readLongs);
+            assertArrayEquals(new int[] { 0, 0x01020304, -5 }, readInts);
+            assertEquals(-1.25, readDoubles[0], 0.0);
+            assertFalse(buffer.isReadable());
+
+            try {
+                buffer.writeLongs(longs, 0, 2);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            try {
+                buffer.readLongs(readLongs, 0, 1);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testReadAndWritePrimitiveArraysWithInvalidRegion() {
+
+        Buffer buffer = new HeapBuffer(new byte[64]);
+
+        long[] longs = new long[4];
+        int[][] regions = { { -1, 1 }, { 0, -1 }, { 3, 2 }, { 0, Integer.MAX_VALUE }, { 1, Integer.MAX_VALUE } };
+
+        for (int[] region : regions) {
+
+            try {
+                buffer.readLongs(longs, region[0], region[1]);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            try {
+                buffer.readInts(new int[4], region[0], region[1]);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            buffer.clear();
+
+            try {
+                buffer.writeDoubles(new double[4], region[0], region[1]);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            buffer.writerIndex(64);
+        }
+
+        assertEquals(0, buffer.readerIndex());
+    }
+
+    @Test
+    public void testIndexOf() {
+
+        byte[] bytes = new byte[29];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 37);
+        }
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            Buffer buffer = Buffers.allocate(40).order(order);
+            buffer.writeBytes(bytes);
+
+            for (int from = 0; from < bytes.length; from++) {
+                for (int to = from; to <= bytes.length; to++) {
+                    for (int i = 0; i < bytes.length; i++) {
+                        assertEquals(indexOf(bytes, bytes[i], from, to), buffer.indexOf(bytes[i], from, to));
+                    }
+                }
+            }
+
+            assertEquals(-1, buffer.indexOf((byte) 1, 0, bytes.length));
+            assertEquals(29, buffer.indexOf((byte) 0, 1, 40));
+
+            try {
+                buffer.indexOf((byte) 0, 0, 41);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testBytesBeforeAndForEachByte() {
+
+        Buffer buffer = Buffers.allocate(40);
+        buffer.writeBytes("key=value\r\nnext".getBytes(StandardCharsets.US_ASCII));
+        buffer.skipBytes(4);
+
+        assertEquals(5, buffer.bytesBefore((byte) '\r'));
+        assertEquals(-1, buffer.bytesBefore((byte) '\r', 5));
+        assertEquals(-1, buffer.bytesBefore((byte) '='));
+
+        final StringBuilder builder = new StringBuilder();
+
+        int index = buffer.forEachByte(new ByteProcessor() {
+
+            @Override
+            public boolean process(byte value) {
+
+                if (value == '\r') {
+                    return false;
+                }
+
+                builder.append((char) value);
+                return true;
+            }
+        });
+
+        assertEquals(9, index);
+        assertEquals("value", builder.toString());
+        assertEquals(4, buffer.readerIndex());
+
+        assertEquals(-1, buffer.forEachByte(11, 4, new ByteProcessor() {
+
+            @Override
+            public boolean process(byte value) {
+                return Character.isLetter(value);
+            }
+        }));
+
+        try {
+            buffer.bytesBefore((byte) 'n', 14);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified byte within the specified array region.
+     */
+    private static int indexOf(byte[] bytes, byte value, int from, int to) {
+
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
 }
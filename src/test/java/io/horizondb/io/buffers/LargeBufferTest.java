@@ -0,0 +1,224 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.ReadableBuffer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LargeBufferTest {
+
+    @Test
+    public void testGetAndSetAcrossChunks() {
+
+        LargeBuffer buffer = new LargeBuffer(100, 16).order(ByteOrder.BIG_ENDIAN);
+
+        assertEquals(100, buffer.capacity());
+
+        buffer.setLong(12, 0x0102030405060708L);
+        buffer.setInt(30, 0x090A0B0C);
+        buffer.setShort(47, (short) 0x0D0E);
+        buffer.setLong(0, -1L);
+
+        assertEquals(0x0102030405060708L, buffer.getLong(12));
+        assertEquals(0x05060708, buffer.getInt(16));
+        assertEquals(0x090A0B0C, buffer.getInt(30));
+        assertEquals(0x0D0E, buffer.getShort(47));
+        assertEquals(-1L, buffer.getLong(0));
+
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0x0807060504030201L, buffer.getLong(12));
+        assertEquals(0x0E0D, buffer.getShort(47));
+
+        buffer.setInt(62, 0x11223344);
+
+        assertEquals(0x44, buffer.getByte(62));
+        assertEquals(0x11, buffer.getByte(65));
+        assertEquals(0x11223344, buffer.getInt(62));
+
+        byte[] bytes = new byte[40];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        buffer.setBytes(55, bytes, 0, bytes.length);
+
+        byte[] copy = new byte[40];
+        buffer.getBytes(55, copy, 0, copy.length);
+
+        assertArrayEquals(bytes, copy);
+
+        try {
+            buffer.getLong(93);
+            fail();
+
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testWindow() throws IOException {
+
+        LargeBuffer buffer = new LargeBuffer(64, 16).order(ByteOrder.BIG_ENDIAN);
+
+        for (int i = 0; i < 64; i++) {
+            buffer.setByte(i, i);
+        }
+
+        ReadableBuffer window = buffer.window(18, 10);
+
+        assertEquals(10, window.readableBytes());
+        assertEquals(0x12131415, window.readInt());
+        assertEquals(ByteOrder.BIG_ENDIAN, window.order());
+
+        ReadableBuffer spanning = buffer.window(12, 30);
+
+        assertEquals(30, spanning.readableBytes());
+        assertEquals(0x0C0D0E0F10111213L, spanning.getLong(0));
+        assertEquals(3, spanning.bytesBefore((byte) 15));
+
+        byte[] bytes = new byte[30];
+        spanning.readBytes(bytes);
+
+        assertEquals(12, bytes[0]);
+        assertEquals(41, bytes[29]);
+        assertFalse(spanning.isReadable());
+
+        assertEquals(0, buffer.window(64, 0).readableBytes());
+
+        window.retain();
+
+        assertFalse(buffer.release());
+        assertEquals(1, buffer.refCnt());
+        assertTrue(window.release());
+    }
+
+    @Test
+    public void testAccessAfterRelease() throws IOException {
+
+        LargeBuffer buffer = new LargeBuffer(64, 16);
+        buffer.setLong(0, 1);
+
+        ReadableBuffer window = buffer.window(0, 8);
+        ReadableBuffer spanning = buffer.window(12, 30);
+
+        assertTrue(buffer.release());
+        assertEquals(0, buffer.refCnt());
+
+        try {
+            buffer.getByte(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.getLong(8);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.setBytes(0, new byte[4], 0, 4);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.window(0, 8);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        for (ReadableBuffer released : new ReadableBuffer[] { window, spanning }) {
+
+            try {
+                released.getLong(0);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            try {
+                released.readByte();
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+
+            try {
+                released.readBytes(new byte[4]);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    @Test
+    public void testReleaseFreesTheChunks() {
+
+        assertTrue(DirectMemory.isExplicitFreeSupported());
+
+        long usedMemory = DirectMemory.usedMemory(DirectMemory.Category.BUFFER);
+
+        LargeBuffer buffer = new LargeBuffer(64, 16);
+
+        assertEquals(usedMemory + 64, DirectMemory.usedMemory(DirectMemory.Category.BUFFER));
+
+        assertTrue(buffer.release());
+
+        assertTrue(DirectMemory.isExplicitFreeSupported());
+        assertEquals(usedMemory, DirectMemory.usedMemory(DirectMemory.Category.BUFFER));
+    }
+
+    @Test
+    public void testSetBytesFromBuffer() throws IOException {
+
+        LargeBuffer buffer = new LargeBuffer(64, 8);
+
+        ReadableBuffer composite = Buffers.composite(Buffers.wrap(new byte[] { 1, 2, 3, 4, 5 }),
+                                                     Buffers.wrap(new byte[] { 6, 7, 8, 9, 10, 11, 12 }));
+        composite.skipBytes(1);
+
+        buffer.setBytes(5, composite);
+
+        assertEquals(1, composite.readerIndex());
+
+        byte[] bytes = new byte[11];
+        buffer.getBytes(5, bytes, 0, bytes.length);
+
+        assertArrayEquals(new byte[] { 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 }, bytes);
+        assertEquals(0, buffer.getByte(16));
+
+        buffer.release();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LeakDetectingBufferAllocatorTest {
+
+    @Test
+    public void testLeakDetection() throws Exception {
+
+        LeakDetectingBufferAllocator allocator = new LeakDetectingBufferAllocator(new PooledBufferAllocator(false),
+                                                                                  1.0);
+
+        Buffer released = allocator.allocate(64);
+        Buffer slice = allocator.allocate(64).writeZeroBytes(8).slice(4);
+
+        allocator.allocate(128);
+
+        released.release();
+
+        assertEquals(1, awaitLeaks(allocator, 1));
+        assertEquals(3, allocator.numberOfTrackedAllocations());
+
+        slice.release();
+
+        assertEquals(0, awaitLeaks(allocator, 0));
+    }
+
+    @Test
+    public void testReleaseThroughDuplicate() throws IOException, InterruptedException {
+
+        LeakDetectingBufferAllocator allocator = new LeakDetectingBufferAllocator(new PooledBufferAllocator(true),
+                                                                                  1.0);
+
+        Buffer duplicate = allocator.allocate(32).retainedDuplicate();
+
+        duplicate.release();
+        duplicate.release();
+
+        assertEquals(0, awaitLeaks(allocator, 0));
+        assertEquals(0, allocator.numberOfLeaks());
+    }
+
+    @Test
+    public void testNoSampling() throws InterruptedException {
+
+        LeakDetectingBufferAllocator allocator = new LeakDetectingBufferAllocator(new PooledBufferAllocator(false), 0);
+
+        allocator.allocate(16);
+
+        assertEquals(0, allocator.numberOfTrackedAllocations());
+        assertEquals(0, awaitLeaks(allocator, 0));
+    }
+
+    /**
+     * Runs the garbage collector until the expected number of leaks has been detected or a timeout expires.
+     *
+     * @param allocator the allocator
+     * @param expected the expected number of leaks
+     * @return the number of leaks detected.
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private static int awaitLeaks(LeakDetectingBufferAllocator allocator, int expected)
+            throws InterruptedException {
+
+        int leaks = 0;
+
+        for (int i = 0; i < 20 && (leaks < expected || i < 3); i++) {
+
+            System.gc();
+            Thread.sleep(10);
+            leaks += allocator.detectLeaks();
+        }
+
+        return leaks;
+    }
+}
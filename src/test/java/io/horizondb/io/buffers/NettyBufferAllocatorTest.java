@@ -0,0 +1,100 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.encoding.VarInts;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NettyBufferAllocatorTest {
+
+    @Test
+    public void testAllocate() throws IOException {
+
+        NettyBufferAllocator allocator = new NettyBufferAllocator(new PooledByteBufAllocator(false), false);
+
+        long usedMemory = DirectMemory.usedMemory();
+
+        Buffer buffer = allocator.allocate(100);
+
+        assertFalse(buffer.isDirect());
+        assertFalse(buffer.isReadable());
+        assertEquals(100, buffer.capacity());
+        assertEquals(100, buffer.writeableBytes());
+        assertEquals(usedMemory, DirectMemory.usedMemory());
+
+        buffer.order(ByteOrder.BIG_ENDIAN).writeInt(42).writeLong(-1L);
+
+        assertEquals(42, buffer.readInt());
+        assertEquals(-1L, buffer.readLong());
+
+        buffer.release();
+
+        assertEquals(0, buffer.refCnt());
+    }
+
+    @Test
+    public void testAllocateDirect() throws IOException {
+
+        NettyBufferAllocator allocator = new NettyBufferAllocator(true);
+
+        long usedMemory = DirectMemory.usedMemory(DirectMemory.Category.BUFFER);
+
+        Buffer buffer = allocator.allocate(64);
+
+        assertTrue(buffer.isDirect());
+        assertEquals(64, buffer.capacity());
+        assertEquals(usedMemory + 64, DirectMemory.usedMemory(DirectMemory.Category.BUFFER));
+
+        buffer.writeZeroBytes(16);
+
+        Buffer slice = buffer.slice(8).retain();
+
+        buffer.release();
+
+        assertEquals(1, slice.refCnt());
+        assertTrue(slice.release());
+        assertEquals(0, buffer.refCnt());
+        assertEquals(usedMemory, DirectMemory.usedMemory(DirectMemory.Category.BUFFER));
+    }
+
+    @Test
+    public void testWriteAndReadStringWithPooledHeapBuffers() throws IOException {
+
+        NettyBufferAllocator allocator = new NettyBufferAllocator(new PooledByteBufAllocator(false), false);
+
+        Buffer first = allocator.allocate(64);
+        Buffer second = allocator.allocate(64);
+
+        assertTrue(second.hasArray());
+
+        VarInts.writeString(first, "hello");
+        VarInts.writeString(second, "hello world");
+
+        assertEquals("hello", VarInts.readString(first));
+        assertEquals("hello world", VarInts.readString(second));
+
+        first.release();
+        second.release();
+    }
+}
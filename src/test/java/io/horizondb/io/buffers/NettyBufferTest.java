@@ -22,6 +22,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.junit.Test;
 
@@ -326,4 +327,38 @@ public class NettyBufferTest {
             assertTrue(true);
         }
     }
+
+    @Test
+    public void testReferenceCount() {
+
+        ByteBuf byteBuf = Unpooled.buffer(10);
+        Buffer buffer = new NettyBuffer(byteBuf);
+
+        Buffer duplicate = buffer.retainedDuplicate();
+
+        assertEquals(2, byteBuf.refCnt());
+        assertEquals(2, duplicate.refCnt());
+
+        assertFalse(buffer.release());
+        assertTrue(duplicate.release());
+        assertEquals(0, byteBuf.refCnt());
+    }
+
+    @Test
+    public void testNioBuffer() {
+
+        ByteBuf byteBuf = Unpooled.directBuffer(8);
+        byteBuf.writeBytes(new byte[] { 1, 2, 3, 4, 5 });
+
+        Buffer buffer = Buffers.wrap(byteBuf);
+        buffer.readerIndex(2);
+
+        ByteBuffer nioBuffer = buffer.nioBuffer();
+
+        assertEquals(3, nioBuffer.remaining());
+        assertEquals(3, nioBuffer.get(0));
+
+        nioBuffer.put(0, (byte) 9);
+        assertEquals(9, byteBuf.getByte(2));
+    }
 }
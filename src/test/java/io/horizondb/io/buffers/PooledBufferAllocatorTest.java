@@ -0,0 +1,289 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PooledBufferAllocatorTest {
+
+    @Test
+    public void testAllocate() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+
+        Buffer buffer = allocator.allocate(100);
+
+        assertFalse(buffer.isReadable());
+        assertTrue(buffer.isWriteable());
+        assertEquals(100, buffer.capacity());
+        assertEquals(100, buffer.writeableBytes());
+        assertEquals(128, buffer.array().length);
+    }
+
+    @Test
+    public void testAllocateDirect() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(true);
+
+        Buffer buffer = allocator.allocate(10);
+
+        assertTrue(buffer.isDirect());
+        assertEquals(10, buffer.capacity());
+        assertEquals(64, ((DirectBuffer) buffer).getByteBuffer().capacity());
+    }
+
+    @Test
+    public void testReleaseAndAllocate() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+
+        Buffer buffer = allocator.allocate(100);
+        buffer.writeByte(1);
+        buffer.release();
+
+        Buffer other = allocator.allocate(120);
+
+        assertSame(buffer.array(), other.array());
+        assertEquals(120, other.capacity());
+        assertFalse(other.isReadable());
+
+        assertNotSame(buffer.array(), allocator.allocate(100).array());
+    }
+
+    @Test
+    public void testAllocateBiggerThanMaxPooledSize() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+
+        Buffer buffer = allocator.allocate(2000);
+        assertEquals(2000, buffer.array().length);
+
+        buffer.release();
+        assertNotSame(buffer.array(), allocator.allocate(2000).array());
+    }
+
+    @Test
+    public void testArenaCapacityLimit() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 0, 2048);
+
+        Buffer first = allocator.allocate(1024);
+        Buffer second = allocator.allocate(1024);
+        Buffer third = allocator.allocate(1024);
+
+        first.release();
+        second.release();
+        third.release();
+
+        assertEquals(2048, allocator.getArenaCapacity());
+
+        assertSame(first.array(), allocator.allocate(1000).array());
+        assertEquals(1024, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testThreadCacheOverflowToArena() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 1, 4096);
+
+        Buffer first = allocator.allocate(64);
+        Buffer second = allocator.allocate(64);
+
+        first.release();
+        second.release();
+
+        assertEquals(64, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testThreadCacheCapacityOverflowToArena() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 256, 4096);
+
+        Buffer first = allocator.allocate(128);
+        Buffer second = allocator.allocate(128);
+        Buffer third = allocator.allocate(64);
+
+        first.release();
+        second.release();
+        third.release();
+
+        assertEquals(256, allocator.getThreadCacheCapacity());
+        assertEquals(64, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testAllocatorIsNotRetainedByThreadCaches() throws InterruptedException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+        allocator.allocate(64).release();
+
+        WeakReference<PooledBufferAllocator> reference = new WeakReference<>(allocator);
+        allocator = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertNull(reference.get());
+    }
+
+    @Test
+    public void testTrim() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 0, 4096);
+
+        Buffer first = allocator.allocate(64);
+        Buffer second = allocator.allocate(64);
+
+        first.release();
+        second.release();
+
+        allocator.trim();
+        assertEquals(128, allocator.getArenaCapacity());
+
+        allocator.allocate(64).release();
+        assertEquals(128, allocator.getArenaCapacity());
+
+        allocator.trim();
+        assertEquals(64, allocator.getArenaCapacity());
+
+        allocator.trim();
+        assertEquals(0, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testRelease() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+
+        Buffer cached = allocator.allocate(64);
+        cached.release();
+
+        allocator.release();
+
+        assertEquals(0, allocator.getArenaCapacity());
+        assertEquals(0, allocator.getThreadCacheCapacity());
+        assertNotSame(cached.array(), allocator.allocate(64).array());
+    }
+
+    @Test
+    public void testTrimFreesUnusedThreadCacheChunks() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+
+        Buffer first = allocator.allocate(64);
+        Buffer second = allocator.allocate(64);
+
+        first.release();
+        second.release();
+
+        assertEquals(128, allocator.getThreadCacheCapacity());
+        assertEquals(0, allocator.getArenaCapacity());
+
+        allocator.trim();
+        assertEquals(128, allocator.getThreadCacheCapacity());
+
+        allocator.allocate(64).release();
+
+        allocator.trim();
+        assertEquals(64, allocator.getThreadCacheCapacity());
+
+        allocator.trim();
+        assertEquals(0, allocator.getThreadCacheCapacity());
+    }
+
+    @Test
+    public void testTrimDrainsTheCachesOfTerminatedThreads() throws InterruptedException {
+
+        final PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                allocator.allocate(64).release();
+                allocator.allocate(128).release();
+            }
+        };
+
+        thread.start();
+        thread.join();
+
+        assertEquals(192, allocator.getThreadCacheCapacity());
+        assertEquals(0, allocator.getArenaCapacity());
+
+        allocator.trim();
+
+        assertEquals(0, allocator.getThreadCacheCapacity());
+        assertEquals(192, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testNewThreadCacheDrainsTheCachesOfTerminatedThreads() throws InterruptedException {
+
+        final PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+        final byte[][] arrays = new byte[1][];
+
+        Thread thread = new Thread() {
+
+            @Override
+            public void run() {
+
+                Buffer buffer = allocator.allocate(64);
+                arrays[0] = buffer.array();
+                buffer.release();
+            }
+        };
+
+        thread.start();
+        thread.join();
+
+        assertEquals(64, allocator.getThreadCacheCapacity());
+
+        assertSame(arrays[0], allocator.allocate(64).array());
+        assertEquals(0, allocator.getThreadCacheCapacity());
+        assertEquals(0, allocator.getArenaCapacity());
+    }
+
+    @Test
+    public void testMemoryIsRecycledWhenLastReferenceIsReleased() {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false, 1024, 4, 4096);
+
+        Buffer buffer = allocator.allocate(64);
+        Buffer slice = buffer.writeZeroBytes(64).retainedSlice(0, 32);
+
+        buffer.release();
+
+        assertNotSame(buffer.array(), allocator.allocate(64).array());
+
+        slice.release();
+
+        assertSame(buffer.array(), allocator.allocate(64).array());
+    }
+}
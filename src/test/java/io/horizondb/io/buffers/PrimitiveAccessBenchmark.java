@@ -0,0 +1,196 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.encoding.Endianness;
+
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the word-at-a-time and bulk primitive access of the heap and direct buffers with the byte-by-byte access
+ * performed by <code>Endianness</code>.
+ * 
+ * <p>
+ * Run it with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.horizondb.io.buffers.PrimitiveAccessBenchmark</code>.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveAccessBenchmark {
+
+    /**
+     * The number of longs read or written by each invocation.
+     */
+    private static final int NUMBER_OF_LONGS = 1024;
+
+    @Param({ "heap", "direct" })
+    private String type;
+
+    @Param({ "BIG_ENDIAN", "LITTLE_ENDIAN" })
+    private String order;
+
+    private Buffer buffer;
+
+    private Endianness endianness;
+
+    private long[] longs = new long[NUMBER_OF_LONGS];
+
+    @Setup
+    public void setUp() {
+
+        int capacity = NUMBER_OF_LONGS * Endianness.LONG_LENGTH;
+
+        if ("heap".equals(this.type)) {
+            this.buffer = Buffers.allocate(capacity);
+        } else {
+            this.buffer = Buffers.allocateDirect(capacity);
+        }
+
+        ByteOrder byteOrder = "BIG_ENDIAN".equals(this.order) ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+        this.buffer.order(byteOrder);
+        this.endianness = Endianness.getEndianness(byteOrder);
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            this.buffer.setLong(i * Endianness.LONG_LENGTH, i * 31L);
+        }
+
+        this.buffer.writerIndex(capacity);
+    }
+
+    @Benchmark
+    public long getLongWordAtATime() {
+
+        long sum = 0;
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            sum += this.buffer.getLong(i * Endianness.LONG_LENGTH);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long getLongByteByByte() {
+
+        long sum = 0;
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            sum += this.endianness.getLong(this.buffer, i * Endianness.LONG_LENGTH);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public Buffer setLongWordAtATime() {
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            this.buffer.setLong(i * Endianness.LONG_LENGTH, i);
+        }
+
+        return this.buffer;
+    }
+
+    @Benchmark
+    public Buffer setLongByteByByte() {
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            this.endianness.setLong(this.buffer, i * Endianness.LONG_LENGTH, i);
+        }
+
+        return this.buffer;
+    }
+
+    @Benchmark
+    public int getIntWordAtATime() {
+
+        int sum = 0;
+
+        for (int i = 0, m = NUMBER_OF_LONGS * 2; i < m; i++) {
+            sum += this.buffer.getInt(i * Endianness.INT_LENGTH);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public int getIntByteByByte() {
+
+        int sum = 0;
+
+        for (int i = 0, m = NUMBER_OF_LONGS * 2; i < m; i++) {
+            sum += this.endianness.getInt(this.buffer, i * Endianness.INT_LENGTH);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public long[] readLongsOneByOne() {
+
+        this.buffer.readerIndex(0);
+
+        for (int i = 0; i < NUMBER_OF_LONGS; i++) {
+            this.longs[i] = this.buffer.readLong();
+        }
+
+        return this.longs;
+    }
+
+    @Benchmark
+    public long[] readLongsInBulk() {
+
+        this.buffer.readerIndex(0);
+        this.buffer.readLongs(this.longs, 0, NUMBER_OF_LONGS);
+
+        return this.longs;
+    }
+
+    @Benchmark
+    public Buffer writeLongsInBulk() {
+
+        this.buffer.clear();
+        this.buffer.writeLongs(this.longs, 0, NUMBER_OF_LONGS);
+
+        return this.buffer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder().include(PrimitiveAccessBenchmark.class.getSimpleName()).build()).run();
+    }
+}
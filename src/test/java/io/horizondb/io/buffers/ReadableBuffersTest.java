@@ -0,0 +1,113 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ReadableBuffer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReadableBuffersTest {
+
+    @Test
+    public void testHash64() throws IOException {
+
+        assertEquals(0xEF46DB3751D8E999L, ReadableBuffers.hash64(Buffers.EMPTY_BUFFER));
+        assertEquals(0x44BC2CF5AD770999L, ReadableBuffers.hash64(ascii("abc")));
+        assertEquals(0xFBCEA83C8A378BF1L, ReadableBuffers.hash64(ascii("Nobody inspects the spammish repetition")));
+
+        byte[] bytes = new byte[100];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        long expected = 0x6AC1E58032166597L;
+
+        assertEquals(expected, ReadableBuffers.hash64(Buffers.wrap(bytes).order(ByteOrder.BIG_ENDIAN)));
+        assertEquals(expected, ReadableBuffers.hash64(Buffers.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN)));
+
+        Buffer direct = Buffers.allocateDirect(110);
+        direct.writeZeroBytes(10).writeBytes(bytes).skipBytes(10);
+
+        assertEquals(expected, ReadableBuffers.hash64(direct));
+        assertEquals(10, direct.readerIndex());
+
+        ReadableBuffer composite = Buffers.composite(Buffers.wrap(Arrays.copyOfRange(bytes, 0, 13)),
+                                                     Buffers.wrap(Arrays.copyOfRange(bytes, 13, 100)));
+
+        assertEquals(expected, ReadableBuffers.hash64(composite));
+    }
+
+    @Test
+    public void testCompare() throws IOException {
+
+        assertEquals(0, ReadableBuffers.compare(ascii("abcdefghij"), ascii("abcdefghij")));
+        assertTrue(ReadableBuffers.compare(ascii("abcdefghij"), ascii("abcdefghik")) < 0);
+        assertTrue(ReadableBuffers.compare(ascii("abcdefgz"), ascii("abcdefgha")) > 0);
+        assertTrue(ReadableBuffers.compare(ascii("abcdefgh"), ascii("abcdefgha")) < 0);
+        assertTrue(ReadableBuffers.compare(ascii("b"), ascii("abcdefghijklmnop")) > 0);
+        assertTrue(ReadableBuffers.compare(Buffers.EMPTY_BUFFER, ascii("a")) < 0);
+
+        // The bytes are compared as unsigned values
+        Buffer high = Buffers.wrap(new byte[] { 0, 1, 2, 3, 4, 5, 6, (byte) 0x80 });
+        Buffer low = Buffers.wrap(new byte[] { 0, 1, 2, 3, 4, 5, 6, 0x7F });
+
+        assertTrue(ReadableBuffers.compare(high, low) > 0);
+        assertTrue(ReadableBuffers.compare(high.order(ByteOrder.LITTLE_ENDIAN), low) > 0);
+        assertTrue(ReadableBuffers.compare(Buffers.wrap(new byte[] { (byte) 0xFF }), low) > 0);
+
+        Buffer[] keys = new Buffer[] { ascii("delta"), ascii("alpha"), ascii("charlie"), ascii("bravo") };
+        Arrays.sort(keys, ReadableBuffers.comparator());
+
+        assertEquals(ascii("alpha"), keys[0]);
+        assertEquals(ascii("delta"), keys[3]);
+    }
+
+    @Test
+    public void testEquals() throws IOException {
+
+        Buffer heap = ascii("0123456789abcdef!");
+        Buffer direct = Buffers.allocateDirect(20).order(ByteOrder.BIG_ENDIAN);
+        direct.writeBytes("xx0123456789abcdef!".getBytes(StandardCharsets.US_ASCII)).skipBytes(2);
+
+        ReadableBuffer composite = Buffers.composite(ascii("0123"), ascii("456789abcdef!"));
+
+        assertTrue(ReadableBuffers.equals(heap, direct));
+        assertTrue(ReadableBuffers.equals(heap, composite));
+        assertTrue(heap.equals(direct));
+        assertEquals(heap.hashCode(), direct.hashCode());
+        assertEquals(ReadableBuffers.hashCode(heap), ReadableBuffers.hashCode(composite));
+
+        assertFalse(ReadableBuffers.equals(heap, ascii("0123456789abcdef?")));
+        assertFalse(ReadableBuffers.equals(heap, ascii("0123456789abcdef")));
+        assertFalse(ReadableBuffers.equals(heap, ascii("1123456789abcdef!")));
+    }
+
+    /**
+     * Returns a buffer containing the ASCII bytes of the specified string.
+     */
+    private static Buffer ascii(String s) {
+        return Buffers.wrap(s.getBytes(StandardCharsets.US_ASCII));
+    }
+}
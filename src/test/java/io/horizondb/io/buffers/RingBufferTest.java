@@ -0,0 +1,189 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RingBufferTest {
+
+    @Test
+    public void testWrapAround() throws IOException {
+
+        RingBuffer ring = new RingBuffer(Buffers.allocate(16));
+
+        RingBuffer.Producer producer = ring.producer();
+        RingBuffer.Consumer consumer = ring.consumer();
+
+        producer.order(ByteOrder.BIG_ENDIAN);
+        consumer.order(ByteOrder.BIG_ENDIAN);
+
+        producer.writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+
+        assertEquals(0, consumer.readableBytes());
+
+        producer.flush();
+
+        assertEquals(12, consumer.readableBytes());
+        assertEquals(4, producer.writeableBytes());
+
+        consumer.skipBytes(10);
+
+        assertEquals(14, producer.writeableBytes());
+
+        producer.writeLong(0x0102030405060708L).writeInt(0x090A0B0C).flush();
+
+        assertEquals(14, consumer.readableBytes());
+        assertEquals(0x0B0C, consumer.readShort());
+        assertEquals(0x0102030405060708L, consumer.readLong());
+
+        consumer.order(ByteOrder.LITTLE_ENDIAN);
+
+        assertEquals(0x0C0B0A09, consumer.readInt());
+        assertFalse(consumer.readableBytes() > 0);
+
+        producer.order(ByteOrder.LITTLE_ENDIAN);
+        producer.writeLong(-2L).writeBytes(new byte[] { 1, 2, 3 }, 0, 3).writeShort((short) 300).close();
+
+        assertEquals(-2L, consumer.readLong());
+
+        byte[] bytes = new byte[3];
+        consumer.readBytes(bytes);
+
+        assertArrayEquals(new byte[] { 1, 2, 3 }, bytes);
+        assertEquals(300, consumer.readUnsignedShort());
+        assertFalse(consumer.isReadable());
+
+        try {
+            consumer.readByte();
+            fail();
+
+        } catch (EOFException e) {
+            assertTrue(true);
+        }
+
+        try {
+            producer.writeByte(1);
+            fail();
+
+        } catch (IOException e) {
+            assertTrue(ring.isClosed());
+        }
+    }
+
+    @Test
+    public void testTransferTo() throws IOException {
+
+        RingBuffer ring = new RingBuffer(Buffers.allocateDirect(8));
+
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5, 6 };
+
+        ring.producer().writeBytes(bytes, 0, bytes.length).flush();
+        ring.consumer().skipBytes(4);
+        ring.producer().writeBytes(bytes, 0, bytes.length).close();
+
+        Buffer output = Buffers.allocate(8);
+        ring.consumer().transferTo(output);
+
+        assertEquals(8, output.readableBytes());
+        assertArrayEquals(new byte[] { 5, 6, 1, 2, 3, 4, 5, 6 }, output.array());
+        assertFalse(ring.consumer().isReadable());
+    }
+
+    @Test
+    public void testWriteZeroBytesWithWrapAround() throws IOException {
+
+        Buffer buffer = Buffers.allocate(16);
+        buffer.writeBytes(new byte[] { 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9 });
+
+        RingBuffer ring = new RingBuffer(buffer);
+
+        ring.producer().writeBytes(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }, 0, 10).flush();
+        ring.consumer().skipBytes(10);
+        ring.producer().writeByte(1).writeZeroBytes(14).writeByte(2).close();
+
+        byte[] bytes = new byte[16];
+        ring.consumer().readBytes(bytes);
+
+        assertArrayEquals(new byte[] { 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2 }, bytes);
+        assertFalse(ring.consumer().isReadable());
+    }
+
+    @Test
+    public void testProducerConsumer() throws Exception {
+
+        final int count = 200000;
+        final RingBuffer ring = new RingBuffer(Buffers.allocateDirect(256));
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Thread producer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+
+                try {
+
+                    RingBuffer.Producer producer = ring.producer();
+
+                    for (int i = 0; i < count; i++) {
+
+                        producer.writeByte(i % 7).writeInt(i).writeLong(-i).writeZeroBytes(i % 7);
+
+                        if (i % 3 == 0) {
+                            producer.flush();
+                        }
+                    }
+
+                    producer.close();
+
+                } catch (Throwable e) {
+                    error.set(e);
+                }
+            }
+        });
+
+        producer.start();
+
+        RingBuffer.Consumer consumer = ring.consumer();
+
+        for (int i = 0; i < count; i++) {
+
+            int padding = consumer.readByte();
+
+            assertEquals(i % 7, padding);
+            assertEquals(i, consumer.readInt());
+            assertEquals(-i, consumer.readLong());
+
+            consumer.skipBytes(padding);
+        }
+
+        assertFalse(consumer.isReadable());
+
+        producer.join();
+        assertNull(error.get());
+    }
+}
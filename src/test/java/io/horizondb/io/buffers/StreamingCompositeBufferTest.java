@@ -0,0 +1,296 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.buffers;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ReadableBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingCompositeBufferTest {
+
+    @Test
+    public void testReadAcrossComponents() throws IOException {
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer().order(ByteOrder.BIG_ENDIAN);
+
+        buffer.addBytes(Buffers.wrap(new byte[] { 1, 2, 3 }));
+        buffer.addBytes(Buffers.EMPTY_BUFFER);
+        buffer.addBytes(Buffers.wrap(new byte[] { 4, 5, 6, 7, 8, 9, 10, 11 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 12 }));
+
+        assertEquals(3, buffer.numberOfComponents());
+        assertEquals(12, buffer.readableBytes());
+        assertEquals(0x0102030405060708L, buffer.getLong(0));
+        assertEquals(0x09080706050403L, buffer.order(ByteOrder.LITTLE_ENDIAN).getLong(1) >>> 8);
+        assertEquals(0x0908, buffer.getShort(7));
+
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        assertEquals(0x04050607, buffer.getInt(3));
+        assertEquals(1, buffer.readByte());
+
+        byte[] bytes = new byte[10];
+        buffer.readBytes(bytes);
+
+        assertArrayEquals(new byte[] { 2, 3, 4, 5, 6, 7, 8, 9, 10, 11 }, bytes);
+        assertEquals(12, buffer.readByte());
+        assertFalse(buffer.isReadable());
+
+        try {
+            buffer.readByte();
+            fail();
+
+        } catch (IndexOutOfBoundsException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void testDiscardReadBytes() throws IOException {
+
+        ByteBuf first = Unpooled.wrappedBuffer(new byte[] { 1, 2, 3, 4 });
+        ByteBuf second = Unpooled.wrappedBuffer(new byte[] { 5, 6, 7, 8 });
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer();
+
+        ReadableBuffer wrapper = Buffers.wrap(first);
+        buffer.addBytes(wrapper);
+        wrapper.release();
+
+        wrapper = Buffers.wrap(second);
+        buffer.addBytes(wrapper);
+        wrapper.release();
+
+        assertEquals(1, first.refCnt());
+        assertEquals(1, second.refCnt());
+
+        buffer.skipBytes(3);
+        buffer.discardReadBytes();
+
+        assertEquals(0, buffer.readerIndex());
+        assertEquals(5, buffer.readableBytes());
+        assertEquals(2, buffer.numberOfComponents());
+        assertEquals(3, buffer.numberOfDiscardedBytes());
+        assertEquals(4, buffer.getByte(0));
+
+        buffer.skipBytes(2);
+        buffer.discardReadBytes();
+
+        assertEquals(0, first.refCnt());
+        assertEquals(1, second.refCnt());
+        assertEquals(1, buffer.numberOfComponents());
+        assertEquals(6, buffer.readByte());
+
+        assertTrue(buffer.release());
+        assertEquals(0, second.refCnt());
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer(2);
+
+        long expected = 0;
+        int value = 0;
+
+        for (int i = 0; i < 10000; i++) {
+
+            byte[] bytes = new byte[1 + (i % 7)];
+
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = (byte) value++;
+            }
+
+            buffer.addBytes(Buffers.wrap(bytes));
+
+            while (buffer.readableBytes() >= 4) {
+
+                int length = buffer.getByte(buffer.readerIndex()) & 3;
+
+                if (buffer.readableBytes() < length + 1) {
+                    break;
+                }
+
+                for (int j = 0; j <= length; j++) {
+                    assertEquals((byte) expected++, buffer.readByte());
+                }
+            }
+
+            buffer.discardReadBytes();
+            assertTrue(buffer.numberOfComponents() <= 5);
+        }
+
+        assertEquals(value, expected + buffer.readableBytes());
+        assertEquals(expected, buffer.numberOfDiscardedBytes());
+    }
+
+    @Test
+    public void testSliceAndIndexOf() throws IOException {
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer().order(ByteOrder.BIG_ENDIAN);
+
+        buffer.addBytes(Buffers.wrap(new byte[] { 1, 2, 3 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 4, 5, 6 }));
+        buffer.addBytes(Buffers.wrap(new byte[] { 7, 8, 9 }));
+
+        buffer.skipBytes(2).discardReadBytes();
+
+        assertEquals(3, buffer.indexOf((byte) 6, 0, 7));
+        assertEquals(-1, buffer.indexOf((byte) 9, 0, 6));
+        assertEquals(4, buffer.bytesBefore((byte) 7));
+
+        ReadableBuffer slice = buffer.skipBytes(1).slice(4);
+
+        assertEquals(4, slice.readableBytes());
+        assertEquals(0x04050607, slice.getInt(0));
+        assertEquals(5, buffer.readerIndex());
+        assertEquals(8, buffer.readByte());
+
+        ReadableBuffer duplicate = buffer.duplicate();
+
+        assertEquals(6, duplicate.readerIndex());
+        assertEquals(9, duplicate.readByte());
+        assertEquals(3, duplicate.getByte(0));
+    }
+
+    @Test
+    public void testRetainedSliceIsNotAffectedByDiscardReadBytes() throws IOException {
+
+        PooledBufferAllocator allocator = new PooledBufferAllocator(false);
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer();
+
+        for (int i = 3; i <= 4; i++) {
+
+            Buffer component = allocator.allocate(64);
+            component.writeBytes(filledArray(64, i));
+            buffer.addBytes(component);
+            component.release();
+        }
+
+        CompositeBuffer slice = buffer.retainedSlice(0, 64);
+
+        assertEquals(2, slice.refCnt());
+        assertEquals(ByteOrder.nativeOrder(), slice.order());
+
+        buffer.skipBytes(64).discardReadBytes();
+
+        assertEquals(1, buffer.numberOfComponents());
+
+        allocator.allocate(64).writeBytes(filledArray(64, 7));
+
+        assertEquals(3, slice.getByte(0));
+        assertEquals(3, slice.getByte(63));
+        assertEquals(4, buffer.getByte(0));
+
+        assertFalse(slice.release());
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testRetainedSliceReleasesItsBuffers() throws IOException {
+
+        HeapBuffer first = new HeapBuffer(new byte[] { 1, 2, 3 });
+        HeapBuffer second = new HeapBuffer(new byte[] { 4, 5, 6 });
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer();
+        buffer.addBytes(first).addBytes(second);
+
+        ReadableBuffer slice = buffer.retainedSlice(1, 1);
+
+        assertEquals(3, first.refCnt());
+        assertEquals(2, second.refCnt());
+
+        buffer.skipBytes(3).discardReadBytes();
+
+        assertEquals(2, first.refCnt());
+        assertEquals(2, slice.getByte(0));
+
+        assertFalse(slice.release());
+        assertEquals(1, first.refCnt());
+
+        assertTrue(buffer.release());
+        assertEquals(1, second.refCnt());
+    }
+
+    @Test
+    public void testAccessAfterRelease() throws IOException {
+
+        StreamingCompositeBuffer buffer = new StreamingCompositeBuffer();
+        buffer.addBytes(new HeapBuffer(new byte[] { 1, 2, 3 })).addBytes(new HeapBuffer(new byte[] { 4, 5, 6 }));
+
+        assertTrue(buffer.release());
+
+        try {
+            buffer.getByte(0);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.readByte();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.slice(2);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.retainedSlice(0, 2);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+
+        try {
+            buffer.addBytes(new HeapBuffer(new byte[] { 7 }));
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Returns an array of the specified length filled with the specified value.
+     *
+     * @param length the array length
+     * @param value the value
+     * @return an array of the specified length filled with the specified value.
+     */
+    private static byte[] filledArray(int length, int value) {
+
+        byte[] array = new byte[length];
+        Arrays.fill(array, (byte) value);
+        return array;
+    }
+}
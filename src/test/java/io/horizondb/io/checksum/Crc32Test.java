@@ -15,6 +15,7 @@
  */
 package io.horizondb.io.checksum;
 
+import io.horizondb.io.Buffer;
 import io.horizondb.io.buffers.Buffers;
 
 import java.util.Random;
@@ -162,4 +163,44 @@ public class Crc32Test {
 
         assertEquals(this.jdkCrc.getValue(), this.crc.getValue());
     }
+
+    @Test
+    public void testUpdateZeros() throws Exception {
+
+        byte[] prefix = "hello world!".getBytes("UTF-8");
+
+        for (int length : new int[] { 0, 1, 7, 4096, 100001 }) {
+
+            this.crc.reset();
+            this.jdkCrc.reset();
+
+            this.crc.update(prefix);
+            this.crc.updateZeros(length);
+
+            this.jdkCrc.update(prefix);
+            this.jdkCrc.update(new byte[length]);
+
+            assertEquals(this.jdkCrc.getValue(), this.crc.getValue());
+        }
+    }
+
+    @Test
+    public void testChecksumByteWriterWriteZeroBytes() throws Exception {
+
+        Buffer buffer = Buffers.allocate(10000);
+
+        ChecksumByteWriter writer = ChecksumByteWriter.wrap(buffer);
+        writer.writeByte(5).writeZeroBytes(9000).writeByte(3);
+
+        this.jdkCrc.update(5);
+        this.jdkCrc.update(new byte[9000]);
+        this.jdkCrc.update(3);
+
+        assertEquals(9002, buffer.readableBytes());
+
+        writer.writeChecksum();
+        buffer.skipBytes(9002);
+
+        assertEquals(this.jdkCrc.getValue(), buffer.readLong());
+    }
 }
\ No newline at end of file
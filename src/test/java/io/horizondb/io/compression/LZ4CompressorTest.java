@@ -18,6 +18,7 @@ import java.io.IOException;
 import io.horizondb.io.Buffer;
 import io.horizondb.io.ReadableBuffer;
 import io.horizondb.io.buffers.Buffers;
+import io.horizondb.io.buffers.CompositeBuffer;
 
 import org.junit.Test;
 
@@ -67,4 +68,35 @@ public class LZ4CompressorTest {
 
         assertArrayEquals(array, ((Buffer) uncompressedData).array());
     }
+
+    @Test
+    public void testCompressionWithCompositeBuffer() throws IOException {
+
+        byte[] array = "12345345234572".getBytes("UTF-8");
+
+        CompositeBuffer composite = new CompositeBuffer();
+        composite.addBytes(Buffers.wrap(new byte[] { 0, 0 }));
+        composite.addBytes(Buffers.wrap(array, 0, 5));
+        composite.addBytes(Buffers.allocateDirect(9).writeBytes(array, 5, 9));
+        composite.skipBytes(2);
+
+        ReadableBuffer compressedData = new LZ4Compressor().compress(composite);
+        ReadableBuffer uncompressedData = new LZ4Decompressor().decompress(compressedData, array.length);
+
+        assertArrayEquals(array, ((Buffer) uncompressedData).array());
+    }
+
+    @Test
+    public void testCompressionWithReaderIndexNotAtZero() throws IOException {
+
+        byte[] array = "12345345234572".getBytes("UTF-8");
+
+        Buffer input = Buffers.allocate(array.length + 3);
+        input.writeBytes(new byte[] { 7, 7, 7 }).writeBytes(array).skipBytes(3);
+
+        ReadableBuffer compressedData = new LZ4Compressor().compress(input);
+        ReadableBuffer uncompressedData = new LZ4Decompressor().decompress(compressedData, array.length);
+
+        assertArrayEquals(array, ((Buffer) uncompressedData).array());
+    }
 }
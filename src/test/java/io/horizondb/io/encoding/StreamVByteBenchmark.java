@@ -0,0 +1,207 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the batch encoding and decoding of <code>StreamVByte</code> with the scalar <code>VarInts</code> path on
+ * a block of timestamp deltas.
+ *
+ * <p>
+ * Run it with <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=io.horizondb.io.encoding.StreamVByteBenchmark</code>.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StreamVByteBenchmark {
+
+    /**
+     * The number of values encoded or decoded by each invocation.
+     */
+    private static final int NUMBER_OF_VALUES = 10000;
+
+    @Param({ "heap", "direct" })
+    private String type;
+
+    /**
+     * The maximum number of significant bits of the values.
+     */
+    @Param({ "7", "20", "40" })
+    private int bits;
+
+    private long[] longs = new long[NUMBER_OF_VALUES];
+
+    private int[] ints = new int[NUMBER_OF_VALUES];
+
+    private Buffer varIntLongs;
+
+    private Buffer varIntInts;
+
+    private Buffer streamVByteLongs;
+
+    private Buffer streamVByteInts;
+
+    @Setup
+    public void setUp() throws IOException {
+
+        Random random = new Random(42);
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.longs[i] = random.nextLong() & ((1L << this.bits) - 1);
+            this.ints[i] = (int) (this.longs[i] & 0x7FFFFFFF);
+        }
+
+        int capacity = NUMBER_OF_VALUES * 10;
+
+        this.varIntLongs = allocate(capacity);
+        this.varIntInts = allocate(capacity);
+        this.streamVByteLongs = allocate(capacity);
+        this.streamVByteInts = allocate(capacity);
+
+        writeLongsWithVarInts();
+        writeIntsWithVarInts();
+        writeLongsWithStreamVByte();
+        writeIntsWithStreamVByte();
+    }
+
+    @Benchmark
+    public Buffer writeLongsWithVarInts() throws IOException {
+
+        this.varIntLongs.clear();
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            VarInts.writeUnsignedLong(this.varIntLongs, this.longs[i]);
+        }
+
+        return this.varIntLongs;
+    }
+
+    @Benchmark
+    public Buffer writeLongsWithStreamVByte() {
+
+        this.streamVByteLongs.clear();
+        StreamVByte.writeLongs(this.streamVByteLongs, this.longs, 0, NUMBER_OF_VALUES);
+
+        return this.streamVByteLongs;
+    }
+
+    @Benchmark
+    public long[] readLongsWithVarInts() throws IOException {
+
+        this.varIntLongs.readerIndex(0);
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.longs[i] = VarInts.readUnsignedLong(this.varIntLongs);
+        }
+
+        return this.longs;
+    }
+
+    @Benchmark
+    public long[] readLongsWithStreamVByte() {
+
+        this.streamVByteLongs.readerIndex(0);
+        StreamVByte.readLongs(this.streamVByteLongs, this.longs, 0, NUMBER_OF_VALUES);
+
+        return this.longs;
+    }
+
+    @Benchmark
+    public Buffer writeIntsWithVarInts() throws IOException {
+
+        this.varIntInts.clear();
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            VarInts.writeUnsignedInt(this.varIntInts, this.ints[i]);
+        }
+
+        return this.varIntInts;
+    }
+
+    @Benchmark
+    public Buffer writeIntsWithStreamVByte() {
+
+        this.streamVByteInts.clear();
+        StreamVByte.writeInts(this.streamVByteInts, this.ints, 0, NUMBER_OF_VALUES);
+
+        return this.streamVByteInts;
+    }
+
+    @Benchmark
+    public int[] readIntsWithVarInts() throws IOException {
+
+        this.varIntInts.readerIndex(0);
+
+        for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+            this.ints[i] = VarInts.readUnsignedInt(this.varIntInts);
+        }
+
+        return this.ints;
+    }
+
+    @Benchmark
+    public int[] readIntsWithStreamVByte() {
+
+        this.streamVByteInts.readerIndex(0);
+        StreamVByte.readInts(this.streamVByteInts, this.ints, 0, NUMBER_OF_VALUES);
+
+        return this.ints;
+    }
+
+    /**
+     * Allocates a buffer of the benchmarked type.
+     *
+     * @param capacity the buffer capacity
+     * @return a new buffer.
+     */
+    private Buffer allocate(int capacity) {
+
+        if ("heap".equals(this.type)) {
+            return Buffers.allocate(capacity);
+        }
+
+        return Buffers.allocateDirect(capacity);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder().include(StreamVByteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
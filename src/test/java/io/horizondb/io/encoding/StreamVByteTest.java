@@ -0,0 +1,153 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class StreamVByteTest {
+
+    @Test
+    public void testIntsLayout() {
+
+        int[] values = { 1, 256, 65536, -1, 2 };
+
+        Buffer buffer = Buffers.allocate(20);
+        StreamVByte.writeInts(buffer, values, 0, values.length);
+
+        assertEquals(StreamVByte.computeIntsSize(values, 0, values.length), buffer.readableBytes());
+        assertEquals(2 + 1 + 2 + 3 + 4 + 1, buffer.readableBytes());
+        assertEquals((byte) 0xE4, buffer.getByte(0));
+        assertEquals(0, buffer.getByte(1));
+        assertEquals(1, buffer.getByte(2));
+        assertEquals(0, buffer.getByte(3));
+        assertEquals(1, buffer.getByte(4));
+    }
+
+    @Test
+    public void testIntsRoundTrip() {
+
+        Random random = new Random(42);
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            for (int length = 0; length < 40; length++) {
+
+                int[] values = new int[length];
+
+                for (int i = 0; i < length; i++) {
+                    values[i] = random.nextInt() >>> random.nextInt(32);
+                }
+
+                int size = StreamVByte.computeIntsSize(values, 0, length);
+
+                Buffer buffer = Buffers.allocate(size + 1).order(order);
+                buffer.writeByte(7);
+                StreamVByte.writeInts(buffer, values, 0, length);
+
+                assertEquals(size + 1, buffer.writerIndex());
+                assertEquals(7, buffer.readByte());
+
+                int[] decoded = new int[length + 2];
+                StreamVByte.readInts(buffer, decoded, 1, length);
+
+                assertEquals(0, buffer.readableBytes());
+                assertArrayEquals(values, Arrays.copyOfRange(decoded, 1, length + 1));
+
+                buffer.readerIndex(1);
+                StreamVByte.skipInts(buffer, length);
+                assertEquals(0, buffer.readableBytes());
+            }
+        }
+    }
+
+    @Test
+    public void testLongsRoundTrip() throws IOException {
+
+        Random random = new Random(42);
+
+        for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+
+            for (int length = 0; length < 40; length++) {
+
+                long[] values = new long[length];
+
+                for (int i = 0; i < length; i++) {
+                    values[i] = random.nextLong() >>> random.nextInt(64);
+                }
+
+                int size = StreamVByte.computeLongsSize(values, 0, length);
+
+                Buffer buffer = Buffers.allocate(size + 20).order(order);
+                StreamVByte.writeLongs(buffer, values, 0, length);
+                buffer.writeLong(-1L);
+
+                assertEquals(size + 8, buffer.writerIndex());
+
+                long[] decoded = new long[length];
+                StreamVByte.readLongs(buffer, decoded, 0, length);
+
+                assertArrayEquals(values, decoded);
+                assertEquals(-1L, buffer.readLong());
+
+                buffer.readerIndex(0);
+                StreamVByte.skipLongs(buffer, length);
+                assertEquals(size, buffer.readerIndex());
+            }
+        }
+    }
+
+    @Test
+    public void testReadWithTooFewBytes() {
+
+        long[] values = { 1L << 40, 1L << 50, 3 };
+
+        Buffer buffer = Buffers.allocate(20);
+        StreamVByte.writeLongs(buffer, values, 0, values.length);
+        buffer.writerIndex(buffer.writerIndex() - 1);
+
+        try {
+            StreamVByte.readLongs(buffer, new long[3], 0, 3);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(0, buffer.readerIndex());
+        }
+    }
+
+    @Test
+    public void testWriteWithTooFewBytes() {
+
+        int[] values = { 1, 2, 3, 1 << 24 };
+
+        Buffer buffer = Buffers.allocate(7);
+
+        try {
+            StreamVByte.writeInts(buffer, values, 0, values.length);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            assertEquals(0, buffer.writerIndex());
+        }
+    }
+}
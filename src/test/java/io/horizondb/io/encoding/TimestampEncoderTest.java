@@ -0,0 +1,168 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TimestampEncoderTest {
+
+    @Test
+    public void testRegularSeries() throws IOException {
+
+        long[] timestamps = new long[10000];
+
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = 1402061400000L + i * 1000L;
+        }
+
+        TimestampEncoder encoder = encode(timestamps);
+
+        assertEquals(timestamps.length, encoder.numberOfTimestamps());
+        assertEquals(64 + 16 + (timestamps.length - 2), encoder.numberOfBits());
+        assertTrue((double) encoder.numberOfBits() / timestamps.length < 1.01);
+
+        assertDecoded(timestamps, encoder);
+    }
+
+    @Test
+    public void testIrregularSeries() throws IOException {
+
+        Random random = new Random(42);
+
+        long[] timestamps = new long[5000];
+        long timestamp = 1402061400000L;
+
+        for (int i = 0; i < timestamps.length; i++) {
+
+            switch (random.nextInt(6)) {
+                case 0:
+                    timestamp += 1000;
+                    break;
+                case 1:
+                    timestamp += 1000 + random.nextInt(100) - 50;
+                    break;
+                case 2:
+                    timestamp += random.nextInt(5000);
+                    break;
+                case 3:
+                    timestamp -= random.nextInt(1 << 20);
+                    break;
+                case 4:
+                    timestamp += random.nextLong() >> 20;
+                    break;
+                default:
+                    timestamp = random.nextLong();
+            }
+
+            timestamps[i] = timestamp;
+        }
+
+        assertDecoded(timestamps, encode(timestamps));
+    }
+
+    @Test
+    public void testExtremeValues() throws IOException {
+
+        long[] timestamps = { Long.MIN_VALUE, Long.MAX_VALUE, 0, Long.MIN_VALUE, Long.MIN_VALUE, -1, Long.MAX_VALUE };
+
+        assertDecoded(timestamps, encode(timestamps));
+    }
+
+    @Test
+    public void testDecoderReuse() throws IOException {
+
+        Buffer buffer = Buffers.allocate(200);
+
+        TimestampEncoder encoder = new TimestampEncoder();
+        encoder.encode(10).encode(20).encode(30).writeTo(buffer);
+        encoder.reset().encode(5).encode(7).writeTo(buffer);
+        encoder.reset().writeTo(buffer);
+
+        TimestampDecoder decoder = new TimestampDecoder();
+
+        decoder.readFrom(buffer);
+        assertEquals(10, decoder.next());
+        assertEquals(20, decoder.next());
+        assertEquals(30, decoder.next());
+        assertFalse(decoder.hasNext());
+
+        decoder.readFrom(buffer);
+        assertEquals(5, decoder.next());
+        assertEquals(7, decoder.next());
+        assertFalse(decoder.hasNext());
+
+        decoder.readFrom(buffer);
+        assertFalse(decoder.hasNext());
+        assertEquals(0, buffer.readableBytes());
+
+        try {
+            decoder.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Encodes the specified timestamps.
+     *
+     * @param timestamps the timestamps
+     * @return the encoder.
+     */
+    private static TimestampEncoder encode(long[] timestamps) {
+
+        TimestampEncoder encoder = new TimestampEncoder();
+
+        for (long timestamp : timestamps) {
+            encoder.encode(timestamp);
+        }
+
+        return encoder;
+    }
+
+    /**
+     * Checks that the timestamps written by the specified encoder are decoded back.
+     *
+     * @param expected the expected timestamps
+     * @param encoder the encoder
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void assertDecoded(long[] expected, TimestampEncoder encoder) throws IOException {
+
+        Buffer buffer = Buffers.allocate(10 + (encoder.numberOfBits() + 7) / 8);
+        encoder.writeTo(buffer);
+
+        TimestampDecoder decoder = new TimestampDecoder().readFrom(buffer);
+
+        for (long timestamp : expected) {
+            assertTrue(decoder.hasNext());
+            assertEquals(timestamp, decoder.next());
+        }
+
+        assertFalse(decoder.hasNext());
+        assertEquals(0, buffer.readableBytes());
+    }
+}
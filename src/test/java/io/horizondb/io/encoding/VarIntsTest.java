@@ -0,0 +1,253 @@
+/**
+ * Copyright 2013 Benjamin Lerer
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.ReadableBuffer;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Benjamin
+ *
+ */
+public class VarIntsTest {
+
+    private static final String[] STRINGS = { "", "cpu.load", "températures", "\u20AC100", "\uD83D\uDE00 ok",
+            "unpaired \uD83D high", "unpaired \uDE00 low", "trailing \uD83D" };
+
+    private static final long[] LONGS = { 0, 1, 127, 128, 300, 16383, 16384, Integer.MAX_VALUE, Integer.MIN_VALUE,
+            -1, 1L << 48, (1L << 56) - 1, 1L << 56, Long.MAX_VALUE, Long.MIN_VALUE, 1402061400000L };
+
+    @Test
+    public void testReadUnsignedIntWithLittleEndianBuffer() throws IOException {
+
+        testReadUnsignedInt(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void testReadUnsignedIntWithBigEndianBuffer() throws IOException {
+
+        testReadUnsignedInt(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testReadUnsignedLongWithLittleEndianBuffer() throws IOException {
+
+        testReadUnsignedLong(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Test
+    public void testReadUnsignedLongWithBigEndianBuffer() throws IOException {
+
+        testReadUnsignedLong(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Test
+    public void testReadSignedValues() throws IOException {
+
+        Buffer buffer = Buffers.allocate(200);
+
+        for (long l : LONGS) {
+            VarInts.writeInt(buffer, (int) l);
+            VarInts.writeLong(buffer, l);
+        }
+
+        for (long l : LONGS) {
+            assertEquals((int) l, VarInts.readInt(buffer));
+            assertEquals(l, VarInts.readLong(buffer));
+        }
+
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    @Test
+    public void testReadFromCompositeBuffer() throws IOException {
+
+        Buffer first = Buffers.allocate(5);
+        Buffer second = Buffers.allocate(20);
+
+        VarInts.writeUnsignedInt(first, 1);
+        VarInts.writeUnsignedInt(first, 1 << 21);
+        VarInts.writeUnsignedLong(second, Long.MAX_VALUE);
+        VarInts.writeUnsignedLong(second, 1L << 35);
+
+        Buffer spanning = Buffers.allocate(1);
+        spanning.writeByte(0x80);
+        Buffer end = Buffers.allocate(1);
+        end.writeByte(0x01);
+
+        ReadableBuffer composite = Buffers.composite(first, spanning, end, second);
+
+        assertEquals(1, VarInts.readUnsignedInt(composite));
+        assertEquals(1 << 21, VarInts.readUnsignedInt(composite));
+        assertEquals(128, VarInts.readUnsignedInt(composite));
+        assertEquals(Long.MAX_VALUE, VarInts.readUnsignedLong(composite));
+        assertEquals(1L << 35, VarInts.readUnsignedLong(composite));
+        assertEquals(0, composite.readableBytes());
+    }
+
+    @Test
+    public void testReadMalformedInt() throws IOException {
+
+        Buffer buffer = Buffers.allocate(10);
+
+        for (int i = 0; i < 10; i++) {
+            buffer.writeByte(0xFF);
+        }
+
+        try {
+            VarInts.readUnsignedInt(buffer);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(0, buffer.readerIndex());
+        }
+    }
+
+    @Test
+    public void testWriteStringToHeapBuffer() throws IOException {
+
+        for (String s : STRINGS) {
+            testWriteString(Buffers.allocate(100), s);
+        }
+    }
+
+    @Test
+    public void testWriteStringToDirectBuffer() throws IOException {
+
+        for (String s : STRINGS) {
+            testWriteString(Buffers.allocateDirect(100), s);
+        }
+    }
+
+    @Test
+    public void testReadStringWithCache() throws IOException {
+
+        StringCache cache = new StringCache(16, 10);
+
+        Buffer buffer = Buffers.allocate(100);
+        VarInts.writeString(buffer, "cpu.load");
+        VarInts.writeString(buffer, "cpu.load");
+        VarInts.writeString(buffer, "températures");
+        VarInts.writeString(buffer, "températures");
+
+        String first = VarInts.readString(buffer, cache);
+
+        assertEquals("cpu.load", first);
+        assertSame(first, VarInts.readString(buffer, cache));
+
+        String long1 = VarInts.readString(buffer, cache);
+        String long2 = VarInts.readString(buffer, cache);
+
+        assertEquals("températures", long1);
+        assertEquals("températures", long2);
+        assertNotSame(long1, long2);
+        assertEquals(0, buffer.readableBytes());
+
+        assertSame(first, cache.get("cpu.load".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Checks that the unsigned ints are decoded the same way whether the buffer has enough bytes for the fast path
+     * or not.
+     *
+     * @param order the buffer byte order
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void testReadUnsignedInt(ByteOrder order) throws IOException {
+
+        for (long l : LONGS) {
+
+            int i = (int) l;
+            int size = VarInts.computeUnsignedIntSize(i);
+
+            for (int padding = 0; padding <= 8; padding++) {
+
+                Buffer buffer = Buffers.allocate(size + padding).order(order);
+                VarInts.writeUnsignedInt(buffer, i);
+                buffer.writeZeroBytes(padding);
+
+                assertEquals(i, VarInts.readUnsignedInt(buffer));
+                assertEquals(size, buffer.readerIndex());
+            }
+        }
+    }
+
+    /**
+     * Checks that the unsigned longs are decoded the same way whether the buffer has enough bytes for the fast path
+     * or not.
+     *
+     * @param order the buffer byte order
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void testReadUnsignedLong(ByteOrder order) throws IOException {
+
+        for (long l : LONGS) {
+
+            int size = VarInts.computeUnsignedLongSize(l);
+
+            for (int padding = 0; padding <= 8; padding++) {
+
+                Buffer buffer = Buffers.allocate(size + padding).order(order);
+                VarInts.writeUnsignedLong(buffer, l);
+                buffer.writeZeroBytes(padding);
+
+                assertEquals(l, VarInts.readUnsignedLong(buffer));
+                assertEquals(size, buffer.readerIndex());
+
+                buffer.readerIndex(0);
+                VarInts.skipUnsignedLong(buffer);
+                assertEquals(size, buffer.readerIndex());
+            }
+        }
+    }
+
+    /**
+     * Checks that the specified string is encoded like <code>String.getBytes</code> does and decoded back.
+     *
+     * @param buffer the buffer to write to
+     * @param s the string
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void testWriteString(Buffer buffer, String s) throws IOException {
+
+        byte[] expected = s.getBytes(StandardCharsets.UTF_8);
+
+        VarInts.writeString(buffer, s);
+
+        assertEquals(VarInts.computeStringSize(s), buffer.readableBytes());
+        assertEquals(expected.length, VarInts.readUnsignedInt(buffer));
+
+        byte[] bytes = new byte[expected.length];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        assertArrayEquals(expected, bytes);
+
+        buffer.readerIndex(0);
+        assertEquals(new String(expected, StandardCharsets.UTF_8), VarInts.readString(buffer));
+        assertEquals(0, buffer.readableBytes());
+    }
+}
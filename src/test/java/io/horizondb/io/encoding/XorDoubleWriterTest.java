@@ -0,0 +1,156 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.horizondb.io.encoding;
+
+import io.horizondb.io.Buffer;
+import io.horizondb.io.buffers.Buffers;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class XorDoubleWriterTest {
+
+    @Test
+    public void testSlowlyChangingValues() throws IOException {
+
+        Random random = new Random(42);
+
+        double[] values = new double[10000];
+        double value = 21.5;
+
+        for (int i = 0; i < values.length; i++) {
+
+            if (random.nextInt(10) == 0) {
+                value += (random.nextInt(3) - 1) * 0.5;
+            }
+
+            values[i] = value;
+        }
+
+        Buffer buffer = Buffers.allocate(values.length * 8);
+        write(buffer, values);
+
+        assertTrue(buffer.readableBytes() * 5 < values.length * 8);
+
+        assertRead(buffer, values);
+    }
+
+    @Test
+    public void testRandomValues() throws IOException {
+
+        Random random = new Random(42);
+
+        double[] values = new double[1000];
+
+        for (int i = 0; i < values.length; i++) {
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    values[i] = random.nextDouble();
+                    break;
+                case 1:
+                    values[i] = Double.longBitsToDouble(random.nextLong());
+                    break;
+                case 2:
+                    values[i] = i == 0 ? 0 : values[i - 1];
+                    break;
+                default:
+                    values[i] = random.nextInt(100);
+            }
+        }
+
+        Buffer buffer = Buffers.allocate(values.length * 10);
+        write(buffer, values);
+
+        assertRead(buffer, values);
+    }
+
+    @Test
+    public void testSpecialValues() throws IOException {
+
+        double[] values = { 0.0, -0.0, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, 1.0, 1.0 };
+
+        Buffer buffer = Buffers.allocate(values.length * 10);
+        write(buffer, values);
+
+        assertRead(buffer, values);
+    }
+
+    @Test
+    public void testSeveralBlocks() throws IOException {
+
+        Buffer buffer = Buffers.allocate(100);
+
+        XorDoubleWriter writer = new XorDoubleWriter(buffer);
+        writer.writeDouble(1.5).writeDouble(2.5).writeDouble(2.5).flush();
+        buffer.writeInt(42);
+        writer.writeDouble(3.25).flush();
+
+        XorDoubleReader reader = new XorDoubleReader(buffer);
+
+        assertEquals(1.5, reader.readDouble(), 0.0);
+        assertEquals(2.5, reader.readDouble(), 0.0);
+        assertEquals(2.5, reader.readDouble(), 0.0);
+        reader.endBlock();
+
+        assertEquals(42, buffer.readInt());
+
+        assertEquals(3.25, reader.readDouble(), 0.0);
+        reader.endBlock();
+
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    /**
+     * Writes the specified values as a single block.
+     *
+     * @param buffer the buffer to write to
+     * @param values the values
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void write(Buffer buffer, double[] values) throws IOException {
+
+        XorDoubleWriter writer = new XorDoubleWriter(buffer);
+
+        for (double value : values) {
+            writer.writeDouble(value);
+        }
+
+        writer.flush();
+    }
+
+    /**
+     * Checks that the specified values are read back bit for bit and that the whole block has been consumed.
+     *
+     * @param buffer the buffer to read from
+     * @param expected the expected values
+     * @throws IOException if an I/O problem occurs
+     */
+    private static void assertRead(Buffer buffer, double[] expected) throws IOException {
+
+        XorDoubleReader reader = new XorDoubleReader(buffer);
+
+        for (double value : expected) {
+            assertEquals(Double.doubleToRawLongBits(value), Double.doubleToRawLongBits(reader.readDouble()));
+        }
+
+        assertEquals(0, buffer.readableBytes());
+    }
+}
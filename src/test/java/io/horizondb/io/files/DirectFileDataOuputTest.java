@@ -16,8 +16,12 @@
 package io.horizondb.io.files;
 
 import io.horizondb.io.files.DirectFileDataOutput;
+import io.horizondb.io.buffers.Buffers;
+import io.horizondb.io.buffers.CompositeBuffer;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -28,7 +32,9 @@ import org.junit.Test;
 import static io.horizondb.test.AssertFiles.assertFileContains;
 import static io.horizondb.test.AssertFiles.assertFileSize;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class DirectFileDataOuputTest {
 
@@ -92,4 +98,163 @@ public class DirectFileDataOuputTest {
             assertEquals(3, output.getPosition());
         }
     }
+
+    @Test
+    public void testTransferBufferBiggerThanInternalBuffer() throws IOException {
+
+        byte[] bytes = new byte[100];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        try (DirectFileDataOutput output = new DirectFileDataOutput(this.path, 16)) {
+
+            output.writeByte(-1);
+            output.transfer(Buffers.wrap(bytes));
+
+            assertEquals(101, output.getPosition());
+
+            output.flush();
+        }
+
+        byte[] expected = new byte[101];
+        expected[0] = -1;
+        System.arraycopy(bytes, 0, expected, 1, bytes.length);
+
+        assertFileContains(expected, this.path);
+    }
+
+    @Test
+    public void testTransferFromFileDataInput() throws IOException {
+
+        byte[] bytes = new byte[20000];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+
+        Path source = this.testDirectory.resolve("source.md");
+        Files.write(source, bytes);
+
+        try (DirectFileDataInput input = new DirectFileDataInput(source, 1024);
+             DirectFileDataOutput output = new DirectFileDataOutput(this.path, 4096)) {
+
+            input.skipBytes(10);
+            output.transfer(input);
+
+            assertFalse(input.isReadable());
+            output.flush();
+        }
+
+        byte[] expected = new byte[bytes.length - 10];
+        System.arraycopy(bytes, 10, expected, 0, expected.length);
+
+        assertFileContains(expected, this.path);
+    }
+
+    @Test
+    public void testWriteZeroBytes() throws IOException {
+
+        try (DirectFileDataOutput output = new DirectFileDataOutput(this.path, 16)) {
+
+            output.writeByte(1).writeZeroBytes(3).writeByte(2);
+            output.writeZeroBytes(100000).writeByte(3);
+
+            assertEquals(100006, output.getPosition());
+            output.flush();
+        }
+
+        byte[] expected = new byte[100006];
+        expected[0] = 1;
+        expected[4] = 2;
+        expected[100005] = 3;
+
+        assertFileContains(expected, this.path);
+    }
+
+    @Test
+    public void testTransferCompositeBuffer() throws IOException {
+
+        byte[] bytes = new byte[40];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+
+        CompositeBuffer composite = new CompositeBuffer();
+        composite.addBytes(Buffers.wrap(bytes, 0, 4));
+        composite.addBytes(Buffers.wrap(bytes, 4, 4));
+        composite.addBytes(Buffers.allocateDirect(8).writeBytes(bytes, 8, 8));
+        composite.addBytes(Buffers.wrap(bytes, 16, 2));
+        composite.addBytes(Buffers.wrap(bytes, 18, 22));
+
+        try (DirectFileDataOutput output = new DirectFileDataOutput(this.path, 16)) {
+
+            output.writeByte(-1);
+            output.transfer(composite);
+
+            assertFalse(composite.isReadable());
+            assertFileSize(41, this.path);
+            assertEquals(41, output.getPosition());
+
+            output.writeBytes(new ByteBuffer[] { ByteBuffer.wrap(new byte[] { -2 }) });
+
+            assertFileSize(41, this.path);
+            assertEquals(42, output.getPosition());
+
+            output.flush();
+        }
+
+        byte[] expected = new byte[42];
+        expected[0] = -1;
+        System.arraycopy(bytes, 0, expected, 1, bytes.length);
+        expected[41] = -2;
+
+        assertFileContains(expected, this.path);
+    }
+
+    @Test
+    public void testWriteAndReadPrimitiveArrays() throws IOException {
+
+        long[] longs = new long[] { 1, -2, Long.MAX_VALUE, Long.MIN_VALUE, 5, 6, 7 };
+        int[] ints = new int[] { 1, -2, Integer.MAX_VALUE, 4, 5 };
+        double[] doubles = new double[] { 1.5, -2.25, Double.NaN, 4.0 };
+
+        try (DirectFileDataOutput output = new DirectFileDataOutput(this.path, 20)) {
+
+            output.order(ByteOrder.BIG_ENDIAN);
+            output.writeByte(9);
+            output.writeLongs(longs, 0, longs.length);
+            output.writeInts(ints, 1, 4);
+            output.writeDoubles(doubles, 0, doubles.length);
+
+            assertEquals(1 + 56 + 16 + 32, output.getPosition());
+            output.flush();
+        }
+
+        try (DirectFileDataInput input = new DirectFileDataInput(this.path, 20)) {
+
+            input.order(ByteOrder.BIG_ENDIAN);
+
+            assertEquals(9, input.readByte());
+            assertEquals(1, input.readLong());
+
+            long[] readLongs = new long[8];
+            input.readLongs(readLongs, 2, 6);
+
+            assertArrayEquals(new long[] { 0, 0, -2, Long.MAX_VALUE, Long.MIN_VALUE, 5, 6, 7 }, readLongs);
+
+            int[] readInts = new int[4];
+            input.readInts(readInts, 0, 4);
+
+            assertArrayEquals(new int[] { -2, Integer.MAX_VALUE, 4, 5 }, readInts);
+
+            double[] readDoubles = new double[4];
+            input.readDoubles(readDoubles, 0, 4);
+
+            assertArrayEquals(doubles, readDoubles, 0.0);
+            assertFalse(input.isReadable());
+        }
+    }
 }
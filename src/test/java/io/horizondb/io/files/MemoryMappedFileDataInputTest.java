@@ -19,6 +19,7 @@ import io.horizondb.io.ByteReader;
 
 import java.io.IOException;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -109,6 +110,38 @@ public class MemoryMappedFileDataInputTest {
         }
     }
 
+    @Test
+    public void testReadInts() throws IOException {
+
+        try (MemoryMappedFileDataInput input = new MemoryMappedFileDataInput(this.buffer)) {
+
+            input.order(ByteOrder.BIG_ENDIAN);
+
+            int[] ints = new int[3];
+
+            try {
+                input.readInts(ints, 2, 2);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            try {
+                input.readInts(ints, 0, 3);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            assertEquals(0, input.getPosition());
+
+            input.readInts(ints, 1, 2);
+
+            assertArrayEquals(new int[] { 0, 0x00010203, 0x04050607 }, ints);
+            assertFalse(input.isReadable());
+        }
+    }
+
     @Test
     public void testSkip() throws IOException {
 
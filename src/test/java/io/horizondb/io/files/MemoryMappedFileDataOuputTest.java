@@ -16,6 +16,8 @@
 package io.horizondb.io.files;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -25,6 +27,8 @@ import org.junit.Test;
 
 import static io.horizondb.test.AssertFiles.assertFileContainsAt;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class MemoryMappedFileDataOuputTest {
 
@@ -88,4 +92,79 @@ public class MemoryMappedFileDataOuputTest {
             assertEquals(3, output.getPosition());
         }
     }
+
+    @Test
+    public void testWriteLongs() throws IOException {
+
+        try (MemoryMappedFileDataOutput output = new MemoryMappedFileDataOutput(FileUtils.mmap(this.path))) {
+
+            output.order(ByteOrder.BIG_ENDIAN);
+
+            long[] longs = new long[] { 0x0102030405060708L, 9, 10 };
+
+            try {
+                output.writeLongs(longs, -1, 2);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            output.seek(80);
+
+            try {
+                output.writeLongs(longs, 0, 3);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            assertEquals(80, output.getPosition());
+
+            output.writeLongs(longs, 0, 2);
+
+            assertEquals(96, output.getPosition());
+
+            output.flush();
+
+            assertFileContainsAt(80, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 0, 0, 0, 0, 0, 9 }, this.path);
+        }
+    }
+
+    @Test
+    public void testWriteByteBuffersBeyondTheEnd() throws IOException {
+
+        try (MemoryMappedFileDataOutput output = new MemoryMappedFileDataOutput(FileUtils.mmap(this.path))) {
+
+            output.seek(90);
+
+            ByteBuffer first = ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6 });
+            ByteBuffer second = ByteBuffer.wrap(new byte[] { 7, 8, 9, 10, 11, 12 });
+
+            try {
+                output.writeBytes(ByteBuffer.wrap(new byte[11]));
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            try {
+                output.writeBytes(new ByteBuffer[] { first, second });
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(true);
+            }
+
+            assertEquals(90, output.getPosition());
+            assertEquals(6, first.remaining());
+
+            second.limit(4);
+            output.writeBytes(new ByteBuffer[] { first, second });
+
+            assertEquals(100, output.getPosition());
+
+            output.flush();
+
+            assertFileContainsAt(90, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }, this.path);
+        }
+    }
 }